@@ -0,0 +1,153 @@
+package com.graduation.hospital.common.log;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import com.graduation.hospital.common.context.RequestContext;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.MDC;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 请求线程记录一条 INFO 日志的耗时：同步文本输出与 prod 环境异步 JSON 输出对比
+ * - syncPattern：FileAppender + PatternLayoutEncoder，逐条刷盘（原 dev/默认配置）
+ * - asyncPattern / asyncJson：AsyncAppender（与 logback-spring.xml prod 配置相同的队列与丢弃阈值），
+ *   请求线程只做入队；队列积压超过 80% 时 INFO 被丢弃，结果反映的是调用方耗时而非落盘吞吐
+ * - encodePattern / encodeJson：单独对比两种编码器的编码开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LoggingBenchmark {
+
+    private static final String PATTERN =
+            "%d{yyyy-MM-dd HH:mm:ss.SSS} %-5level [%X{requestId:-}] %thread %logger{36} : %msg%n";
+
+    private LoggerContext context;
+    private Path directory;
+    private Logger syncLogger;
+    private Logger asyncPatternLogger;
+    private Logger asyncJsonLogger;
+    private PatternLayoutEncoder patternEncoder;
+    private JsonLogEncoder jsonEncoder;
+    private ILoggingEvent event;
+    private long sequence;
+
+    @Setup
+    public void setup() throws Exception {
+        context = new LoggerContext();
+        // 独立的 LoggerContext 不经过 SLF4J 初始化，需显式共享 MDC 适配器
+        context.setMDCAdapter(MDC.getMDCAdapter());
+        directory = Files.createTempDirectory("logging-bench");
+
+        patternEncoder = patternEncoder();
+        jsonEncoder = jsonEncoder();
+
+        syncLogger = logger("sync", fileAppender("sync.log", patternEncoder(), true));
+        asyncPatternLogger = logger("asyncPattern", asyncAppender(fileAppender("pattern.log", patternEncoder(), false)));
+        asyncJsonLogger = logger("asyncJson", asyncAppender(fileAppender("json.log", jsonEncoder(), false)));
+
+        MDC.put(RequestContext.MDC_REQUEST_ID, RequestContext.nextRequestId());
+        MDC.put(RequestContext.MDC_USERNAME, "admin");
+        event = new LoggingEvent(Logger.class.getName(), syncLogger, Level.INFO,
+                "创建病人成功: patientNo={}, name={}", null, new Object[]{"P2026022500001", "张三"});
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        MDC.clear();
+        context.stop();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void syncPattern() {
+        syncLogger.info("创建病人成功: patientNo={}, name={}", ++sequence, "张三");
+    }
+
+    @Benchmark
+    public void asyncPattern() {
+        asyncPatternLogger.info("创建病人成功: patientNo={}, name={}", ++sequence, "张三");
+    }
+
+    @Benchmark
+    public void asyncJson() {
+        asyncJsonLogger.info("创建病人成功: patientNo={}, name={}", ++sequence, "张三");
+    }
+
+    @Benchmark
+    public byte[] encodePattern() {
+        return patternEncoder.encode(event);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return jsonEncoder.encode(event);
+    }
+
+    private Logger logger(String name, Appender<ILoggingEvent> appender) {
+        Logger logger = context.getLogger(name);
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+
+    private PatternLayoutEncoder patternEncoder() {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+        return encoder;
+    }
+
+    private JsonLogEncoder jsonEncoder() {
+        JsonLogEncoder encoder = new JsonLogEncoder();
+        encoder.setContext(context);
+        encoder.start();
+        return encoder;
+    }
+
+    private FileAppender<ILoggingEvent> fileAppender(String file, Encoder<ILoggingEvent> encoder,
+                                                      boolean immediateFlush) {
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setName(file);
+        appender.setFile(directory.resolve(file).toString());
+        appender.setEncoder(encoder);
+        appender.setImmediateFlush(immediateFlush);
+        appender.start();
+        return appender;
+    }
+
+    private AsyncAppender asyncAppender(FileAppender<ILoggingEvent> delegate) {
+        AsyncAppender appender = new AsyncAppender();
+        appender.setContext(context);
+        appender.setName("async-" + delegate.getName());
+        appender.setQueueSize(8192);
+        appender.setDiscardingThreshold(1638);
+        appender.setNeverBlock(false);
+        appender.setIncludeCallerData(false);
+        appender.setMaxFlushTime(5000);
+        appender.addAppender(delegate);
+        appender.start();
+        return appender;
+    }
+}
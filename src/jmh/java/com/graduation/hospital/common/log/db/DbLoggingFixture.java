@@ -0,0 +1,98 @@
+package com.graduation.hospital.common.log.db;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * 基准测试用的 DbLoggingService：不启动 Spring，按 @Value 注解中的默认值注入配置，
+ * 日志库、溢出文件、周期文件与归档目录全部放在临时目录中，关闭时删除
+ */
+public final class DbLoggingFixture implements AutoCloseable {
+
+    private final Path directory;
+    private final DbLoggingService service;
+
+    /**
+     * @param overrides 需要覆盖的配置，如 {@code logging.db.batch-size -> 1000}
+     */
+    public DbLoggingFixture(Map<String, String> overrides) throws Exception {
+        directory = Files.createTempDirectory("db-logging-bench");
+        Map<String, String> properties = new HashMap<>();
+        properties.put("logging.db.database-path", directory.resolve("hospital.log.db").toString());
+        properties.put("logging.db.period-directory", directory.resolve("periods").toString());
+        properties.put("logging.db.spill.path", directory.resolve("hospital.log.spill").toString());
+        properties.put("logging.db.archive.path", directory.resolve("archive").toString());
+        properties.putAll(overrides);
+
+        service = new DbLoggingService();
+        for (Field field : DbLoggingService.class.getDeclaredFields()) {
+            Value value = field.getAnnotation(Value.class);
+            if (value != null) {
+                inject(field, value.value(), properties);
+            }
+        }
+        service.init();
+    }
+
+    public DbLoggingService service() {
+        return service;
+    }
+
+    /**
+     * 等待写入线程写完指定数量的事件
+     */
+    public void awaitWritten(long target) throws InterruptedException {
+        service.flush();
+        long deadline = System.nanoTime() + 60_000_000_000L;
+        while (service.getStats().written() < target) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("等待写入超时: " + service.getStats());
+            }
+            Thread.sleep(0, 100_000);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        service.destroy();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * 解析 ${key:default}，优先使用覆盖值
+     */
+    private void inject(Field field, String expression, Map<String, String> properties) throws IllegalAccessException {
+        String body = expression.substring(2, expression.length() - 1);
+        int colon = body.indexOf(':');
+        String key = colon >= 0 ? body.substring(0, colon) : body;
+        String text = properties.getOrDefault(key, colon >= 0 ? body.substring(colon + 1) : null);
+        if (text == null) {
+            return;
+        }
+        Class<?> type = field.getType();
+        Object converted;
+        if (type == int.class) {
+            converted = Integer.parseInt(text);
+        } else if (type == long.class) {
+            converted = Long.parseLong(text);
+        } else if (type == boolean.class) {
+            converted = Boolean.parseBoolean(text);
+        } else if (type == double.class) {
+            converted = Double.parseDouble(text);
+        } else if (type == Set.class) {
+            converted = new HashSet<>(Arrays.asList(text.split(",")));
+        } else {
+            converted = text;
+        }
+        field.setAccessible(true);
+        field.set(service, converted);
+    }
+}
@@ -0,0 +1,90 @@
+package com.graduation.hospital.common.log.db;
+
+import com.graduation.hospital.entity.log.AccessLog;
+import com.graduation.hospital.entity.log.AuditLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DbLoggingService 端到端落库吞吐：按 batch-size 10 / 100 / 1000 写入临时 SQLite 库
+ * 每次调用发布 EVENTS 条事件并等待写入线程全部提交；审计日志同时计算哈希链
+ * 结果单位为 events/s
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DbLoggingFlushBenchmark {
+
+    private static final int EVENTS = 10_000;
+
+    @Param({"10", "100", "1000"})
+    private int batchSize;
+
+    private DbLoggingFixture fixture;
+    private DbLoggingService service;
+    private long published;
+
+    @Setup
+    public void setup() throws Exception {
+        // 缓冲区容纳一整轮事件，避免丢弃；关闭采样与溢出，只测批量写入
+        fixture = new DbLoggingFixture(Map.of(
+                "logging.db.batch-size", String.valueOf(batchSize),
+                "logging.db.queue-capacity", String.valueOf(EVENTS * 2),
+                "logging.db.spill.enabled", "false",
+                "logging.db.spill.memory-limit", String.valueOf(EVENTS * 2),
+                "logging.db.sampling.adaptive", "false",
+                "logging.db.endpoint-stats.enabled", "false"));
+        service = fixture.service();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void accessFlush() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < EVENTS; i++) {
+            AccessLog accessLog = new AccessLog();
+            accessLog.setRequestTime(now);
+            accessLog.setRequestId("req" + i);
+            accessLog.setMethod("GET");
+            accessLog.setUrl("/api/v1/patients/" + i);
+            accessLog.setIp("127.0.0.1");
+            accessLog.setStatus(200);
+            accessLog.setDuration(3L);
+            accessLog.setUsername("admin");
+            service.logAccess(accessLog);
+        }
+        published += EVENTS;
+        fixture.awaitWritten(published);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void auditFlush() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < EVENTS; i++) {
+            AuditLog auditLog = new AuditLog();
+            auditLog.setLogTime(now);
+            auditLog.setUsername("admin");
+            auditLog.setUserId(1L);
+            auditLog.setActionType("UPDATE");
+            auditLog.setModule("病人管理");
+            auditLog.setDescription("更新病人信息");
+            auditLog.setTarget("id=" + i);
+            auditLog.setSuccess(true);
+            service.logAudit(auditLog);
+        }
+        published += EVENTS;
+        fixture.awaitWritten(published);
+    }
+}
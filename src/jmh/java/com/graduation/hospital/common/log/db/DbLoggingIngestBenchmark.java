@@ -0,0 +1,113 @@
+package com.graduation.hospital.common.log.db;
+
+import com.graduation.hospital.entity.log.AccessLog;
+import com.graduation.hospital.entity.log.AuditLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DbLoggingService 请求线程侧的发布吞吐（1 / 8 / 64 个生产者线程）
+ * 写入线程同时向临时 SQLite 库落库；环形缓冲区写满后的事件被丢弃，
+ * 结果反映的是请求线程的发布开销，落库吞吐见 {@link DbLoggingFlushBenchmark}
+ * 结果单位为 events/s（所有线程合计）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DbLoggingIngestBenchmark {
+
+    private DbLoggingFixture fixture;
+    private DbLoggingService service;
+    private LocalDateTime now;
+
+    @Setup
+    public void setup() throws Exception {
+        // 固定采样比例，排除自适应采样对结果的影响
+        fixture = new DbLoggingFixture(Map.of(
+                "logging.db.sampling.adaptive", "false",
+                "logging.db.spill.enabled", "false",
+                "logging.db.endpoint-stats.enabled", "false"));
+        service = fixture.service();
+        now = LocalDateTime.now();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void access1Thread() {
+        service.logAccess(accessLog());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void access8Threads() {
+        service.logAccess(accessLog());
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void access64Threads() {
+        service.logAccess(accessLog());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void audit1Thread() {
+        service.logAudit(auditLog());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void audit8Threads() {
+        service.logAudit(auditLog());
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void audit64Threads() {
+        service.logAudit(auditLog());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String getTableName() {
+        return service.getTableName("access_log", now);
+    }
+
+    private AccessLog accessLog() {
+        AccessLog accessLog = new AccessLog();
+        accessLog.setRequestTime(LocalDateTime.now());
+        accessLog.setRequestId("k3x9-1a2b");
+        accessLog.setMethod("GET");
+        accessLog.setUrl("/api/v1/patients/42");
+        accessLog.setIp("127.0.0.1");
+        accessLog.setUserAgent("jmh");
+        accessLog.setStatus(200);
+        accessLog.setDuration(3L);
+        accessLog.setUsername("admin");
+        return accessLog;
+    }
+
+    private AuditLog auditLog() {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setLogTime(LocalDateTime.now());
+        auditLog.setUsername("admin");
+        auditLog.setUserId(1L);
+        auditLog.setActionType("UPDATE");
+        auditLog.setModule("病人管理");
+        auditLog.setDescription("更新病人信息");
+        auditLog.setTarget("id=42");
+        auditLog.setSuccess(true);
+        return auditLog;
+    }
+}
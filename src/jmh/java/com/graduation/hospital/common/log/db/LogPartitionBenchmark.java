@@ -0,0 +1,109 @@
+package com.graduation.hospital.common.log.db;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日志分表写入路径：旧实现与 LogPartitionRegistry 的事件吞吐对比
+ * - legacyTableName / registryTableName：每个事件的分表名解析
+ * - legacyFlush / registryFlush：按批写入临时 SQLite 库，旧实现每批查询 sqlite_master 并重新预编译 INSERT
+ * 结果单位为 events/s
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LogPartitionBenchmark {
+
+    private static final int BATCH = 100;
+    private static final String INSERT_SQL = "INSERT INTO %s (request_time, request_id, method, url, status) VALUES (?, ?, ?, ?, ?)";
+
+    private LogPartitionRegistry registry;
+    private LocalDateTime now;
+    private Path dbFile;
+    private Connection connection;
+    private String tableName;
+
+    @Setup
+    public void setup() throws Exception {
+        registry = new LogPartitionRegistry(DbLoggingService.SplitMode.DAY);
+        now = LocalDateTime.now();
+        dbFile = Files.createTempFile("log-partition-bench", ".db");
+        connection = DriverManager.getConnection("jdbc:sqlite:" + dbFile);
+        connection.setAutoCommit(false);
+        tableName = registry.tableName("access_log", now);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE " + tableName + " (id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "request_time TEXT, request_id TEXT, method TEXT, url TEXT, status INTEGER)");
+        }
+        connection.commit();
+        registry.markKnown(tableName);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        registry.closeAll();
+        connection.close();
+        Files.deleteIfExists(dbFile);
+    }
+
+    @Benchmark
+    public String legacyTableName() {
+        return "access_log" + "_" + now.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+    }
+
+    @Benchmark
+    public String registryTableName() {
+        return registry.tableName("access_log", now);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void legacyFlush() throws SQLException {
+        String table = "access_log" + "_" + now.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+        try (Statement stmt = connection.createStatement()) {
+            ResultSet rs = stmt.executeQuery(
+                    "SELECT name FROM sqlite_master WHERE type='table' AND name='" + table + "'");
+            rs.next();
+        }
+        try (PreparedStatement ps = connection.prepareStatement(String.format(INSERT_SQL, table))) {
+            for (int i = 0; i < BATCH; i++) {
+                bind(ps, i);
+            }
+            ps.executeBatch();
+        }
+        connection.commit();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void registryFlush() throws SQLException {
+        String table = registry.tableName("access_log", now);
+        if (!registry.isKnown(table)) {
+            throw new IllegalStateException(table);
+        }
+        PreparedStatement ps = registry.insertStatement(connection, table, String.format(INSERT_SQL, table));
+        for (int i = 0; i < BATCH; i++) {
+            bind(ps, i);
+        }
+        ps.executeBatch();
+        connection.commit();
+    }
+
+    private void bind(PreparedStatement ps, int i) throws SQLException {
+        ps.setString(1, now.toString());
+        ps.setString(2, "req" + i);
+        ps.setString(3, "GET");
+        ps.setString(4, "/api/v1/patients/" + i);
+        ps.setInt(5, 200);
+        ps.addBatch();
+    }
+}
@@ -0,0 +1,136 @@
+package com.graduation.hospital.common.log.db.jdbc;
+
+import com.graduation.hospital.common.log.db.DbLoggingFixture;
+import com.graduation.hospital.common.log.db.DbLoggingService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TimingDataSourceProxy 热路径开销
+ * 底层 JDBC 对象为空实现，raw 与 proxied 的差值即为每条语句的计时代理开销；
+ * logged 使用真实的 SqlLoggingListener 与 DbLoggingService（临时 SQLite 库、默认采样配置），
+ * 与 proxied 的差值即为每条语句的 SQL 日志开销（指纹、统计聚合、采样与发布）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SqlTimingProxyBenchmark {
+
+    private static final String SQL = "select p1_0.id,p1_0.name from patient p1_0 where p1_0.id=?";
+
+    private Connection rawConnection;
+    private Connection proxiedConnection;
+    private Connection loggedConnection;
+    private DbLoggingFixture fixture;
+
+    @Setup
+    public void setup() throws Exception {
+        rawConnection = noopConnection();
+        SqlExecutionListener listener = (sql, elapsedNanos, rows, paramCount, error) -> { };
+        proxiedConnection = TimingDataSourceProxy.wrap(rawConnection, listener);
+
+        fixture = new DbLoggingFixture(Map.of("logging.db.endpoint-stats.enabled", "false"));
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(
+                Map.<String, Object>of("dbLoggingService", fixture.service()));
+        loggedConnection = TimingDataSourceProxy.wrap(rawConnection,
+                new SqlLoggingListener(beanFactory.getBeanProvider(DbLoggingService.class)));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void rawQuery(Blackhole bh) throws Exception {
+        executeQuery(rawConnection, bh);
+    }
+
+    @Benchmark
+    public void proxiedQuery(Blackhole bh) throws Exception {
+        executeQuery(proxiedConnection, bh);
+    }
+
+    @Benchmark
+    public void loggedQuery(Blackhole bh) throws Exception {
+        executeQuery(loggedConnection, bh);
+    }
+
+    @Benchmark
+    public void rawUpdate(Blackhole bh) throws Exception {
+        executeUpdate(rawConnection, bh);
+    }
+
+    @Benchmark
+    public void proxiedUpdate(Blackhole bh) throws Exception {
+        executeUpdate(proxiedConnection, bh);
+    }
+
+    @Benchmark
+    public void loggedUpdate(Blackhole bh) throws Exception {
+        executeUpdate(loggedConnection, bh);
+    }
+
+    private static void executeQuery(Connection connection, Blackhole bh) throws Exception {
+        try (PreparedStatement ps = connection.prepareStatement(SQL)) {
+            ps.setLong(1, 42L);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    bh.consume(rs);
+                }
+            }
+        }
+    }
+
+    private static void executeUpdate(Connection connection, Blackhole bh) throws Exception {
+        try (PreparedStatement ps = connection.prepareStatement("update patient set name=? where id=?")) {
+            ps.setString(1, "张三");
+            ps.setLong(2, 42L);
+            bh.consume(ps.executeUpdate());
+        }
+    }
+
+    // ==================== 空实现的 JDBC 对象 ====================
+
+    static Connection noopConnection() {
+        ResultSet resultSet = noop(ResultSet.class);
+        PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(
+                SqlTimingProxyBenchmark.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "executeQuery" -> resultSet;
+                    default -> defaultValue(method.getReturnType());
+                });
+        return (Connection) Proxy.newProxyInstance(
+                SqlTimingProxyBenchmark.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> method.getName().startsWith("prepare")
+                        ? statement : defaultValue(method.getReturnType()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T noop(Class<T> type) {
+        return (T) Proxy.newProxyInstance(SqlTimingProxyBenchmark.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> defaultValue(method.getReturnType()));
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) return false;
+        if (type == int.class) return 1;
+        if (type == long.class) return 1L;
+        if (type == double.class) return 0d;
+        if (type == float.class) return 0f;
+        if (type == short.class) return (short) 0;
+        if (type == byte.class) return (byte) 0;
+        return null;
+    }
+}
@@ -0,0 +1,160 @@
+package com.graduation.hospital.config;
+
+import com.graduation.hospital.common.security.PrincipalCache;
+import com.graduation.hospital.common.security.StatelessAuthorities;
+import com.graduation.hospital.common.security.TokenRevocationList;
+import com.graduation.hospital.common.security.WebSocketTicketService;
+import com.graduation.hospital.common.util.JwtUtil;
+import com.graduation.hospital.entity.SysRole;
+import com.graduation.hospital.entity.SysUser;
+import com.graduation.hospital.repository.RevokedTokenRepository;
+import com.graduation.hospital.repository.SysUserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtAuthenticationFilter 认证路径开销（不含数据库：用户仓库为内存实现，认证用户缓存开启）
+ * - rebuildParserTwice：原实现，每次调用重新派生密钥、构建解析器，并解析两次（validateToken + getUsernameFromToken）
+ * - parseOnce：复用启动时构建的解析器，解析一次（仍做 HMAC 与 JSON 解析）
+ * - verifyCached：已验证 Token 缓存命中
+ * - filter：完整的 doFilterInternal（取 Token、验证、吊销检查、取认证用户、写入安全上下文）
+ * - filterStateless：开启 jwt.stateless-authorities，角色取自 Token，不经过认证用户缓存
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtAuthenticationBenchmark {
+
+    private static final String SECRET = "HospitalInfoManagementSecretKeyForJWTToken2026";
+
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filter;
+    private JwtAuthenticationFilter statelessFilter;
+    private String token;
+    private HttpServletRequest request;
+    private HttpServletRequest statelessRequest;
+    private HttpServletResponse response;
+    private FilterChain chain;
+
+    @Setup
+    public void setup() throws Exception {
+        jwtUtil = new JwtUtil(SECRET, 86_400_000L, false, 900_000L, 10_000);
+        token = jwtUtil.generateToken("admin", 1L);
+
+        SysRole role = new SysRole();
+        role.setCode("ADMIN");
+        SysUser user = new SysUser();
+        user.setId(1L);
+        user.setUsername("admin");
+        user.setEnabled(true);
+        user.setRoles(Set.of(role));
+        SysUserRepository repository = (SysUserRepository) Proxy.newProxyInstance(
+                SysUserRepository.class.getClassLoader(), new Class<?>[]{SysUserRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findByUsername")) {
+                        return Optional.of(user);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        PrincipalCache principalCache = new PrincipalCache(repository);
+        set(principalCache, "enabled", true);
+        set(principalCache, "maxSize", 10_000);
+        set(principalCache, "ttl", 300_000L);
+
+        // 吊销表不加载数据库，保持为空快照
+        RevokedTokenRepository revokedTokens = (RevokedTokenRepository) Proxy.newProxyInstance(
+                RevokedTokenRepository.class.getClassLoader(), new Class<?>[]{RevokedTokenRepository.class},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        TokenRevocationList revocationList = new TokenRevocationList(revokedTokens, jwtUtil);
+
+        WebSocketTicketService ticketService = new WebSocketTicketService(30_000, 1024);
+
+        filter = new JwtAuthenticationFilter(jwtUtil, principalCache, revocationList, new StatelessAuthorities(), ticketService);
+        request = request("Bearer " + token);
+
+        StatelessAuthorities statelessAuthorities = new StatelessAuthorities();
+        set(statelessAuthorities, "enabled", true);
+        String statelessToken = jwtUtil.generateToken("admin", 1L, statelessAuthorities.claims(1L, List.of("ADMIN")));
+        statelessFilter = new JwtAuthenticationFilter(jwtUtil, principalCache, revocationList, statelessAuthorities, ticketService);
+        statelessRequest = request("Bearer " + statelessToken);
+        response = (HttpServletResponse) Proxy.newProxyInstance(
+                HttpServletResponse.class.getClassLoader(), new Class<?>[]{HttpServletResponse.class},
+                (proxy, method, args) -> null);
+        chain = (req, res) -> { };
+    }
+
+    @Benchmark
+    public String rebuildParserTwice() {
+        Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token);
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload()
+                .getSubject();
+    }
+
+    @Benchmark
+    public String parseOnce() {
+        return jwtUtil.getClaimsFromToken(token).getSubject();
+    }
+
+    @Benchmark
+    public Claims verifyCached() {
+        return jwtUtil.verifyToken(token);
+    }
+
+    @Benchmark
+    public Object filter() throws Exception {
+        filter.doFilterInternal(request, response, chain);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    @Benchmark
+    public Object filterStateless() throws Exception {
+        statelessFilter.doFilterInternal(statelessRequest, response, chain);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    private static HttpServletRequest request(String header) {
+        return (HttpServletRequest) Proxy.newProxyInstance(
+                HttpServletRequest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getHeader" -> "Authorization".equals(args[0]) ? header : null;
+                    case "getRequestURI" -> "/api/v1/patients";
+                    default -> null;
+                });
+    }
+
+    private static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
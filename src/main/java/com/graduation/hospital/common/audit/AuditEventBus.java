@@ -0,0 +1,234 @@
+package com.graduation.hospital.common.audit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内审计事件总线
+ * - 在事务中发布的事件暂存在当前事务上，提交后（afterCommit）才投递，回滚时丢弃
+ * - 不在事务中的事件、以及失败事件（通常正是回滚原因）立即投递
+ * - 每个 {@link AuditSink} 拥有独立的有界队列与工作线程，按批写出，慢输出端不影响其他输出端
+ * 请求线程只做入队，日志拼接与写库均在工作线程完成
+ */
+@Slf4j
+@Component
+public class AuditEventBus {
+
+    private final List<Worker> workers = new ArrayList<>();
+    private final List<AuditSink> sinks;
+
+    @Value("${logging.audit.queue-capacity:4096}")
+    private int queueCapacity;
+
+    @Value("${logging.audit.batch-size:256}")
+    private int batchSize;
+
+    /** 队列持续写满时等待的最长时间，超时后丢弃并计数 */
+    @Value("${logging.audit.offer-timeout-ms:1000}")
+    private long offerTimeoutMs;
+
+    private final AtomicLong discardedByRollback = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public AuditEventBus(List<AuditSink> sinks) {
+        this.sinks = sinks;
+    }
+
+    @PostConstruct
+    public void init() {
+        for (AuditSink sink : sinks) {
+            Worker worker = new Worker(sink, new ArrayBlockingQueue<>(queueCapacity));
+            worker.thread = Thread.ofPlatform()
+                    .name("audit-sink-" + sink.name())
+                    .daemon(true)
+                    .start(worker::run);
+            workers.add(worker);
+        }
+        log.info("审计事件总线已启动: sinks={}, queueCapacity={}, batchSize={}",
+                sinks.stream().map(AuditSink::name).toList(), queueCapacity, batchSize);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        for (Worker worker : workers) {
+            worker.running = false;
+        }
+        for (Worker worker : workers) {
+            try {
+                worker.thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // 写出工作线程退出后剩余的事件
+            List<AuditLogger.AuditLog> rest = new ArrayList<>();
+            worker.queue.drainTo(rest);
+            if (!rest.isEmpty()) {
+                worker.write(rest);
+            }
+        }
+    }
+
+    /**
+     * 发布审计事件
+     */
+    public void publish(AuditLogger.AuditLog event) {
+        if (event.isSuccess()
+                && TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.isActualTransactionActive()) {
+            PendingEvents pending = currentPending();
+            if (pending != null && pending.add(event)) {
+                return;
+            }
+        }
+        dispatch(event);
+    }
+
+    /**
+     * 已因事务回滚丢弃的事件数
+     */
+    public long getDiscardedByRollback() {
+        return discardedByRollback.get();
+    }
+
+    /**
+     * 因队列写满丢弃的事件数（按输出端累计）
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * 取当前事务上的暂存列表，没有则注册
+     * 在同步列表而非线程资源上查找：REQUIRES_NEW 挂起外层事务时同步列表随之切换，
+     * 内层事务的事件不会混入外层
+     */
+    private PendingEvents currentPending() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingEvents pending && pending.bus() == this) {
+                return pending;
+            }
+        }
+        PendingEvents pending = new PendingEvents(this);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private void dispatch(AuditLogger.AuditLog event) {
+        for (Worker worker : workers) {
+            try {
+                if (!worker.queue.offer(event, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    long count = dropped.incrementAndGet();
+                    log.error("审计队列已满，丢弃事件: sink={}, dropped={}", worker.sink.name(), count);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 事务内暂存的审计事件
+     */
+    private static final class PendingEvents implements TransactionSynchronization {
+
+        private final AuditEventBus bus;
+        private final List<AuditLogger.AuditLog> events = new ArrayList<>();
+        private boolean completed;
+
+        PendingEvents(AuditEventBus bus) {
+            this.bus = bus;
+        }
+
+        AuditEventBus bus() {
+            return bus;
+        }
+
+        /**
+         * 暂存事件；事务已进入完成阶段时返回 false，由调用方直接投递
+         */
+        boolean add(AuditLogger.AuditLog event) {
+            if (completed) {
+                return false;
+            }
+            events.add(event);
+            return true;
+        }
+
+        @Override
+        public void afterCommit() {
+            completed = true;
+            for (AuditLogger.AuditLog event : events) {
+                bus.dispatch(event);
+            }
+            events.clear();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            completed = true;
+            if (status != STATUS_COMMITTED && !events.isEmpty()) {
+                bus.discardedByRollback.addAndGet(events.size());
+                log.debug("事务回滚，丢弃审计事件: {}", events.size());
+            }
+            events.clear();
+        }
+    }
+
+    /**
+     * 单个输出端的队列与工作线程
+     */
+    private final class Worker {
+
+        final AuditSink sink;
+        final BlockingQueue<AuditLogger.AuditLog> queue;
+        Thread thread;
+        volatile boolean running = true;
+
+        Worker(AuditSink sink, BlockingQueue<AuditLogger.AuditLog> queue) {
+            this.sink = sink;
+            this.queue = queue;
+        }
+
+        void run() {
+            List<AuditLogger.AuditLog> batch = new ArrayList<>(batchSize);
+            while (running) {
+                try {
+                    AuditLogger.AuditLog first = queue.poll(500, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    write(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+
+        void write(List<AuditLogger.AuditLog> batch) {
+            try {
+                sink.write(batch);
+            } catch (Exception e) {
+                log.error("审计事件写出失败: sink={}, size={}", sink.name(), batch.size(), e);
+            }
+        }
+    }
+}
@@ -1,10 +1,9 @@
 package com.graduation.hospital.common.audit;
 
-import com.graduation.hospital.common.log.db.DbLoggingService;
+import com.graduation.hospital.common.context.RequestContext;
 import com.graduation.hospital.entity.SysUser;
 import lombok.Builder;
 import lombok.Data;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -18,13 +17,13 @@ import java.time.LocalDateTime;
  * - 登录/登出
  * - 数据创建、修改、删除
  * - 敏感操作（权限修改等）
+ * 记录时只补全请求信息并发布到 {@link AuditEventBus}，由各输出端（文件、日志库）异步写出
  */
-@Slf4j
 @Component
 public class AuditLogger {
 
-    @Autowired(required = false)
-    private DbLoggingService dbLoggingService;
+    @Autowired
+    private AuditEventBus auditEventBus;
 
     /**
      * 操作类型枚举
@@ -89,49 +88,26 @@ public class AuditLogger {
      * 记录审计日志
      */
     public void log(AuditLog auditLog) {
-        // 构建日志内容
-        StringBuilder sb = new StringBuilder();
-        sb.append("AUDIT | ");
-        sb.append("用户: ").append(auditLog.getUsername()).append(" | ");
-        sb.append("操作: ").append(auditLog.getActionType().getDescription()).append(" | ");
-        sb.append("模块: ").append(auditLog.getModule()).append(" | ");
-        sb.append("描述: ").append(auditLog.getDescription());
-
-        if (auditLog.getTarget() != null) {
-            sb.append(" | 目标: ").append(auditLog.getTarget());
-        }
-
-        if (!auditLog.isSuccess()) {
-            sb.append(" | 失败: ").append(auditLog.getErrorMessage());
+        // 未显式指定的请求信息取自请求上下文（异步任务中需已通过 RequestContext.wrap 传递）
+        RequestContext context = RequestContext.current();
+        if (context != null) {
+            if (auditLog.getIp() == null) {
+                auditLog.setIp(context.getIp());
+            }
+            if (auditLog.getMethod() == null) {
+                auditLog.setMethod(context.getMethod());
+            }
+            if (auditLog.getUrl() == null) {
+                auditLog.setUrl(context.getUri());
+            }
         }
 
-        // 记录日志
-        if (auditLog.isSuccess()) {
-            log.info(sb.toString());
-        } else {
-            log.warn(sb.toString());
+        if (auditLog.getTimestamp() == null) {
+            auditLog.setTimestamp(LocalDateTime.now());
         }
 
-        // 写入 SQLite 数据库
-        if (dbLoggingService != null) {
-            try {
-                dbLoggingService.logAuditFromEvent(
-                        auditLog.getUsername(),
-                        auditLog.getUserId(),
-                        auditLog.getActionType() != null ? auditLog.getActionType().name() : null,
-                        auditLog.getModule(),
-                        auditLog.getDescription(),
-                        auditLog.getTarget(),
-                        auditLog.getIp(),
-                        auditLog.getMethod(),
-                        auditLog.getUrl(),
-                        auditLog.isSuccess(),
-                        auditLog.getErrorMessage()
-                );
-            } catch (Exception e) {
-                log.debug("审计日志写入数据库失败: {}", e.getMessage());
-            }
-        }
+        // 交给审计事件总线：事务内的事件在提交后投递，回滚则丢弃
+        auditEventBus.publish(auditLog);
     }
 
     /**
@@ -188,8 +164,13 @@ public class AuditLogger {
     public void logAction(ActionType actionType, String module, String description,
                           String target, boolean success, String errorMessage) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth != null ? auth.getName() : "anonymous";
+        RequestContext context = RequestContext.current();
+        String username = auth != null ? auth.getName()
+                : context != null && context.getUsername() != null ? context.getUsername() : "anonymous";
         Long userId = getCurrentUserId();
+        if (userId == null && context != null) {
+            userId = context.getUserId();
+        }
 
         log(AuditLog.builder()
                 .timestamp(LocalDateTime.now())
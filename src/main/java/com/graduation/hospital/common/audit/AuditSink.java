@@ -0,0 +1,20 @@
+package com.graduation.hospital.common.audit;
+
+import java.util.List;
+
+/**
+ * 审计事件输出端
+ * 每个输出端由 {@link AuditEventBus} 的独立工作线程按批调用，实现无需考虑并发
+ */
+public interface AuditSink {
+
+    /**
+     * 输出端名称（用于工作线程命名与日志）
+     */
+    String name();
+
+    /**
+     * 写入一批已提交的审计事件
+     */
+    void write(List<AuditLogger.AuditLog> batch);
+}
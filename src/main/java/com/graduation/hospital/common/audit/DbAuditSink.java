@@ -0,0 +1,47 @@
+package com.graduation.hospital.common.audit;
+
+import com.graduation.hospital.common.log.db.DbLoggingService;
+import com.graduation.hospital.entity.log.AuditLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 审计日志数据库输出端
+ * 写入 DbLoggingService 的环形缓冲，记录时间使用事件发生时间而非投递时间
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "logging.db.enabled", havingValue = "true")
+public class DbAuditSink implements AuditSink {
+
+    private final DbLoggingService dbLoggingService;
+
+    @Override
+    public String name() {
+        return "db";
+    }
+
+    @Override
+    public void write(List<AuditLogger.AuditLog> batch) {
+        for (AuditLogger.AuditLog event : batch) {
+            AuditLog auditLog = new AuditLog();
+            auditLog.setLogTime(event.getTimestamp() != null ? event.getTimestamp() : LocalDateTime.now());
+            auditLog.setUsername(event.getUsername());
+            auditLog.setUserId(event.getUserId());
+            auditLog.setActionType(event.getActionType() != null ? event.getActionType().name() : null);
+            auditLog.setModule(event.getModule());
+            auditLog.setDescription(event.getDescription());
+            auditLog.setTarget(event.getTarget());
+            auditLog.setIp(event.getIp());
+            auditLog.setMethod(event.getMethod());
+            auditLog.setUrl(event.getUrl());
+            auditLog.setSuccess(event.isSuccess());
+            auditLog.setErrorMessage(event.getErrorMessage());
+            dbLoggingService.logAudit(auditLog);
+        }
+    }
+}
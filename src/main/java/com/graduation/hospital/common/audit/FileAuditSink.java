@@ -0,0 +1,48 @@
+package com.graduation.hospital.common.audit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 审计日志文件输出端
+ * 通过 common.audit 包下的 Logger 输出，由 logback-spring.xml 路由到审计日志文件
+ */
+@Slf4j
+@Component
+public class FileAuditSink implements AuditSink {
+
+    private final StringBuilder sb = new StringBuilder(256);
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public void write(List<AuditLogger.AuditLog> batch) {
+        for (AuditLogger.AuditLog auditLog : batch) {
+            sb.setLength(0);
+            sb.append("AUDIT | ");
+            sb.append("用户: ").append(auditLog.getUsername()).append(" | ");
+            sb.append("操作: ").append(auditLog.getActionType().getDescription()).append(" | ");
+            sb.append("模块: ").append(auditLog.getModule()).append(" | ");
+            sb.append("描述: ").append(auditLog.getDescription());
+
+            if (auditLog.getTarget() != null) {
+                sb.append(" | 目标: ").append(auditLog.getTarget());
+            }
+
+            if (!auditLog.isSuccess()) {
+                sb.append(" | 失败: ").append(auditLog.getErrorMessage());
+            }
+
+            if (auditLog.isSuccess()) {
+                log.info(sb.toString());
+            } else {
+                log.warn(sb.toString());
+            }
+        }
+    }
+}
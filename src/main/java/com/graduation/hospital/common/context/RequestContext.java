@@ -0,0 +1,243 @@
+package com.graduation.hospital.common.context;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.MDC;
+
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 请求上下文
+ * 每个 HTTP 请求在最外层过滤器中创建一次，集中保存请求 ID、客户端 IP、User-Agent 与登录用户，
+ * 供请求日志、访问日志、审计日志与 SQL 日志共用，不再各自生成请求 ID、解析 IP
+ * - 请求 ID = 节点前缀 + 自增计数（base36），避免 UUID.randomUUID 在高并发下争用 SecureRandom；
+ *   上游已携带合法的 X-Request-Id 时沿用，便于跨服务追踪
+ * - 上下文保存在 ThreadLocal 中；异步任务与虚拟线程需通过 {@link #wrap} 或
+ *   {@link RequestContextTaskDecorator} 显式传递（不使用 InheritableThreadLocal，线程池复用线程时会串号）
+ */
+public final class RequestContext {
+
+    /** MDC 中请求 ID 的键 */
+    public static final String MDC_REQUEST_ID = "requestId";
+
+    /** MDC 中登录用户名的键 */
+    public static final String MDC_USERNAME = "username";
+
+    /** 请求 / 响应头 */
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    private static final ThreadLocal<RequestContext> CURRENT = new ThreadLocal<>();
+
+    private static final String[] IP_HEADERS = {
+            "X-Forwarded-For",
+            "X-Real-IP",
+            "Proxy-Client-IP",
+            "WL-Proxy-Client-IP"
+    };
+
+    private static final Pattern EXTERNAL_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    /** 节点前缀：进程启动时随机生成，区分多实例与重启 */
+    private static final String NODE_PREFIX;
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    static {
+        String prefix = Integer.toString(new SecureRandom().nextInt(36 * 36 * 36 * 36), 36);
+        NODE_PREFIX = "0".repeat(4 - prefix.length()) + prefix;
+    }
+
+    private final String requestId;
+    private final String method;
+    private final String uri;
+    private final String ip;
+    private final String userAgent;
+    private final long startNanos;
+    private volatile String username;
+    private volatile Long userId;
+
+    private RequestContext(String requestId, String method, String uri, String ip, String userAgent) {
+        this.requestId = requestId;
+        this.method = method;
+        this.uri = uri;
+        this.ip = ip;
+        this.userAgent = userAgent;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * 由 HTTP 请求创建上下文（不绑定到当前线程）
+     */
+    public static RequestContext of(HttpServletRequest request) {
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId == null || !EXTERNAL_ID.matcher(requestId).matches()) {
+            requestId = nextRequestId();
+        }
+        return new RequestContext(requestId, request.getMethod(), request.getRequestURI(),
+                resolveClientIp(request), request.getHeader("User-Agent"));
+    }
+
+    /**
+     * 生成请求 ID，如 k3x9-1a2b
+     */
+    public static String nextRequestId() {
+        return NODE_PREFIX + "-" + Long.toString(SEQUENCE.incrementAndGet(), 36);
+    }
+
+    /**
+     * 解析客户端真实 IP（多次代理时取第一个）
+     * 转发头可由客户端伪造，结果只用于日志标注；限流等安全判断使用 {@code request.getRemoteAddr()}
+     */
+    public static String resolveClientIp(HttpServletRequest request) {
+        for (String header : IP_HEADERS) {
+            String ip = request.getHeader(header);
+            if (ip != null && !ip.isEmpty() && !"unknown".equalsIgnoreCase(ip)) {
+                int comma = ip.indexOf(',');
+                return comma >= 0 ? ip.substring(0, comma).trim() : ip;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    // ==================== 线程绑定 ====================
+
+    /**
+     * 当前线程的请求上下文，不在请求中时为 null
+     */
+    public static RequestContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 当前请求 ID，不在请求中时为 null
+     */
+    public static String currentRequestId() {
+        RequestContext context = CURRENT.get();
+        return context != null ? context.requestId : null;
+    }
+
+    /**
+     * 绑定到当前线程，并写入 MDC
+     */
+    public void attach() {
+        CURRENT.set(this);
+        MDC.put(MDC_REQUEST_ID, requestId);
+    }
+
+    /**
+     * 解除当前线程的绑定
+     */
+    public static void detach() {
+        CURRENT.remove();
+        MDC.remove(MDC_REQUEST_ID);
+        MDC.remove(MDC_USERNAME);
+    }
+
+    /**
+     * 包装任务：在执行线程上恢复提交时的请求上下文与 MDC，执行结束后还原
+     */
+    public static Runnable wrap(Runnable task) {
+        RequestContext context = CURRENT.get();
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        if (context == null && mdc == null) {
+            return task;
+        }
+        return () -> {
+            RequestContext previous = CURRENT.get();
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            bind(context, mdc);
+            try {
+                task.run();
+            } finally {
+                bind(previous, previousMdc);
+            }
+        };
+    }
+
+    /**
+     * 包装有返回值的任务，语义同 {@link #wrap(Runnable)}
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        RequestContext context = CURRENT.get();
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        if (context == null && mdc == null) {
+            return task;
+        }
+        return () -> {
+            RequestContext previous = CURRENT.get();
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            bind(context, mdc);
+            try {
+                return task.call();
+            } finally {
+                bind(previous, previousMdc);
+            }
+        };
+    }
+
+    private static void bind(RequestContext context, Map<String, String> mdc) {
+        if (context != null) {
+            CURRENT.set(context);
+        } else {
+            CURRENT.remove();
+        }
+        if (mdc != null) {
+            MDC.setContextMap(mdc);
+        } else {
+            MDC.clear();
+        }
+    }
+
+    // ==================== 属性 ====================
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    public String getUserAgent() {
+        return userAgent;
+    }
+
+    /**
+     * 请求开始至今的耗时（纳秒）
+     */
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * 登录用户名，认证完成前为 null
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * 认证成功后记录登录用户（在请求线程调用，同时写入 MDC）
+     */
+    public void setUser(String username, Long userId) {
+        this.username = username;
+        this.userId = userId;
+        if (username != null) {
+            MDC.put(MDC_USERNAME, username);
+        }
+    }
+}
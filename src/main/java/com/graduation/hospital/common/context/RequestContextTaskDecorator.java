@@ -0,0 +1,18 @@
+package com.graduation.hospital.common.context;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+/**
+ * 将请求上下文与 MDC 传递到异步任务
+ * Spring Boot 会把唯一的 TaskDecorator 应用到自动配置的 applicationTaskExecutor
+ * （@Async、MVC 异步请求；开启 spring.threads.virtual.enabled 时为虚拟线程执行器）
+ */
+@Component
+public class RequestContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return RequestContext.wrap(runnable);
+    }
+}
@@ -1,6 +1,8 @@
 package com.graduation.hospital.common.handler;
 
 import com.graduation.hospital.common.Result;
+import com.graduation.hospital.common.security.ThrottledException;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
@@ -53,6 +55,13 @@ public class GlobalExceptionHandler {
         return Result.error(403, "权限不足");
     }
 
+    @ExceptionHandler(ThrottledException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public Result<Void> handleThrottledException(ThrottledException e, HttpServletResponse response) {
+        response.setHeader("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+        return Result.error(429, e.getMessage());
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public Result<Void> handleException(Exception e) {
@@ -0,0 +1,229 @@
+package com.graduation.hospital.common.log;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+import com.graduation.hospital.common.context.RequestContext;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 结构化 JSON 日志编码器（每行一个 JSON 对象）
+ * <pre>
+ * {"ts":"2026-10-17T10:15:30.123+08:00","level":"INFO","logger":"...","thread":"...",
+ *  "requestId":"k3x9-1a2b","username":"admin","msg":"...","exception":"...","mdc":{...}}
+ * </pre>
+ * - 直接按 UTF-8 写入线程复用的字节缓冲，除返回的字节数组外不产生中间字符串
+ * - 时间戳按秒缓存格式化前缀，同一秒内只拼接毫秒
+ * - requestId / username 取自 MDC，其余 MDC 字段放在 mdc 对象中
+ */
+public class JsonLogEncoder extends EncoderBase<ILoggingEvent> {
+
+    private static final byte[] EMPTY = new byte[0];
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    /** 单条日志超过该大小后不再保留缓冲，避免个别大日志长期占用内存 */
+    private static final int MAX_RETAINED = 64 * 1024;
+
+    private static final DateTimeFormatter SECOND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.");
+    private static final DateTimeFormatter OFFSET_FORMAT = DateTimeFormatter.ofPattern("xxx");
+
+    private final ThreadLocal<Buffer> buffers = ThreadLocal.withInitial(Buffer::new);
+    private final ZoneId zone = ZoneId.systemDefault();
+    private volatile SecondCache secondCache = new SecondCache(Long.MIN_VALUE, EMPTY, EMPTY);
+
+    private record SecondCache(long epochSecond, byte[] prefix, byte[] offset) {
+    }
+
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        Buffer out = buffers.get();
+        out.reset();
+
+        out.ascii("{\"ts\":\"");
+        writeTimestamp(out, event.getTimeStamp());
+        out.ascii("\",\"level\":\"").ascii(event.getLevel().toString());
+        out.ascii("\",\"logger\":").string(event.getLoggerName());
+        out.ascii(",\"thread\":").string(event.getThreadName());
+
+        Map<String, String> mdc = event.getMDCPropertyMap();
+        String requestId = mdc.get(RequestContext.MDC_REQUEST_ID);
+        if (requestId != null) {
+            out.ascii(",\"requestId\":").string(requestId);
+        }
+        String username = mdc.get(RequestContext.MDC_USERNAME);
+        if (username != null) {
+            out.ascii(",\"username\":").string(username);
+        }
+
+        out.ascii(",\"msg\":").string(event.getFormattedMessage());
+
+        IThrowableProxy throwable = event.getThrowableProxy();
+        if (throwable != null) {
+            out.ascii(",\"exception\":").string(ThrowableProxyUtil.asString(throwable));
+        }
+
+        int extra = mdc.size() - (requestId != null ? 1 : 0) - (username != null ? 1 : 0);
+        if (extra > 0) {
+            out.ascii(",\"mdc\":{");
+            boolean first = true;
+            for (Map.Entry<String, String> entry : mdc.entrySet()) {
+                String key = entry.getKey();
+                if (key.equals(RequestContext.MDC_REQUEST_ID) || key.equals(RequestContext.MDC_USERNAME)) {
+                    continue;
+                }
+                if (!first) {
+                    out.ascii(",");
+                }
+                first = false;
+                out.string(key).ascii(":").string(entry.getValue());
+            }
+            out.ascii("}");
+        }
+        out.ascii("}\n");
+
+        byte[] bytes = out.toByteArray();
+        if (out.capacity() > MAX_RETAINED) {
+            buffers.remove();
+        }
+        return bytes;
+    }
+
+    private void writeTimestamp(Buffer out, long millis) {
+        long second = Math.floorDiv(millis, 1000);
+        SecondCache cache = secondCache;
+        if (cache.epochSecond() != second) {
+            ZonedDateTime time = Instant.ofEpochSecond(second).atZone(zone);
+            cache = new SecondCache(second,
+                    SECOND_FORMAT.format(time).getBytes(), OFFSET_FORMAT.format(time).getBytes());
+            secondCache = cache;
+        }
+        int ms = (int) Math.floorMod(millis, 1000);
+        out.bytes(cache.prefix());
+        out.digit(ms / 100).digit(ms / 10 % 10).digit(ms % 10);
+        out.bytes(cache.offset());
+    }
+
+    /**
+     * 可复用的 UTF-8 字节缓冲
+     */
+    private static final class Buffer {
+        private byte[] data = new byte[512];
+        private int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        int capacity() {
+            return data.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(data, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + extra));
+            }
+        }
+
+        Buffer bytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, data, size, bytes.length);
+            size += bytes.length;
+            return this;
+        }
+
+        Buffer digit(int digit) {
+            ensure(1);
+            data[size++] = (byte) ('0' + digit);
+            return this;
+        }
+
+        /** 写入不需要转义的 ASCII 常量 */
+        Buffer ascii(String s) {
+            int length = s.length();
+            ensure(length);
+            for (int i = 0; i < length; i++) {
+                data[size++] = (byte) s.charAt(i);
+            }
+            return this;
+        }
+
+        /** 写入带引号、按 JSON 规则转义的字符串，null 写为 null */
+        Buffer string(String s) {
+            if (s == null) {
+                return ascii("null");
+            }
+            int length = s.length();
+            // 最坏情况：每个字符 \\uXXXX（6 字节）或 3 字节 UTF-8
+            ensure(length * 6 + 2);
+            data[size++] = '"';
+            for (int i = 0; i < length; i++) {
+                char c = s.charAt(i);
+                if (c >= 0x20 && c < 0x80) {
+                    if (c == '"' || c == '\\') {
+                        data[size++] = '\\';
+                    }
+                    data[size++] = (byte) c;
+                } else if (c < 0x20) {
+                    escapeControl(c);
+                } else if (c < 0x800) {
+                    data[size++] = (byte) (0xC0 | (c >> 6));
+                    data[size++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    data[size++] = (byte) (0xF0 | (cp >> 18));
+                    data[size++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    data[size++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    data[size++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    // 不成对的代理字符替换为 '?'
+                    data[size++] = '?';
+                } else {
+                    data[size++] = (byte) (0xE0 | (c >> 12));
+                    data[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    data[size++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            data[size++] = '"';
+            return this;
+        }
+
+        private void escapeControl(char c) {
+            data[size++] = '\\';
+            switch (c) {
+                case '\n' -> data[size++] = 'n';
+                case '\r' -> data[size++] = 'r';
+                case '\t' -> data[size++] = 't';
+                case '\b' -> data[size++] = 'b';
+                case '\f' -> data[size++] = 'f';
+                default -> {
+                    data[size++] = 'u';
+                    data[size++] = '0';
+                    data[size++] = '0';
+                    data[size++] = HEX[c >> 4];
+                    data[size++] = HEX[c & 0xF];
+                }
+            }
+        }
+    }
+}
@@ -1,116 +1,70 @@
 package com.graduation.hospital.common.log;
 
+import com.graduation.hospital.common.context.RequestContext;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
-import org.slf4j.MDC;
+import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.UUID;
 
 /**
  * HTTP 请求日志拦截器
- * 记录每个请求的详细信息，包括：
- * - 请求 ID（用于链路追踪）
+ * 位于过滤器链最外层（Spring Security 之前），为每个请求建立 {@link RequestContext} 并记录：
+ * - 请求 ID（用于链路追踪，写入 MDC 与 X-Request-Id 响应头）
  * - 请求 URL、Method
- * - 请求参数
  * - 响应状态码、耗时
  * - 客户端 IP
  */
 @Slf4j
 @Component
-@Order(1)
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
 public class RequestLoggingFilter implements Filter {
 
-    private static final String REQUEST_ID = "requestId";
-    private static final String START_TIME = "startTime";
-
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
 
         HttpServletRequest httpRequest = (HttpServletRequest) request;
-        String uri = httpRequest.getRequestURI();
-
-        // 跳过 /api 路径（由 JwtAuthenticationFilter 记录）
-        if (uri.startsWith("/api/")) {
-            chain.doFilter(request, response);
-            return;
-        }
-
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
-        // 生成请求 ID
-        String requestId = UUID.randomUUID().toString().substring(0, 8);
-        MDC.put(REQUEST_ID, requestId);
-        httpResponse.setHeader("X-Request-Id", requestId);
-
-        // 记录请求开始时间
-        long startTime = System.currentTimeMillis();
-        httpRequest.setAttribute(START_TIME, startTime);
+        // 建立请求上下文（请求 ID、IP、UA 只解析一次）
+        RequestContext context = RequestContext.of(httpRequest);
+        context.attach();
+        httpResponse.setHeader(RequestContext.REQUEST_ID_HEADER, context.getRequestId());
 
         // 记录请求日志
         log.info("→ {} {} | IP: {} | UA: {}",
-                httpRequest.getMethod(),
-                httpRequest.getRequestURI(),
-                getClientIp(httpRequest),
-                getUserAgent(httpRequest));
+                context.getMethod(),
+                context.getUri(),
+                context.getIp(),
+                abbreviate(context.getUserAgent()));
 
         try {
             chain.doFilter(request, response);
         } finally {
-            // 计算耗时
-            long duration = System.currentTimeMillis() - startTime;
-            int status = httpResponse.getStatus();
-
             // 记录响应日志
             log.info("← {} {} | Status: {} | Duration: {}ms",
-                    httpRequest.getMethod(),
-                    httpRequest.getRequestURI(),
-                    status,
-                    duration);
+                    context.getMethod(),
+                    context.getUri(),
+                    httpResponse.getStatus(),
+                    context.elapsedNanos() / 1_000_000);
 
-            // 清理 MDC
-            MDC.remove(REQUEST_ID);
+            // 清理上下文与 MDC
+            RequestContext.detach();
         }
     }
 
     /**
-     * 获取客户端真实 IP
-     */
-    private String getClientIp(HttpServletRequest request) {
-        // noinspection DuplicatedCode
-        String[] headers = {
-            "X-Forwarded-For",
-            "X-Real-IP",
-            "Proxy-Client-IP",
-            "WL-Proxy-Client-IP"
-        };
-
-        for (String header : headers) {
-            String ip = request.getHeader(header);
-            if (ip != null && !ip.isEmpty() && !"unknown".equalsIgnoreCase(ip)) {
-                // 多次代理时取第一个
-                return ip.contains(",") ? ip.split(",")[0].trim() : ip;
-            }
-        }
-
-        return request.getRemoteAddr();
-    }
-
-
-    /**
-     * 获取用户代理
+     * 简化用户代理
      */
-    private String getUserAgent(HttpServletRequest request) {
-        String ua = request.getHeader("User-Agent");
+    private String abbreviate(String ua) {
         if (ua == null || ua.isEmpty()) {
             return "-";
         }
-        // 截取简化
         return ua.length() > 100 ? ua.substring(0, 100) + "..." : ua;
     }
 }
@@ -0,0 +1,293 @@
+package com.graduation.hospital.common.log.db;
+
+import com.graduation.hospital.entity.log.AuditLog;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * 审计日志哈希链
+ * 写入线程每写入一批审计日志，对该批记录计算 Merkle 根，再与上一批的链根一起哈希得到新的链根，
+ * 与记录在同一事务中写入 audit_chain 表：
+ * <pre>
+ * leaf       = SHA-256(0x00 | id | log_time | username | ... | error_message)
+ * node       = SHA-256(0x01 | left | right)
+ * chain_root = SHA-256(0x02 | prev_root | merkle_root | seq | table_name | first_id | last_id | row_count)
+ * </pre>
+ * 每条记录只计算一次叶子哈希，内部节点总数少于记录数，单条记录的开销为常数；
+ * 修改、删除、插入记录或链记录都会导致 Merkle 根或链根对不上
+ */
+final class AuditChain {
+
+    static final String TABLE = "audit_chain";
+
+    static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+            "seq INTEGER PRIMARY KEY, " +
+            "created_at TEXT NOT NULL, " +
+            "table_name TEXT NOT NULL, " +
+            "first_id INTEGER NOT NULL, " +
+            "last_id INTEGER NOT NULL, " +
+            "row_count INTEGER NOT NULL, " +
+            "merkle_root TEXT NOT NULL, " +
+            "prev_root TEXT NOT NULL, " +
+            "chain_root TEXT NOT NULL)";
+
+    /** 审计记录参与哈希的列（顺序固定） */
+    static final String COLUMNS = "id, log_time, username, user_id, action_type, module, description, " +
+            "target, ip, method, url, success, error_message";
+
+    /** 第一批的 prev_root */
+    static final String GENESIS = "0".repeat(64);
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    /**
+     * 链记录
+     */
+    record Link(long seq, LocalDateTime createdAt, String tableName, long firstId, long lastId,
+                int rowCount, String merkleRoot, String prevRoot, String chainRoot) {
+    }
+
+    /** 最后一条已提交的链记录（写入线程） */
+    private Link last;
+    /** 已确认存在 audit_chain 表的连接（写入线程） */
+    private Connection prepared;
+    private final Hasher hasher = new Hasher();
+
+    /**
+     * 从已有的链表中恢复链尾，可多次调用（分库模式逐个周期文件），取序号最大者
+     */
+    void load(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT 1 FROM sqlite_master WHERE type='table' AND name='" + TABLE + "'")) {
+                if (!rs.next()) {
+                    return;
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT * FROM " + TABLE + " ORDER BY seq DESC LIMIT 1")) {
+                if (rs.next()) {
+                    Link link = read(rs);
+                    if (last == null || link.seq() > last.seq()) {
+                        last = link;
+                    }
+                }
+            }
+        }
+    }
+
+    Link last() {
+        return last;
+    }
+
+    /**
+     * 为刚插入（尚未提交）的一批审计日志追加链记录
+     * 依赖写入线程独占连接：同一事务内 AUTOINCREMENT 分配的 id 连续，
+     * 由 last_insert_rowid() 反推出本批的 id 范围
+     * @return 新的链记录，事务提交后需调用 {@link #committed}
+     */
+    Link append(Connection conn, String tableName, List<?> batch) throws SQLException {
+        if (conn != prepared) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(CREATE_TABLE_SQL);
+            }
+            prepared = conn;
+        }
+        long lastId;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT last_insert_rowid()")) {
+            rs.next();
+            lastId = rs.getLong(1);
+        }
+        long firstId = lastId - batch.size() + 1;
+
+        MerkleBuilder tree = new MerkleBuilder(hasher);
+        long id = firstId;
+        for (Object event : batch) {
+            AuditLog row = (AuditLog) event;
+            tree.add(hasher.leaf(
+                    id++,
+                    row.getLogTime() != null ? row.getLogTime().toString() : null,
+                    row.getUsername(),
+                    row.getUserId(),
+                    row.getActionType(),
+                    row.getModule(),
+                    row.getDescription(),
+                    row.getTarget(),
+                    row.getIp(),
+                    row.getMethod(),
+                    row.getUrl(),
+                    row.getSuccess() != null ? (row.getSuccess() ? 1L : 0L) : null,
+                    row.getErrorMessage()));
+        }
+
+        long seq = last != null ? last.seq() + 1 : 1;
+        String prevRoot = last != null ? last.chainRoot() : GENESIS;
+        String merkleRoot = HEX.formatHex(tree.root());
+        String chainRoot = hasher.chainRoot(prevRoot, merkleRoot, seq, tableName, firstId, lastId, batch.size());
+        Link link = new Link(seq, LocalDateTime.now(), tableName, firstId, lastId, batch.size(),
+                merkleRoot, prevRoot, chainRoot);
+
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO " + TABLE +
+                " (seq, created_at, table_name, first_id, last_id, row_count, merkle_root, prev_root, chain_root)" +
+                " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            ps.setLong(1, link.seq());
+            ps.setString(2, link.createdAt().toString());
+            ps.setString(3, link.tableName());
+            ps.setLong(4, link.firstId());
+            ps.setLong(5, link.lastId());
+            ps.setInt(6, link.rowCount());
+            ps.setString(7, link.merkleRoot());
+            ps.setString(8, link.prevRoot());
+            ps.setString(9, link.chainRoot());
+            ps.executeUpdate();
+        }
+        return link;
+    }
+
+    /**
+     * 事务提交成功后推进链尾；未提交（回滚）的链记录直接丢弃
+     */
+    void committed(Link link) {
+        last = link;
+    }
+
+    static Link read(ResultSet rs) throws SQLException {
+        return new Link(
+                rs.getLong("seq"),
+                LocalDateTime.parse(rs.getString("created_at")),
+                rs.getString("table_name"),
+                rs.getLong("first_id"),
+                rs.getLong("last_id"),
+                rs.getInt("row_count"),
+                rs.getString("merkle_root"),
+                rs.getString("prev_root"),
+                rs.getString("chain_root"));
+    }
+
+    // ==================== 哈希 ====================
+
+    /**
+     * SHA-256 计算（非线程安全，每个线程各自持有）
+     */
+    static final class Hasher {
+
+        private final MessageDigest digest;
+        private final byte[] scratch = new byte[8];
+
+        Hasher() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * 记录的叶子哈希；值为 null、整数（Number）或字符串
+         */
+        byte[] leaf(Object... values) {
+            digest.update((byte) 0);
+            for (Object value : values) {
+                if (value == null) {
+                    digest.update((byte) 0);
+                } else if (value instanceof Number number) {
+                    digest.update((byte) 1);
+                    updateLong(number.longValue());
+                } else {
+                    byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+                    digest.update((byte) 2);
+                    updateLong(bytes.length);
+                    digest.update(bytes);
+                }
+            }
+            return digest.digest();
+        }
+
+        byte[] node(byte[] left, byte[] right) {
+            digest.update((byte) 1);
+            digest.update(left);
+            digest.update(right);
+            return digest.digest();
+        }
+
+        String chainRoot(String prevRoot, String merkleRoot, long seq, String tableName,
+                         long firstId, long lastId, int rowCount) {
+            digest.update((byte) 2);
+            digest.update(HEX.parseHex(prevRoot));
+            digest.update(HEX.parseHex(merkleRoot));
+            updateLong(seq);
+            byte[] table = tableName.getBytes(StandardCharsets.UTF_8);
+            updateLong(table.length);
+            digest.update(table);
+            updateLong(firstId);
+            updateLong(lastId);
+            updateLong(rowCount);
+            return HEX.formatHex(digest.digest());
+        }
+
+        private void updateLong(long value) {
+            for (int i = 7; i >= 0; i--) {
+                scratch[i] = (byte) value;
+                value >>>= 8;
+            }
+            digest.update(scratch);
+        }
+    }
+
+    /**
+     * 增量构建 Merkle 树：只保留每一层尚未配对的节点，内存 O(log n)，校验时可流式读取记录
+     * 写入与校验使用同一构建方式，保证树形一致
+     */
+    static final class MerkleBuilder {
+
+        private final Hasher hasher;
+        /** 各层待配对节点，下标越大层越低 */
+        private final List<byte[]> nodes = new ArrayList<>();
+        private final List<Integer> heights = new ArrayList<>();
+        private long count;
+
+        MerkleBuilder(Hasher hasher) {
+            this.hasher = hasher;
+        }
+
+        void add(byte[] leaf) {
+            byte[] node = leaf;
+            int height = 0;
+            int top = nodes.size() - 1;
+            while (top >= 0 && heights.get(top) == height) {
+                node = hasher.node(nodes.remove(top), node);
+                heights.remove(top);
+                height++;
+                top--;
+            }
+            nodes.add(node);
+            heights.add(height);
+            count++;
+        }
+
+        long count() {
+            return count;
+        }
+
+        /**
+         * 由右向左合并剩余节点得到根；空树的根为 32 个 0 字节
+         */
+        byte[] root() {
+            if (nodes.isEmpty()) {
+                return new byte[32];
+            }
+            byte[] root = nodes.get(nodes.size() - 1);
+            for (int i = nodes.size() - 2; i >= 0; i--) {
+                root = hasher.node(nodes.get(i), root);
+            }
+            return root;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.graduation.hospital.common.log.db;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * 审计哈希链校验
+ * 按写入时间范围取出链记录，逐批以只读连接流式读取对应分表中的审计记录，
+ * 重新计算 Merkle 根与链根并与 audit_chain 比对，内存占用与单批大小无关
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "logging.db.enabled", havingValue = "true")
+public class AuditChainVerifier {
+
+    /** 返回的问题条数上限 */
+    private static final int MAX_PROBLEMS = 100;
+
+    /** 链记录中的表名会拼入 SQL，只接受审计分表名 */
+    private static final Pattern AUDIT_TABLE = Pattern.compile("audit_log_[0-9W]+");
+
+    @Value("${logging.db.database-path:db/hospital.log.db}")
+    private String databasePath;
+
+    @Value("${logging.db.file-per-period:false}")
+    private boolean filePerPeriod;
+
+    @Value("${logging.db.period-directory:logs/db}")
+    private String periodDirectory;
+
+    @Value("${logging.db.retention-days:90}")
+    private int retentionDays;
+
+    @Value("${logging.db.query.busy-timeout:3000}")
+    private int busyTimeout;
+
+    /**
+     * 校验结果
+     * @param valid 是否全部通过
+     * @param batches 校验的链记录（批）数
+     * @param rows 校验的审计记录数
+     * @param firstSeq 范围内第一条链记录序号
+     * @param lastSeq 范围内最后一条链记录序号
+     * @param problems 发现的问题（最多 100 条）
+     */
+    public record Verification(boolean valid, int batches, long rows, Long firstSeq, Long lastSeq,
+                               List<String> problems) {
+    }
+
+    /**
+     * 链记录及其所在的库文件
+     */
+    private record Entry(AuditChain.Link link, Path file) {
+    }
+
+    /**
+     * 校验写入时间在 [from, to) 内的审计日志
+     * @param from 为空时取 to 往前 retention-days
+     * @param to 为空时取当前时间
+     */
+    public Verification verify(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(retentionDays);
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("起始时间必须早于结束时间");
+        }
+
+        Map<Path, Connection> connections = new HashMap<>();
+        List<String> problems = new ArrayList<>();
+        long rows = 0;
+        try {
+            List<Entry> entries = loadEntries(connections, start, end);
+            AuditChain.Hasher hasher = new AuditChain.Hasher();
+            /* 分表 → 范围内已校验到的最大 id */
+            Map<String, Long> lastIds = new LinkedHashMap<>();
+            Map<String, Path> tableFiles = new HashMap<>();
+            AuditChain.Link previous = null;
+
+            for (Entry entry : entries) {
+                AuditChain.Link link = entry.link();
+                if (previous != null) {
+                    if (link.seq() != previous.seq() + 1) {
+                        problem(problems, "链记录缺失: seq " + (previous.seq() + 1) + " ~ " + (link.seq() - 1));
+                    } else if (!link.prevRoot().equals(previous.chainRoot())) {
+                        problem(problems, "链断裂: seq " + link.seq() + " 的 prev_root 与上一条链根不一致");
+                    }
+                }
+                previous = link;
+
+                if (!AUDIT_TABLE.matcher(link.tableName()).matches()) {
+                    problem(problems, "链记录被篡改: seq " + link.seq() + " 的表名无效");
+                    continue;
+                }
+                String chainRoot = hasher.chainRoot(link.prevRoot(), link.merkleRoot(), link.seq(),
+                        link.tableName(), link.firstId(), link.lastId(), link.rowCount());
+                if (!chainRoot.equals(link.chainRoot())) {
+                    problem(problems, "链记录被篡改: seq " + link.seq());
+                }
+
+                Long lastId = lastIds.get(link.tableName());
+                if (lastId != null && link.firstId() != lastId + 1) {
+                    problem(problems, "记录 id 不连续: " + link.tableName() + " id " + (lastId + 1)
+                            + " ~ " + (link.firstId() - 1));
+                }
+                lastIds.put(link.tableName(), link.lastId());
+                tableFiles.put(link.tableName(), entry.file());
+
+                rows += verifyBatch(connection(connections, entry.file()), hasher, link, problems);
+            }
+
+            for (Map.Entry<String, Long> e : lastIds.entrySet()) {
+                checkUnchained(connection(connections, tableFiles.get(e.getKey())), e.getKey(), e.getValue(), problems);
+            }
+
+            return new Verification(problems.isEmpty(), entries.size(), rows,
+                    entries.isEmpty() ? null : entries.get(0).link().seq(),
+                    entries.isEmpty() ? null : entries.get(entries.size() - 1).link().seq(),
+                    problems);
+        } catch (SQLException | IOException e) {
+            log.error("审计哈希链校验失败", e);
+            throw new IllegalStateException("审计哈希链校验失败: " + e.getMessage(), e);
+        } finally {
+            for (Connection conn : connections.values()) {
+                try {
+                    conn.close();
+                } catch (SQLException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取范围内的链记录（只含摘要字段），按序号排序
+     * 按周期分库时链记录与分表同在周期文件中，需逐个文件读取后合并
+     */
+    private List<Entry> loadEntries(Map<Path, Connection> connections, LocalDateTime from, LocalDateTime to)
+            throws SQLException, IOException {
+        List<Path> files = new ArrayList<>();
+        if (filePerPeriod) {
+            Path directory = Paths.get(periodDirectory);
+            if (Files.isDirectory(directory)) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + LogPeriodFiles.EXTENSION)) {
+                    stream.forEach(files::add);
+                }
+            }
+        } else if (Files.exists(Paths.get(databasePath))) {
+            files.add(Paths.get(databasePath));
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        for (Path file : files) {
+            Connection conn = connection(connections, file);
+            if (!tableExists(conn, AuditChain.TABLE)) {
+                continue;
+            }
+            try (PreparedStatement ps = conn.prepareStatement("SELECT * FROM " + AuditChain.TABLE +
+                    " WHERE created_at >= ? AND created_at < ? ORDER BY seq")) {
+                ps.setString(1, from.toString());
+                ps.setString(2, to.toString());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        entries.add(new Entry(AuditChain.read(rs), file));
+                    }
+                }
+            }
+        }
+        entries.sort(Comparator.comparingLong(e -> e.link().seq()));
+        return entries;
+    }
+
+    /**
+     * 流式读取一批审计记录，重新计算 Merkle 根
+     * @return 读取的记录数
+     */
+    private long verifyBatch(Connection conn, AuditChain.Hasher hasher, AuditChain.Link link,
+                             List<String> problems) throws SQLException {
+        if (!tableExists(conn, link.tableName())) {
+            problem(problems, "分表不存在: " + link.tableName() + " (seq " + link.seq() + ")");
+            return 0;
+        }
+        AuditChain.MerkleBuilder tree = new AuditChain.MerkleBuilder(hasher);
+        long expectedId = link.firstId();
+        boolean gap = false;
+        try (PreparedStatement ps = conn.prepareStatement("SELECT " + AuditChain.COLUMNS + " FROM "
+                + link.tableName() + " WHERE id BETWEEN ? AND ? ORDER BY id")) {
+            ps.setLong(1, link.firstId());
+            ps.setLong(2, link.lastId());
+            try (ResultSet rs = ps.executeQuery()) {
+                int columns = rs.getMetaData().getColumnCount();
+                Object[] values = new Object[columns];
+                while (rs.next()) {
+                    for (int i = 0; i < columns; i++) {
+                        values[i] = rs.getObject(i + 1);
+                    }
+                    if (((Number) values[0]).longValue() != expectedId) {
+                        gap = true;
+                    }
+                    expectedId = ((Number) values[0]).longValue() + 1;
+                    tree.add(hasher.leaf(values));
+                }
+            }
+        }
+        if (gap || tree.count() != link.rowCount()) {
+            problem(problems, "记录缺失: " + link.tableName() + " id " + link.firstId() + " ~ " + link.lastId()
+                    + " 应有 " + link.rowCount() + " 条，实际 " + tree.count() + " 条 (seq " + link.seq() + ")");
+        } else if (!HexFormat.of().formatHex(tree.root()).equals(link.merkleRoot())) {
+            problem(problems, "记录被篡改: " + link.tableName() + " id " + link.firstId() + " ~ " + link.lastId()
+                    + " (seq " + link.seq() + ")");
+        }
+        return tree.count();
+    }
+
+    /**
+     * 范围内最后一批之后仍有记录、但链中没有后续链记录时，说明有记录绕过写入线程被插入
+     * 先统计记录再查链记录：写入线程在同一事务中提交二者，不会误报正在写入的批次
+     */
+    private void checkUnchained(Connection conn, String table, long lastId, List<String> problems)
+            throws SQLException {
+        if (!tableExists(conn, table)) {
+            return;
+        }
+        long extra;
+        try (PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM " + table + " WHERE id > ?")) {
+            ps.setLong(1, lastId);
+            try (ResultSet rs = ps.executeQuery()) {
+                extra = rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+        if (extra == 0) {
+            return;
+        }
+        try (PreparedStatement ps = conn.prepareStatement("SELECT COALESCE(SUM(row_count), 0) FROM "
+                + AuditChain.TABLE + " WHERE table_name = ? AND first_id > ?")) {
+            ps.setString(1, table);
+            ps.setLong(2, lastId);
+            try (ResultSet rs = ps.executeQuery()) {
+                long chained = rs.next() ? rs.getLong(1) : 0;
+                if (chained < extra) {
+                    problem(problems, "存在未上链的记录: " + table + " id > " + lastId + " 共 " + (extra - chained) + " 条");
+                }
+            }
+        }
+    }
+
+    private Connection connection(Map<Path, Connection> connections, Path file) throws SQLException {
+        Connection conn = connections.get(file);
+        if (conn == null) {
+            Properties properties = new Properties();
+            properties.setProperty("open_mode", "1");
+            properties.setProperty("busy_timeout", String.valueOf(busyTimeout));
+            conn = DriverManager.getConnection("jdbc:sqlite:" + file, properties);
+            connections.put(file, conn);
+        }
+        return conn;
+    }
+
+    private static boolean tableExists(Connection conn, String table) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT 1 FROM sqlite_master WHERE type='table' AND name = ?")) {
+            ps.setString(1, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static void problem(List<String> problems, String message) {
+        if (problems.size() < MAX_PROBLEMS) {
+            problems.add(message);
+        }
+    }
+}
@@ -1,8 +1,18 @@
 package com.graduation.hospital.common.log.db;
 
+import com.graduation.hospital.common.log.db.jdbc.SqlLoggingListener;
+import com.graduation.hospital.common.log.db.jdbc.TimingDataSourceProxy;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import javax.sql.DataSource;
+
 /**
  * 数据库日志配置
  */
@@ -11,8 +21,84 @@ import org.springframework.context.annotation.Configuration;
 public class DbLoggingConfig {
 
     /**
-     * 配置 Hibernate 使用 SQL 日志拦截器
-     * 注意：需要在 application.properties 中添加：
-     * spring.jpa.properties.hibernate.session_factory.statement_inspector=com.graduation.hospital.common.log.db.SqlLoggingInterceptor
+     * 包装业务数据源，记录 SQL 真实执行耗时、行数与失败信息
+     * 声明为 static，避免提前初始化配置类；DbLoggingService 通过 ObjectProvider 延迟获取
+     */
+    @Bean
+    @ConditionalOnProperty(name = "logging.db.log-sql", havingValue = "true", matchIfMissing = true)
+    public static BeanPostProcessor sqlTimingDataSourcePostProcessor(ObjectProvider<DbLoggingService> dbLoggingService) {
+        SqlLoggingListener listener = new SqlLoggingListener(dbLoggingService);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource) {
+                    return TimingDataSourceProxy.wrap(dataSource, listener);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * 注册数据库日志指标（队列深度、丢弃数、写入滞后、溢出文件、空间占用）
      */
-}
\ No newline at end of file
+    @Bean
+    public MeterBinder dbLoggingMetrics(DbLoggingService dbLoggingService) {
+        return registry -> {
+            Gauge.builder("hospital.log.db.queue.depth", dbLoggingService, s -> s.getStats().queueDepth())
+                    .description("日志环形缓冲区排队事件数")
+                    .register(registry);
+            Gauge.builder("hospital.log.db.queue.capacity", dbLoggingService, s -> s.getStats().queueCapacity())
+                    .description("日志环形缓冲区容量")
+                    .register(registry);
+            Gauge.builder("hospital.log.db.writer.lag", dbLoggingService, s -> s.getStats().writerLagMillis())
+                    .description("日志写入线程滞后时间（毫秒）")
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            FunctionCounter.builder("hospital.log.db.events.published", dbLoggingService, s -> s.getStats().published())
+                    .description("已发布日志事件数")
+                    .register(registry);
+            FunctionCounter.builder("hospital.log.db.events.dropped", dbLoggingService, s -> s.getStats().dropped())
+                    .description("因缓冲区或溢出文件已满被丢弃的日志事件数")
+                    .register(registry);
+            FunctionCounter.builder("hospital.log.db.events.written", dbLoggingService, s -> s.getStats().written())
+                    .description("已写入数据库的日志事件数")
+                    .register(registry);
+            FunctionCounter.builder("hospital.log.db.events.spilled", dbLoggingService, s -> s.getStats().spilled())
+                    .description("转存到溢出文件的日志事件数")
+                    .register(registry);
+            Gauge.builder("hospital.log.db.spill.bytes", dbLoggingService, s -> s.getStats().spillBytes())
+                    .description("溢出文件中待回放的字节数")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("hospital.log.db.sampling.factor", dbLoggingService,
+                            s -> s.getSampler() != null ? s.getSampler().getAdaptiveFactor() : 1.0)
+                    .description("自适应采样系数")
+                    .register(registry);
+            for (LogSampler.Category category : LogSampler.Category.values()) {
+                FunctionCounter.builder("hospital.log.db.events.sampled.out", dbLoggingService,
+                                s -> s.getSampler() != null ? s.getSampler().getSampledOut(category) : 0)
+                        .description("被采样丢弃的日志事件数")
+                        .tag("category", category.name().toLowerCase())
+                        .register(registry);
+            }
+            Gauge.builder("hospital.log.db.file.size", dbLoggingService, s -> s.getSpaceStats().fileBytes())
+                    .description("日志库文件大小")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("hospital.log.db.wal.size", dbLoggingService, s -> s.getSpaceStats().walBytes())
+                    .description("日志库 WAL 文件大小")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("hospital.log.db.pages.free", dbLoggingService, s -> s.getSpaceStats().freePages())
+                    .description("日志库空闲页数（可被增量回收）")
+                    .register(registry);
+            Gauge.builder("hospital.log.db.pages.total", dbLoggingService, s -> s.getSpaceStats().pageCount())
+                    .description("日志库总页数")
+                    .register(registry);
+            FunctionCounter.builder("hospital.log.db.vacuum.pages", dbLoggingService, DbLoggingService::getVacuumedPages)
+                    .description("增量回收释放的页数")
+                    .register(registry);
+        };
+    }
+}
@@ -1,20 +1,21 @@
 package com.graduation.hospital.common.log.db;
 
+import com.graduation.hospital.common.context.RequestContext;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
-import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.io.IOException;
-import java.util.UUID;
 
 /**
  * 请求日志过滤器
- * 记录访问日志到数据库
+ * 记录访问日志到数据库，并按路由模板累计接口耗时
+ * 请求 ID、IP、User-Agent 与登录用户取自 RequestLoggingFilter 建立的 {@link RequestContext}
  */
 @Slf4j
 @Component
@@ -28,8 +29,6 @@ public class DbLoggingFilter implements Filter {
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
 
-        log.info("DbLoggingFilter 开始处理请求");
-
         if (dbLoggingService == null) {
             log.warn("DbLoggingService 为空，过滤器不生效");
             chain.doFilter(request, response);
@@ -39,86 +38,37 @@ public class DbLoggingFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
-        // 生成请求 ID
-        String requestId = UUID.randomUUID().toString().substring(0, 8);
-        MDC.put("requestId", requestId);
+        // 正常情况下上下文已由最外层过滤器建立，缺失时（如单独测试过滤器链）临时创建
+        RequestContext context = RequestContext.current();
+        if (context == null) {
+            context = RequestContext.of(httpRequest);
+        }
 
-        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
 
         try {
             chain.doFilter(request, response);
         } finally {
-            long duration = System.currentTimeMillis() - startTime;
-
-            // 记录访问日志到数据库
-            String method = httpRequest.getMethod();
-            String url = httpRequest.getRequestURI();
-            String ip = getClientIp(httpRequest);
-            String userAgent = httpRequest.getHeader("User-Agent");
+            long elapsedNanos = System.nanoTime() - startNanos;
+            long duration = elapsedNanos / 1_000_000;
             int status = httpResponse.getStatus();
-            String username = getUsername();
 
-            log.info("记录访问日志: method={}, url={}, status={}", method, url, status);
+            // 路由模板由 Spring MVC 在匹配处理器后写入请求属性，未匹配时为 null
+            Object route = httpRequest.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            dbLoggingService.recordEndpoint(context.getMethod(), route != null ? route.toString() : null,
+                    context.getUri(), status, elapsedNanos);
 
-            // 写入数据库（异步）
+            // 发布到日志环形缓冲区，由写入线程异步落库
             dbLoggingService.logAccessFromEvent(
-                    requestId,
-                    method,
-                    url,
-                    ip,
-                    userAgent,
+                    context.getRequestId(),
+                    context.getMethod(),
+                    context.getUri(),
+                    context.getIp(),
+                    context.getUserAgent(),
                     status,
                     duration,
-                    username
+                    context.getUsername()
             );
-
-            // 手动刷新以确保数据写入
-            dbLoggingService.flush();
-
-            // 清理 MDC
-            MDC.remove("requestId");
-        }
-    }
-
-    /**
-     * 获取客户端 IP 地址
-     */
-    private String getClientIp(HttpServletRequest request) {
-        String ip = request.getHeader("X-Forwarded-For");
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("Proxy-Client-IP");
-        }
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("WL-Proxy-Client-IP");
-        }
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("HTTP_CLIENT_IP");
-        }
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("HTTP_X_FORWARDED_FOR");
-        }
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getRemoteAddr();
-        }
-        // 多个代理时取第一个
-        if (ip != null && ip.contains(",")) {
-            ip = ip.split(",")[0].trim();
-        }
-        return ip;
-    }
-
-    /**
-     * 获取当前用户名
-     */
-    private String getUsername() {
-        try {
-            org.springframework.security.core.Authentication auth =
-                    org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
-            if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getPrincipal())) {
-                return auth.getName();
-            }
-        } catch (Exception ignored) {
         }
-        return null;
     }
-}
\ No newline at end of file
+}
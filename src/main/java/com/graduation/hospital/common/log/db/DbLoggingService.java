@@ -1,8 +1,11 @@
 package com.graduation.hospital.common.log.db;
 
+import com.graduation.hospital.common.log.db.archive.LogSegmentWriter;
 import com.graduation.hospital.entity.log.AccessLog;
 import com.graduation.hospital.entity.log.AuditLog;
+import com.graduation.hospital.entity.log.EndpointStatsLog;
 import com.graduation.hospital.entity.log.SqlLog;
+import com.graduation.hospital.entity.log.SqlStatsLog;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
@@ -11,17 +14,25 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 
 /**
  * 数据库日志服务
  * 将日志写入独立的 SQLite 数据库，支持按天/周/月/年分表
+ * 请求线程只向环形缓冲区发布事件，由独立的写入线程批量落库，
+ * SQLite 连接仅由写入线程访问；日志库不可用或内存缓冲已满时转存到溢出文件，恢复后回放
  */
 @Slf4j
 @Service
@@ -44,6 +55,12 @@ public class DbLoggingService {
     @Value("${logging.db.database-path:db/hospital.log.db}")
     private String databasePath;
 
+    @Value("${logging.db.file-per-period:false}")
+    private boolean filePerPeriod;
+
+    @Value("${logging.db.period-directory:logs/db}")
+    private String periodDirectory;
+
     @Value("${logging.db.batch-size:100}")
     private int batchSize;
 
@@ -62,13 +79,180 @@ public class DbLoggingService {
     @Value("${logging.db.retention-days:90}")
     private int retentionDays;
 
+    @Value("${logging.db.audit-chain.enabled:true}")
+    private boolean auditChainEnabled;
+
+    @Value("${logging.db.archive.enabled:true}")
+    private boolean archiveEnabled;
+
+    @Value("${logging.db.archive.path:logs/archive}")
+    private String archivePath;
+
+    @Value("${logging.db.archive.types:audit_log,access_log}")
+    private Set<String> archiveTypes;
+
+    @Value("${logging.db.index.enabled:true}")
+    private boolean indexEnabled;
+
+    @Value("${logging.db.index.access-log:request_id;username,request_time;request_time}")
+    private String accessLogIndexes;
+
+    @Value("${logging.db.index.audit-log:username,log_time;log_time}")
+    private String auditLogIndexes;
+
+    @Value("${logging.db.index.sql-log:request_id;username,log_time;log_time}")
+    private String sqlLogIndexes;
+
+    @Value("${logging.db.index.sql-stats:fingerprint_id}")
+    private String sqlStatsIndexes;
+
+    @Value("${logging.db.index.endpoint-stats:route,log_time}")
+    private String endpointStatsIndexes;
+
+    @Value("${logging.db.maintenance.enabled:true}")
+    private boolean maintenanceEnabled;
+
+    @Value("${logging.db.maintenance.convert-existing:false}")
+    private boolean convertExisting;
+
+    @Value("${logging.db.maintenance.interval:60000}")
+    private long maintenanceInterval;
+
+    @Value("${logging.db.maintenance.vacuum-pages:256}")
+    private int vacuumPages;
+
+    @Value("${logging.db.maintenance.max-events-per-second:50}")
+    private double maintenanceMaxRate;
+
+    @Value("${logging.db.maintenance.wal-truncate-mb:64}")
+    private long walTruncateMb;
+
+    @Value("${logging.db.spill.enabled:true}")
+    private boolean spillEnabled;
+
+    @Value("${logging.db.spill.path:db/hospital.log.spill}")
+    private String spillPath;
+
+    @Value("${logging.db.spill.max-size-mb:256}")
+    private long spillMaxSizeMb;
+
+    @Value("${logging.db.spill.memory-limit:10000}")
+    private int memoryLimit;
+
+    @Value("${logging.db.spill.retry-interval:5000}")
+    private long retryInterval;
+
+    @Value("${logging.db.queue-capacity:8192}")
+    private int queueCapacity;
+
+    @Value("${logging.db.sql-stats-interval:60000}")
+    private long sqlStatsInterval;
+
+    @Value("${logging.db.sql-slow-threshold-ms:200}")
+    private long sqlSlowThresholdMs;
+
+    @Value("${logging.db.sampling.sql.ratio:0.01}")
+    private double sqlSampleRatio;
+
+    @Value("${logging.db.sampling.sql.rate-limit:0}")
+    private double sqlRateLimit;
+
+    @Value("${logging.db.sampling.access.ratio:1.0}")
+    private double accessSampleRatio;
+
+    @Value("${logging.db.sampling.access.rate-limit:0}")
+    private double accessRateLimit;
+
+    @Value("${logging.db.sampling.adaptive:true}")
+    private boolean adaptiveSampling;
+
+    @Value("${logging.db.sampling.adaptive-min-factor:0.05}")
+    private double adaptiveMinFactor;
+
+    @Value("${logging.db.sampling.max-lag-ms:2000}")
+    private long maxWriterLagMillis;
+
+    @Value("${logging.db.sql-max-fingerprints:5000}")
+    private int sqlMaxFingerprints;
+
+    @Value("${logging.db.endpoint-stats.enabled:true}")
+    private boolean endpointStatsEnabled;
+
+    @Value("${logging.db.endpoint-stats.max-routes:2000}")
+    private int endpointMaxRoutes;
+
+    /** 写入线程空闲时的休眠时间 */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    /**
+     * 日志服务运行指标
+     * @param queueDepth 环形缓冲区当前排队事件数
+     * @param queueCapacity 环形缓冲区容量
+     * @param published 已发布事件总数
+     * @param dropped 因缓冲区已满被丢弃的事件总数
+     * @param written 已写入数据库的事件总数
+     * @param writerLagMillis 写入线程滞后时间（毫秒）
+     * @param spilled 写入溢出文件的事件总数
+     * @param spillBytes 溢出文件中待回放的字节数
+     */
+    public record Stats(int queueDepth, int queueCapacity, long published,
+                        long dropped, long written, long writerLagMillis,
+                        long spilled, long spillBytes) {
+    }
+
+    /**
+     * 日志库空间占用（按周期分库时为当前打开的周期文件之和）
+     * @param fileBytes 库文件大小
+     * @param walBytes WAL 文件大小
+     * @param pageSize 页大小
+     * @param pageCount 总页数
+     * @param freePages 空闲页数（可被增量回收）
+     */
+    public record SpaceStats(long fileBytes, long walBytes, long pageSize, long pageCount, long freePages) {
+    }
+
+    /** 单库模式下的写入连接 */
     private Connection connection;
-    private final Map<String, List<Object>> sqlLogBuffer = new ConcurrentHashMap<>();
-    private final Map<String, List<Object>> auditLogBuffer = new ConcurrentHashMap<>();
-    private final Map<String, List<Object>> accessLogBuffer = new ConcurrentHashMap<>();
+    /** 按周期分库模式下的周期文件 */
+    private LogPeriodFiles periodFiles;
+    private LogRingBuffer ringBuffer;
+    private SqlStatsAggregator sqlStatsAggregator;
+    private EndpointStatsAggregator endpointStatsAggregator;
+    private LogSampler sampler;
+    private volatile Consumer<Object> tailListener;
+    private LogPartitionRegistry partitions;
+    private LogSpillFile spill;
+    /** 审计日志哈希链，未启用时为 null（写入线程） */
+    private AuditChain auditChain;
+    /** 分表二级索引定义，未启用时为 null */
+    private LogIndexes indexes;
+    /** 写入过、尚未封存的分表（写入线程） */
+    private final Set<String> unsealedTables = new HashSet<>();
+    /** 等待创建索引的已封存分表（写入线程） */
+    private final Deque<String> sealQueue = new ArrayDeque<>();
+    /** 待写入的分表缓冲，仅由写入线程访问 */
+    private final Map<String, List<Object>> pendingBuffer = new HashMap<>();
+    /** 内存缓冲中的事件数（写入线程） */
+    private int pendingCount;
+    /** 内存缓冲已满且无法转存溢出文件而丢弃的事件数（不含环形缓冲区与溢出文件自身的丢弃） */
+    private final LongAdder stageDropped = new LongAdder();
+    /** 写库失败后暂停写库直到该时间，期间新事件直接转存溢出文件（写入线程） */
+    private long retryAt;
     private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
     private final AtomicBoolean running = new AtomicBoolean(true);
-    private ScheduledFuture<?> flushTask;
+    private volatile boolean flushRequested;
+    private volatile boolean cleanupRequested;
+    /** 低流量时由调度线程置位，写入线程空闲时分步回收空闲页并做检查点 */
+    private volatile boolean maintenanceRequested;
+    private volatile boolean spaceStatsRequested;
+    private volatile SpaceStats spaceStats = new SpaceStats(0, 0, 0, 0, 0);
+    private volatile long vacuumedPages;
+    /** 本轮维护已回收的页数（写入线程） */
+    private long maintenanceReclaimed;
+    /** 上次检查时的已发布事件数（调度线程） */
+    private long lastPublished;
+    private volatile long writtenCount;
+    private Thread writerThread;
 
     @PostConstruct
     public void init() {
@@ -76,42 +260,125 @@ public class DbLoggingService {
             // 加载 SQLite 驱动
             Class.forName("org.sqlite.JDBC");
 
-            // 确保目录存在
-            String dbDir = databasePath.substring(0, databasePath.lastIndexOf('/'));
-            if (dbDir.length() > 0) {
-                java.nio.file.Path dir = java.nio.file.Paths.get(dbDir);
-                if (!java.nio.file.Files.exists(dir)) {
-                    java.nio.file.Files.createDirectories(dir);
-                }
+            partitions = new LogPartitionRegistry(SplitMode.valueOf(splitMode));
+            if (indexEnabled) {
+                indexes = new LogIndexes(Map.of(
+                        "access_log", accessLogIndexes,
+                        "audit_log", auditLogIndexes,
+                        "sql_log", sqlLogIndexes,
+                        "sql_stats", sqlStatsIndexes,
+                        "endpoint_stats", endpointStatsIndexes));
+            }
+            if (auditChainEnabled && logAudit) {
+                auditChain = new AuditChain();
             }
+            if (filePerPeriod) {
+                // 按周期分库：周期文件在首次写入时由写入线程打开
+                periodFiles = new LogPeriodFiles(Paths.get(periodDirectory));
+                loadAuditChain();
+                log.info("数据库日志按周期分库: directory={}", periodDirectory);
+            } else {
+                // 确保目录存在
+                String dbDir = databasePath.substring(0, databasePath.lastIndexOf('/'));
+                if (dbDir.length() > 0) {
+                    java.nio.file.Path dir = java.nio.file.Paths.get(dbDir);
+                    if (!java.nio.file.Files.exists(dir)) {
+                        java.nio.file.Files.createDirectories(dir);
+                    }
+                }
 
-            // 创建数据库连接
-            connection = DriverManager.getConnection("jdbc:sqlite:" + databasePath);
-            connection.setAutoCommit(false);
+                // 创建数据库连接；增量回收需在建表与开启 WAL 之前设置
+                connection = DriverManager.getConnection("jdbc:sqlite:" + databasePath);
+                LogDbMaintenance.enableIncrementalVacuum(connection, Paths.get(databasePath), convertExisting);
+                // WAL 模式下查询服务的只读连接不会阻塞写入线程（需在开启事务前设置）
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("PRAGMA journal_mode=WAL");
+                }
+                connection.setAutoCommit(false);
 
-            // 创建表结构
-            createTables();
+                // 创建表结构并加载已有分表
+                createTables();
+                partitions.loadKnownTables(connection, LOG_TYPES);
+                if (auditChain != null) {
+                    auditChain.load(connection);
+                }
 
-            log.info("数据库日志表创建完成");
+                log.info("数据库日志表创建完成");
+            }
 
-            // 启动定时刷新任务
-            flushTask = executor.scheduleAtFixedRate(
-                    this::flush,
-                    flushInterval,
-                    flushInterval,
-                    TimeUnit.MILLISECONDS
-            );
+            // 打开溢出文件，上次未回放的记录由写入线程继续回放
+            if (spillEnabled) {
+                try {
+                    spill = new LogSpillFile(Paths.get(spillPath), spillMaxSizeMb << 20);
+                } catch (IOException e) {
+                    log.error("日志溢出文件打开失败，禁用溢出: {}", spillPath, e);
+                }
+            }
 
-            log.info("数据库日志服务初始化完成: database={}, splitMode={}", databasePath, splitMode);
+            // 启动写入线程
+            ringBuffer = new LogRingBuffer(queueCapacity);
+            sqlStatsAggregator = new SqlStatsAggregator(sqlMaxFingerprints);
+            if (endpointStatsEnabled) {
+                endpointStatsAggregator = new EndpointStatsAggregator(endpointMaxRoutes);
+            }
+            sampler = new LogSampler(sqlSampleRatio, sqlRateLimit, accessSampleRatio, accessRateLimit,
+                    adaptiveSampling, adaptiveMinFactor, maxWriterLagMillis);
+            writerThread = Thread.ofPlatform()
+                    .name("db-log-writer")
+                    .daemon(true)
+                    .start(this::runWriter);
+
+            log.info("数据库日志服务初始化完成: database={}, splitMode={}, queueCapacity={}",
+                    databasePath, splitMode, ringBuffer.capacity());
 
             // 启动每日清理任务，首次延迟1分钟执行，之后每24小时执行一次
+            // 清理由写入线程执行，避免与批量写入争用连接
             executor.scheduleAtFixedRate(
-                    this::cleanup,
+                    this::requestCleanup,
                     1,
                     24 * 60,
                     TimeUnit.MINUTES
             );
             log.info("日志清理任务已注册: retentionDays={}", retentionDays);
+
+            // 每秒根据写入线程状态调整采样率
+            executor.scheduleAtFixedRate(
+                    () -> sampler.tick(getStats()),
+                    1,
+                    1,
+                    TimeUnit.SECONDS
+            );
+
+            // 定期将 SQL 指纹统计写入 sql_stats 分表
+            if (logSql) {
+                executor.scheduleAtFixedRate(
+                        this::publishSqlStats,
+                        sqlStatsInterval,
+                        sqlStatsInterval,
+                        TimeUnit.MILLISECONDS
+                );
+            }
+
+            // 定期采集空间占用，低流量时请求写入线程回收空闲页并做 WAL 检查点
+            if (maintenanceEnabled) {
+                executor.scheduleAtFixedRate(
+                        this::requestMaintenance,
+                        maintenanceInterval,
+                        maintenanceInterval,
+                        TimeUnit.MILLISECONDS
+                );
+            }
+
+            // 每个整分钟将接口耗时汇总写入 endpoint_stats 分表
+            if (endpointStatsAggregator != null) {
+                long now = System.currentTimeMillis();
+                executor.scheduleAtFixedRate(
+                        this::publishEndpointStats,
+                        60_000 - now % 60_000,
+                        60_000,
+                        TimeUnit.MILLISECONDS
+                );
+            }
         } catch (Exception e) {
             log.error("数据库日志服务初始化失败", e);
         }
@@ -119,13 +386,36 @@ public class DbLoggingService {
 
     @PreDestroy
     public void destroy() {
+        executor.shutdown();
+        try {
+            // 等待正在执行的统计发布结束，聚合器的 drainWindow 只允许单线程调用
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 停止写入线程前发布未满一个窗口的统计
+        publishSqlStats();
+        publishEndpointStats(LocalDateTime.now());
         running.set(false);
-        if (flushTask != null) {
-            flushTask.cancel(false);
+        // 等待写入线程写完剩余日志
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
-        flush(); // 确保所有日志都已刷新
-        executor.shutdown();
         try {
+            if (partitions != null) {
+                partitions.closeAll();
+            }
+            if (periodFiles != null) {
+                periodFiles.closeAll();
+            }
+            if (spill != null) {
+                spill.close();
+            }
             if (connection != null && !connection.isClosed()) {
                 connection.close();
             }
@@ -136,189 +426,549 @@ public class DbLoggingService {
 
     /**
      * 根据分表模式获取表名
+     * 命中当前周期时直接返回缓存的表名，不做格式化
      */
     public String getTableName(String prefix, LocalDateTime dateTime) {
-        LocalDate date = dateTime.toLocalDate();
-        String tableName = switch (SplitMode.valueOf(splitMode)) {
-            case YEAR -> prefix + "_" + dateTime.format(DateTimeFormatter.ofPattern("yyyy"));
-            case MONTH -> prefix + "_" + dateTime.format(DateTimeFormatter.ofPattern("yyyyMM"));
-            case WEEK -> {
-                int weekOfYear = date.getDayOfYear() / 7 + 1;
-                yield prefix + "_" + dateTime.format(DateTimeFormatter.ofPattern("yyyy")) + "W" + String.format("%02d", weekOfYear);
-            }
-            case DAY -> prefix + "_" + dateTime.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        };
-        return tableName;
+        return partitions.tableName(prefix, dateTime);
     }
 
+    private static final DateTimeFormatter DAY_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    /** 日志基础表类型 */
+    private static final String[] LOG_TYPES = {"sql_log", "audit_log", "access_log", "sql_stats", "endpoint_stats"};
+
+    /** sql_stats 表字段定义 */
+    private static final String SQL_STATS_COLUMNS =
+            "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+            "log_time TEXT NOT NULL, " +
+            "window_start TEXT, " +
+            "fingerprint_id TEXT NOT NULL, " +
+            "fingerprint TEXT, " +
+            "sql_type TEXT, " +
+            "exec_count INTEGER, " +
+            "error_count INTEGER, " +
+            "total_us INTEGER, " +
+            "max_us INTEGER, " +
+            "total_rows INTEGER, " +
+            "histogram TEXT";
+
+    /** endpoint_stats 表字段定义 */
+    private static final String ENDPOINT_STATS_COLUMNS =
+            "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+            "log_time TEXT NOT NULL, " +
+            "window_start TEXT, " +
+            "method TEXT NOT NULL, " +
+            "route TEXT NOT NULL, " +
+            "status_class TEXT, " +
+            "request_count INTEGER, " +
+            "total_us INTEGER, " +
+            "max_us INTEGER, " +
+            "p50_us INTEGER, " +
+            "p95_us INTEGER, " +
+            "p99_us INTEGER, " +
+            "histogram TEXT";
+
     /**
      * 创建表结构
      */
     private void createTables() throws SQLException {
-        String[] tableNames = {"sql_log", "audit_log", "access_log"};
-        String[] createStatements = {
-                "CREATE TABLE IF NOT EXISTS sql_log (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                    "log_time TEXT NOT NULL, " +
-                    "thread TEXT, " +
-                    "sql_type TEXT, " +
-                    "sql_text TEXT, " +
-                    "duration INTEGER, " +
-                    "success INTEGER, " +
-                    "error_message TEXT, " +
-                    "username TEXT, " +
-                    "request_id TEXT)",
-                "CREATE TABLE IF NOT EXISTS audit_log (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                    "log_time TEXT NOT NULL, " +
-                    "username TEXT, " +
-                    "user_id INTEGER, " +
-                    "action_type TEXT NOT NULL, " +
-                    "module TEXT, " +
-                    "description TEXT, " +
-                    "target TEXT, " +
-                    "ip TEXT, " +
-                    "method TEXT, " +
-                    "url TEXT, " +
-                    "success INTEGER, " +
-                    "error_message TEXT)",
-                "CREATE TABLE IF NOT EXISTS access_log (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                    "request_time TEXT NOT NULL, " +
-                    "request_id TEXT, " +
-                    "method TEXT NOT NULL, " +
-                    "url TEXT NOT NULL, " +
-                    "ip TEXT, " +
-                    "user_agent TEXT, " +
-                    "status INTEGER, " +
-                    "duration INTEGER, " +
-                    "username TEXT)"
-        };
-
         try (Statement stmt = connection.createStatement()) {
-            for (String sql : createStatements) {
-                stmt.execute(sql);
+            for (String type : LOG_TYPES) {
+                stmt.execute(getCreateTableSql(type, type));
+            }
+            if (auditChain != null) {
+                stmt.execute(AuditChain.CREATE_TABLE_SQL);
             }
             connection.commit();
         }
     }
 
+    /**
+     * 按周期分库时从各周期文件恢复审计哈希链的链尾
+     */
+    private void loadAuditChain() {
+        if (auditChain == null) {
+            return;
+        }
+        Properties readOnly = new Properties();
+        readOnly.setProperty("open_mode", "1");
+        try {
+            for (java.nio.file.Path file : periodFiles.listFiles().values()) {
+                try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file, readOnly)) {
+                    auditChain.load(conn);
+                }
+            }
+        } catch (Exception e) {
+            log.error("恢复审计哈希链失败", e);
+        }
+        if (auditChain.last() != null) {
+            log.info("审计哈希链已恢复: seq={}", auditChain.last().seq());
+        }
+    }
+
     /**
      * 记录 SQL 日志
      */
     public void logSql(SqlLog sqlLog) {
         if (!logSql || !running.get()) return;
+        publish(sqlLog);
+    }
 
-        String tableName = getTableName("sql_log", sqlLog.getLogTime());
-        sqlLogBuffer.computeIfAbsent(tableName, k -> Collections.synchronizedList(new ArrayList<>())).add(sqlLog);
+    /**
+     * 记录审计日志（审计日志永不采样）
+     */
+    public void logAudit(AuditLog auditLog) {
+        if (!logAudit || !running.get()) return;
+        tail(auditLog);
+        publish(auditLog);
+    }
 
-        if (sqlLogBuffer.get(tableName).size() >= batchSize) {
-            flushTable(tableName, sqlLogBuffer);
+    /**
+     * 记录访问日志
+     */
+    public void logAccess(AccessLog accessLog) {
+        if (!logAccess || !running.get()) return;
+        tail(accessLog);
+        // 5xx 必定保留，其余按采样策略决定
+        double weight = accessLog.getStatus() != null && accessLog.getStatus() >= 500
+                ? 1.0
+                : sample(LogSampler.Category.ACCESS);
+        if (weight <= 0) {
+            return;
         }
+        accessLog.setSampleWeight(weight);
+        publish(accessLog);
     }
 
     /**
-     * 记录审计日志
+     * 设置实时订阅监听器（/ws/logs），在采样之前收到每条访问与审计事件
+     * 监听器必须非阻塞
      */
-    public void logAudit(AuditLog auditLog) {
-        if (!logAudit || !running.get()) return;
+    public void setTailListener(Consumer<Object> listener) {
+        this.tailListener = listener;
+    }
+
+    private void tail(Object event) {
+        Consumer<Object> listener = tailListener;
+        if (listener != null) {
+            listener.accept(event);
+        }
+    }
+
+    /**
+     * 采样判定，返回权重（0 表示丢弃）
+     */
+    private double sample(LogSampler.Category category) {
+        LogSampler current = sampler;
+        return current != null ? current.sample(category) : 1.0;
+    }
 
-        String tableName = getTableName("audit_log", auditLog.getLogTime());
-        auditLogBuffer.computeIfAbsent(tableName, k -> Collections.synchronizedList(new ArrayList<>())).add(auditLog);
+    /**
+     * 发布日志事件到环形缓冲区（非阻塞，缓冲区满时丢弃）
+     * 审计日志不允许丢失，缓冲区已满时直接写入溢出文件
+     */
+    private void publish(Object event) {
+        LogRingBuffer buffer = ringBuffer;
+        if (buffer != null && !buffer.offer(event) && event instanceof AuditLog) {
+            LogSpillFile file = spill;
+            // 已计入环形缓冲区（及溢出文件）的丢弃数
+            if (file == null || !file.append(event)) {
+                log.error("审计日志丢失（环形缓冲区已满且无法写入溢出文件）: actionType={}, username={}",
+                        ((AuditLog) event).getActionType(), ((AuditLog) event).getUsername());
+            }
+        }
+    }
 
-        if (auditLogBuffer.get(tableName).size() >= batchSize) {
-            flushTable(tableName, auditLogBuffer);
+    /**
+     * 请求写入线程尽快刷新所有缓冲日志（异步，不等待落库）
+     */
+    public void flush() {
+        flushRequested = true;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
         }
     }
 
     /**
-     * 记录访问日志
+     * 日志库空间占用（每个维护周期由写入线程刷新）
      */
-    public void logAccess(AccessLog accessLog) {
-        if (!logAccess || !running.get()) return;
+    public SpaceStats getSpaceStats() {
+        return spaceStats;
+    }
 
-        String tableName = getTableName("access_log", accessLog.getRequestTime());
-        log.debug("记录访问日志: tableName={}, url={}", tableName, accessLog.getUrl());
-        accessLogBuffer.computeIfAbsent(tableName, k -> Collections.synchronizedList(new ArrayList<>())).add(accessLog);
+    /**
+     * 增量回收累计释放的页数
+     */
+    public long getVacuumedPages() {
+        return vacuumedPages;
+    }
 
-        if (accessLogBuffer.get(tableName).size() >= batchSize) {
-            log.debug("缓冲区已满，刷新表: {}", tableName);
-            flushTable(tableName, accessLogBuffer);
+    /**
+     * 获取日志服务运行指标
+     */
+    public Stats getStats() {
+        LogRingBuffer buffer = ringBuffer;
+        LogSpillFile file = spill;
+        long spilled = file != null ? file.spilledCount() : 0;
+        long spillBytes = file != null ? file.pendingBytes() : 0;
+        if (buffer == null) {
+            return new Stats(0, 0, 0, 0, writtenCount, 0, spilled, spillBytes);
         }
+        return new Stats(buffer.size(), buffer.capacity(), buffer.publishedCount(),
+                buffer.droppedCount() + (file != null ? file.droppedCount() : 0) + stageDropped.sum(),
+                writtenCount, buffer.lagMillis(), spilled, spillBytes);
     }
 
+    // ==================== 写入线程 ====================
+
     /**
-     * 刷新所有缓冲日志
+     * 写入线程主循环
+     * 从环形缓冲区取出事件按分表归并，达到 batch-size 或 flush-interval 时批量写入
      */
-    public synchronized void flush() {
-        log.debug("开始刷新缓冲区: sql_log={}, audit_log={}, access_log={}",
-                sqlLogBuffer.size(), auditLogBuffer.size(), accessLogBuffer.size());
+    private void runWriter() {
+        long lastFlush = System.currentTimeMillis();
+        while (running.get() || !ringBuffer.isEmpty()) {
+            int drained = ringBuffer.drain(this::stage, batchSize);
+
+            long now = System.currentTimeMillis();
+            if (flushRequested || !running.get() || now - lastFlush >= flushInterval) {
+                flushRequested = false;
+                flushAll();
+                lastFlush = now;
+            }
+
+            // 跟上进度且日志库可用时回放溢出文件
+            if (spill != null && drained < batchSize && now >= retryAt && spill.hasPending()) {
+                replaySpill();
+            }
 
-        // 刷新所有表
-        sqlLogBuffer.keySet().forEach(tableName -> flushTable(tableName, sqlLogBuffer));
-        auditLogBuffer.keySet().forEach(tableName -> flushTable(tableName, auditLogBuffer));
-        accessLogBuffer.keySet().forEach(tableName -> flushTable(tableName, accessLogBuffer));
+            if (cleanupRequested) {
+                cleanupRequested = false;
+                cleanup();
+                scanUnsealed();
+            }
+
+            // 空闲时为已封存的分表建索引，每轮最多一张表
+            if (!sealQueue.isEmpty() && drained < batchSize && now >= retryAt) {
+                sealNext();
+            }
+
+            if (spaceStatsRequested) {
+                spaceStatsRequested = false;
+                refreshSpaceStats();
+            }
+
+            // 完全空闲时回收一批空闲页，新事件到达后暂停，下次空闲时继续
+            if (maintenanceRequested && drained == 0 && ringBuffer.isEmpty() && now >= retryAt) {
+                maintenanceStep();
+            }
+
+            if (drained == 0 && running.get()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+        flushAll();
+        log.info("数据库日志写入线程已停止: written={}, dropped={}", writtenCount, ringBuffer.droppedCount());
+    }
+
+    /**
+     * 将事件归入对应分表的缓冲，满一批立即写入
+     */
+    private void stage(Object event) {
+        String tableName = resolveTableName(event);
+        if (tableName == null) {
+            return;
+        }
+        // 日志库不可用或内存缓冲已满时直接转存溢出文件，内存占用保持有界
+        if (System.currentTimeMillis() < retryAt || pendingCount >= memoryLimit) {
+            if (spill != null && spill.append(event)) {
+                return;
+            }
+            // 无法转存：访问 / SQL 日志在内存缓冲已满时丢弃，审计日志始终留在内存中等待写库
+            if (pendingCount >= memoryLimit && !(event instanceof AuditLog)) {
+                drop(event, spill != null ? "内存缓冲已满且溢出文件写入失败" : "内存缓冲已满且未启用溢出文件");
+                return;
+            }
+        }
+        List<Object> list = keepInMemory(tableName, event);
+        if (list.size() >= batchSize) {
+            flushPending(tableName, list);
+        }
+    }
+
+    private List<Object> keepInMemory(String tableName, Object event) {
+        List<Object> list = pendingBuffer.computeIfAbsent(tableName, k -> new ArrayList<>(batchSize));
+        list.add(event);
+        pendingCount++;
+        return list;
+    }
+
+    /**
+     * 记录一条被丢弃的日志
+     */
+    private void drop(Object event, String reason) {
+        stageDropped.increment();
+        if (event instanceof AuditLog auditLog) {
+            log.error("审计日志丢失（{}）: actionType={}, username={}", reason, auditLog.getActionType(), auditLog.getUsername());
+        } else {
+            log.warn("日志丢失（{}）: type={}, totalDropped={}", reason, event.getClass().getSimpleName(), stageDropped.sum());
+        }
+    }
+
+    /**
+     * 写入内存缓冲中的一批日志，失败时转存溢出文件
+     */
+    private void flushPending(String tableName, List<Object> list) {
+        int size = list.size();
+        if (flushTable(tableName, list)) {
+            pendingCount -= size;
+        } else if (spill != null) {
+            pendingCount -= spillAll(list);
+        }
+    }
+
+    /**
+     * 将一批日志转存到溢出文件并从列表中移除
+     * 溢出文件已满或记录无法编码时，审计日志留在列表中（内存）等待下次写库，其余日志计数丢弃
+     * @return 从列表中移除的条数
+     */
+    private int spillAll(List<Object> list) {
+        int removed = 0;
+        Iterator<Object> it = list.iterator();
+        while (it.hasNext()) {
+            Object event = it.next();
+            if (spill.append(event)) {
+                it.remove();
+                removed++;
+            } else if (!(event instanceof AuditLog)) {
+                drop(event, "溢出文件写入失败");
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 回放一批溢出记录；写库失败的记录重新追加到溢出文件末尾
+     * 记录写入日志库后才推进读偏移（至少一次）
+     */
+    private void replaySpill() {
+        List<Object> events = spill.peek(batchSize);
+        Map<String, List<Object>> byTable = new HashMap<>();
+        for (Object event : events) {
+            String tableName = resolveTableName(event);
+            if (tableName != null) {
+                byTable.computeIfAbsent(tableName, k -> new ArrayList<>()).add(event);
+            }
+        }
+        for (Map.Entry<String, List<Object>> entry : byTable.entrySet()) {
+            if (!flushTable(entry.getKey(), entry.getValue())) {
+                spillAll(entry.getValue());
+                // 无法重新追加的审计日志移入内存缓冲，不随 commit 一起丢失
+                for (Object event : entry.getValue()) {
+                    keepInMemory(entry.getKey(), event);
+                }
+            }
+        }
+        spill.commit();
+        if (!spill.hasPending()) {
+            log.info("日志溢出文件回放完成");
+        }
+    }
+
+    /**
+     * 根据事件类型和时间解析分表名
+     */
+    private String resolveTableName(Object event) {
+        if (event instanceof SqlLog sqlLog) {
+            return getTableName("sql_log", sqlLog.getLogTime());
+        } else if (event instanceof AuditLog auditLog) {
+            return getTableName("audit_log", auditLog.getLogTime());
+        } else if (event instanceof AccessLog accessLog) {
+            return getTableName("access_log", accessLog.getRequestTime());
+        } else if (event instanceof SqlStatsLog sqlStatsLog) {
+            return getTableName("sql_stats", sqlStatsLog.getLogTime());
+        } else if (event instanceof EndpointStatsLog endpointStatsLog) {
+            return getTableName("endpoint_stats", endpointStatsLog.getWindowStart());
+        }
+        return null;
+    }
+
+    private void requestCleanup() {
+        cleanupRequested = true;
+    }
+
+    /**
+     * 刷新所有分表缓冲
+     */
+    private void flushAll() {
+        Iterator<Map.Entry<String, List<Object>>> it = pendingBuffer.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, List<Object>> entry = it.next();
+            flushPending(entry.getKey(), entry.getValue());
+            // 已写完的旧分表不再保留缓冲与预编译语句
+            if (entry.getValue().isEmpty()) {
+                it.remove();
+                if (!partitions.isCurrent(entry.getKey())) {
+                    partitions.releaseStatement(entry.getKey());
+                }
+            }
+        }
+        // 缓冲为空时同样检查，空闲期间跨越周期的分表也能及时封存
+        collectSealed();
+        closeIdlePeriods();
+    }
+
+    /**
+     * 关闭已无待写入数据的非当前周期文件
+     */
+    private void closeIdlePeriods() {
+        if (periodFiles == null) {
+            return;
+        }
+        for (String suffix : periodFiles.openSuffixes()) {
+            if (partitions.isCurrentPeriod(suffix) || hasPending(suffix)) {
+                continue;
+            }
+            partitions.forgetPeriod(suffix);
+            periodFiles.close(suffix);
+        }
+    }
+
+    private boolean hasPending(String suffix) {
+        for (String tableName : pendingBuffer.keySet()) {
+            if (tableName.endsWith("_" + suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 分表所在的写入连接：单库模式为日志库连接，分库模式为对应周期文件的连接
+     */
+    private Connection connectionFor(String tableName) throws SQLException {
+        if (periodFiles == null) {
+            return connection;
+        }
+        return periodFiles.connectionFor(tableName, opened -> partitions.loadKnownTables(opened, LOG_TYPES));
     }
 
     /**
      * 刷新指定表的日志
      * @param actualTableName 实际的分表名，如 access_log_20260226
-     * @param buffer 对应的日志缓冲区
+     * @param list 对应分表的日志缓冲，写入成功后清空
+     * @return 是否写入成功；失败时暂停写库 retry-interval
      */
-    private void flushTable(String actualTableName, Map<String, List<Object>> buffer) {
-        List<Object> list = buffer.get(actualTableName);
-        if (list == null || list.isEmpty()) {
-            log.debug("缓冲区为空: {}", actualTableName);
-            return;
+    private boolean flushTable(String actualTableName, List<Object> list) {
+        if (list.isEmpty()) {
+            return true;
         }
 
         // 从分表名提取基础表名，用于建表和参数设置
         String baseTableName = getBaseTableName(actualTableName);
 
-        synchronized (list) {
-            if (list.isEmpty()) return;
+        Connection conn = null;
+        try {
+            conn = connectionFor(actualTableName);
 
-            try {
-                // 创建分表（如果不存在）
-                ensureTableExists(baseTableName, actualTableName);
-
-                // 批量插入到分表
-                String sql = getInsertSql(actualTableName);
-                log.debug("执行SQL: {}", sql);
-                try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                    for (Object obj : list) {
-                        setInsertParams(pstmt, baseTableName, obj);
-                        pstmt.addBatch();
-                    }
-                    pstmt.executeBatch();
-                }
+            // 创建分表（仅首次遇到该分表时检查）
+            if (!partitions.isKnown(actualTableName)) {
+                ensureTableExists(conn, baseTableName, actualTableName);
+                partitions.markKnown(actualTableName);
+            }
 
-                connection.commit();
-                log.info("成功写入 {} 条日志到表: {}", list.size(), actualTableName);
-                list.clear();
-            } catch (Exception e) {
-                log.error("写入日志到表 {} 失败: {}", actualTableName, e.getMessage(), e);
-                try {
-                    connection.rollback();
-                } catch (SQLException ex) {
-                    log.error("回滚事务失败", ex);
+            // 使用缓存的预编译语句批量插入到分表
+            PreparedStatement pstmt = partitions.insertStatement(
+                    conn, actualTableName, getInsertSql(actualTableName));
+            for (Object obj : list) {
+                setInsertParams(pstmt, baseTableName, obj);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+
+            // 审计日志：本批的 Merkle 根与上一批链根一起写入 audit_chain（同一事务）
+            AuditChain.Link link = null;
+            if (auditChain != null && "audit_log".equals(baseTableName)) {
+                link = auditChain.append(conn, actualTableName, list);
+            }
+
+            conn.commit();
+            if (link != null) {
+                auditChain.committed(link);
+            }
+            log.debug("成功写入 {} 条日志到表: {}", list.size(), actualTableName);
+            writtenCount += list.size();
+            list.clear();
+            if (indexes != null) {
+                unsealedTables.add(actualTableName);
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("写入日志到表 {} 失败: {}", actualTableName, e.getMessage(), e);
+            try {
+                if (conn != null) {
+                    conn.rollback();
                 }
+            } catch (SQLException ex) {
+                log.error("回滚事务失败", ex);
             }
+            // 分表可能已被外部删除，下次重新检查并预编译
+            partitions.forget(actualTableName);
+            retryAt = System.currentTimeMillis() + retryInterval;
+            return false;
         }
     }
 
     /**
      * 确保表存在（分表场景）
      */
-    private void ensureTableExists(String type, String tableName) throws SQLException {
-        try (Statement stmt = connection.createStatement()) {
-            // 检查表是否存在
-            ResultSet rs = stmt.executeQuery(
-                    "SELECT name FROM sqlite_master WHERE type='table' AND name='" + tableName + "'");
-            if (!rs.next()) {
+    private void ensureTableExists(Connection conn, String type, String tableName) throws SQLException {
+        boolean exists;
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT 1 FROM sqlite_master WHERE type='table' AND name=?")) {
+            ps.setString(1, tableName);
+            try (ResultSet rs = ps.executeQuery()) {
+                exists = rs.next();
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            if (!exists) {
                 // 创建表
                 String createSql = getCreateTableSql(type, tableName);
                 stmt.execute(createSql);
+            } else {
+                upgradeTable(stmt, type, tableName);
+            }
+        }
+    }
+
+    /**
+     * 为旧版分表补充后续版本新增的字段
+     */
+    private void upgradeTable(Statement stmt, String type, String tableName) throws SQLException {
+        String[][] added = switch (type) {
+            case "sql_log" -> new String[][]{
+                    {"duration_us", "INTEGER"}, {"row_count", "INTEGER"}, {"param_count", "INTEGER"},
+                    {"fingerprint_id", "TEXT"}, {"sample_weight", "REAL"}
+            };
+            case "access_log" -> new String[][]{{"sample_weight", "REAL"}};
+            default -> new String[0][];
+        };
+        if (added.length == 0) {
+            return;
+        }
+        Set<String> columns = new HashSet<>();
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + tableName + ")")) {
+            while (rs.next()) {
+                columns.add(rs.getString("name"));
+            }
+        }
+        for (String[] column : added) {
+            if (!columns.contains(column[0])) {
+                stmt.execute("ALTER TABLE " + tableName + " ADD COLUMN " + column[0] + " " + column[1]);
             }
         }
     }
@@ -338,7 +988,12 @@ public class DbLoggingService {
                     "success INTEGER, " +
                     "error_message TEXT, " +
                     "username TEXT, " +
-                    "request_id TEXT)";
+                    "request_id TEXT, " +
+                    "duration_us INTEGER, " +
+                    "row_count INTEGER, " +
+                    "param_count INTEGER, " +
+                    "fingerprint_id TEXT, " +
+                    "sample_weight REAL)";
             case "audit_log" -> "CREATE TABLE IF NOT EXISTS " + tableName + " (" +
                     "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
                     "log_time TEXT NOT NULL, " +
@@ -363,7 +1018,10 @@ public class DbLoggingService {
                     "user_agent TEXT, " +
                     "status INTEGER, " +
                     "duration INTEGER, " +
-                    "username TEXT)";
+                    "username TEXT, " +
+                    "sample_weight REAL)";
+            case "sql_stats" -> "CREATE TABLE IF NOT EXISTS " + tableName + " (" + SQL_STATS_COLUMNS + ")";
+            case "endpoint_stats" -> "CREATE TABLE IF NOT EXISTS " + tableName + " (" + ENDPOINT_STATS_COLUMNS + ")";
             default -> throw new IllegalArgumentException("Unknown log type: " + type);
         };
     }
@@ -376,6 +1034,8 @@ public class DbLoggingService {
         if (tableName.startsWith("sql_log")) return "sql_log";
         if (tableName.startsWith("audit_log")) return "audit_log";
         if (tableName.startsWith("access_log")) return "access_log";
+        if (tableName.startsWith("sql_stats")) return "sql_stats";
+        if (tableName.startsWith("endpoint_stats")) return "endpoint_stats";
         throw new IllegalArgumentException("Unknown log table: " + tableName);
     }
 
@@ -384,11 +1044,15 @@ public class DbLoggingService {
      */
     private String getInsertSql(String tableName) {
         if (tableName.startsWith("sql_log")) {
-            return "INSERT INTO " + tableName + " (log_time, thread, sql_type, sql_text, duration, success, error_message, username, request_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+            return "INSERT INTO " + tableName + " (log_time, thread, sql_type, sql_text, duration, success, error_message, username, request_id, duration_us, row_count, param_count, fingerprint_id, sample_weight) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         } else if (tableName.startsWith("audit_log")) {
             return "INSERT INTO " + tableName + " (log_time, username, user_id, action_type, module, description, target, ip, method, url, success, error_message) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         } else if (tableName.startsWith("access_log")) {
-            return "INSERT INTO " + tableName + " (request_time, request_id, method, url, ip, user_agent, status, duration, username) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+            return "INSERT INTO " + tableName + " (request_time, request_id, method, url, ip, user_agent, status, duration, username, sample_weight) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        } else if (tableName.startsWith("sql_stats")) {
+            return "INSERT INTO " + tableName + " (log_time, window_start, fingerprint_id, fingerprint, sql_type, exec_count, error_count, total_us, max_us, total_rows, histogram) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        } else if (tableName.startsWith("endpoint_stats")) {
+            return "INSERT INTO " + tableName + " (log_time, window_start, method, route, status_class, request_count, total_us, max_us, p50_us, p95_us, p99_us, histogram) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         }
         throw new IllegalArgumentException("Unknown log table: " + tableName);
     }
@@ -407,6 +1071,11 @@ public class DbLoggingService {
             pstmt.setString(7, sqlLog.getErrorMessage());
             pstmt.setString(8, sqlLog.getUsername());
             pstmt.setString(9, sqlLog.getRequestId());
+            pstmt.setObject(10, sqlLog.getDurationUs());
+            pstmt.setObject(11, sqlLog.getRowCount());
+            pstmt.setObject(12, sqlLog.getParamCount());
+            pstmt.setString(13, sqlLog.getFingerprintId());
+            pstmt.setObject(14, sqlLog.getSampleWeight());
         } else if (obj instanceof AuditLog auditLog) {
             pstmt.setString(1, auditLog.getLogTime() != null ? auditLog.getLogTime().toString() : null);
             pstmt.setString(2, auditLog.getUsername());
@@ -430,6 +1099,32 @@ public class DbLoggingService {
             pstmt.setObject(7, accessLog.getStatus());
             pstmt.setObject(8, accessLog.getDuration());
             pstmt.setString(9, accessLog.getUsername());
+            pstmt.setObject(10, accessLog.getSampleWeight());
+        } else if (obj instanceof SqlStatsLog stats) {
+            pstmt.setString(1, stats.getLogTime() != null ? stats.getLogTime().toString() : null);
+            pstmt.setString(2, stats.getWindowStart() != null ? stats.getWindowStart().toString() : null);
+            pstmt.setString(3, stats.getFingerprintId());
+            pstmt.setString(4, stats.getFingerprint());
+            pstmt.setString(5, stats.getSqlType());
+            pstmt.setObject(6, stats.getExecCount());
+            pstmt.setObject(7, stats.getErrorCount());
+            pstmt.setObject(8, stats.getTotalUs());
+            pstmt.setObject(9, stats.getMaxUs());
+            pstmt.setObject(10, stats.getTotalRows());
+            pstmt.setString(11, stats.getHistogram());
+        } else if (obj instanceof EndpointStatsLog stats) {
+            pstmt.setString(1, stats.getLogTime() != null ? stats.getLogTime().toString() : null);
+            pstmt.setString(2, stats.getWindowStart() != null ? stats.getWindowStart().toString() : null);
+            pstmt.setString(3, stats.getMethod());
+            pstmt.setString(4, stats.getRoute());
+            pstmt.setString(5, stats.getStatusClass());
+            pstmt.setObject(6, stats.getRequestCount());
+            pstmt.setObject(7, stats.getTotalUs());
+            pstmt.setObject(8, stats.getMaxUs());
+            pstmt.setObject(9, stats.getP50Us());
+            pstmt.setObject(10, stats.getP95Us());
+            pstmt.setObject(11, stats.getP99Us());
+            pstmt.setString(12, stats.getHistogram());
         }
     }
 
@@ -454,6 +1149,119 @@ public class DbLoggingService {
         logSql(sqlLog);
     }
 
+    /**
+     * 记录 SQL 执行结果（由 TimingDataSourceProxy 回调）
+     * 每次执行都计入指纹统计；原始 SQL 只在失败、慢查询或命中采样时落库
+     * @param elapsedNanos 执行耗时（纳秒）
+     * @param rows 返回/影响行数，未知时为 -1
+     */
+    public void logSqlExecution(String thread, String sqlType, String sqlText,
+                                long elapsedNanos, long rows, int paramCount, Throwable error,
+                                String username, String requestId) {
+        if (!logSql || !running.get()) return;
+
+        SqlFingerprint fingerprint = SqlFingerprint.of(sqlText);
+        SqlStatsAggregator aggregator = sqlStatsAggregator;
+        if (aggregator != null) {
+            aggregator.record(fingerprint, sqlType, elapsedNanos, rows, error == null);
+        }
+        // 失败与慢查询必定保留（权重 1），其余按采样策略决定
+        double weight = error != null || elapsedNanos >= sqlSlowThresholdMs * 1_000_000
+                ? 1.0
+                : sample(LogSampler.Category.SQL);
+        if (weight <= 0) {
+            return;
+        }
+
+        SqlLog sqlLog = new SqlLog();
+        sqlLog.setLogTime(LocalDateTime.now());
+        sqlLog.setThread(thread);
+        sqlLog.setSqlType(sqlType);
+        sqlLog.setSqlText(sqlText);
+        sqlLog.setDuration(elapsedNanos / 1_000_000);
+        sqlLog.setDurationUs(elapsedNanos / 1_000);
+        sqlLog.setRowCount(rows >= 0 ? rows : null);
+        sqlLog.setParamCount(paramCount);
+        sqlLog.setFingerprintId(fingerprint.id());
+        sqlLog.setSampleWeight(weight);
+        sqlLog.setSuccess(error == null);
+        sqlLog.setErrorMessage(error != null ? error.getMessage() : null);
+        sqlLog.setUsername(username);
+        sqlLog.setRequestId(requestId);
+        publish(sqlLog);
+    }
+
+    /**
+     * 将当前统计窗口的指纹统计发布到写入线程
+     */
+    private void publishSqlStats() {
+        SqlStatsAggregator aggregator = sqlStatsAggregator;
+        if (aggregator == null) {
+            return;
+        }
+        try {
+            for (SqlStatsLog row : aggregator.drainWindow()) {
+                publish(row);
+            }
+        } catch (Exception e) {
+            log.error("发布 SQL 指纹统计失败", e);
+        }
+    }
+
+    /**
+     * 记录一次请求的接口耗时（不受访问日志采样影响）
+     * @param route 路由模板，未匹配到处理器时为 null，由 URI 归一化得到
+     * @param elapsedNanos 请求耗时（纳秒）
+     */
+    public void recordEndpoint(String method, String route, String uri, int status, long elapsedNanos) {
+        EndpointStatsAggregator aggregator = endpointStatsAggregator;
+        if (aggregator != null && running.get()) {
+            aggregator.record(method, route, uri, status, elapsedNanos);
+        }
+    }
+
+    /**
+     * 将上一分钟的接口耗时汇总发布到写入线程
+     */
+    private void publishEndpointStats() {
+        // 按最近的整分钟取窗口边界，调度略有提前或延后时不会错位
+        publishEndpointStats(LocalDateTime.now().plusSeconds(30).truncatedTo(ChronoUnit.MINUTES));
+    }
+
+    /**
+     * 将当前窗口的接口耗时汇总发布到写入线程
+     * @param windowEnd 窗口结束时间
+     */
+    private void publishEndpointStats(LocalDateTime windowEnd) {
+        EndpointStatsAggregator aggregator = endpointStatsAggregator;
+        if (aggregator == null) {
+            return;
+        }
+        try {
+            for (EndpointStatsLog row : aggregator.drainWindow(windowEnd)) {
+                publish(row);
+            }
+        } catch (Exception e) {
+            log.error("发布接口耗时汇总失败", e);
+        }
+    }
+
+    /**
+     * 获取日志采样器（未初始化时为 null）
+     */
+    public LogSampler getSampler() {
+        return sampler;
+    }
+
+    /**
+     * 获取 SQL 指纹 Top-N 统计
+     * @param orderBy count（执行次数）/ totalTime（总耗时）
+     */
+    public List<SqlStatsAggregator.Summary> getTopSqlStats(String orderBy, int limit) {
+        SqlStatsAggregator aggregator = sqlStatsAggregator;
+        return aggregator != null ? aggregator.top(orderBy, limit) : List.of();
+    }
+
     /**
      * 记录审计日志（从日志事件中提取）
      */
@@ -496,13 +1304,219 @@ public class DbLoggingService {
         logAccess(accessLog);
     }
 
+    // ==================== 分表封存 ====================
+
+    /**
+     * 将周期已结束且没有待写入数据的分表加入建索引队列
+     */
+    private void collectSealed() {
+        if (unsealedTables.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Iterator<String> it = unsealedTables.iterator();
+        while (it.hasNext()) {
+            String table = it.next();
+            if (!pendingBuffer.containsKey(table) && partitions.isSealed(table, now)) {
+                it.remove();
+                enqueueSeal(table);
+            }
+        }
+    }
+
+    private void enqueueSeal(String table) {
+        if (!indexes.isEmpty(getBaseTableName(table)) && !sealQueue.contains(table)) {
+            sealQueue.add(table);
+        }
+    }
+
+    /**
+     * 为队首分表创建索引；失败时不重试，由下次每日扫描补建
+     */
+    private void sealNext() {
+        String table = sealQueue.poll();
+        long start = System.nanoTime();
+        Connection conn = null;
+        try {
+            conn = connectionFor(table);
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : indexes.createStatements(getBaseTableName(table), table)) {
+                    stmt.execute(sql);
+                }
+            }
+            conn.commit();
+            log.info("日志分表已封存并建立索引: table={}, elapsed={}ms",
+                    table, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            log.warn("日志分表建立索引失败: table={}, error={}", table, e.getMessage());
+            try {
+                if (conn != null) {
+                    conn.rollback();
+                }
+            } catch (SQLException ex) {
+                log.error("回滚事务失败", ex);
+            }
+        }
+    }
+
+    /**
+     * 扫描已封存但缺少索引的分表（启动后与每日清理后执行），覆盖停机期间跨越周期的情况
+     */
+    private void scanUnsealed() {
+        if (indexes == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            if (periodFiles == null) {
+                if (connection == null || connection.isClosed()) {
+                    return;
+                }
+                collectUnsealed(connection, now);
+                connection.commit();
+                return;
+            }
+            Properties readOnly = new Properties();
+            readOnly.setProperty("open_mode", "1");
+            for (java.nio.file.Path file : periodFiles.listFiles().values()) {
+                try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file, readOnly)) {
+                    collectUnsealed(conn, now);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("扫描待封存日志分表失败: {}", e.getMessage());
+        }
+        if (!sealQueue.isEmpty()) {
+            log.info("待建立索引的日志分表: {}", sealQueue.size());
+        }
+    }
+
+    private void collectUnsealed(Connection conn, LocalDateTime now) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        Set<String> existing = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT type, name FROM sqlite_master WHERE type IN ('table', 'index')")) {
+            while (rs.next()) {
+                String name = rs.getString(2);
+                if ("index".equals(rs.getString(1))) {
+                    existing.add(name);
+                } else if (isLogPartition(name)) {
+                    tables.add(name);
+                }
+            }
+        }
+        for (String table : tables) {
+            if (partitions.isSealed(table, now)
+                    && !existing.containsAll(indexes.indexNames(getBaseTableName(table), table))) {
+                enqueueSeal(table);
+            }
+        }
+    }
+
+    // ==================== 空间回收 ====================
+
+    /**
+     * 调度线程：按上一周期的发布速率判断是否处于低流量窗口
+     */
+    private void requestMaintenance() {
+        long published = ringBuffer.publishedCount();
+        double rate = (published - lastPublished) * 1000.0 / maintenanceInterval;
+        lastPublished = published;
+        spaceStatsRequested = true;
+        maintenanceRequested = rate <= maintenanceMaxRate;
+    }
+
+    /**
+     * 维护对象：单库模式为日志库，分库模式为当前打开的周期文件
+     */
+    private Map<java.nio.file.Path, Connection> maintenanceTargets() throws SQLException {
+        Map<java.nio.file.Path, Connection> targets = new LinkedHashMap<>();
+        if (periodFiles == null) {
+            if (connection != null && !connection.isClosed()) {
+                targets.put(Paths.get(databasePath), connection);
+            }
+        } else {
+            periodFiles.openConnections().forEach((suffix, conn) -> targets.put(periodFiles.fileOf(suffix), conn));
+        }
+        return targets;
+    }
+
+    /**
+     * 回收一批空闲页（每个库最多 vacuum-pages 页，单个短事务）；全部回收后做 WAL 检查点并结束本轮维护
+     */
+    private void maintenanceStep() {
+        Connection current = null;
+        try {
+            Map<java.nio.file.Path, Connection> targets = maintenanceTargets();
+            boolean remaining = false;
+            for (Connection conn : targets.values()) {
+                current = conn;
+                long freed = LogDbMaintenance.vacuumStep(conn, vacuumPages);
+                conn.commit();
+                if (freed > 0) {
+                    maintenanceReclaimed += freed;
+                    vacuumedPages += freed;
+                    remaining |= LogDbMaintenance.freePages(conn) > 0;
+                }
+            }
+            if (remaining) {
+                return;
+            }
+            for (Map.Entry<java.nio.file.Path, Connection> target : targets.entrySet()) {
+                current = target.getValue();
+                boolean truncate = LogDbMaintenance.walSize(target.getKey()) > walTruncateMb << 20;
+                if (!LogDbMaintenance.checkpoint(target.getValue(), truncate)) {
+                    log.debug("WAL 检查点未完成（存在读连接）: {}", target.getKey());
+                }
+            }
+            if (maintenanceReclaimed > 0) {
+                log.info("日志库空闲页回收完成: pages={}", maintenanceReclaimed);
+            }
+            maintenanceReclaimed = 0;
+            maintenanceRequested = false;
+            refreshSpaceStats();
+        } catch (Exception e) {
+            log.warn("日志库空间回收失败: {}", e.getMessage());
+            maintenanceRequested = false;
+            try {
+                if (current != null && !current.getAutoCommit()) {
+                    current.rollback();
+                }
+            } catch (SQLException ex) {
+                log.error("回滚事务失败", ex);
+            }
+        }
+    }
+
+    private void refreshSpaceStats() {
+        try {
+            long fileBytes = 0, walBytes = 0, pageSize = 0, pageCount = 0, freePages = 0;
+            for (Map.Entry<java.nio.file.Path, Connection> target : maintenanceTargets().entrySet()) {
+                SpaceStats stats = LogDbMaintenance.stats(target.getValue(), target.getKey());
+                fileBytes += stats.fileBytes();
+                walBytes += stats.walBytes();
+                pageSize = stats.pageSize();
+                pageCount += stats.pageCount();
+                freePages += stats.freePages();
+            }
+            spaceStats = new SpaceStats(fileBytes, walBytes, pageSize, pageCount, freePages);
+        } catch (Exception e) {
+            log.debug("读取日志库空间占用失败: {}", e.getMessage());
+        }
+    }
+
     // ==================== 日志清理 ====================
 
     /**
      * 清理过期的日志分表
      * 查询 sqlite_master 获取所有分表名，解析日期后缀，删除超过 retention-days 的表
+     * 仅在写入线程中执行
      */
-    private synchronized void cleanup() {
+    private void cleanup() {
+        if (periodFiles != null) {
+            cleanupPeriodFiles(LocalDate.now().minusDays(retentionDays));
+            return;
+        }
         try {
             if (connection == null || connection.isClosed()) {
                 return;
@@ -515,7 +1529,8 @@ public class DbLoggingService {
             try (Statement stmt = connection.createStatement();
                  ResultSet rs = stmt.executeQuery(
                          "SELECT name FROM sqlite_master WHERE type='table' " +
-                         "AND (name LIKE 'sql_log_%' OR name LIKE 'audit_log_%' OR name LIKE 'access_log_%')")) {
+                         "AND (name LIKE 'sql_log_%' OR name LIKE 'audit_log_%' OR name LIKE 'access_log_%' " +
+                         "OR name LIKE 'sql_stats_%' OR name LIKE 'endpoint_stats_%')")) {
 
                 List<String> tablesToDrop = new ArrayList<>();
                 while (rs.next()) {
@@ -526,9 +1541,22 @@ public class DbLoggingService {
                     }
                 }
 
-                // 删除过期表
+                // 删除过期表（需要归档的类型先导出为段文件，导出失败则保留该表）
                 for (String table : tablesToDrop) {
+                    if (!archive(connection, table)) {
+                        continue;
+                    }
+                    partitions.forget(table);
+                    sealQueue.remove(table);
                     stmt.execute("DROP TABLE IF EXISTS " + table);
+                    if (auditChain != null && table.startsWith("audit_log_")) {
+                        // 过期分表的链记录随之删除，校验从剩余链记录的第一条开始
+                        try (PreparedStatement delete = connection.prepareStatement(
+                                "DELETE FROM " + AuditChain.TABLE + " WHERE table_name = ?")) {
+                            delete.setString(1, table);
+                            delete.executeUpdate();
+                        }
+                    }
                     droppedCount++;
                     log.debug("删除过期日志表: {}", table);
                 }
@@ -553,16 +1581,111 @@ public class DbLoggingService {
         }
     }
 
+    /**
+     * 将过期分表导出到归档目录
+     * @return 是否可以删除该表
+     */
+    private boolean archive(Connection conn, String tableName) {
+        String type = getBaseTableName(tableName);
+        if (!archiveEnabled || !archiveTypes.contains(type)) {
+            return true;
+        }
+        String timeColumn = "access_log".equals(type) ? "request_time" : "log_time";
+        try {
+            LogSegmentWriter.write(conn, tableName, timeColumn, Paths.get(archivePath));
+            return true;
+        } catch (Exception e) {
+            log.error("日志分表归档失败，暂不删除: {}", tableName, e);
+            return false;
+        }
+    }
+
+    /**
+     * 按周期分库模式的清理：过期周期文件先归档其中需要保留的分表，再整体删除
+     */
+    private void cleanupPeriodFiles(LocalDate cutoffDate) {
+        int deletedCount = 0;
+        try {
+            for (Map.Entry<String, java.nio.file.Path> entry : periodFiles.listFiles().entrySet()) {
+                String suffix = entry.getKey();
+                LocalDate periodDate = parseSuffixDate(suffix);
+                if (periodDate == null || !periodDate.isBefore(cutoffDate)) {
+                    continue;
+                }
+                partitions.forgetPeriod(suffix);
+                periodFiles.close(suffix);
+                sealQueue.removeIf(table -> table.endsWith("_" + suffix));
+                if (!archivePeriodFile(entry.getValue())) {
+                    continue;
+                }
+                periodFiles.delete(suffix);
+                deletedCount++;
+                log.debug("删除过期日志周期文件: {}", entry.getValue());
+            }
+        } catch (Exception e) {
+            log.error("日志清理任务执行失败", e);
+        }
+        if (deletedCount > 0) {
+            log.info("日志清理完成: 删除 {} 个过期周期文件, cutoffDate={}", deletedCount, cutoffDate);
+        } else {
+            log.debug("日志清理完成: 无过期周期文件需要删除");
+        }
+    }
+
+    /**
+     * 归档周期文件中需要保留的分表
+     * @return 是否可以删除该文件
+     */
+    private boolean archivePeriodFile(java.nio.file.Path file) {
+        if (!archiveEnabled) {
+            return true;
+        }
+        Properties readOnly = new Properties();
+        readOnly.setProperty("open_mode", "1");
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file, readOnly)) {
+            List<String> tables = new ArrayList<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT name FROM sqlite_master WHERE type='table'")) {
+                while (rs.next()) {
+                    tables.add(rs.getString(1));
+                }
+            }
+            for (String table : tables) {
+                if (isLogPartition(table) && !archive(conn, table)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            log.error("打开过期日志周期文件失败，暂不删除: {}", file, e);
+            return false;
+        }
+    }
+
+    private static boolean isLogPartition(String tableName) {
+        for (String type : LOG_TYPES) {
+            if (tableName.startsWith(type + "_")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * 从分表名中解析日期
      * 支持格式：xxx_YYYYMMDD、xxx_YYYYMM、xxx_YYYY、xxx_YYYYWxx
      */
     private LocalDate parseTableDate(String tableName) {
-        try {
-            // 提取日期后缀（最后一个下划线之后的部分）
-            String baseTableName = getBaseTableName(tableName);
-            String suffix = tableName.substring(baseTableName.length() + 1);
+        // 提取日期后缀（最后一个下划线之后的部分）
+        String baseTableName = getBaseTableName(tableName);
+        return parseSuffixDate(tableName.substring(baseTableName.length() + 1));
+    }
 
+    /**
+     * 从周期后缀中解析日期（周期内最后一天）
+     */
+    private LocalDate parseSuffixDate(String suffix) {
+        try {
             if (suffix.contains("W")) {
                 // 周格式：2026W09
                 String year = suffix.substring(0, 4);
@@ -572,16 +1695,16 @@ public class DbLoggingService {
                 return LocalDate.of(Integer.parseInt(year), 1, 1).plusWeeks(weekNum - 1);
             } else if (suffix.length() == 8) {
                 // 日格式：20260225
-                return LocalDate.parse(suffix, DateTimeFormatter.ofPattern("yyyyMMdd"));
+                return LocalDate.parse(suffix, DAY_SUFFIX);
             } else if (suffix.length() == 6) {
                 // 月格式：202602 -> 取月末
-                return java.time.YearMonth.parse(suffix, DateTimeFormatter.ofPattern("yyyyMM")).atEndOfMonth();
+                return java.time.YearMonth.parse(suffix, MONTH_SUFFIX).atEndOfMonth();
             } else if (suffix.length() == 4) {
                 // 年格式：2026 -> 取年末
                 return LocalDate.of(Integer.parseInt(suffix), 12, 31);
             }
         } catch (Exception e) {
-            log.debug("无法解析表名日期: {}", tableName);
+            log.debug("无法解析周期日期: {}", suffix);
         }
         return null;
     }
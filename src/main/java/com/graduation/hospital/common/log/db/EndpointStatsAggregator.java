@@ -0,0 +1,125 @@
+package com.graduation.hospital.common.log.db;
+
+import com.graduation.hospital.entity.log.EndpointStatsLog;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 接口耗时聚合器
+ * 在内存中按 (请求方法, 路由模板, 状态码类别) 累计请求次数与耗时直方图，
+ * 每分钟由 {@link #drainWindow} 生成汇总行写入 endpoint_stats 分表
+ */
+public class EndpointStatsAggregator {
+
+    /** 超出路由数上限后统一归入此路由，保证内存有界 */
+    static final String OVERFLOW_ROUTE = "<other>";
+
+    private static final Pattern NUMERIC = Pattern.compile("\\d+");
+    private static final Pattern UUID = Pattern.compile(
+            "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final Pattern HEX_ID = Pattern.compile("[0-9a-fA-F]{16,}");
+
+    private record Key(String method, String route, String statusClass) {
+    }
+
+    private static final class Entry {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final LongAdder totalUs = new LongAdder();
+        final AtomicLong maxUs = new AtomicLong();
+    }
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxRoutes;
+    /** 刷新线程独占 */
+    private final long[] counts = new long[LatencyHistogram.BUCKETS];
+    private LocalDateTime windowStart = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+
+    public EndpointStatsAggregator(int maxRoutes) {
+        this.maxRoutes = maxRoutes;
+    }
+
+    /**
+     * 记录一次请求
+     * @param route 路由模板，为空时由 URI 归一化得到
+     */
+    public void record(String method, String route, String uri, int status, long elapsedNanos) {
+        String template = route != null ? route : normalize(uri);
+        Key key = new Key(method, template, (status / 100) + "xx");
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            Key target = entries.size() >= maxRoutes ? new Key(method, OVERFLOW_ROUTE, key.statusClass()) : key;
+            entry = entries.computeIfAbsent(target, k -> new Entry());
+        }
+        long us = elapsedNanos / 1_000;
+        entry.histogram.record(us);
+        entry.totalUs.add(us);
+        long current = entry.maxUs.get();
+        while (us > current && !entry.maxUs.compareAndSet(current, us)) {
+            current = entry.maxUs.get();
+        }
+    }
+
+    /**
+     * 将 URI 中的数字、UUID 与长十六进制段替换为 {id}
+     * 例如：/api/v1/patients/123 -> /api/v1/patients/{id}
+     */
+    static String normalize(String uri) {
+        if (uri == null || uri.isEmpty()) {
+            return "/";
+        }
+        String[] segments = uri.split("/", -1);
+        boolean changed = false;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (!segment.isEmpty() && (NUMERIC.matcher(segment).matches()
+                    || UUID.matcher(segment).matches() || HEX_ID.matcher(segment).matches())) {
+                segments[i] = "{id}";
+                changed = true;
+            }
+        }
+        return changed ? String.join("/", segments) : uri;
+    }
+
+    /**
+     * 生成当前窗口的汇总行，并开启新窗口
+     * 仅允许单线程调用
+     * @param windowEnd 窗口结束时间（整分钟）
+     */
+    public List<EndpointStatsLog> drainWindow(LocalDateTime windowEnd) {
+        LocalDateTime start = windowStart;
+        windowStart = windowEnd;
+
+        List<EndpointStatsLog> rows = new ArrayList<>();
+        for (Map.Entry<Key, Entry> e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            long count = entry.histogram.drainTo(counts);
+            if (count == 0) {
+                continue;
+            }
+            Key key = e.getKey();
+            EndpointStatsLog row = new EndpointStatsLog();
+            row.setWindowStart(start);
+            row.setLogTime(windowEnd);
+            row.setMethod(key.method());
+            row.setRoute(key.route());
+            row.setStatusClass(key.statusClass());
+            row.setRequestCount(count);
+            row.setTotalUs(entry.totalUs.sumThenReset());
+            row.setMaxUs(entry.maxUs.getAndSet(0));
+            row.setP50Us(LatencyHistogram.percentile(counts, count, 0.50));
+            row.setP95Us(LatencyHistogram.percentile(counts, count, 0.95));
+            row.setP99Us(LatencyHistogram.percentile(counts, count, 0.99));
+            row.setHistogram(LatencyHistogram.encode(counts));
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,101 @@
+package com.graduation.hospital.common.log.db;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 对数-线性分桶的耗时直方图（HDR 风格）
+ * 每个 2 的幂区间再等分为 16 个子桶，任意取值的相对误差不超过 1/16；
+ * 0~15 微秒精确计数，上限约 2.4 小时，超出部分归入最后一桶
+ * 记录操作无锁，可由任意线程并发调用；{@link #drainTo} 取出并清零计数，
+ * 并发记录的样本只会计入本窗口或下一窗口，不会丢失
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 32;
+
+    /** 桶总数 */
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * 记录一次耗时（微秒）
+     */
+    void record(long us) {
+        counts.incrementAndGet(indexOf(us));
+    }
+
+    /**
+     * 取出当前计数并清零
+     * @param target 长度为 {@link #BUCKETS} 的数组，写入各桶计数
+     * @return 样本总数
+     */
+    long drainTo(long[] target) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long value = counts.get(i) == 0 ? 0 : counts.getAndSet(i, 0);
+            target[i] = value;
+            total += value;
+        }
+        return total;
+    }
+
+    static int indexOf(long us) {
+        if (us < SUB_BUCKETS) {
+            return (int) Math.max(0, us);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(us);
+        int sub = (int) (us >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub);
+    }
+
+    /**
+     * 桶的上界（含，微秒）
+     */
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /**
+     * 由桶计数估算分位数（取所在桶上界，单位微秒）
+     */
+    static long percentile(long[] counts, long total, double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= threshold) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(counts.length - 1);
+    }
+
+    /**
+     * 稀疏编码：逗号分隔的 {桶上界微秒}:{计数}，只包含非零桶
+     * 上界自描述，不同窗口的行可按上界直接相加合并
+     */
+    static String encode(long[] counts) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            if (!sb.isEmpty()) {
+                sb.append(',');
+            }
+            sb.append(upperBound(i)).append(':').append(counts[i]);
+        }
+        return sb.toString();
+    }
+}
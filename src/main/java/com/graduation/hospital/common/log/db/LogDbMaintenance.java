@@ -0,0 +1,135 @@
+package com.graduation.hospital.common.log.db;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 日志库空间回收与 WAL 检查点
+ * 日志库以 auto_vacuum=INCREMENTAL 创建：删除过期分表后空闲页留在库内，
+ * 由写入线程在低流量时按页数预算分步执行 incremental_vacuum 归还给文件系统，
+ * 每步只持有很短的写事务，不会像整库 VACUUM 那样长时间阻塞写入
+ * 所有方法只能在持有连接的写入线程（或写入线程启动前）调用
+ */
+@Slf4j
+final class LogDbMaintenance {
+
+    private LogDbMaintenance() {
+    }
+
+    /**
+     * 开启增量回收：新库直接生效；已有的非增量库只有 convertExisting 时才整库 VACUUM 转换（启动时一次性阻塞）
+     * 需在设置 WAL 与关闭自动提交之前调用
+     */
+    static void enableIncrementalVacuum(Connection conn, Path file, boolean convertExisting) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            int mode = pragmaInt(stmt, "auto_vacuum");
+            if (mode == 2) {
+                return;
+            }
+            // 库内尚无任何表时设置即生效
+            stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            if (pragmaInt(stmt, "auto_vacuum") == 2) {
+                return;
+            }
+            if (!convertExisting) {
+                log.warn("日志库未启用增量回收，删除的分表不会释放磁盘空间；" +
+                        "可设置 logging.db.maintenance.convert-existing=true 在启动时转换: {}", file);
+                return;
+            }
+            long start = System.nanoTime();
+            stmt.execute("VACUUM");
+            log.info("日志库已转换为增量回收模式: file={}, elapsed={}ms",
+                    file, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * 回收最多 pages 个空闲页（调用方提交事务）
+     * @return 实际回收的页数
+     */
+    static long vacuumStep(Connection conn, int pages) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            long before = pragmaInt(stmt, "freelist_count");
+            if (before == 0) {
+                return 0;
+            }
+            // incremental_vacuum 每回收一页返回一行，需读完结果集才会回收全部预算
+            if (stmt.execute("PRAGMA incremental_vacuum(" + pages + ")")) {
+                try (ResultSet rs = stmt.getResultSet()) {
+                    while (rs.next()) {
+                        // 逐页推进
+                    }
+                }
+            }
+            return before - pragmaInt(stmt, "freelist_count");
+        }
+    }
+
+    /**
+     * 空闲页数
+     */
+    static long freePages(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            return pragmaInt(stmt, "freelist_count");
+        }
+    }
+
+    /**
+     * WAL 检查点：默认 PASSIVE，不等待读连接；WAL 文件过大时使用 TRUNCATE 将其截断
+     * 检查点不能在事务内执行，临时切换为自动提交
+     * @return 是否已将 WAL 全部写回主库
+     */
+    static boolean checkpoint(Connection conn, boolean truncate) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        if (!autoCommit) {
+            conn.commit();
+            conn.setAutoCommit(true);
+        }
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA wal_checkpoint(" + (truncate ? "TRUNCATE" : "PASSIVE") + ")")) {
+            // busy, log 帧数, 已写回帧数
+            return rs.next() && rs.getInt(1) == 0 && rs.getInt(2) == rs.getInt(3);
+        } finally {
+            if (!autoCommit) {
+                conn.setAutoCommit(false);
+            }
+        }
+    }
+
+    /**
+     * 读取库文件的空间占用
+     */
+    static DbLoggingService.SpaceStats stats(Connection conn, Path file) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            long pageSize = pragmaInt(stmt, "page_size");
+            long pageCount = pragmaInt(stmt, "page_count");
+            long freePages = pragmaInt(stmt, "freelist_count");
+            return new DbLoggingService.SpaceStats(fileSize(file), walSize(file), pageSize, pageCount, freePages);
+        }
+    }
+
+    static long walSize(Path file) {
+        return fileSize(file.resolveSibling(file.getFileName() + "-wal"));
+    }
+
+    private static long fileSize(Path file) {
+        try {
+            return Files.exists(file) ? Files.size(file) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static int pragmaInt(Statement stmt, String pragma) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA " + pragma)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
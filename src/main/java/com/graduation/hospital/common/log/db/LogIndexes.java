@@ -0,0 +1,89 @@
+package com.graduation.hospital.common.log.db;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * 日志分表二级索引定义
+ * 分表在接收写入期间不建索引，周期结束（封存）后由写入线程一次性创建，
+ * 保证当前分表的插入吞吐不受索引维护影响
+ * 配置格式：分号分隔多个索引，逗号分隔复合索引的列，如 {@code request_id;username,request_time}
+ * 索引名为 idx_{分表名}_{列名...}，可据此判断分表是否已完成封存
+ */
+@Slf4j
+final class LogIndexes {
+
+    private static final Pattern COLUMN = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    /** 日志类型 → 索引列（每个元素为一个索引） */
+    private final Map<String, List<List<String>>> definitions = new HashMap<>();
+
+    /**
+     * @param specs 日志类型 → 索引配置
+     */
+    LogIndexes(Map<String, String> specs) {
+        for (Map.Entry<String, String> entry : specs.entrySet()) {
+            definitions.put(entry.getKey(), parse(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private static List<List<String>> parse(String type, String spec) {
+        List<List<String>> indexes = new ArrayList<>();
+        if (spec == null || spec.isBlank()) {
+            return indexes;
+        }
+        for (String index : spec.split(";")) {
+            List<String> columns = new ArrayList<>();
+            for (String column : index.split(",")) {
+                String name = column.trim().toLowerCase(Locale.ROOT);
+                if (!name.isEmpty()) {
+                    columns.add(name);
+                }
+            }
+            if (columns.isEmpty()) {
+                continue;
+            }
+            // 列名直接拼入 DDL，非法定义直接忽略
+            if (!columns.stream().allMatch(c -> COLUMN.matcher(c).matches())) {
+                log.warn("忽略无效的日志索引定义: type={}, index={}", type, index);
+                continue;
+            }
+            indexes.add(columns);
+        }
+        return indexes;
+    }
+
+    boolean isEmpty(String type) {
+        List<List<String>> indexes = definitions.get(type);
+        return indexes == null || indexes.isEmpty();
+    }
+
+    /**
+     * 分表应有的索引名
+     */
+    List<String> indexNames(String type, String tableName) {
+        List<String> names = new ArrayList<>();
+        for (List<String> columns : definitions.getOrDefault(type, List.of())) {
+            names.add(indexName(tableName, columns));
+        }
+        return names;
+    }
+
+    /**
+     * 为分表创建索引的语句（可重复执行）
+     */
+    List<String> createStatements(String type, String tableName) {
+        List<String> statements = new ArrayList<>();
+        for (List<String> columns : definitions.getOrDefault(type, List.of())) {
+            statements.add("CREATE INDEX IF NOT EXISTS " + indexName(tableName, columns)
+                    + " ON " + tableName + " (" + String.join(", ", columns) + ")");
+        }
+        return statements;
+    }
+
+    private static String indexName(String tableName, List<String> columns) {
+        return "idx_" + tableName + "_" + String.join("_", columns);
+    }
+}
@@ -0,0 +1,239 @@
+package com.graduation.hospital.common.log.db;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 日志分表注册表
+ * - 为每种日志类型缓存当前周期的表名与周期边界，周期内解析表名只需两次时间比较，
+ *   跨越边界时只重新计算一次，不再为每个事件创建 DateTimeFormatter / String.format
+ * - 记录已存在的分表，避免每次刷新都查询 sqlite_master
+ * - 按分表缓存 INSERT 预编译语句
+ * 表名解析可在任意线程调用；已知分表与语句缓存只允许写入线程访问
+ */
+@Slf4j
+final class LogPartitionRegistry {
+
+    /**
+     * 分表周期
+     * @param tableName 分表名
+     * @param start 周期起始（含）
+     * @param end 周期结束（不含）
+     */
+    record Period(String tableName, LocalDateTime start, LocalDateTime end) {
+
+        boolean contains(LocalDateTime dateTime) {
+            return !dateTime.isBefore(start) && dateTime.isBefore(end);
+        }
+    }
+
+    private final DbLoggingService.SplitMode splitMode;
+
+    /** 日志类型 → 当前周期 */
+    private final Map<String, Period> currentPeriods = new ConcurrentHashMap<>();
+
+    /** 已存在的分表（写入线程） */
+    private final Set<String> knownTables = new HashSet<>();
+
+    /** 分表 → INSERT 预编译语句（写入线程） */
+    private final Map<String, PreparedStatement> insertStatements = new HashMap<>();
+
+    LogPartitionRegistry(DbLoggingService.SplitMode splitMode) {
+        this.splitMode = splitMode;
+    }
+
+    // ==================== 表名解析 ====================
+
+    /**
+     * 解析分表名
+     * 命中当前周期时无对象分配；遇到更新的周期时滚动一次缓存
+     */
+    String tableName(String prefix, LocalDateTime dateTime) {
+        Period period = currentPeriods.get(prefix);
+        if (period != null && period.contains(dateTime)) {
+            return period.tableName();
+        }
+        Period computed = computePeriod(prefix, dateTime);
+        if (period == null || !dateTime.isBefore(period.end())) {
+            currentPeriods.put(prefix, computed);
+            log.debug("日志分表周期切换: {}", computed.tableName());
+        }
+        return computed.tableName();
+    }
+
+    /**
+     * 当前周期的表名是否为指定表
+     */
+    boolean isCurrent(String tableName) {
+        for (Period period : currentPeriods.values()) {
+            if (period.tableName().equals(tableName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 指定周期后缀（如 20261017）是否为某类日志的当前周期
+     */
+    boolean isCurrentPeriod(String suffix) {
+        for (Period period : currentPeriods.values()) {
+            if (period.tableName().endsWith("_" + suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 分表所在周期是否已经结束（封存），之后只会收到少量迟到或回放的记录
+     * 同一分表模式下周期后缀等长，按字典序比较即可
+     */
+    boolean isSealed(String tableName, LocalDateTime now) {
+        String prefix = tableName.substring(0, tableName.lastIndexOf('_'));
+        return computePeriod(prefix, now).tableName().compareTo(tableName) > 0;
+    }
+
+    /**
+     * 计算时间所在的分表周期
+     * 周分表沿用 dayOfYear / 7 + 1 的周序号，保持与历史分表名兼容
+     */
+    Period computePeriod(String prefix, LocalDateTime dateTime) {
+        LocalDate date = dateTime.toLocalDate();
+        int year = date.getYear();
+        return switch (splitMode) {
+            case YEAR -> {
+                LocalDate start = LocalDate.of(year, 1, 1);
+                yield new Period(prefix + "_" + year, start.atStartOfDay(), start.plusYears(1).atStartOfDay());
+            }
+            case MONTH -> {
+                LocalDate start = date.withDayOfMonth(1);
+                int month = date.getMonthValue();
+                yield new Period(prefix + "_" + (year * 100 + month),
+                        start.atStartOfDay(), start.plusMonths(1).atStartOfDay());
+            }
+            case WEEK -> {
+                int week = date.getDayOfYear() / 7 + 1;
+                LocalDate yearStart = LocalDate.of(year, 1, 1);
+                LocalDate start = week == 1 ? yearStart : yearStart.plusDays(7L * (week - 1) - 1);
+                LocalDate end = yearStart.plusDays(7L * week - 1);
+                LocalDate nextYear = yearStart.plusYears(1);
+                if (end.isAfter(nextYear)) {
+                    end = nextYear;
+                }
+                yield new Period(prefix + "_" + year + "W" + (week < 10 ? "0" : "") + week,
+                        start.atStartOfDay(), end.atStartOfDay());
+            }
+            case DAY -> new Period(
+                    prefix + "_" + (year * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth()),
+                    date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+        };
+    }
+
+    // ==================== 已知分表 ====================
+
+    /**
+     * 从 sqlite_master 加载已存在的日志分表
+     */
+    void loadKnownTables(Connection connection, String... prefixes) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT name FROM sqlite_master WHERE type='table'");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String name = rs.getString(1);
+                for (String prefix : prefixes) {
+                    if (name.startsWith(prefix + "_")) {
+                        knownTables.add(name);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    boolean isKnown(String tableName) {
+        return knownTables.contains(tableName);
+    }
+
+    void markKnown(String tableName) {
+        knownTables.add(tableName);
+    }
+
+    /**
+     * 分表被删除后移除缓存
+     */
+    void forget(String tableName) {
+        knownTables.remove(tableName);
+        releaseStatement(tableName);
+    }
+
+    /**
+     * 周期文件关闭或删除后，移除该周期全部分表的缓存
+     */
+    void forgetPeriod(String suffix) {
+        String ending = "_" + suffix;
+        knownTables.removeIf(table -> table.endsWith(ending));
+        for (String table : new ArrayList<>(insertStatements.keySet())) {
+            if (table.endsWith(ending)) {
+                releaseStatement(table);
+            }
+        }
+    }
+
+    // ==================== 预编译语句 ====================
+
+    /**
+     * 获取分表的 INSERT 预编译语句（首次使用时创建）
+     */
+    PreparedStatement insertStatement(Connection connection, String tableName, String insertSql) throws SQLException {
+        PreparedStatement statement = insertStatements.get(tableName);
+        if (statement == null) {
+            statement = connection.prepareStatement(insertSql);
+            insertStatements.put(tableName, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * 关闭并移除分表的预编译语句
+     */
+    void releaseStatement(String tableName) {
+        PreparedStatement statement = insertStatements.remove(tableName);
+        if (statement != null) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                log.debug("关闭预编译语句失败: {}", tableName);
+            }
+        }
+    }
+
+    /**
+     * 关闭全部预编译语句
+     */
+    void closeAll() {
+        Iterator<String> it = insertStatements.keySet().iterator();
+        while (it.hasNext()) {
+            String tableName = it.next();
+            try {
+                insertStatements.get(tableName).close();
+            } catch (SQLException e) {
+                log.debug("关闭预编译语句失败: {}", tableName);
+            }
+            it.remove();
+        }
+    }
+}
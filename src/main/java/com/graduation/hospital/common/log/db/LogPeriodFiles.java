@@ -0,0 +1,170 @@
+package com.graduation.hospital.common.log.db;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+/**
+ * 按周期分库的日志文件
+ * 每个分表周期对应一个独立的 SQLite 文件（如 logs/db/2026-10-17.db），文件内表名与单库模式一致；
+ * 保留期清理只需删除整个文件，不会在库内留下空闲页
+ * - 周期后缀 → 文件名：20261017 → 2026-10-17.db，202610 → 2026-10.db，2026W42 / 2026 保持不变
+ * - 可写连接仅由写入线程持有，非当前周期的连接在空闲后关闭
+ */
+@Slf4j
+final class LogPeriodFiles {
+
+    static final String EXTENSION = ".db";
+
+    private final Path directory;
+
+    /** 周期后缀 → 可写连接（写入线程） */
+    private final Map<String, Connection> connections = new HashMap<>();
+
+    LogPeriodFiles(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 分表名中的周期后缀（最后一个下划线之后的部分）
+     */
+    static String suffixOf(String tableName) {
+        return tableName.substring(tableName.lastIndexOf('_') + 1);
+    }
+
+    /**
+     * 周期后缀对应的文件名
+     */
+    static String fileName(String suffix) {
+        if (suffix.length() == 8) {
+            return suffix.substring(0, 4) + "-" + suffix.substring(4, 6) + "-" + suffix.substring(6) + EXTENSION;
+        }
+        if (suffix.length() == 6 && suffix.indexOf('W') < 0) {
+            return suffix.substring(0, 4) + "-" + suffix.substring(4) + EXTENSION;
+        }
+        return suffix + EXTENSION;
+    }
+
+    /**
+     * 文件名对应的周期后缀，不是周期文件时返回 null
+     */
+    static String suffixOfFile(String fileName) {
+        if (!fileName.endsWith(EXTENSION)) {
+            return null;
+        }
+        String suffix = fileName.substring(0, fileName.length() - EXTENSION.length()).replace("-", "");
+        return suffix.matches("\\d{4}(\\d{2}|\\d{4}|W\\d{2})?") ? suffix : null;
+    }
+
+    static Path fileFor(Path directory, String tableName) {
+        return directory.resolve(fileName(suffixOf(tableName)));
+    }
+
+    /**
+     * 获取分表所在周期文件的可写连接（首次使用时打开）
+     * 新打开的连接会回调 opened，由调用方加载其中已有的分表
+     */
+    Connection connectionFor(String tableName, ConnectionListener opened) throws SQLException {
+        String suffix = suffixOf(tableName);
+        Connection connection = connections.get(suffix);
+        if (connection == null) {
+            Path file = directory.resolve(fileName(suffix));
+            connection = DriverManager.getConnection("jdbc:sqlite:" + file);
+            LogDbMaintenance.enableIncrementalVacuum(connection, file, false);
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("PRAGMA journal_mode=WAL");
+            }
+            connection.setAutoCommit(false);
+            connections.put(suffix, connection);
+            log.debug("打开日志周期文件: {}", file);
+            opened.onOpen(connection);
+        }
+        return connection;
+    }
+
+    /**
+     * 当前打开的周期
+     */
+    Set<String> openSuffixes() {
+        return new HashSet<>(connections.keySet());
+    }
+
+    /**
+     * 当前打开的周期文件连接（写入线程）
+     */
+    Map<String, Connection> openConnections() {
+        return Collections.unmodifiableMap(connections);
+    }
+
+    Path fileOf(String suffix) {
+        return directory.resolve(fileName(suffix));
+    }
+
+    /**
+     * 关闭周期文件的连接
+     */
+    void close(String suffix) {
+        Connection connection = connections.remove(suffix);
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.warn("关闭日志周期文件失败: {}", suffix, e);
+            }
+        }
+    }
+
+    void closeAll() {
+        for (String suffix : openSuffixes()) {
+            close(suffix);
+        }
+    }
+
+    /**
+     * 列出目录中的周期文件（周期后缀 → 文件）
+     */
+    Map<String, Path> listFiles() throws IOException {
+        Map<String, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : stream) {
+                String suffix = suffixOfFile(file.getFileName().toString());
+                if (suffix != null) {
+                    files.put(suffix, file);
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * 删除周期文件（连同 WAL 与共享内存文件）
+     */
+    void delete(String suffix) throws IOException {
+        close(suffix);
+        Path file = directory.resolve(fileName(suffix));
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(file.resolveSibling(file.getFileName() + "-wal"));
+        Files.deleteIfExists(file.resolveSibling(file.getFileName() + "-shm"));
+    }
+
+    /**
+     * 连接打开回调
+     */
+    @FunctionalInterface
+    interface ConnectionListener {
+        void onOpen(Connection connection) throws SQLException;
+    }
+}
@@ -0,0 +1,699 @@
+package com.graduation.hospital.common.log.db;
+
+import com.graduation.hospital.common.log.db.archive.LogSegment;
+import com.graduation.hospital.common.log.db.archive.LogSegmentWriter;
+import com.graduation.hospital.entity.log.AccessLog;
+import com.graduation.hospital.entity.log.AuditLog;
+import com.graduation.hospital.entity.log.SqlLog;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 日志查询服务
+ * 跨分表查询 access_log / audit_log / sql_log：
+ * - 按时间范围裁剪分表，只扫描与范围重叠且实际存在的分表
+ * - 按 (时间, id) 倒序的 keyset 分页，游标翻页无需 OFFSET
+ * - 使用独立的只读连接池，不与 DbLoggingService 的写入连接争用；
+ *   按周期分库时按需以只读方式打开涉及的周期文件
+ * - 已归档的过期分表通过内存映射只读扫描 logs/archive 下的段文件：
+ *   段文件的 footer 摘要（行数、时间范围）常驻缓存，按时间裁剪时无需打开文件；
+ *   最近使用的段（含已解码的列）保留在有界 LRU 中，翻页时不再重复映射与解码
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "logging.db.enabled", havingValue = "true")
+public class LogQueryService {
+
+    /** 单页最大条数 */
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /** 单次查询允许枚举的最大分表周期数，防止超大时间范围 */
+    private static final int MAX_PERIODS = 4000;
+
+    /**
+     * 可查询的日志类型
+     */
+    public enum LogType {
+        ACCESS("access_log", "request_time", true, true, true),
+        AUDIT("audit_log", "log_time", false, false, true),
+        SQL("sql_log", "log_time", true, false, false);
+
+        private final String prefix;
+        private final String timeColumn;
+        private final boolean hasRequestId;
+        private final boolean hasStatus;
+        private final boolean hasUrl;
+
+        LogType(String prefix, String timeColumn, boolean hasRequestId, boolean hasStatus, boolean hasUrl) {
+            this.prefix = prefix;
+            this.timeColumn = timeColumn;
+            this.hasRequestId = hasRequestId;
+            this.hasStatus = hasStatus;
+            this.hasUrl = hasUrl;
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+
+        /**
+         * 按路径名解析：access / audit / sql
+         */
+        public static LogType of(String name) {
+            for (LogType type : values()) {
+                if (type.name().equalsIgnoreCase(name)) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("不支持的日志类型: " + name);
+        }
+    }
+
+    /**
+     * 查询条件
+     * @param from 起始时间（含），为空时取 to 往前 retention-days
+     * @param to 结束时间（不含），为空时取当前时间
+     * @param username 操作用户
+     * @param requestId 请求 ID（access / sql）
+     * @param status 响应状态码（access）
+     * @param urlPrefix URL 前缀（access / audit）
+     * @param cursor 上一页返回的游标
+     * @param limit 每页条数
+     */
+    public record LogQuery(LocalDateTime from, LocalDateTime to, String username, String requestId,
+                           Integer status, String urlPrefix, String cursor, int limit) {
+    }
+
+    /**
+     * 查询结果页
+     * @param content 日志记录（按时间倒序）
+     * @param nextCursor 下一页游标，为空表示没有更多数据
+     * @param partitions 本次实际扫描的分表
+     */
+    public record LogPage<T>(List<T> content, String nextCursor, List<String> partitions) {
+    }
+
+    @Value("${logging.db.split-mode:DAY}")
+    private String splitMode;
+
+    @Value("${logging.db.database-path:db/hospital.log.db}")
+    private String databasePath;
+
+    @Value("${logging.db.retention-days:90}")
+    private int retentionDays;
+
+    @Value("${logging.db.file-per-period:false}")
+    private boolean filePerPeriod;
+
+    @Value("${logging.db.period-directory:logs/db}")
+    private String periodDirectory;
+
+    @Value("${logging.db.archive.path:logs/archive}")
+    private String archivePath;
+
+    @Value("${logging.db.query.pool-size:2}")
+    private int poolSize;
+
+    @Value("${logging.db.query.busy-timeout:3000}")
+    private int busyTimeout;
+
+    @Value("${logging.db.query.segment-cache-size:4}")
+    private int segmentCacheSize;
+
+    private HikariDataSource dataSource;
+    private LogPartitionRegistry periods;
+    private Path archiveDir;
+    private Path periodDir;
+
+    /**
+     * 待扫描的分表
+     * @param archived true 表示已归档为段文件
+     */
+    private record Partition(String tableName, boolean archived) {
+    }
+
+    /**
+     * 段文件 footer 摘要
+     * @param modified 文件修改时间，与 size 一起判断段文件是否被重新导出
+     */
+    private record SegmentFooter(FileTime modified, long size, int rowCount,
+                                 LocalDateTime minTime, LocalDateTime maxTime) {
+
+        boolean matches(BasicFileAttributes attributes) {
+            return modified.equals(attributes.lastModifiedTime()) && size == attributes.size();
+        }
+
+        /** 段内数据是否与 [from, to) 有交集，与 {@link LogSegment#overlaps} 一致 */
+        boolean overlaps(LocalDateTime from, LocalDateTime to) {
+            return rowCount > 0 && !maxTime.isBefore(from) && minTime.isBefore(to);
+        }
+    }
+
+    private record OpenSegment(SegmentFooter footer, LogSegment segment) {
+    }
+
+    /** 表名 → 段文件 footer 摘要 */
+    private final Map<String, SegmentFooter> segmentFooters = new ConcurrentHashMap<>();
+
+    /** 最近使用的段（访问顺序），超过 segment-cache-size 时淘汰最久未用的段及其已解码的列 */
+    private final Map<String, OpenSegment> openSegments = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, OpenSegment> eldest) {
+            return size() > segmentCacheSize;
+        }
+    };
+
+    @PostConstruct
+    public void init() {
+        periods = new LogPartitionRegistry(DbLoggingService.SplitMode.valueOf(splitMode));
+        archiveDir = Paths.get(archivePath);
+        periodDir = Paths.get(periodDirectory);
+        if (filePerPeriod) {
+            log.info("日志查询服务初始化完成: 按周期分库, directory={}", periodDirectory);
+            return;
+        }
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("log-query");
+        config.setDriverClassName("org.sqlite.JDBC");
+        config.setJdbcUrl("jdbc:sqlite:" + databasePath);
+        // SQLITE_OPEN_READONLY，连接层面禁止写入
+        config.addDataSourceProperty("open_mode", "1");
+        config.addDataSourceProperty("busy_timeout", String.valueOf(busyTimeout));
+        config.setMaximumPoolSize(Math.max(1, poolSize));
+        config.setMinimumIdle(0);
+        // 日志库可能尚未创建，首次查询时再建立连接
+        config.setInitializationFailTimeout(-1);
+        dataSource = new HikariDataSource(config);
+        log.info("日志查询服务初始化完成: poolSize={}", config.getMaximumPoolSize());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    /**
+     * 跨分表查询日志
+     */
+    public LogPage<Object> query(LogType type, LogQuery query) {
+        LocalDateTime to = query.to() != null ? query.to() : LocalDateTime.now();
+        LocalDateTime from = query.from() != null ? query.from() : to.minusDays(retentionDays);
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("起始时间必须早于结束时间");
+        }
+        validateFilters(type, query);
+        int limit = Math.max(1, Math.min(query.limit(), MAX_PAGE_SIZE));
+
+        Cursor cursor = Cursor.decode(query.cursor());
+        LocalDateTime upper = to;
+        if (cursor != null && cursor.time().isBefore(upper)) {
+            // 游标之后的分表不必再扫描
+            upper = cursor.time().plusNanos(1);
+        }
+
+        List<Object> content = new ArrayList<>();
+        List<String> scanned = new ArrayList<>();
+        try (Connection conn = filePerPeriod ? null : dataSource.getConnection()) {
+            List<Partition> partitions = overlappingPartitions(conn, type, from, upper);
+            for (Partition partition : partitions) {
+                if (content.size() > limit) {
+                    break;
+                }
+                scanned.add(partition.tableName());
+                int remaining = limit + 1 - content.size();
+                if (partition.archived()) {
+                    scanSegment(partition.tableName(), type, query, from, to, cursor, remaining, content);
+                } else if (filePerPeriod) {
+                    scanPeriodFile(partition.tableName(), type, query, from, to, cursor, remaining, content);
+                } else {
+                    scan(conn, partition.tableName(), type, query, from, to, cursor, remaining, content);
+                }
+            }
+        } catch (SQLException | IOException e) {
+            log.error("日志查询失败: type={}", type, e);
+            throw new IllegalStateException("日志查询失败: " + e.getMessage(), e);
+        }
+
+        String nextCursor = null;
+        if (content.size() > limit) {
+            content.remove(content.size() - 1);
+            nextCursor = cursorOf(type, content.get(content.size() - 1)).encode();
+        }
+        return new LogPage<>(content, nextCursor, scanned);
+    }
+
+    private static void validateFilters(LogType type, LogQuery query) {
+        if (query.requestId() != null && !type.hasRequestId) {
+            throw new IllegalArgumentException(type.prefix + " 不支持按 requestId 查询");
+        }
+        if (query.status() != null && !type.hasStatus) {
+            throw new IllegalArgumentException(type.prefix + " 不支持按 status 查询");
+        }
+        if (query.urlPrefix() != null && !type.hasUrl) {
+            throw new IllegalArgumentException(type.prefix + " 不支持按 URL 前缀查询");
+        }
+    }
+
+    // ==================== 分表裁剪 ====================
+
+    /**
+     * 与 [from, to) 重叠且实际存在（库内分表、周期文件或归档段）的分表，按时间倒序
+     * @param conn 单库模式的只读连接，分库模式为 null
+     */
+    private List<Partition> overlappingPartitions(Connection conn, LogType type, LocalDateTime from, LocalDateTime to)
+            throws SQLException {
+        List<String> candidates = new ArrayList<>();
+        LogPartitionRegistry.Period period = periods.computePeriod(type.prefix, from);
+        while (period.start().isBefore(to)) {
+            candidates.add(period.tableName());
+            if (candidates.size() > MAX_PERIODS) {
+                throw new IllegalArgumentException("查询时间范围过大");
+            }
+            period = periods.computePeriod(type.prefix, period.end());
+        }
+
+        Set<String> existing = new HashSet<>();
+        if (conn != null) {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT name FROM sqlite_master WHERE type='table' AND substr(name, 1, ?) = ?")) {
+                ps.setInt(1, type.prefix.length() + 1);
+                ps.setString(2, type.prefix + "_");
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        existing.add(rs.getString(1));
+                    }
+                }
+            }
+        }
+
+        List<Partition> partitions = new ArrayList<>();
+        for (int i = candidates.size() - 1; i >= 0; i--) {
+            String table = candidates.get(i);
+            boolean live = conn != null
+                    ? existing.contains(table)
+                    : Files.exists(LogPeriodFiles.fileFor(periodDir, table));
+            if (live) {
+                partitions.add(new Partition(table, false));
+            } else if (Files.exists(LogSegmentWriter.segmentFile(archiveDir, table))) {
+                partitions.add(new Partition(table, true));
+            }
+        }
+        return partitions;
+    }
+
+    // ==================== 分表扫描 ====================
+
+    private void scan(Connection conn, String table, LogType type, LogQuery query,
+                      LocalDateTime from, LocalDateTime to, Cursor cursor, int remaining,
+                      List<Object> content) throws SQLException {
+        String time = type.timeColumn;
+        StringBuilder sql = new StringBuilder("SELECT * FROM ").append(table)
+                .append(" WHERE ").append(time).append(" >= ? AND ").append(time).append(" < ?");
+        List<Object> params = new ArrayList<>();
+        params.add(from.toString());
+        params.add(to.toString());
+        if (query.username() != null) {
+            sql.append(" AND username = ?");
+            params.add(query.username());
+        }
+        if (query.requestId() != null) {
+            sql.append(" AND request_id = ?");
+            params.add(query.requestId());
+        }
+        if (query.status() != null) {
+            sql.append(" AND status = ?");
+            params.add(query.status());
+        }
+        if (query.urlPrefix() != null) {
+            sql.append(" AND url LIKE ? ESCAPE '\\'");
+            params.add(escapeLike(query.urlPrefix()) + "%");
+        }
+        if (cursor != null) {
+            sql.append(" AND (").append(time).append(" < ? OR (").append(time).append(" = ? AND id < ?))");
+            params.add(cursor.time().toString());
+            params.add(cursor.time().toString());
+            params.add(cursor.id());
+        }
+        sql.append(" ORDER BY ").append(time).append(" DESC, id DESC LIMIT ?");
+        params.add(remaining);
+
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                LogRow row = new ResultSetRow(rs);
+                while (rs.next()) {
+                    content.add(map(type, row));
+                }
+            }
+        }
+    }
+
+    /**
+     * 扫描周期文件中的分表：以只读方式按需打开，扫描完即关闭
+     * 写入线程可能随时关闭或删除过期周期文件，不缓存这些连接
+     */
+    private void scanPeriodFile(String table, LogType type, LogQuery query,
+                                LocalDateTime from, LocalDateTime to, Cursor cursor, int remaining,
+                                List<Object> content) throws SQLException {
+        Path file = LogPeriodFiles.fileFor(periodDir, table);
+        Properties properties = new Properties();
+        properties.setProperty("open_mode", "1");
+        properties.setProperty("busy_timeout", String.valueOf(busyTimeout));
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file, properties)) {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT 1 FROM sqlite_master WHERE type='table' AND name = ?")) {
+                ps.setString(1, table);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        return;
+                    }
+                }
+            }
+            scan(conn, table, type, query, from, to, cursor, remaining, content);
+        }
+    }
+
+    /**
+     * 扫描归档段：按 (时间, id) 倒序遍历，字典列的等值 / 前缀过滤先在字典上求值
+     */
+    private void scanSegment(String table, LogType type, LogQuery query,
+                             LocalDateTime from, LocalDateTime to, Cursor cursor, int remaining,
+                             List<Object> content) throws IOException, SQLException {
+        Path file = LogSegmentWriter.segmentFile(archiveDir, table);
+        SegmentFooter footer = segmentFooter(table, file);
+        if (!footer.overlaps(from, to)) {
+            return;
+        }
+        LogSegment segment = openSegment(table, file, footer);
+        LogSegment.Column time = segment.column(type.timeColumn);
+        LogSegment.Column id = segment.column("id");
+
+        LogSegment.Column username = null;
+        int usernameCode = 0;
+        if (query.username() != null) {
+            username = segment.column("username");
+            usernameCode = username.codeOf(query.username());
+            if (usernameCode < 0) {
+                return;
+            }
+        }
+        LogSegment.Column requestId = null;
+        int requestIdCode = 0;
+        if (query.requestId() != null) {
+            requestId = segment.column("request_id");
+            requestIdCode = requestId.codeOf(query.requestId());
+            if (requestIdCode < 0) {
+                return;
+            }
+        }
+        LogSegment.Column status = query.status() != null ? segment.column("status") : null;
+        LogSegment.Column url = null;
+        boolean[] urlCodes = null;
+        if (query.urlPrefix() != null) {
+            url = segment.column("url");
+            urlCodes = url.codesWithPrefix(query.urlPrefix());
+        }
+
+        long fromNanos = LogSegment.timeKey(from);
+        long toNanos = LogSegment.timeKey(to);
+        long cursorNanos = cursor != null ? LogSegment.timeKey(cursor.time()) : Long.MAX_VALUE;
+        long cursorId = cursor != null ? cursor.id() : Long.MAX_VALUE;
+
+        SegmentRow row = new SegmentRow(segment);
+        int added = 0;
+        for (int i = segment.getRowCount() - 1; i >= 0 && added < remaining; i--) {
+            long t = time.longValue(i);
+            if (t < fromNanos) {
+                break;
+            }
+            if (t >= toNanos || t > cursorNanos || (t == cursorNanos && id.longValue(i) >= cursorId)) {
+                continue;
+            }
+            if (username != null && username.code(i) != usernameCode) continue;
+            if (requestId != null && requestId.code(i) != requestIdCode) continue;
+            if (status != null && (status.isNull(i) || status.longValue(i) != query.status())) continue;
+            if (url != null && !urlCodes[url.code(i)]) continue;
+            row.index = i;
+            content.add(map(type, row));
+            added++;
+        }
+    }
+
+    /**
+     * 段文件 footer 摘要：缓存命中且文件未变化时只做一次 stat
+     */
+    private SegmentFooter segmentFooter(String table, Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        SegmentFooter footer = segmentFooters.get(table);
+        if (footer != null && footer.matches(attributes)) {
+            return footer;
+        }
+        LogSegment segment = LogSegment.open(file);
+        footer = new SegmentFooter(attributes.lastModifiedTime(), attributes.size(),
+                segment.getRowCount(), segment.getMinTime(), segment.getMaxTime());
+        segmentFooters.put(table, footer);
+        synchronized (openSegments) {
+            openSegments.put(table, new OpenSegment(footer, segment));
+        }
+        return footer;
+    }
+
+    /**
+     * 打开段文件，优先复用 LRU 中与 footer 摘要对应的段
+     */
+    private LogSegment openSegment(String table, Path file, SegmentFooter footer) throws IOException {
+        synchronized (openSegments) {
+            OpenSegment cached = openSegments.get(table);
+            if (cached != null && cached.footer() == footer) {
+                return cached.segment();
+            }
+        }
+        LogSegment segment = LogSegment.open(file);
+        synchronized (openSegments) {
+            openSegments.put(table, new OpenSegment(footer, segment));
+        }
+        return segment;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static Object map(LogType type, LogRow row) throws SQLException {
+        return switch (type) {
+            case ACCESS -> {
+                AccessLog accessLog = new AccessLog();
+                accessLog.setId(row.integer("id"));
+                accessLog.setRequestTime(parseTime(row.text("request_time")));
+                accessLog.setRequestId(row.text("request_id"));
+                accessLog.setMethod(row.text("method"));
+                accessLog.setUrl(row.text("url"));
+                accessLog.setIp(row.text("ip"));
+                accessLog.setUserAgent(row.text("user_agent"));
+                accessLog.setStatus(toInteger(row.integer("status")));
+                accessLog.setDuration(row.integer("duration"));
+                accessLog.setUsername(row.text("username"));
+                accessLog.setSampleWeight(row.real("sample_weight"));
+                yield accessLog;
+            }
+            case AUDIT -> {
+                AuditLog auditLog = new AuditLog();
+                auditLog.setId(row.integer("id"));
+                auditLog.setLogTime(parseTime(row.text("log_time")));
+                auditLog.setUsername(row.text("username"));
+                auditLog.setUserId(row.integer("user_id"));
+                auditLog.setActionType(row.text("action_type"));
+                auditLog.setModule(row.text("module"));
+                auditLog.setDescription(row.text("description"));
+                auditLog.setTarget(row.text("target"));
+                auditLog.setIp(row.text("ip"));
+                auditLog.setMethod(row.text("method"));
+                auditLog.setUrl(row.text("url"));
+                auditLog.setSuccess(toBoolean(row.integer("success")));
+                auditLog.setErrorMessage(row.text("error_message"));
+                yield auditLog;
+            }
+            case SQL -> {
+                SqlLog sqlLog = new SqlLog();
+                sqlLog.setId(row.integer("id"));
+                sqlLog.setLogTime(parseTime(row.text("log_time")));
+                sqlLog.setThread(row.text("thread"));
+                sqlLog.setSqlType(row.text("sql_type"));
+                sqlLog.setSqlText(row.text("sql_text"));
+                sqlLog.setDuration(row.integer("duration"));
+                sqlLog.setDurationUs(row.integer("duration_us"));
+                sqlLog.setRowCount(row.integer("row_count"));
+                sqlLog.setParamCount(toInteger(row.integer("param_count")));
+                sqlLog.setFingerprintId(row.text("fingerprint_id"));
+                sqlLog.setSuccess(toBoolean(row.integer("success")));
+                sqlLog.setErrorMessage(row.text("error_message"));
+                sqlLog.setUsername(row.text("username"));
+                sqlLog.setRequestId(row.text("request_id"));
+                sqlLog.setSampleWeight(row.real("sample_weight"));
+                yield sqlLog;
+            }
+        };
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        return value != null ? LocalDateTime.parse(value) : null;
+    }
+
+    private static Integer toInteger(Long value) {
+        return value != null ? value.intValue() : null;
+    }
+
+    private static Boolean toBoolean(Long value) {
+        return value != null ? value == 1 : null;
+    }
+
+    /**
+     * 行访问抽象：同一套映射同时用于 SQLite 结果集与归档段
+     */
+    private interface LogRow {
+        String text(String column) throws SQLException;
+
+        Long integer(String column) throws SQLException;
+
+        Double real(String column) throws SQLException;
+    }
+
+    /**
+     * 结果集行；旧版分表缺少的列按 NULL 处理
+     */
+    private static final class ResultSetRow implements LogRow {
+        private final ResultSet rs;
+        private final Set<String> columns = new HashSet<>();
+
+        ResultSetRow(ResultSet rs) throws SQLException {
+            this.rs = rs;
+            ResultSetMetaData meta = rs.getMetaData();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                columns.add(meta.getColumnName(i));
+            }
+        }
+
+        @Override
+        public String text(String column) throws SQLException {
+            return columns.contains(column) ? rs.getString(column) : null;
+        }
+
+        @Override
+        public Long integer(String column) throws SQLException {
+            if (!columns.contains(column)) {
+                return null;
+            }
+            long value = rs.getLong(column);
+            return rs.wasNull() ? null : value;
+        }
+
+        @Override
+        public Double real(String column) throws SQLException {
+            if (!columns.contains(column)) {
+                return null;
+            }
+            double value = rs.getDouble(column);
+            return rs.wasNull() ? null : value;
+        }
+    }
+
+    /**
+     * 归档段行；旧版分表缺少的列按 NULL 处理
+     */
+    private static final class SegmentRow implements LogRow {
+        private final LogSegment segment;
+        private int index;
+
+        SegmentRow(LogSegment segment) {
+            this.segment = segment;
+        }
+
+        private LogSegment.Column column(String name) throws SQLException {
+            if (!segment.hasColumn(name)) {
+                return null;
+            }
+            try {
+                return segment.column(name);
+            } catch (IOException e) {
+                throw new SQLException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public String text(String name) throws SQLException {
+            LogSegment.Column column = column(name);
+            return column != null ? column.text(index) : null;
+        }
+
+        @Override
+        public Long integer(String name) throws SQLException {
+            LogSegment.Column column = column(name);
+            return column != null ? column.integer(index) : null;
+        }
+
+        @Override
+        public Double real(String name) throws SQLException {
+            LogSegment.Column column = column(name);
+            return column != null ? column.real(index) : null;
+        }
+    }
+
+    // ==================== 游标 ====================
+
+    private static Cursor cursorOf(LogType type, Object row) {
+        return switch (type) {
+            case ACCESS -> new Cursor(((AccessLog) row).getRequestTime(), ((AccessLog) row).getId());
+            case AUDIT -> new Cursor(((AuditLog) row).getLogTime(), ((AuditLog) row).getId());
+            case SQL -> new Cursor(((SqlLog) row).getLogTime(), ((SqlLog) row).getId());
+        };
+    }
+
+    /**
+     * keyset 分页游标：最后一条记录的 (时间, id)
+     * 各分表的时间区间互不重叠，因此 (时间, id) 在跨分表排序中同样有序
+     */
+    record Cursor(LocalDateTime time, long id) {
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((time + "," + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            try {
+                String text = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                int comma = text.lastIndexOf(',');
+                return new Cursor(LocalDateTime.parse(text.substring(0, comma)),
+                        Long.parseLong(text.substring(comma + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+        }
+    }
+}
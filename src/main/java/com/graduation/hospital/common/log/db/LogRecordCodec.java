@@ -0,0 +1,273 @@
+package com.graduation.hospital.common.log.db;
+
+import com.graduation.hospital.entity.log.AccessLog;
+import com.graduation.hospital.entity.log.AuditLog;
+import com.graduation.hospital.entity.log.EndpointStatsLog;
+import com.graduation.hospital.entity.log.SqlLog;
+import com.graduation.hospital.entity.log.SqlStatsLog;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 日志记录二进制编解码
+ * 用于溢出文件：逐字段写入，可空字段带标记，字符串不受 writeUTF 的 64KB 限制
+ * 新增字段只能追加在末尾并提升 {@link #VERSION}；新增记录类型只需分配新的类型号
+ */
+final class LogRecordCodec {
+
+    static final byte VERSION = 1;
+
+    private static final byte SQL_LOG = 1;
+    private static final byte AUDIT_LOG = 2;
+    private static final byte ACCESS_LOG = 3;
+    private static final byte SQL_STATS = 4;
+    private static final byte ENDPOINT_STATS = 5;
+
+    private LogRecordCodec() {
+    }
+
+    /**
+     * 编码日志记录
+     * @return 不支持的类型返回 false
+     */
+    static boolean encode(Object event, DataOutput out) throws IOException {
+        if (event instanceof SqlLog e) {
+            out.writeByte(SQL_LOG);
+            writeTime(out, e.getLogTime());
+            writeString(out, e.getThread());
+            writeString(out, e.getSqlType());
+            writeString(out, e.getSqlText());
+            writeLong(out, e.getDuration());
+            writeBoolean(out, e.getSuccess());
+            writeString(out, e.getErrorMessage());
+            writeString(out, e.getUsername());
+            writeString(out, e.getRequestId());
+            writeLong(out, e.getDurationUs());
+            writeLong(out, e.getRowCount());
+            writeLong(out, e.getParamCount() != null ? e.getParamCount().longValue() : null);
+            writeString(out, e.getFingerprintId());
+            writeDouble(out, e.getSampleWeight());
+        } else if (event instanceof AuditLog e) {
+            out.writeByte(AUDIT_LOG);
+            writeTime(out, e.getLogTime());
+            writeString(out, e.getUsername());
+            writeLong(out, e.getUserId());
+            writeString(out, e.getActionType());
+            writeString(out, e.getModule());
+            writeString(out, e.getDescription());
+            writeString(out, e.getTarget());
+            writeString(out, e.getIp());
+            writeString(out, e.getMethod());
+            writeString(out, e.getUrl());
+            writeBoolean(out, e.getSuccess());
+            writeString(out, e.getErrorMessage());
+        } else if (event instanceof AccessLog e) {
+            out.writeByte(ACCESS_LOG);
+            writeTime(out, e.getRequestTime());
+            writeString(out, e.getRequestId());
+            writeString(out, e.getMethod());
+            writeString(out, e.getUrl());
+            writeString(out, e.getIp());
+            writeString(out, e.getUserAgent());
+            writeLong(out, e.getStatus() != null ? e.getStatus().longValue() : null);
+            writeLong(out, e.getDuration());
+            writeString(out, e.getUsername());
+            writeDouble(out, e.getSampleWeight());
+        } else if (event instanceof SqlStatsLog e) {
+            out.writeByte(SQL_STATS);
+            writeTime(out, e.getLogTime());
+            writeTime(out, e.getWindowStart());
+            writeString(out, e.getFingerprintId());
+            writeString(out, e.getFingerprint());
+            writeString(out, e.getSqlType());
+            writeLong(out, e.getExecCount());
+            writeLong(out, e.getErrorCount());
+            writeLong(out, e.getTotalUs());
+            writeLong(out, e.getMaxUs());
+            writeLong(out, e.getTotalRows());
+            writeString(out, e.getHistogram());
+        } else if (event instanceof EndpointStatsLog e) {
+            out.writeByte(ENDPOINT_STATS);
+            writeTime(out, e.getLogTime());
+            writeTime(out, e.getWindowStart());
+            writeString(out, e.getMethod());
+            writeString(out, e.getRoute());
+            writeString(out, e.getStatusClass());
+            writeLong(out, e.getRequestCount());
+            writeLong(out, e.getTotalUs());
+            writeLong(out, e.getMaxUs());
+            writeLong(out, e.getP50Us());
+            writeLong(out, e.getP95Us());
+            writeLong(out, e.getP99Us());
+            writeString(out, e.getHistogram());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 解码日志记录
+     */
+    static Object decode(DataInput in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case SQL_LOG -> {
+                SqlLog e = new SqlLog();
+                e.setLogTime(readTime(in));
+                e.setThread(readString(in));
+                e.setSqlType(readString(in));
+                e.setSqlText(readString(in));
+                e.setDuration(readLong(in));
+                e.setSuccess(readBoolean(in));
+                e.setErrorMessage(readString(in));
+                e.setUsername(readString(in));
+                e.setRequestId(readString(in));
+                e.setDurationUs(readLong(in));
+                e.setRowCount(readLong(in));
+                Long paramCount = readLong(in);
+                e.setParamCount(paramCount != null ? paramCount.intValue() : null);
+                e.setFingerprintId(readString(in));
+                e.setSampleWeight(readDouble(in));
+                return e;
+            }
+            case AUDIT_LOG -> {
+                AuditLog e = new AuditLog();
+                e.setLogTime(readTime(in));
+                e.setUsername(readString(in));
+                e.setUserId(readLong(in));
+                e.setActionType(readString(in));
+                e.setModule(readString(in));
+                e.setDescription(readString(in));
+                e.setTarget(readString(in));
+                e.setIp(readString(in));
+                e.setMethod(readString(in));
+                e.setUrl(readString(in));
+                e.setSuccess(readBoolean(in));
+                e.setErrorMessage(readString(in));
+                return e;
+            }
+            case ACCESS_LOG -> {
+                AccessLog e = new AccessLog();
+                e.setRequestTime(readTime(in));
+                e.setRequestId(readString(in));
+                e.setMethod(readString(in));
+                e.setUrl(readString(in));
+                e.setIp(readString(in));
+                e.setUserAgent(readString(in));
+                Long status = readLong(in);
+                e.setStatus(status != null ? status.intValue() : null);
+                e.setDuration(readLong(in));
+                e.setUsername(readString(in));
+                e.setSampleWeight(readDouble(in));
+                return e;
+            }
+            case SQL_STATS -> {
+                SqlStatsLog e = new SqlStatsLog();
+                e.setLogTime(readTime(in));
+                e.setWindowStart(readTime(in));
+                e.setFingerprintId(readString(in));
+                e.setFingerprint(readString(in));
+                e.setSqlType(readString(in));
+                e.setExecCount(readLong(in));
+                e.setErrorCount(readLong(in));
+                e.setTotalUs(readLong(in));
+                e.setMaxUs(readLong(in));
+                e.setTotalRows(readLong(in));
+                e.setHistogram(readString(in));
+                return e;
+            }
+            case ENDPOINT_STATS -> {
+                EndpointStatsLog e = new EndpointStatsLog();
+                e.setLogTime(readTime(in));
+                e.setWindowStart(readTime(in));
+                e.setMethod(readString(in));
+                e.setRoute(readString(in));
+                e.setStatusClass(readString(in));
+                e.setRequestCount(readLong(in));
+                e.setTotalUs(readLong(in));
+                e.setMaxUs(readLong(in));
+                e.setP50Us(readLong(in));
+                e.setP95Us(readLong(in));
+                e.setP99Us(readLong(in));
+                e.setHistogram(readString(in));
+                return e;
+            }
+            default -> throw new IOException("未知的日志记录类型: " + type);
+        }
+    }
+
+    // ==================== 字段编码 ====================
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeLong(DataOutput out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeDouble(DataOutput out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static Double readDouble(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readDouble() : null;
+    }
+
+    private static void writeBoolean(DataOutput out, Boolean value) throws IOException {
+        out.writeByte(value == null ? -1 : (value ? 1 : 0));
+    }
+
+    private static Boolean readBoolean(DataInput in) throws IOException {
+        byte value = in.readByte();
+        return value < 0 ? null : value == 1;
+    }
+
+    private static void writeTime(DataOutput out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readTime(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long seconds = in.readLong();
+        return LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC);
+    }
+}
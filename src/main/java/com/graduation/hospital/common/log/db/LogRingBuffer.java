@@ -0,0 +1,153 @@
+package com.graduation.hospital.common.log.db;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 日志环形缓冲区
+ * 有界多生产者、单消费者队列（Disruptor 风格）：
+ * - 槽位在构造时一次性预分配，发布事件不产生额外对象
+ * - 生产者通过 CAS 抢占序号，队列已满时直接丢弃并计数，从不阻塞请求线程
+ * - 仅由日志写入线程调用 {@link #drain}
+ */
+final class LogRingBuffer {
+
+    private static final VarHandle SEQUENCE;
+
+    static {
+        try {
+            SEQUENCE = MethodHandles.lookup().findVarHandle(Slot.class, "sequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * 预分配槽位
+     * sequence == 序号 表示可写，sequence == 序号 + 1 表示已发布可读
+     */
+    private static final class Slot {
+        @SuppressWarnings("unused")
+        private long sequence;
+        private Object event;
+        private long publishNanos;
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+
+    /** 生产者游标（下一个待抢占的序号），同时等于已发布事件总数 */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** 消费者游标，只由写入线程修改 */
+    private volatile long head;
+
+    private final LongAdder dropped = new LongAdder();
+
+    /** 最近一次消费时队首事件的等待时间 */
+    private volatile long lagNanos;
+
+    /**
+     * @param capacity 容量，向上取整为 2 的幂
+     */
+    LogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new Slot[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            Slot slot = new Slot();
+            SEQUENCE.setRelease(slot, (long) i);
+            slots[i] = slot;
+        }
+    }
+
+    /**
+     * 发布事件（非阻塞）
+     * @return 队列已满时返回 false，事件被丢弃
+     */
+    boolean offer(Object event) {
+        long pos = tail.get();
+        for (;;) {
+            Slot slot = slots[(int) pos & mask];
+            long diff = (long) SEQUENCE.getAcquire(slot) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slot.event = event;
+                    slot.publishNanos = System.nanoTime();
+                    SEQUENCE.setRelease(slot, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                // 槽位仍未被消费，说明队列已满
+                dropped.increment();
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 消费事件，仅允许单线程调用
+     * @param handler 事件处理器
+     * @param maxEvents 本次最多消费的事件数
+     * @return 实际消费的事件数
+     */
+    int drain(Consumer<Object> handler, int maxEvents) {
+        long pos = head;
+        int count = 0;
+        while (count < maxEvents) {
+            Slot slot = slots[(int) pos & mask];
+            if ((long) SEQUENCE.getAcquire(slot) != pos + 1) {
+                break;
+            }
+            Object event = slot.event;
+            if (count == 0) {
+                lagNanos = System.nanoTime() - slot.publishNanos;
+            }
+            slot.event = null;
+            SEQUENCE.setRelease(slot, pos + slots.length);
+            pos++;
+            count++;
+            handler.accept(event);
+        }
+        if (count == 0) {
+            lagNanos = 0;
+        } else {
+            head = pos;
+        }
+        return count;
+    }
+
+    boolean isEmpty() {
+        return tail.get() == head;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /** 当前排队事件数 */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    /** 已成功发布的事件总数 */
+    long publishedCount() {
+        return tail.get();
+    }
+
+    /** 因队列已满被丢弃的事件总数 */
+    long droppedCount() {
+        return dropped.sum();
+    }
+
+    /** 写入线程滞后时间（毫秒） */
+    long lagMillis() {
+        return lagNanos / 1_000_000;
+    }
+}
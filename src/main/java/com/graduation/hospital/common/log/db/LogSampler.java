@@ -0,0 +1,156 @@
+package com.graduation.hospital.common.log.db;
+
+import com.graduation.hospital.common.util.TokenBucket;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 日志采样策略
+ * 按日志类别组合三种策略，决定事件是否落库以及落库时的采样权重：
+ * - 固定比例：按 ratio 随机采样
+ * - 令牌桶限速：每类日志每秒最多写入 rate-limit 条
+ * - 自适应：写入线程落后（队列积压、滞后过大或正在溢出到磁盘）时成倍降低采样率，恢复后逐步回升
+ * 审计日志永不采样。被保留事件的权重为 1 / 实际保留概率，
+ * 对权重求和即可还原原始事件总数
+ */
+public class LogSampler {
+
+    /**
+     * 日志类别
+     */
+    public enum Category {
+        SQL,
+        ACCESS,
+        AUDIT
+    }
+
+    /** 自适应：队列占用率高于此值时降低采样率 */
+    private static final double HIGH_WATERMARK = 0.5;
+    /** 自适应：队列占用率低于此值时回升采样率 */
+    private static final double LOW_WATERMARK = 0.1;
+    /** 自适应：每次回升的步长 */
+    private static final double RECOVERY_STEP = 0.1;
+
+    /**
+     * 单个类别的采样状态
+     */
+    private static final class Policy {
+        final double ratio;
+        final TokenBucket bucket;
+        final LongAdder offered = new LongAdder();
+        final LongAdder admitted = new LongAdder();
+        final LongAdder sampledOut = new LongAdder();
+        /** 上一窗口令牌桶的放行比例修正（offered / admitted），用于权重计算 */
+        volatile double bucketCorrection = 1.0;
+        long lastOffered;
+        long lastAdmitted;
+
+        Policy(double ratio, double rateLimit) {
+            this.ratio = Math.max(0, Math.min(1, ratio));
+            this.bucket = rateLimit > 0 ? new TokenBucket(rateLimit, (int) Math.max(1, rateLimit)) : null;
+        }
+    }
+
+    private final Policy sql;
+    private final Policy access;
+    private final boolean adaptive;
+    private final double minFactor;
+    private final long maxLagMillis;
+    private volatile double adaptiveFactor = 1.0;
+
+    /**
+     * @param sqlRatio SQL 原始日志固定采样比例
+     * @param sqlRateLimit SQL 原始日志每秒上限，0 表示不限
+     * @param accessRatio 访问日志固定采样比例
+     * @param accessRateLimit 访问日志每秒上限，0 表示不限
+     * @param adaptive 是否启用自适应采样
+     * @param minFactor 自适应下限系数
+     * @param maxLagMillis 写入线程允许的最大滞后，超过视为落后
+     */
+    public LogSampler(double sqlRatio, double sqlRateLimit, double accessRatio, double accessRateLimit,
+                      boolean adaptive, double minFactor, long maxLagMillis) {
+        this.sql = new Policy(sqlRatio, sqlRateLimit);
+        this.access = new Policy(accessRatio, accessRateLimit);
+        this.adaptive = adaptive;
+        this.minFactor = Math.max(0.001, Math.min(1, minFactor));
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    /**
+     * 采样判定
+     * @return 采样权重；0 表示丢弃
+     */
+    public double sample(Category category) {
+        Policy policy = policyOf(category);
+        if (policy == null) {
+            return 1.0;
+        }
+        policy.offered.increment();
+
+        double probability = policy.ratio * (adaptive ? adaptiveFactor : 1.0);
+        if (probability < 1.0 && ThreadLocalRandom.current().nextDouble() >= probability) {
+            policy.sampledOut.increment();
+            return 0;
+        }
+        if (policy.bucket != null && !policy.bucket.tryAcquire()) {
+            policy.sampledOut.increment();
+            return 0;
+        }
+        policy.admitted.increment();
+        return probability > 0 ? policy.bucketCorrection / probability : 0;
+    }
+
+    private Policy policyOf(Category category) {
+        return switch (category) {
+            case SQL -> sql;
+            case ACCESS -> access;
+            case AUDIT -> null;
+        };
+    }
+
+    /**
+     * 周期性调整（由定时任务每秒调用）
+     * 根据写入线程状态调整自适应系数，并更新令牌桶的权重修正
+     */
+    public void tick(DbLoggingService.Stats stats) {
+        if (adaptive && stats.queueCapacity() > 0) {
+            double fill = (double) stats.queueDepth() / stats.queueCapacity();
+            double factor = adaptiveFactor;
+            if (fill > HIGH_WATERMARK || stats.writerLagMillis() > maxLagMillis || stats.spillBytes() > 0) {
+                factor = Math.max(minFactor, factor / 2);
+            } else if (fill < LOW_WATERMARK) {
+                factor = Math.min(1.0, factor + RECOVERY_STEP);
+            }
+            adaptiveFactor = factor;
+        }
+        updateCorrection(sql);
+        updateCorrection(access);
+    }
+
+    private void updateCorrection(Policy policy) {
+        if (policy.bucket == null) {
+            return;
+        }
+        long offered = policy.offered.sum();
+        long admitted = policy.admitted.sum();
+        long passedRatio = offered - policy.lastOffered;
+        long passedBucket = admitted - policy.lastAdmitted;
+        // 通过随机采样的事件中被令牌桶拒绝的比例，决定令牌桶对权重的放大系数
+        double probability = policy.ratio * (adaptive ? adaptiveFactor : 1.0);
+        double expected = passedRatio * probability;
+        policy.bucketCorrection = passedBucket > 0 && expected > passedBucket ? expected / passedBucket : 1.0;
+        policy.lastOffered = offered;
+        policy.lastAdmitted = admitted;
+    }
+
+    public double getAdaptiveFactor() {
+        return adaptiveFactor;
+    }
+
+    /** 被采样丢弃的事件数 */
+    public long getSampledOut(Category category) {
+        Policy policy = policyOf(category);
+        return policy != null ? policy.sampledOut.sum() : 0;
+    }
+}
@@ -0,0 +1,254 @@
+package com.graduation.hospital.common.log.db;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+/**
+ * 日志溢出文件
+ * 写入线程落后或日志库不可用时，日志记录以追加方式写入内存映射文件，恢复后由写入线程回放：
+ * <pre>
+ * header: [magic "HLSP"][codec version][pad][readOffset long][writeOffset long]
+ * record: [length int][crc32c int][payload]
+ * </pre>
+ * - 读写偏移保存在文件头中，进程重启后从 readOffset 继续回放
+ * - 回放为至少一次语义：记录写入日志库后才推进 readOffset
+ * - 文件按需倍增映射，达到上限后新记录被丢弃并计数
+ * 全部方法串行执行（写入线程与环形缓冲区已满时的审计日志发布方共用）
+ */
+@Slf4j
+final class LogSpillFile implements AutoCloseable {
+
+    private static final int MAGIC = 0x484C5350; // "HLSP"
+    private static final int HEADER_SIZE = 32;
+    private static final int READ_OFFSET_POS = 16;
+    private static final int WRITE_OFFSET_POS = 24;
+    private static final int RECORD_HEADER = 8;
+    private static final long INITIAL_SIZE = 1 << 20;
+
+    private final Path path;
+    private final long maxBytes;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long readOffset;
+    private long writeOffset;
+    /** 已取出但尚未确认写入的位置 */
+    private long peekOffset;
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private final CRC32C crc = new CRC32C();
+
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param path 溢出文件路径
+     * @param maxBytes 文件大小上限
+     */
+    LogSpillFile(Path path, long maxBytes) throws IOException {
+        this.path = path;
+        this.maxBytes = Math.max(INITIAL_SIZE, maxBytes);
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size >= HEADER_SIZE) {
+            map(Math.min(size, this.maxBytes));
+            if (buffer.getInt(0) == MAGIC && buffer.get(4) == LogRecordCodec.VERSION) {
+                readOffset = buffer.getLong(READ_OFFSET_POS);
+                writeOffset = buffer.getLong(WRITE_OFFSET_POS);
+                if (readOffset < HEADER_SIZE || writeOffset < readOffset || writeOffset > buffer.capacity()) {
+                    log.warn("日志溢出文件偏移无效，已重置: {}", path);
+                    reset();
+                } else if (writeOffset > readOffset) {
+                    log.info("发现未回放的日志溢出记录: file={}, bytes={}", path, writeOffset - readOffset);
+                }
+            } else {
+                log.warn("日志溢出文件格式不兼容，已重置: {}", path);
+                reset();
+            }
+        } else {
+            map(INITIAL_SIZE);
+            reset();
+        }
+        peekOffset = readOffset;
+    }
+
+    private void map(long size) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private void reset() {
+        buffer.putInt(0, MAGIC);
+        buffer.put(4, LogRecordCodec.VERSION);
+        readOffset = HEADER_SIZE;
+        writeOffset = HEADER_SIZE;
+        peekOffset = HEADER_SIZE;
+        buffer.putLong(READ_OFFSET_POS, readOffset);
+        buffer.putLong(WRITE_OFFSET_POS, writeOffset);
+    }
+
+    /**
+     * 追加日志记录
+     * @return 文件已满或记录无法编码时返回 false（均计入 droppedCount，调用方决定是否另行保留）
+     */
+    synchronized boolean append(Object event) {
+        try {
+            bytes.reset();
+            if (!LogRecordCodec.encode(event, out)) {
+                log.warn("日志记录无法编码，未写入溢出文件: type={}", event != null ? event.getClass().getSimpleName() : null);
+                dropped.increment();
+                return false;
+            }
+            byte[] data = bytes.toByteArray();
+            if (!ensureCapacity(RECORD_HEADER + data.length)) {
+                dropped.increment();
+                return false;
+            }
+            crc.reset();
+            crc.update(data);
+            int pos = (int) writeOffset;
+            buffer.putInt(pos, data.length);
+            buffer.putInt(pos + 4, (int) crc.getValue());
+            buffer.put(pos + RECORD_HEADER, data);
+            // 先写记录再更新文件头，进程中断时最多丢失最后一条未完成的记录
+            writeOffset += RECORD_HEADER + data.length;
+            buffer.putLong(WRITE_OFFSET_POS, writeOffset);
+            spilled.increment();
+            return true;
+        } catch (IOException e) {
+            log.error("写入日志溢出文件失败: {}", e.getMessage());
+            dropped.increment();
+            return false;
+        }
+    }
+
+    /**
+     * 确保还能追加 recordSize 字节：优先复用已回放的空间，不足时倍增映射
+     */
+    private boolean ensureCapacity(int recordSize) throws IOException {
+        if (writeOffset + recordSize <= buffer.capacity()) {
+            return true;
+        }
+        if (readOffset > HEADER_SIZE && peekOffset == readOffset) {
+            compact();
+            if (writeOffset + recordSize <= buffer.capacity()) {
+                return true;
+            }
+        }
+        long required = writeOffset + recordSize;
+        if (required > maxBytes) {
+            return false;
+        }
+        long size = buffer.capacity();
+        while (size < required) {
+            size = Math.min(maxBytes, size * 2);
+        }
+        map(size);
+        return true;
+    }
+
+    /**
+     * 将未回放的数据移到文件头之后，释放已回放的空间
+     */
+    private void compact() {
+        int remaining = (int) (writeOffset - readOffset);
+        buffer.put(HEADER_SIZE, buffer, (int) readOffset, remaining);
+        readOffset = HEADER_SIZE;
+        peekOffset = HEADER_SIZE;
+        writeOffset = HEADER_SIZE + remaining;
+        buffer.putLong(READ_OFFSET_POS, readOffset);
+        buffer.putLong(WRITE_OFFSET_POS, writeOffset);
+    }
+
+    /**
+     * 取出最多 max 条待回放记录（不推进 readOffset，需调用 {@link #commit} 确认）
+     * 校验失败的尾部记录视为进程中断时的半条记录，直接丢弃
+     */
+    synchronized List<Object> peek(int max) {
+        List<Object> events = new ArrayList<>(Math.min(max, 256));
+        long pos = readOffset;
+        while (events.size() < max && pos + RECORD_HEADER <= writeOffset) {
+            int length = buffer.getInt((int) pos);
+            int checksum = buffer.getInt((int) pos + 4);
+            if (length < 0 || pos + RECORD_HEADER + length > writeOffset) {
+                log.warn("日志溢出文件记录损坏，丢弃剩余 {} 字节", writeOffset - pos);
+                pos = writeOffset;
+                break;
+            }
+            byte[] data = new byte[length];
+            buffer.get((int) pos + RECORD_HEADER, data);
+            crc.reset();
+            crc.update(data);
+            pos += RECORD_HEADER + length;
+            if ((int) crc.getValue() != checksum) {
+                dropped.increment();
+                continue;
+            }
+            try {
+                events.add(LogRecordCodec.decode(new DataInputStream(new ByteArrayInputStream(data))));
+            } catch (IOException e) {
+                log.warn("日志溢出记录解码失败: {}", e.getMessage());
+                dropped.increment();
+            }
+        }
+        peekOffset = pos;
+        return events;
+    }
+
+    /**
+     * 确认上次 {@link #peek} 取出的记录已处理，推进 readOffset；全部回放完毕时重置文件
+     */
+    synchronized void commit() {
+        readOffset = peekOffset;
+        if (readOffset >= writeOffset) {
+            reset();
+        } else {
+            buffer.putLong(READ_OFFSET_POS, readOffset);
+        }
+    }
+
+    synchronized boolean hasPending() {
+        return writeOffset > readOffset;
+    }
+
+    /** 待回放字节数 */
+    synchronized long pendingBytes() {
+        return writeOffset - readOffset;
+    }
+
+    long spilledCount() {
+        return spilled.sum();
+    }
+
+    long droppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            log.warn("关闭日志溢出文件失败: {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.graduation.hospital.common.log.db;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SQL 指纹
+ * 将语句归一化为模板，使只有字面量不同的语句聚合到同一指纹：
+ * - 字符串、数字、十六进制字面量替换为 ?
+ * - IN (?, ?, ...) 列表折叠为 IN (?+)
+ * - 连续空白折叠为单个空格，关键字统一小写
+ *
+ * @param id   指纹 ID（归一化文本的 64 位 FNV-1a 哈希，16 位十六进制）
+ * @param text 归一化后的 SQL
+ */
+public record SqlFingerprint(String id, String text) {
+
+    /** 原始 SQL → 指纹缓存上限；Hibernate 生成的语句种类有限，绝大多数命中缓存 */
+    private static final int CACHE_LIMIT = 4096;
+
+    private static final Map<String, SqlFingerprint> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 计算指纹（带缓存）
+     */
+    public static SqlFingerprint of(String sql) {
+        if (sql == null) {
+            return new SqlFingerprint("0000000000000000", "");
+        }
+        SqlFingerprint cached = CACHE.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String text = normalize(sql);
+        SqlFingerprint fingerprint = new SqlFingerprint(hash(text), text);
+        if (CACHE.size() >= CACHE_LIMIT) {
+            // 字面量拼接的语句会撑爆缓存，整体清空即可，不追求 LRU
+            CACHE.clear();
+        }
+        CACHE.put(sql, fingerprint);
+        return fingerprint;
+    }
+
+    /**
+     * 归一化 SQL 文本
+     */
+    static String normalize(String sql) {
+        int len = sql.length();
+        StringBuilder sb = new StringBuilder(len);
+        int i = 0;
+        while (i < len) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                // 折叠空白
+                while (i < len && Character.isWhitespace(sql.charAt(i))) i++;
+                if (sb.length() > 0) appendSpace(sb);
+            } else if (c == '\'') {
+                // 字符串字面量（'' 为转义单引号）
+                i++;
+                while (i < len) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < len && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++;
+                sb.append('?');
+            } else if (isNumberStart(sql, i, sb)) {
+                // 数字 / 十六进制字面量
+                if (c == '-' || c == '+') i++;
+                if (i + 1 < len && sql.charAt(i) == '0' && (sql.charAt(i + 1) == 'x' || sql.charAt(i + 1) == 'X')) {
+                    i += 2;
+                }
+                while (i < len && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) i++;
+                sb.append('?');
+            } else if (c == '"' || c == '`') {
+                // 带引号的标识符原样保留
+                int end = sql.indexOf(c, i + 1);
+                end = end < 0 ? len : end + 1;
+                sb.append(sql, i, end);
+                i = end;
+            } else if (Character.isLetter(c) || c == '_') {
+                int start = i;
+                while (i < len && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_'
+                        || sql.charAt(i) == '$')) i++;
+                for (int k = start; k < i; k++) {
+                    sb.append(Character.toLowerCase(sql.charAt(k)));
+                }
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+        int end = sb.length();
+        while (end > 0 && sb.charAt(end - 1) == ' ') end--;
+        sb.setLength(end);
+        return collapseInLists(sb.toString());
+    }
+
+    /**
+     * 判断当前位置是否为数字字面量起点（排除标识符中的数字，如 p1_0）
+     */
+    private static boolean isNumberStart(String sql, int i, StringBuilder sb) {
+        char c = sql.charAt(i);
+        if (c == '-' || c == '+') {
+            // 仅在运算符/括号/逗号之后视为符号
+            if (i + 1 >= sql.length() || !Character.isDigit(sql.charAt(i + 1))) return false;
+            char prev = lastNonSpace(sb);
+            return prev == '(' || prev == ',' || prev == '=' || prev == '<' || prev == '>' || prev == 0;
+        }
+        if (!Character.isDigit(c)) return false;
+        if (i == 0) return true;
+        char prev = sql.charAt(i - 1);
+        return !(Character.isLetterOrDigit(prev) || prev == '_' || prev == '.' || prev == '$');
+    }
+
+    private static char lastNonSpace(StringBuilder sb) {
+        for (int k = sb.length() - 1; k >= 0; k--) {
+            if (sb.charAt(k) != ' ') return sb.charAt(k);
+        }
+        return 0;
+    }
+
+    private static void appendSpace(StringBuilder sb) {
+        if (sb.charAt(sb.length() - 1) != ' ') sb.append(' ');
+    }
+
+    /**
+     * 将 in (?, ?, ?) / in (?,?) 折叠为 in (?+)
+     * in 前须为语句开头、空白或左括号，避免误折叠 login (?, ?) 之类以 in 结尾的标识符
+     */
+    private static String collapseInLists(String text) {
+        int idx = text.indexOf("in (?");
+        if (idx < 0) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        int from = 0;
+        while (idx >= 0) {
+            int i = idx + 4;
+            int len = text.length();
+            boolean onlyPlaceholders = true;
+            int close = -1;
+            for (int k = i; k < len; k++) {
+                char ch = text.charAt(k);
+                if (ch == ')') {
+                    close = k;
+                    break;
+                }
+                if (ch != '?' && ch != ',' && ch != ' ') {
+                    onlyPlaceholders = false;
+                    break;
+                }
+            }
+            if (onlyPlaceholders && close > 0 && isKeywordStart(text, idx)) {
+                sb.append(text, from, idx).append("in (?+)");
+                from = close + 1;
+            } else {
+                sb.append(text, from, idx + 4);
+                from = idx + 4;
+            }
+            idx = text.indexOf("in (?", from);
+        }
+        sb.append(text, from, text.length());
+        return sb.toString();
+    }
+
+    private static boolean isKeywordStart(String text, int idx) {
+        if (idx == 0) {
+            return true;
+        }
+        char before = text.charAt(idx - 1);
+        return before == ' ' || before == '(' || Character.isWhitespace(before);
+    }
+
+    /**
+     * 64 位 FNV-1a 哈希
+     */
+    private static String hash(String text) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            h ^= text.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        String hex = Long.toHexString(h);
+        return "0".repeat(16 - hex.length()) + hex;
+    }
+}
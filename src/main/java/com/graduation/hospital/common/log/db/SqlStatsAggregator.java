@@ -0,0 +1,207 @@
+package com.graduation.hospital.common.log.db;
+
+import com.graduation.hospital.entity.log.SqlStatsLog;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL 指纹统计聚合器
+ * 在内存中按指纹累计执行次数、失败次数、总耗时/最大耗时、行数与耗时直方图，
+ * 定期由 {@link #drainWindow} 生成增量统计行写入 sql_stats 分表
+ */
+public class SqlStatsAggregator {
+
+    /** 直方图桶数：第 i 桶覆盖 [2^(i-1), 2^i) 微秒，最后一桶为溢出桶（约 8 秒以上） */
+    static final int BUCKETS = 24;
+
+    /** 超出指纹数上限后统一归入此指纹，保证内存有界 */
+    private static final SqlFingerprint OVERFLOW = new SqlFingerprint("ffffffffffffffff", "<other>");
+
+    /**
+     * 指纹统计摘要（用于 Top-N 接口）
+     */
+    public record Summary(String fingerprintId, String fingerprint, String sqlType,
+                          long count, long errors, long totalMs, long avgUs, long maxUs,
+                          long p50Us, long p95Us, long p99Us, long totalRows) {
+    }
+
+    private static final class Entry {
+        final SqlFingerprint fingerprint;
+        final String sqlType;
+        final LongAdder count = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder totalUs = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final AtomicLong maxUs = new AtomicLong();
+        final AtomicLong windowMaxUs = new AtomicLong();
+        final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        // 上次生成统计行时的快照，仅由刷新线程访问
+        long lastCount;
+        long lastErrors;
+        long lastTotalUs;
+        long lastRows;
+        final long[] lastHistogram = new long[BUCKETS];
+
+        Entry(SqlFingerprint fingerprint, String sqlType) {
+            this.fingerprint = fingerprint;
+            this.sqlType = sqlType;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxFingerprints;
+    private volatile LocalDateTime windowStart = LocalDateTime.now();
+
+    public SqlStatsAggregator(int maxFingerprints) {
+        this.maxFingerprints = maxFingerprints;
+    }
+
+    /**
+     * 记录一次执行
+     */
+    public void record(SqlFingerprint fingerprint, String sqlType, long elapsedNanos, long rows, boolean success) {
+        Entry entry = entries.get(fingerprint.id());
+        if (entry == null) {
+            SqlFingerprint key = entries.size() >= maxFingerprints ? OVERFLOW : fingerprint;
+            entry = entries.computeIfAbsent(key.id(), k -> new Entry(key, key == OVERFLOW ? "OTHER" : sqlType));
+        }
+        long us = elapsedNanos / 1_000;
+        entry.count.increment();
+        entry.totalUs.add(us);
+        if (rows > 0) {
+            entry.rows.add(rows);
+        }
+        if (!success) {
+            entry.errors.increment();
+        }
+        entry.histogram.incrementAndGet(bucketOf(us));
+        updateMax(entry.maxUs, us);
+        updateMax(entry.windowMaxUs, us);
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    static int bucketOf(long us) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(us));
+    }
+
+    /**
+     * 生成当前窗口的增量统计行，并开启新窗口
+     * 仅允许单线程调用
+     */
+    public List<SqlStatsLog> drainWindow() {
+        LocalDateTime start = windowStart;
+        LocalDateTime now = LocalDateTime.now();
+        windowStart = now;
+
+        List<SqlStatsLog> rows = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            long count = entry.count.sum();
+            long delta = count - entry.lastCount;
+            if (delta <= 0) {
+                continue;
+            }
+            long errors = entry.errors.sum();
+            long totalUs = entry.totalUs.sum();
+            long totalRows = entry.rows.sum();
+
+            StringBuilder histogram = new StringBuilder(BUCKETS * 2);
+            for (int i = 0; i < BUCKETS; i++) {
+                long value = entry.histogram.get(i);
+                if (i > 0) histogram.append(',');
+                histogram.append(value - entry.lastHistogram[i]);
+                entry.lastHistogram[i] = value;
+            }
+
+            SqlStatsLog row = new SqlStatsLog();
+            row.setWindowStart(start);
+            row.setLogTime(now);
+            row.setFingerprintId(entry.fingerprint.id());
+            row.setFingerprint(entry.fingerprint.text());
+            row.setSqlType(entry.sqlType);
+            row.setExecCount(delta);
+            row.setErrorCount(errors - entry.lastErrors);
+            row.setTotalUs(totalUs - entry.lastTotalUs);
+            row.setMaxUs(entry.windowMaxUs.getAndSet(0));
+            row.setTotalRows(totalRows - entry.lastRows);
+            row.setHistogram(histogram.toString());
+            rows.add(row);
+
+            entry.lastCount = count;
+            entry.lastErrors = errors;
+            entry.lastTotalUs = totalUs;
+            entry.lastRows = totalRows;
+        }
+        return rows;
+    }
+
+    /**
+     * 按执行次数或总耗时排序的 Top-N 指纹（自启动以来累计）
+     * @param orderBy count / totalTime
+     */
+    public List<Summary> top(String orderBy, int limit) {
+        Comparator<Summary> comparator = "totalTime".equalsIgnoreCase(orderBy)
+                ? Comparator.comparingLong(Summary::totalMs)
+                : Comparator.comparingLong(Summary::count);
+        return entries.values().stream()
+                .map(SqlStatsAggregator::summarize)
+                .sorted(comparator.reversed())
+                .limit(Math.max(1, limit))
+                .toList();
+    }
+
+    private static Summary summarize(Entry entry) {
+        long count = entry.count.sum();
+        long totalUs = entry.totalUs.sum();
+        long[] histogram = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = entry.histogram.get(i);
+        }
+        return new Summary(
+                entry.fingerprint.id(),
+                entry.fingerprint.text(),
+                entry.sqlType,
+                count,
+                entry.errors.sum(),
+                totalUs / 1_000,
+                count > 0 ? totalUs / count : 0,
+                entry.maxUs.get(),
+                percentile(histogram, 0.50),
+                percentile(histogram, 0.95),
+                percentile(histogram, 0.99),
+                entry.rows.sum()
+        );
+    }
+
+    /**
+     * 由直方图估算分位数（取所在桶上界，单位微秒）
+     */
+    static long percentile(long[] histogram, double quantile) {
+        long total = 0;
+        for (long value : histogram) total += value;
+        if (total == 0) return 0;
+        long threshold = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= threshold) {
+                return i == 0 ? 0 : (1L << i) - 1;
+            }
+        }
+        return (1L << (histogram.length - 1)) - 1;
+    }
+}
@@ -0,0 +1,382 @@
+package com.graduation.hospital.common.log.db.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static com.graduation.hospital.common.log.db.archive.SegmentFormat.*;
+
+/**
+ * 日志归档段（只读）
+ * 通过内存映射读取段文件：打开时只解析 footer，列块在首次访问时才解压，
+ * 查询只需解码参与过滤与返回的列；各行组的列块依次解码拼接为整列，
+ * 文本列的 DICT / PLAIN 列块合并为同一个字典
+ */
+public final class LogSegment {
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final String tableName;
+    private final String timeColumn;
+    private final int rowCount;
+    private final long minTimeNanos;
+    private final long maxTimeNanos;
+    /** 列名 → 列序号 */
+    private final Map<String, Integer> columnIndexes = new LinkedHashMap<>();
+    private final List<Byte> columnEncodings = new ArrayList<>();
+    private final List<RowGroup> rowGroups = new ArrayList<>();
+    private final Map<String, Column> columns = new HashMap<>();
+
+    private record ChunkMeta(byte encoding, long offset, int compressedLength, int rawLength) {
+    }
+
+    private record RowGroup(int rowCount, long minTimeNanos, long maxTimeNanos, ChunkMeta[] chunks) {
+    }
+
+    private LogSegment(Path file, MappedByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        int limit = buffer.limit();
+        if (limit < MAGIC.length * 2 + 5 || !hasMagic(0) || !hasMagic(limit - MAGIC.length)) {
+            throw new IOException("不是有效的日志归档段: " + file);
+        }
+        byte version = buffer.get(MAGIC.length);
+        if (version != VERSION && version != VERSION_1) {
+            throw new IOException("不支持的日志归档段版本: " + version + ", file=" + file);
+        }
+        int footerLength = buffer.getInt(limit - MAGIC.length - 4);
+        ByteBuffer footer = buffer.duplicate()
+                .position(limit - MAGIC.length - 4 - footerLength)
+                .limit(limit - MAGIC.length - 4);
+        this.tableName = readString(footer);
+        this.timeColumn = readString(footer);
+        this.rowCount = (int) readVarLong(footer);
+        this.minTimeNanos = footer.getLong();
+        this.maxTimeNanos = footer.getLong();
+        int columnCount = (int) readVarLong(footer);
+        if (version == VERSION_1) {
+            // 版本 1：整个文件只有一个行组，列目录直接记录列块
+            ChunkMeta[] chunks = new ChunkMeta[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                String name = readString(footer);
+                chunks[i] = readChunk(footer);
+                columnIndexes.put(name, i);
+                columnEncodings.add(chunks[i].encoding());
+            }
+            rowGroups.add(new RowGroup(rowCount, minTimeNanos, maxTimeNanos, chunks));
+            return;
+        }
+        for (int i = 0; i < columnCount; i++) {
+            columnIndexes.put(readString(footer), i);
+            columnEncodings.add(footer.get());
+        }
+        int groupCount = (int) readVarLong(footer);
+        for (int g = 0; g < groupCount; g++) {
+            int rows = (int) readVarLong(footer);
+            long min = footer.getLong();
+            long max = footer.getLong();
+            ChunkMeta[] chunks = new ChunkMeta[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                chunks[i] = readChunk(footer);
+            }
+            rowGroups.add(new RowGroup(rows, min, max, chunks));
+        }
+    }
+
+    private static ChunkMeta readChunk(ByteBuffer footer) {
+        byte encoding = footer.get();
+        long offset = footer.getLong();
+        int compressed = (int) readVarLong(footer);
+        int raw = (int) readVarLong(footer);
+        return new ChunkMeta(encoding, offset, compressed, raw);
+    }
+
+    private boolean hasMagic(int position) {
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(position + i) != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 以只读方式映射段文件并解析 footer
+     */
+    public static LogSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // 映射在通道关闭后依然有效
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new LogSegment(file, buffer);
+        }
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getTimeColumn() {
+        return timeColumn;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public LocalDateTime getMinTime() {
+        return rowCount > 0 ? fromNanos(minTimeNanos) : null;
+    }
+
+    public LocalDateTime getMaxTime() {
+        return rowCount > 0 ? fromNanos(maxTimeNanos) : null;
+    }
+
+    /**
+     * 段内数据是否与 [from, to) 有交集
+     */
+    public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        return rowCount > 0 && maxTimeNanos >= toNanos(from) && minTimeNanos < toNanos(to);
+    }
+
+    /**
+     * 时间的比较键（纳秒时间戳），与时间列的 {@link Column#longValue} 一致
+     */
+    public static long timeKey(LocalDateTime time) {
+        return toNanos(time);
+    }
+
+    public int getRowGroupCount() {
+        return rowGroups.size();
+    }
+
+    public boolean hasColumn(String name) {
+        return columnIndexes.containsKey(name);
+    }
+
+    /**
+     * 获取列（首次访问时逐行组解压并解码，之后复用；段可被多个查询共享）
+     */
+    public synchronized Column column(String name) throws IOException {
+        Column column = columns.get(name);
+        if (column == null) {
+            Integer index = columnIndexes.get(name);
+            if (index == null) {
+                throw new IOException("归档段缺少列: " + tableName + "." + name);
+            }
+            column = decode(index);
+            columns.put(name, column);
+        }
+        return column;
+    }
+
+    private Column decode(int index) throws IOException {
+        Column column = new Column(columnEncodings.get(index), rowCount);
+        Map<String, Integer> dictionary = column.encoding == DICT ? new HashMap<>() : null;
+        List<String> dictionaryValues = column.encoding == DICT ? new ArrayList<>() : null;
+        int base = 0;
+        Inflater inflater = new Inflater();
+        try {
+            for (RowGroup group : rowGroups) {
+                ChunkMeta meta = group.chunks()[index];
+                ByteBuffer in = ByteBuffer.wrap(inflate(inflater, meta));
+                decodeChunk(column, meta.encoding(), in, base, group.rowCount(), dictionary, dictionaryValues);
+                base += group.rowCount();
+            }
+        } finally {
+            inflater.end();
+        }
+        if (dictionaryValues != null) {
+            column.dictionary = new String[dictionaryValues.size() + 1];
+            for (int i = 0; i < dictionaryValues.size(); i++) {
+                column.dictionary[i + 1] = dictionaryValues.get(i);
+            }
+        }
+        return column;
+    }
+
+    private byte[] inflate(Inflater inflater, ChunkMeta meta) throws IOException {
+        byte[] raw = new byte[meta.rawLength()];
+        try {
+            inflater.reset();
+            inflater.setInput(buffer.slice((int) meta.offset(), meta.compressedLength()));
+            int n = 0;
+            while (n < raw.length && !inflater.finished()) {
+                n += inflater.inflate(raw, n, raw.length - n);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("归档段列块损坏: " + file, e);
+        }
+        return raw;
+    }
+
+    /**
+     * 解码一个列块到 [base, base + rows)；文本列块的编号映射到整列的合并字典
+     */
+    private static void decodeChunk(Column column, byte encoding, ByteBuffer in, int base, int rows,
+                                    Map<String, Integer> dictionary, List<String> dictionaryValues)
+            throws IOException {
+        switch (encoding) {
+            case TIME, ID -> {
+                long previous = 0;
+                for (int i = base; i < base + rows; i++) {
+                    previous += readZigZag(in);
+                    column.longs[i] = previous;
+                }
+            }
+            case INT -> {
+                for (int i = base; i < base + rows; i++) {
+                    long value = readVarLong(in);
+                    if (value == 0) {
+                        column.nulls[i] = true;
+                    } else {
+                        value -= 1;
+                        column.longs[i] = (value >>> 1) ^ -(value & 1);
+                    }
+                }
+            }
+            case REAL -> {
+                for (int i = base; i < base + rows; i++) {
+                    if (in.get() == 0) {
+                        column.nulls[i] = true;
+                    } else {
+                        column.doubles[i] = Double.longBitsToDouble(in.getLong());
+                    }
+                }
+            }
+            case DICT -> {
+                int size = (int) readVarLong(in);
+                int[] codes = new int[size + 1];
+                for (int i = 1; i <= size; i++) {
+                    codes[i] = intern(readString(in), dictionary, dictionaryValues);
+                }
+                for (int i = base; i < base + rows; i++) {
+                    column.codes[i] = codes[(int) readVarLong(in)];
+                }
+            }
+            case PLAIN -> {
+                for (int i = base; i < base + rows; i++) {
+                    int length = (int) readVarLong(in);
+                    if (length == 0) {
+                        continue;
+                    }
+                    byte[] bytes = new byte[length - 1];
+                    in.get(bytes);
+                    column.codes[i] = intern(new String(bytes, StandardCharsets.UTF_8), dictionary, dictionaryValues);
+                }
+            }
+            default -> throw new IOException("未知的列编码: " + encoding);
+        }
+    }
+
+    private static int intern(String value, Map<String, Integer> dictionary, List<String> dictionaryValues) {
+        Integer code = dictionary.get(value);
+        if (code == null) {
+            dictionaryValues.add(value);
+            code = dictionaryValues.size();
+            dictionary.put(value, code);
+        }
+        return code;
+    }
+
+    /**
+     * 解码后的列
+     */
+    public static final class Column {
+        private final byte encoding;
+        private final long[] longs;
+        private final double[] doubles;
+        private final boolean[] nulls;
+        private final int[] codes;
+        /** 字典，下标 0 表示 NULL */
+        private String[] dictionary;
+
+        private Column(byte encoding, int rows) {
+            this.encoding = encoding;
+            this.longs = encoding == TIME || encoding == ID || encoding == INT ? new long[rows] : null;
+            this.doubles = encoding == REAL ? new double[rows] : null;
+            this.nulls = encoding == INT || encoding == REAL ? new boolean[rows] : null;
+            this.codes = encoding == DICT ? new int[rows] : null;
+        }
+
+        public boolean isNull(int row) {
+            return switch (encoding) {
+                case INT, REAL -> nulls[row];
+                case DICT -> codes[row] == 0;
+                default -> false;
+            };
+        }
+
+        /** 时间 / 整数列的原始值（时间为纳秒时间戳） */
+        public long longValue(int row) {
+            return longs[row];
+        }
+
+        /** 字典列的编号，0 表示 NULL */
+        public int code(int row) {
+            return codes[row];
+        }
+
+        /**
+         * 字典中的编号；不存在时返回 -1，调用方可据此直接跳过整个段
+         */
+        public int codeOf(String value) {
+            if (dictionary == null) {
+                return -1;
+            }
+            for (int i = 1; i < dictionary.length; i++) {
+                if (dictionary[i].equals(value)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * 字典中以指定前缀开头的编号集合
+         */
+        public boolean[] codesWithPrefix(String prefix) {
+            boolean[] matched = new boolean[dictionary == null ? 1 : dictionary.length];
+            for (int i = 1; i < matched.length; i++) {
+                matched[i] = dictionary[i].startsWith(prefix);
+            }
+            return matched;
+        }
+
+        public String text(int row) {
+            return switch (encoding) {
+                case DICT -> dictionary[codes[row]];
+                case TIME -> fromNanos(longs[row]).toString();
+                case REAL -> nulls[row] ? null : String.valueOf(doubles[row]);
+                case INT -> nulls[row] ? null : String.valueOf(longs[row]);
+                default -> String.valueOf(longs[row]);
+            };
+        }
+
+        public Long integer(int row) {
+            if (encoding == DICT || encoding == REAL) {
+                return isNull(row) ? null : (long) Double.parseDouble(text(row));
+            }
+            return isNull(row) ? null : longs[row];
+        }
+
+        public Double real(int row) {
+            if (encoding == REAL) {
+                return nulls[row] ? null : doubles[row];
+            }
+            Long value = integer(row);
+            return value != null ? value.doubleValue() : null;
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.graduation.hospital.common.log.db.archive;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import static com.graduation.hospital.common.log.db.archive.SegmentFormat.*;
+
+/**
+ * 日志归档段写入器
+ * 将一个日志分表按 (时间, id) 升序导出为列式压缩段文件（格式见 {@link SegmentFormat}）：
+ * - 结果集按行组（默认 64k 行）流式读取，每满一个行组即逐列压缩写入文件，内存占用与分表大小无关
+ * - 文本列在行组内去重值占比超过阈值时改用 PLAIN 编码，避免为 request_id 等高基数列维护无用的字典
+ * 先写临时文件再原子重命名，导出失败时不会留下半个段文件
+ */
+@Slf4j
+public final class LogSegmentWriter {
+
+    /** 段文件扩展名 */
+    public static final String EXTENSION = ".seg";
+
+    /** 每个行组的行数 */
+    static final int ROW_GROUP_ROWS = 64 * 1024;
+
+    /** 文本列去重值 / 行数超过该比例时使用 PLAIN 编码 */
+    static final double PLAIN_DISTINCT_RATIO = 0.5;
+
+    private LogSegmentWriter() {
+    }
+
+    /**
+     * 段文件路径：{archiveDir}/{tableName}.seg
+     */
+    public static Path segmentFile(Path archiveDir, String tableName) {
+        return archiveDir.resolve(tableName + EXTENSION);
+    }
+
+    /**
+     * 导出分表为段文件
+     * @param connection 日志库连接（调用方负责事务）
+     * @param tableName 分表名
+     * @param timeColumn 时间列（request_time / log_time）
+     * @param archiveDir 归档目录
+     * @return 写入的行数
+     */
+    public static int write(Connection connection, String tableName, String timeColumn, Path archiveDir)
+            throws SQLException, IOException {
+        return write(connection, tableName, timeColumn, archiveDir, ROW_GROUP_ROWS);
+    }
+
+    static int write(Connection connection, String tableName, String timeColumn, Path archiveDir, int rowGroupRows)
+            throws SQLException, IOException {
+        Files.createDirectories(archiveDir);
+        Path target = segmentFile(archiveDir, tableName);
+        Path temp = archiveDir.resolve(tableName + EXTENSION + ".tmp");
+        SegmentOutput output;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM " + tableName + " ORDER BY " + timeColumn + ", id");
+             SegmentOutput out = new SegmentOutput(Files.newOutputStream(temp))) {
+            output = out;
+            ResultSetMetaData meta = rs.getMetaData();
+            List<ColumnEncoder> encoders = new ArrayList<>();
+            int timeIndex = -1;
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                String name = meta.getColumnName(i);
+                encoders.add(new ColumnEncoder(name, encodingOf(name, meta.getColumnTypeName(i), timeColumn), rowGroupRows));
+                if (name.equals(timeColumn)) {
+                    timeIndex = i - 1;
+                }
+            }
+            if (timeIndex < 0) {
+                throw new SQLException("分表缺少时间列: " + tableName + "." + timeColumn);
+            }
+
+            int groupRows = 0;
+            long groupMin = NULL_TIME;
+            while (rs.next()) {
+                for (int i = 0; i < encoders.size(); i++) {
+                    encoders.get(i).add(rs, i + 1);
+                }
+                long time = encoders.get(timeIndex).previous;
+                if (groupRows == 0) {
+                    groupMin = time;
+                }
+                if (++groupRows == rowGroupRows) {
+                    out.writeGroup(encoders, groupRows, groupMin, time);
+                    groupRows = 0;
+                }
+            }
+            if (groupRows > 0) {
+                out.writeGroup(encoders, groupRows, groupMin, encoders.get(timeIndex).previous);
+            }
+            out.finish(tableName, timeColumn, encoders);
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("日志分表已归档: table={}, rows={}, rowGroups={}, rawBytes={}, fileBytes={}",
+                tableName, output.rows, output.groupCount, output.rawBytes, Files.size(target));
+        return output.rows;
+    }
+
+    private static byte encodingOf(String name, String declaredType, String timeColumn) {
+        if (name.equals(timeColumn)) {
+            return TIME;
+        }
+        if (name.equals("id")) {
+            return ID;
+        }
+        String type = declaredType == null ? "" : declaredType.toUpperCase();
+        if (type.contains("INT")) {
+            return INT;
+        }
+        if (type.contains("REAL") || type.contains("DOUBLE") || type.contains("FLOAT")) {
+            return REAL;
+        }
+        return DICT;
+    }
+
+    /**
+     * 段文件输出：行组直接写入文件，只在内存中保留 footer 的行组目录
+     */
+    private static final class SegmentOutput implements AutoCloseable {
+        private final OutputStream out;
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        private final byte[] buffer = new byte[8192];
+        private final ByteArrayOutputStream groupDirectory = new ByteArrayOutputStream();
+        private long offset;
+        private int rows;
+        private int groupCount;
+        private long minTime = NULL_TIME;
+        private long maxTime = NULL_TIME;
+        private long rawBytes;
+
+        SegmentOutput(OutputStream out) throws IOException {
+            this.out = new BufferedOutputStream(out, 64 * 1024);
+            this.out.write(MAGIC);
+            this.out.write(VERSION);
+            this.offset = MAGIC.length + 1;
+        }
+
+        /**
+         * 逐列压缩写出一个行组并重置编码器
+         */
+        void writeGroup(List<ColumnEncoder> encoders, int groupRows, long groupMin, long groupMax) throws IOException {
+            writeVarLong(groupDirectory, groupRows);
+            writeLong(groupDirectory, groupMin);
+            writeLong(groupDirectory, groupMax);
+            for (ColumnEncoder encoder : encoders) {
+                byte[] raw = encoder.finish(groupRows);
+                long compressed = deflate(raw);
+                rawBytes += raw.length;
+
+                groupDirectory.write(encoder.chunkEncoding);
+                writeLong(groupDirectory, offset);
+                writeVarLong(groupDirectory, compressed);
+                writeVarLong(groupDirectory, raw.length);
+                offset += compressed;
+            }
+            if (groupCount == 0) {
+                minTime = groupMin;
+            }
+            maxTime = groupMax;
+            rows += groupRows;
+            groupCount++;
+        }
+
+        private long deflate(byte[] raw) throws IOException {
+            deflater.reset();
+            deflater.setInput(raw);
+            deflater.finish();
+            long written = 0;
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+                written += n;
+            }
+            return written;
+        }
+
+        void finish(String tableName, String timeColumn, List<ColumnEncoder> encoders) throws IOException {
+            ByteArrayOutputStream footer = new ByteArrayOutputStream(groupDirectory.size() + 256);
+            writeString(footer, tableName);
+            writeString(footer, timeColumn);
+            writeVarLong(footer, rows);
+            writeLong(footer, minTime);
+            writeLong(footer, maxTime);
+            writeVarLong(footer, encoders.size());
+            for (ColumnEncoder encoder : encoders) {
+                writeString(footer, encoder.name);
+                footer.write(encoder.encoding);
+            }
+            writeVarLong(footer, groupCount);
+            groupDirectory.writeTo(footer);
+
+            byte[] footerBytes = footer.toByteArray();
+            out.write(footerBytes);
+            out.write(new byte[]{
+                    (byte) (footerBytes.length >>> 24), (byte) (footerBytes.length >>> 16),
+                    (byte) (footerBytes.length >>> 8), (byte) footerBytes.length});
+            out.write(MAGIC);
+        }
+
+        @Override
+        public void close() throws IOException {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    /**
+     * 单列编码器（按行组缓冲）
+     */
+    private static final class ColumnEncoder {
+        final String name;
+        /** 列类型：文本列为 DICT，各行组实际编码见 chunkEncoding */
+        final byte encoding;
+        final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        /** 文本列当前行组的值 */
+        final String[] texts;
+        int textCount;
+        long previous;
+        /** 上一次 finish 写出的列块编码 */
+        byte chunkEncoding;
+
+        ColumnEncoder(String name, byte encoding, int rowGroupRows) {
+            this.name = name;
+            this.encoding = encoding;
+            this.texts = encoding == DICT ? new String[rowGroupRows] : null;
+        }
+
+        void add(ResultSet rs, int index) throws SQLException {
+            switch (encoding) {
+                case TIME -> {
+                    String value = rs.getString(index);
+                    if (value == null) {
+                        throw new SQLException("时间列为空: " + name);
+                    }
+                    long nanos = toNanos(LocalDateTime.parse(value));
+                    writeZigZag(data, nanos - previous);
+                    previous = nanos;
+                }
+                case ID -> {
+                    long value = rs.getLong(index);
+                    writeZigZag(data, value - previous);
+                    previous = value;
+                }
+                case INT -> {
+                    long value = rs.getLong(index);
+                    writeVarLong(data, rs.wasNull() ? 0 : ((value << 1) ^ (value >> 63)) + 1);
+                }
+                case REAL -> {
+                    double value = rs.getDouble(index);
+                    if (rs.wasNull()) {
+                        data.write(0);
+                    } else {
+                        data.write(1);
+                        writeLong(data, Double.doubleToRawLongBits(value));
+                    }
+                }
+                default -> texts[textCount++] = rs.getString(index);
+            }
+        }
+
+        /**
+         * 输出当前行组的列块并重置（差分基准回到 0，行组可独立解码）
+         */
+        byte[] finish(int rows) {
+            byte[] raw = encoding == DICT ? finishText(rows) : data.toByteArray();
+            if (encoding != DICT) {
+                chunkEncoding = encoding;
+            }
+            data.reset();
+            previous = 0;
+            return raw;
+        }
+
+        private byte[] finishText(int rows) {
+            int maxDistinct = (int) (rows * PLAIN_DISTINCT_RATIO);
+            Map<String, Integer> dictionary = new HashMap<>();
+            List<String> dictionaryValues = new ArrayList<>();
+            boolean plain = false;
+            for (int i = 0; i < rows; i++) {
+                String value = texts[i];
+                if (value == null) {
+                    writeVarLong(data, 0);
+                    continue;
+                }
+                Integer code = dictionary.get(value);
+                if (code == null) {
+                    if (dictionaryValues.size() >= maxDistinct) {
+                        plain = true;
+                        break;
+                    }
+                    dictionaryValues.add(value);
+                    code = dictionaryValues.size();
+                    dictionary.put(value, code);
+                }
+                writeVarLong(data, code);
+            }
+
+            ByteArrayOutputStream out;
+            if (plain) {
+                data.reset();
+                out = new ByteArrayOutputStream(rows * 16);
+                for (int i = 0; i < rows; i++) {
+                    String value = texts[i];
+                    if (value == null) {
+                        writeVarLong(out, 0);
+                    } else {
+                        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                        writeVarLong(out, bytes.length + 1L);
+                        out.writeBytes(bytes);
+                    }
+                }
+                chunkEncoding = PLAIN;
+            } else {
+                out = new ByteArrayOutputStream(data.size() + dictionaryValues.size() * 16);
+                writeVarLong(out, dictionaryValues.size());
+                for (String value : dictionaryValues) {
+                    writeString(out, value);
+                }
+                out.writeBytes(data.toByteArray());
+                chunkEncoding = DICT;
+            }
+            Arrays.fill(texts, 0, rows, null);
+            textCount = 0;
+            return out.toByteArray();
+        }
+    }
+}
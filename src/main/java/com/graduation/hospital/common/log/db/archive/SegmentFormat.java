@@ -0,0 +1,109 @@
+package com.graduation.hospital.common.log.db.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 日志归档段文件格式
+ * <pre>
+ * [magic "HLSG"][version]
+ * [行组 0：列块 0][列块 1]...    每个行组约 64k 行，每列一块，Deflate 压缩
+ * [行组 1：列块 0][列块 1]...
+ * [footer]                       表名、时间列、行数、时间范围、列目录（列名 + 列类型）、
+ *                                行组目录（行数、时间范围、各列块的编码 / 偏移 / 长度）
+ * [footer 长度 int][magic "HLSG"]
+ * </pre>
+ * 列编码（每个行组独立编码，差分从 0 开始）：
+ * - TIME：时间转为纳秒时间戳后做差分，zigzag 变长整数
+ * - ID：自增主键差分，zigzag 变长整数
+ * - INT：zigzag 变长整数（+1，0 表示 NULL）
+ * - REAL：标记字节 + 8 字节 double
+ * - DICT：字典（去重字符串）+ 变长整数编号（0 表示 NULL），用户名、URL 等高重复列压缩率很高
+ * - PLAIN：逐行字符串，变长整数长度（+1，0 表示 NULL）+ UTF-8 字节；
+ *   行组内去重值占比过高（如 request_id）时文本列改用该编码，字典不会比原值更小
+ * 版本 1 没有行组：footer 中列目录直接记录各列块，整个文件相当于一个行组
+ */
+final class SegmentFormat {
+
+    static final byte[] MAGIC = {'H', 'L', 'S', 'G'};
+    static final byte VERSION = 2;
+    static final byte VERSION_1 = 1;
+
+    static final byte TIME = 1;
+    static final byte ID = 2;
+    static final byte INT = 3;
+    static final byte REAL = 4;
+    static final byte DICT = 5;
+    static final byte PLAIN = 6;
+
+    /** NULL 时间的占位值 */
+    static final long NULL_TIME = Long.MIN_VALUE;
+
+    private SegmentFormat() {
+    }
+
+    static long toNanos(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+
+    static LocalDateTime fromNanos(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    // ==================== 编码 ====================
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static void writeZigZag(ByteArrayOutputStream out, long value) {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    static void writeLong(ByteArrayOutputStream out, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+    // ==================== 解码 ====================
+
+    static long readVarLong(ByteBuffer in) {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+    }
+
+    static long readZigZag(ByteBuffer in) {
+        long raw = readVarLong(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = (int) readVarLong(in);
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
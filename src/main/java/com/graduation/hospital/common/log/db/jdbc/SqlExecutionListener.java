@@ -0,0 +1,19 @@
+package com.graduation.hospital.common.log.db.jdbc;
+
+/**
+ * SQL 执行监听器
+ * 由 {@link TimingDataSourceProxy} 在语句执行完成后回调，运行在执行 SQL 的业务线程上，
+ * 实现必须轻量且不能抛出异常
+ */
+@FunctionalInterface
+public interface SqlExecutionListener {
+
+    /**
+     * @param sql SQL 语句
+     * @param elapsedNanos 执行耗时（纳秒，不含结果集遍历）
+     * @param rows 查询返回行数或更新影响行数，未知时为 -1
+     * @param paramCount 绑定参数个数
+     * @param error 执行失败时的异常，成功时为 null
+     */
+    void onExecution(String sql, long elapsedNanos, long rows, int paramCount, Throwable error);
+}
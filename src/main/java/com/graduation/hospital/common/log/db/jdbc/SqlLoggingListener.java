@@ -0,0 +1,93 @@
+package com.graduation.hospital.common.log.db.jdbc;
+
+import com.graduation.hospital.common.context.RequestContext;
+import com.graduation.hospital.common.log.db.DbLoggingService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * SQL 日志监听器
+ * 接收 {@link TimingDataSourceProxy} 的执行回调，从 {@link RequestContext} 补充用户与请求 ID 后写入 DbLoggingService
+ */
+@Slf4j
+public class SqlLoggingListener implements SqlExecutionListener {
+
+    private final ObjectProvider<DbLoggingService> dbLoggingServiceProvider;
+    private volatile DbLoggingService dbLoggingService;
+
+    public SqlLoggingListener(ObjectProvider<DbLoggingService> dbLoggingServiceProvider) {
+        this.dbLoggingServiceProvider = dbLoggingServiceProvider;
+    }
+
+    @Override
+    public void onExecution(String sql, long elapsedNanos, long rows, int paramCount, Throwable error) {
+        try {
+            DbLoggingService service = getDbLoggingService();
+            if (service == null) {
+                return;
+            }
+            RequestContext context = RequestContext.current();
+            service.logSqlExecution(
+                    Thread.currentThread().getName(),
+                    extractSqlType(sql),
+                    sql,
+                    elapsedNanos,
+                    rows,
+                    paramCount,
+                    error,
+                    context != null && context.getUsername() != null
+                            ? context.getUsername() : getCurrentUsername(),
+                    context != null ? context.getRequestId() : null
+            );
+        } catch (Exception e) {
+            // 静默处理，避免影响正常 SQL 执行
+            log.debug("SQL 日志记录失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 延迟获取 DbLoggingService（数据源先于日志服务初始化）
+     */
+    private DbLoggingService getDbLoggingService() {
+        DbLoggingService service = dbLoggingService;
+        if (service == null) {
+            service = dbLoggingServiceProvider.getIfAvailable();
+            dbLoggingService = service;
+        }
+        return service;
+    }
+
+    /**
+     * 从 SQL 中提取类型
+     */
+    static String extractSqlType(String sql) {
+        if (sql == null) return "UNKNOWN";
+        int i = 0;
+        int len = sql.length();
+        while (i < len && Character.isWhitespace(sql.charAt(i))) {
+            i++;
+        }
+        if (sql.regionMatches(true, i, "SELECT", 0, 6)) return "SELECT";
+        if (sql.regionMatches(true, i, "INSERT", 0, 6)) return "INSERT";
+        if (sql.regionMatches(true, i, "UPDATE", 0, 6)) return "UPDATE";
+        if (sql.regionMatches(true, i, "DELETE", 0, 6)) return "DELETE";
+        return "OTHER";
+    }
+
+    /**
+     * 获取当前登录用户名
+     */
+    private String getCurrentUsername() {
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            if (auth != null && auth.isAuthenticated()
+                    && !"anonymousUser".equals(auth.getPrincipal())) {
+                return auth.getName();
+            }
+        } catch (Exception ignored) {
+        }
+        return null;
+    }
+}
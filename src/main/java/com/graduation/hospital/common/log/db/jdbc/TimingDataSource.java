@@ -0,0 +1,82 @@
+package com.graduation.hospital.common.log.db.jdbc;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.*;
+import java.util.logging.Logger;
+
+/**
+ * 计时数据源：获取的连接包装为 {@link TimingConnection}，其余方法直接委托
+ */
+final class TimingDataSource implements DataSource {
+
+    private final DataSource target;
+    private final SqlExecutionListener listener;
+
+    TimingDataSource(DataSource target, SqlExecutionListener listener) {
+        this.target = target;
+        this.listener = listener;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return new TimingConnection(target.getConnection(), listener);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return new TimingConnection(target.getConnection(username, password), listener);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return TimingDataSourceProxy.unwrap(this, target, iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return TimingDataSourceProxy.isWrapperFor(this, target, iface);
+    }
+
+    @Override
+    public String toString() {
+        return "TimingDataSource[" + target + "]";
+    }
+
+    // ==================== 委托 ====================
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return target.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        target.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        target.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return target.getLoginTimeout();
+    }
+
+    @Override
+    public ConnectionBuilder createConnectionBuilder() throws SQLException {
+        return target.createConnectionBuilder();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return target.getParentLogger();
+    }
+
+    @Override
+    public ShardingKeyBuilder createShardingKeyBuilder() throws SQLException {
+        return target.createShardingKeyBuilder();
+    }
+}
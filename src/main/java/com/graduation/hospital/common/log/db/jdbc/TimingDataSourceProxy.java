@@ -0,0 +1,45 @@
+package com.graduation.hospital.common.log.db.jdbc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Wrapper;
+
+/**
+ * SQL 执行计时包装
+ * 对 DataSource → Connection → Statement/PreparedStatement → ResultSet 逐层包装（同包下手写的委托类）：
+ * - 使用 System.nanoTime 测量 execute* 的真实耗时
+ * - 统计查询返回行数（结果集关闭时上报）与更新影响行数
+ * - 记录绑定参数个数、批量语句与真实的执行异常
+ * 热路径上只有直接的接口调用和两次 nanoTime，不经过反射，不做字符串拼接与参数数组分配
+ */
+public final class TimingDataSourceProxy {
+
+    private TimingDataSourceProxy() {
+    }
+
+    /**
+     * 包装数据源
+     */
+    public static DataSource wrap(DataSource target, SqlExecutionListener listener) {
+        return target instanceof TimingDataSource ? target : new TimingDataSource(target, listener);
+    }
+
+    /**
+     * 包装单个连接（用于未通过 DataSource 获取的连接，以及基准测试）
+     */
+    public static Connection wrap(Connection target, SqlExecutionListener listener) {
+        return new TimingConnection(target, listener);
+    }
+
+    /**
+     * unwrap：请求的接口由包装类实现时返回包装类本身，否则交给底层对象，使 Spring Boot 仍能识别底层连接池
+     */
+    static <T> T unwrap(Wrapper wrapper, Wrapper target, Class<T> iface) throws SQLException {
+        return iface.isInstance(wrapper) ? iface.cast(wrapper) : target.unwrap(iface);
+    }
+
+    static boolean isWrapperFor(Wrapper wrapper, Wrapper target, Class<?> iface) throws SQLException {
+        return iface.isInstance(wrapper) || target.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,508 @@
+package com.graduation.hospital.common.log.db.jdbc;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 计时语句
+ * execute* 前后各取一次 nanoTime：更新语句在返回时上报影响行数，查询在结果集关闭（或语句再次执行、关闭）时带返回行数上报；
+ * 普通 Statement 的 SQL 取自 execute 参数，批量执行时上报 addBatch 累积的语句
+ * @param <S> 被包装的语句类型
+ */
+class TimingStatement<S extends Statement> implements Statement {
+
+    final S target;
+    /** 预编译 SQL；普通 Statement 为 null，取 execute / addBatch 参数 */
+    final String preparedSql;
+    int paramCount;
+
+    private final Connection connection;
+    private final SqlExecutionListener listener;
+    /** 普通 Statement 通过 addBatch 累积、尚未执行的 SQL */
+    private List<String> batch;
+
+    /** 尚未上报的查询（等待结果集关闭后带行数上报） */
+    private String pendingSql;
+    private long pendingNanos;
+    private int pendingParams;
+    private long pendingRows;
+
+    TimingStatement(S target, String preparedSql, Connection connection, SqlExecutionListener listener) {
+        this.target = target;
+        this.preparedSql = preparedSql;
+        this.connection = connection;
+        this.listener = listener;
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        long start = begin();
+        try {
+            return pending(sql, start, target.executeQuery(sql));
+        } catch (SQLException | RuntimeException e) {
+            failed(sql, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        long start = begin();
+        try {
+            return done(sql, start, target.executeUpdate(sql));
+        } catch (SQLException | RuntimeException e) {
+            failed(sql, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        long start = begin();
+        try {
+            return done(sql, start, target.executeUpdate(sql, autoGeneratedKeys));
+        } catch (SQLException | RuntimeException e) {
+            failed(sql, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        long start = begin();
+        try {
+            return done(sql, start, target.executeUpdate(sql, columnIndexes));
+        } catch (SQLException | RuntimeException e) {
+            failed(sql, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        long start = begin();
+        try {
+            return done(sql, start, target.executeUpdate(sql, columnNames));
+        } catch (SQLException | RuntimeException e) {
+            failed(sql, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql) throws SQLException {
+        long start = begin();
+        try {
+            return done(sql, start, target.executeLargeUpdate(sql));
+        } catch (SQLException | RuntimeException e) {
+            failed(sql, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        long start = begin();
+        try {
+            return done(sql, start, target.executeLargeUpdate(sql, autoGeneratedKeys));
+        } catch (SQLException | RuntimeException e) {
+            failed(sql, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        long start = begin();
+        try {
+            return done(sql, start, target.executeLargeUpdate(sql, columnIndexes));
+        } catch (SQLException | RuntimeException e) {
+            failed(sql, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+        long start = begin();
+        try {
+            return done(sql, start, target.executeLargeUpdate(sql, columnNames));
+        } catch (SQLException | RuntimeException e) {
+            failed(sql, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        long start = begin();
+        try {
+            return done(sql, start, target.execute(sql));
+        } catch (SQLException | RuntimeException e) {
+            failed(sql, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        long start = begin();
+        try {
+            return done(sql, start, target.execute(sql, autoGeneratedKeys));
+        } catch (SQLException | RuntimeException e) {
+            failed(sql, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        long start = begin();
+        try {
+            return done(sql, start, target.execute(sql, columnIndexes));
+        } catch (SQLException | RuntimeException e) {
+            failed(sql, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        long start = begin();
+        try {
+            return done(sql, start, target.execute(sql, columnNames));
+        } catch (SQLException | RuntimeException e) {
+            failed(sql, start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        target.addBatch(sql);
+        if (batch == null) {
+            batch = new ArrayList<>();
+        }
+        batch.add(sql);
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        batch = null;
+        target.clearBatch();
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        String sql = batchSql();
+        long start = begin();
+        try {
+            return done(sql, start, target.executeBatch());
+        } catch (SQLException | RuntimeException e) {
+            failed(sql, start, e);
+            throw e;
+        } finally {
+            // 执行后驱动会清空批量命令
+            batch = null;
+        }
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        String sql = batchSql();
+        long start = begin();
+        try {
+            return done(sql, start, target.executeLargeBatch());
+        } catch (SQLException | RuntimeException e) {
+            failed(sql, start, e);
+            throw e;
+        } finally {
+            batch = null;
+        }
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        ResultSet rs = target.getResultSet();
+        return rs == null ? null : new TimingResultSet(rs, this);
+    }
+
+    @Override
+    public Connection getConnection() {
+        return connection;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        reportPending();
+        target.close();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return TimingDataSourceProxy.unwrap(this, target, iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return TimingDataSourceProxy.isWrapperFor(this, target, iface);
+    }
+
+    // ==================== 计时 ====================
+
+    /**
+     * 执行前：先上报上一条查询，再开始计时
+     */
+    final long begin() {
+        reportPending();
+        return System.nanoTime();
+    }
+
+    /**
+     * 查询执行完成：暂存耗时，等待结果集关闭后带行数上报
+     */
+    final ResultSet pending(String sql, long start, ResultSet rs) {
+        pendingNanos = System.nanoTime() - start;
+        pendingSql = sql;
+        pendingParams = paramCount;
+        pendingRows = 0;
+        return new TimingResultSet(rs, this);
+    }
+
+    final int done(String sql, long start, int rows) {
+        listener.onExecution(sql, System.nanoTime() - start, rows, paramCount, null);
+        return rows;
+    }
+
+    final long done(String sql, long start, long rows) {
+        listener.onExecution(sql, System.nanoTime() - start, rows, paramCount, null);
+        return rows;
+    }
+
+    final boolean done(String sql, long start, boolean hasResultSet) {
+        listener.onExecution(sql, System.nanoTime() - start, -1, paramCount, null);
+        return hasResultSet;
+    }
+
+    final int[] done(String sql, long start, int[] counts) {
+        long elapsed = System.nanoTime() - start;
+        long total = 0;
+        for (int count : counts) {
+            if (count > 0) total += count;
+        }
+        listener.onExecution(sql, elapsed, total, paramCount, null);
+        return counts;
+    }
+
+    final long[] done(String sql, long start, long[] counts) {
+        long elapsed = System.nanoTime() - start;
+        long total = 0;
+        for (long count : counts) {
+            if (count > 0) total += count;
+        }
+        listener.onExecution(sql, elapsed, total, paramCount, null);
+        return counts;
+    }
+
+    final void failed(String sql, long start, Throwable error) {
+        listener.onExecution(sql, System.nanoTime() - start, -1, paramCount, error);
+    }
+
+    void onRow() {
+        pendingRows++;
+    }
+
+    /**
+     * 上报等待中的查询
+     */
+    void reportPending() {
+        String sql = pendingSql;
+        if (sql != null) {
+            pendingSql = null;
+            listener.onExecution(sql, pendingNanos, pendingRows, pendingParams, null);
+        }
+    }
+
+    /**
+     * 批量执行的 SQL：预编译语句为预编译 SQL，普通 Statement 为 addBatch 累积的语句（多条以 ;\n 连接）
+     */
+    private String batchSql() {
+        if (preparedSql != null || batch == null) {
+            return preparedSql;
+        }
+        return batch.size() == 1 ? batch.get(0) : String.join(";\n", batch);
+    }
+
+    // ==================== 委托 ====================
+
+    @Override
+    public int getMaxFieldSize() throws SQLException {
+        return target.getMaxFieldSize();
+    }
+
+    @Override
+    public void setMaxFieldSize(int max) throws SQLException {
+        target.setMaxFieldSize(max);
+    }
+
+    @Override
+    public int getMaxRows() throws SQLException {
+        return target.getMaxRows();
+    }
+
+    @Override
+    public void setMaxRows(int max) throws SQLException {
+        target.setMaxRows(max);
+    }
+
+    @Override
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+        target.setEscapeProcessing(enable);
+    }
+
+    @Override
+    public int getQueryTimeout() throws SQLException {
+        return target.getQueryTimeout();
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) throws SQLException {
+        target.setQueryTimeout(seconds);
+    }
+
+    @Override
+    public void cancel() throws SQLException {
+        target.cancel();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return target.getWarnings();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        target.clearWarnings();
+    }
+
+    @Override
+    public void setCursorName(String name) throws SQLException {
+        target.setCursorName(name);
+    }
+
+    @Override
+    public int getUpdateCount() throws SQLException {
+        return target.getUpdateCount();
+    }
+
+    @Override
+    public boolean getMoreResults() throws SQLException {
+        return target.getMoreResults();
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        target.setFetchDirection(direction);
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        return target.getFetchDirection();
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        target.setFetchSize(rows);
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        return target.getFetchSize();
+    }
+
+    @Override
+    public int getResultSetConcurrency() throws SQLException {
+        return target.getResultSetConcurrency();
+    }
+
+    @Override
+    public int getResultSetType() throws SQLException {
+        return target.getResultSetType();
+    }
+
+    @Override
+    public boolean getMoreResults(int current) throws SQLException {
+        return target.getMoreResults(current);
+    }
+
+    @Override
+    public ResultSet getGeneratedKeys() throws SQLException {
+        return target.getGeneratedKeys();
+    }
+
+    @Override
+    public int getResultSetHoldability() throws SQLException {
+        return target.getResultSetHoldability();
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return target.isClosed();
+    }
+
+    @Override
+    public void setPoolable(boolean poolable) throws SQLException {
+        target.setPoolable(poolable);
+    }
+
+    @Override
+    public boolean isPoolable() throws SQLException {
+        return target.isPoolable();
+    }
+
+    @Override
+    public void closeOnCompletion() throws SQLException {
+        target.closeOnCompletion();
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() throws SQLException {
+        return target.isCloseOnCompletion();
+    }
+
+    @Override
+    public long getLargeUpdateCount() throws SQLException {
+        return target.getLargeUpdateCount();
+    }
+
+    @Override
+    public void setLargeMaxRows(long max) throws SQLException {
+        target.setLargeMaxRows(max);
+    }
+
+    @Override
+    public long getLargeMaxRows() throws SQLException {
+        return target.getLargeMaxRows();
+    }
+
+    @Override
+    public String enquoteLiteral(String val) throws SQLException {
+        return target.enquoteLiteral(val);
+    }
+
+    @Override
+    public String enquoteIdentifier(String identifier, boolean alwaysQuote) throws SQLException {
+        return target.enquoteIdentifier(identifier, alwaysQuote);
+    }
+
+    @Override
+    public boolean isSimpleIdentifier(String identifier) throws SQLException {
+        return target.isSimpleIdentifier(identifier);
+    }
+
+    @Override
+    public String enquoteNCharLiteral(String val) throws SQLException {
+        return target.enquoteNCharLiteral(val);
+    }
+}
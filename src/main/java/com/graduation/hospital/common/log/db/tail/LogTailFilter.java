@@ -0,0 +1,95 @@
+package com.graduation.hospital.common.log.db.tail;
+
+import com.graduation.hospital.entity.log.AccessLog;
+import com.graduation.hospital.entity.log.AuditLog;
+
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 实时日志订阅的服务端过滤条件，取自握手 URL 的查询参数：
+ * <pre>
+ * /ws/logs?types=access,audit&amp;username=admin&amp;urlPrefix=/api/v1/patients&amp;minStatus=500
+ * </pre>
+ * - types：订阅的日志类型，默认 access,audit
+ * - username：用户名（精确匹配）
+ * - urlPrefix：URL 前缀（与查询接口同名参数一致）
+ * - minStatus：最小响应状态码，只作用于访问日志
+ * @param access 是否订阅访问日志
+ * @param audit 是否订阅审计日志
+ * @param username 用户名，为空不过滤
+ * @param urlPrefix URL 前缀，为空不过滤
+ * @param minStatus 最小状态码，0 不过滤
+ */
+public record LogTailFilter(boolean access, boolean audit, String username, String urlPrefix, int minStatus) {
+
+    /**
+     * 解析握手 URL 中的过滤条件
+     * @throws IllegalArgumentException 参数不合法
+     */
+    public static LogTailFilter parse(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        String query = uri != null ? uri.getRawQuery() : null;
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                            URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        boolean access = true, audit = true;
+        String types = params.get("types");
+        if (types != null && !types.isBlank()) {
+            access = false;
+            audit = false;
+            for (String type : types.split(",")) {
+                switch (type.trim()) {
+                    case "access" -> access = true;
+                    case "audit" -> audit = true;
+                    default -> throw new IllegalArgumentException("不支持的日志类型: " + type);
+                }
+            }
+        }
+
+        int minStatus = 0;
+        String status = params.get("minStatus");
+        if (status != null && !status.isBlank()) {
+            try {
+                minStatus = Integer.parseInt(status.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("minStatus 必须为整数: " + status);
+            }
+        }
+
+        return new LogTailFilter(access, audit, blankToNull(params.get("username")), blankToNull(params.get("urlPrefix")),
+                minStatus);
+    }
+
+    /**
+     * 判断事件是否符合过滤条件
+     */
+    public boolean matches(Object event) {
+        if (event instanceof AccessLog accessLog) {
+            return access
+                    && (username == null || username.equals(accessLog.getUsername()))
+                    && (urlPrefix == null || (accessLog.getUrl() != null && accessLog.getUrl().startsWith(urlPrefix)))
+                    && (minStatus <= 0 || (accessLog.getStatus() != null && accessLog.getStatus() >= minStatus));
+        }
+        if (event instanceof AuditLog auditLog) {
+            return audit
+                    && (username == null || username.equals(auditLog.getUsername()))
+                    && (urlPrefix == null || (auditLog.getUrl() != null && auditLog.getUrl().startsWith(urlPrefix)));
+        }
+        return false;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
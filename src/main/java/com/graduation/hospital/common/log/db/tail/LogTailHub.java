@@ -0,0 +1,337 @@
+package com.graduation.hospital.common.log.db.tail;
+
+import com.graduation.hospital.common.log.db.DbLoggingService;
+import com.graduation.hospital.common.security.TokenRevocationList;
+import com.graduation.hospital.entity.log.AccessLog;
+import com.graduation.hospital.entity.log.AuditLog;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 实时日志分发中心（/ws/logs）
+ * - DbLoggingService 在访问 / 审计事件进入时回调 {@link #publish}，请求线程只做过滤与非阻塞入队
+ * - 每个订阅者拥有独立的有界队列与发送线程，按批发送 JSON 消息，慢客户端只阻塞自己的发送线程
+ * - 队列写满时丢弃新事件并在下一条消息中报告丢弃数（相当于采样）；
+ *   slow-policy=DISCONNECT 时队列持续写满超过 stall-timeout 后断开该订阅者
+ * - 握手时的 JWT 声明保存在会话中，发送线程每轮轮询检查一次，Token 过期或被吊销后断开连接
+ * 没有订阅者时 publish 只做一次空列表判断
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "logging.db.enabled", havingValue = "true")
+public class LogTailHub {
+
+    /** 慢订阅者处理策略 */
+    public enum SlowPolicy {
+        /** 丢弃放不下的事件，保持连接 */
+        SAMPLE,
+        /** 队列持续写满超过 stall-timeout 后断开连接 */
+        DISCONNECT
+    }
+
+    /** 握手时已验证的 JWT 声明所在的会话属性 */
+    public static final String CLAIMS_ATTRIBUTE = "claims";
+
+    private final DbLoggingService dbLoggingService;
+    private final TokenRevocationList tokenRevocationList;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong disconnected = new AtomicLong();
+
+    @Value("${logging.db.tail.max-subscribers:16}")
+    private int maxSubscribers;
+
+    @Value("${logging.db.tail.buffer-size:1024}")
+    private int bufferSize;
+
+    @Value("${logging.db.tail.batch-size:64}")
+    private int batchSize;
+
+    @Value("${logging.db.tail.slow-policy:DISCONNECT}")
+    private SlowPolicy slowPolicy;
+
+    @Value("${logging.db.tail.stall-timeout:5000}")
+    private long stallTimeout;
+
+    public LogTailHub(DbLoggingService dbLoggingService, TokenRevocationList tokenRevocationList) {
+        this.dbLoggingService = dbLoggingService;
+        this.tokenRevocationList = tokenRevocationList;
+    }
+
+    @PostConstruct
+    public void init() {
+        dbLoggingService.setTailListener(this::publish);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        dbLoggingService.setTailListener(null);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close(CloseStatus.GOING_AWAY);
+        }
+    }
+
+    /**
+     * 注册订阅者
+     * @param claims 握手时已验证的 JWT 声明，Token 过期或被吊销后断开连接
+     * @return 订阅数已达上限时返回 false
+     */
+    public boolean subscribe(WebSocketSession session, LogTailFilter filter, Claims claims) {
+        synchronized (subscribers) {
+            if (subscribers.size() >= maxSubscribers) {
+                return false;
+            }
+            Subscriber subscriber = new Subscriber(session, filter, claims, new ArrayBlockingQueue<>(bufferSize));
+            subscribers.add(subscriber);
+            Thread.ofPlatform()
+                    .name("log-tail-" + session.getId())
+                    .daemon(true)
+                    .start(subscriber::run);
+        }
+        log.info("实时日志订阅: session={}, filter={}", session.getId(), filter);
+        return true;
+    }
+
+    /**
+     * 注销订阅者（连接关闭时调用）
+     */
+    public void unsubscribe(WebSocketSession session) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.session.getId().equals(session.getId())) {
+                subscriber.stop();
+            }
+        }
+    }
+
+    /**
+     * 分发一条访问 / 审计事件（请求线程调用，不阻塞）
+     */
+    public void publish(Object event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.filter.matches(event)) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    /**
+     * 当前订阅者数
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * 因订阅者队列写满丢弃的事件数
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * 因持续跟不上被断开的订阅者数
+     */
+    public long getDisconnected() {
+        return disconnected.get();
+    }
+
+    /**
+     * 订阅者：有界队列 + 独立发送线程
+     */
+    private final class Subscriber {
+
+        private final WebSocketSession session;
+        private final LogTailFilter filter;
+        private final Claims claims;
+        private final BlockingQueue<Object> queue;
+        /** 上一条消息之后丢弃的事件数，随下一条消息告知客户端 */
+        private final AtomicLong missed = new AtomicLong();
+        /** 队列开始持续写满的时间，0 表示未写满 */
+        private volatile long fullSince;
+        private final AtomicBoolean running = new AtomicBoolean(true);
+
+        Subscriber(WebSocketSession session, LogTailFilter filter, Claims claims, BlockingQueue<Object> queue) {
+            this.session = session;
+            this.filter = filter;
+            this.claims = claims;
+            this.queue = queue;
+        }
+
+        void offer(Object event) {
+            if (queue.offer(event)) {
+                if (fullSince != 0) {
+                    fullSince = 0;
+                }
+                return;
+            }
+            missed.incrementAndGet();
+            dropped.incrementAndGet();
+            long now = System.currentTimeMillis();
+            if (fullSince == 0) {
+                fullSince = now;
+            } else if (slowPolicy == SlowPolicy.DISCONNECT && now - fullSince > stallTimeout && stop()) {
+                log.warn("实时日志订阅者持续跟不上，断开连接: session={}, missed={}", session.getId(), missed.get());
+                disconnected.incrementAndGet();
+                // 发送线程可能阻塞在写套接字上，在单独的线程中关闭，避免阻塞请求线程
+                Thread.ofVirtual().start(() -> close(CloseStatus.SESSION_NOT_RELIABLE));
+            }
+        }
+
+        void run() {
+            List<Object> batch = new ArrayList<>(batchSize);
+            StringBuilder out = new StringBuilder(256 * batchSize);
+            try {
+                while (running.get() && session.isOpen()) {
+                    if (!authenticated()) {
+                        log.info("实时日志订阅者的 Token 已过期或被吊销，断开连接: session={}", session.getId());
+                        close(CloseStatus.POLICY_VIOLATION.withReason("认证已失效"));
+                        break;
+                    }
+                    Object first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    out.setLength(0);
+                    encode(out, batch, missed.getAndSet(0));
+                    session.sendMessage(new TextMessage(out.toString()));
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                log.debug("实时日志发送失败: session={}, error={}", session.getId(), e.getMessage());
+            } finally {
+                // 被判定为慢订阅者时已由其他线程关闭
+                if (stop()) {
+                    close(CloseStatus.NORMAL);
+                }
+            }
+        }
+
+        /**
+         * 握手时的 Token 是否仍然有效（未过期且未被吊销）
+         */
+        private boolean authenticated() {
+            Date expiration = claims.getExpiration();
+            return (expiration == null || expiration.getTime() > System.currentTimeMillis())
+                    && !tokenRevocationList.isRevoked(claims);
+        }
+
+        /**
+         * 停止分发并移出订阅列表
+         * @return 是否由本次调用停止
+         */
+        boolean stop() {
+            subscribers.remove(this);
+            return running.compareAndSet(true, false);
+        }
+
+        void close(CloseStatus status) {
+            stop();
+            try {
+                if (session.isOpen()) {
+                    session.close(status);
+                }
+            } catch (IOException e) {
+                log.debug("关闭实时日志连接失败: session={}, error={}", session.getId(), e.getMessage());
+            }
+        }
+    }
+
+    // ==================== 消息编码 ====================
+
+    /**
+     * 编码一批事件
+     * <pre>
+     * {"missed":0,"events":[{"type":"access","time":"...","requestId":"...","method":"GET",...},...]}
+     * </pre>
+     */
+    private static void encode(StringBuilder out, List<Object> batch, long missed) {
+        out.append("{\"missed\":").append(missed).append(",\"events\":[");
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            Object event = batch.get(i);
+            if (event instanceof AccessLog a) {
+                out.append("{\"type\":\"access\"");
+                field(out, "time", a.getRequestTime());
+                field(out, "requestId", a.getRequestId());
+                field(out, "method", a.getMethod());
+                field(out, "url", a.getUrl());
+                field(out, "ip", a.getIp());
+                field(out, "status", a.getStatus());
+                field(out, "duration", a.getDuration());
+                field(out, "username", a.getUsername());
+            } else if (event instanceof AuditLog a) {
+                out.append("{\"type\":\"audit\"");
+                field(out, "time", a.getLogTime());
+                field(out, "username", a.getUsername());
+                field(out, "actionType", a.getActionType());
+                field(out, "module", a.getModule());
+                field(out, "description", a.getDescription());
+                field(out, "target", a.getTarget());
+                field(out, "url", a.getUrl());
+                field(out, "success", a.getSuccess());
+                field(out, "errorMessage", a.getErrorMessage());
+            }
+            out.append('}');
+        }
+        out.append("]}");
+    }
+
+    private static void field(StringBuilder out, String name, Object value) {
+        if (value == null) {
+            return;
+        }
+        out.append(",\"").append(name).append("\":");
+        if (value instanceof Number || value instanceof Boolean) {
+            out.append(value);
+            return;
+        }
+        String text = value.toString();
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,54 @@
+package com.graduation.hospital.common.log.db.tail;
+
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+/**
+ * /ws/logs 连接处理：握手 URL 中的查询参数即订阅过滤条件（见 {@link LogTailFilter}），
+ * 握手时的 JWT 声明由握手拦截器放入会话属性 {@link LogTailHub#CLAIMS_ATTRIBUTE}
+ * 连接只用于服务端推送，客户端发来的消息被忽略
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "logging.db.enabled", havingValue = "true")
+public class LogTailWebSocketHandler extends TextWebSocketHandler {
+
+    private final LogTailHub logTailHub;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        if (!(session.getAttributes().get(LogTailHub.CLAIMS_ATTRIBUTE) instanceof Claims claims)) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("未认证"));
+            return;
+        }
+        LogTailFilter filter;
+        try {
+            filter = LogTailFilter.parse(session.getUri());
+        } catch (IllegalArgumentException e) {
+            session.close(CloseStatus.BAD_DATA.withReason(e.getMessage()));
+            return;
+        }
+        if (!logTailHub.subscribe(session, filter, claims)) {
+            log.warn("实时日志订阅数已达上限，拒绝连接: session={}", session.getId());
+            session.close(CloseStatus.SERVICE_OVERLOAD.withReason("订阅数已达上限"));
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        logTailHub.unsubscribe(session);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.debug("实时日志连接异常: session={}, error={}", session.getId(), exception.getMessage());
+        logTailHub.unsubscribe(session);
+    }
+}
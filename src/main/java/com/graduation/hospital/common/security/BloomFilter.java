@@ -0,0 +1,68 @@
+package com.graduation.hospital.common.security;
+
+/**
+ * 字符串布隆过滤器（双重哈希）
+ * 用于在查精确集合之前快速排除绝大多数未吊销的 Token；写入只发生在构建快照时，构建完成后只读
+ */
+final class BloomFilter {
+
+    private final long[] bits;
+    private final int numBits;
+    private final int hashes;
+
+    /**
+     * @param expected 预计元素数
+     * @param falsePositiveRate 期望误判率
+     */
+    BloomFilter(int expected, double falsePositiveRate) {
+        int n = Math.max(1, expected);
+        double ln2 = Math.log(2);
+        this.numBits = (int) Math.max(64, Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        this.hashes = Math.max(1, (int) Math.round((double) numBits / n * ln2));
+        this.bits = new long[(numBits + 63) >>> 6];
+    }
+
+    void add(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            int index = index(h1 + i * h2);
+            bits[index >>> 6] |= 1L << index;
+        }
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            int index = index(h1 + i * h2);
+            if ((bits[index >>> 6] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int index(int combined) {
+        return (combined < 0 ? ~combined : combined) % numBits;
+    }
+
+    /**
+     * FNV-1a 64 位哈希，再经 MurmurHash3 的 fmix64 打散
+     */
+    private static long hash64(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,101 @@
+package com.graduation.hospital.common.security;
+
+import com.graduation.hospital.common.util.StripedTokenBuckets;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 登录 / 注册限流
+ * 按客户端 IP 与用户名各维护一个令牌桶，在执行 BCrypt 之前拒绝超出频率的尝试：
+ * - IP 桶限制单个来源的撞库速度，用户名桶限制针对单个账号的猜测（不论用户是否存在）
+ * - 桶保存在分段的 {@link StripedTokenBuckets} 中，跟踪的 key 数有上限
+ * IP 必须取自 {@code request.getRemoteAddr()}：X-Forwarded-For 等请求头可由客户端任意设置，
+ * 只有经可信代理（server.tomcat.remoteip.internal-proxies）转发时才由容器改写为真实地址
+ */
+@Slf4j
+@Component
+public class LoginThrottle {
+
+    private final boolean enabled;
+    private final StripedTokenBuckets ipBuckets;
+    private final StripedTokenBuckets usernameBuckets;
+    private final LongAdder throttledByIp = new LongAdder();
+    private final LongAdder throttledByUsername = new LongAdder();
+
+    public LoginThrottle(@Value("${security.login-throttle.enabled:true}") boolean enabled,
+                         @Value("${security.login-throttle.ip.per-minute:60}") double ipPerMinute,
+                         @Value("${security.login-throttle.ip.burst:20}") int ipBurst,
+                         @Value("${security.login-throttle.username.per-minute:10}") double usernamePerMinute,
+                         @Value("${security.login-throttle.username.burst:5}") int usernameBurst,
+                         @Value("${security.login-throttle.max-keys:100000}") int maxKeys) {
+        this.enabled = enabled;
+        this.ipBuckets = new StripedTokenBuckets(ipPerMinute / 60, ipBurst, maxKeys);
+        this.usernameBuckets = new StripedTokenBuckets(usernamePerMinute / 60, usernameBurst, maxKeys);
+    }
+
+    /**
+     * 登录尝试：同时检查 IP 与用户名
+     * @throws ThrottledException 超出频率
+     */
+    public void checkLogin(String ip, String username) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        checkIp(ip, now);
+        if (username != null) {
+            long wait = usernameBuckets.tryAcquire(username.trim().toLowerCase(Locale.ROOT), now);
+            if (wait >= 0) {
+                throttledByUsername.increment();
+                log.warn("登录尝试过于频繁（用户名）: username={}, ip={}", username, ip);
+                throw new ThrottledException("登录尝试过于频繁，请稍后重试", toSeconds(wait));
+            }
+        }
+    }
+
+    /**
+     * 注册等只按 IP 限流的操作
+     * @throws ThrottledException 超出频率
+     */
+    public void checkIp(String ip) {
+        if (enabled) {
+            checkIp(ip, System.nanoTime());
+        }
+    }
+
+    public long getThrottledByIp() {
+        return throttledByIp.sum();
+    }
+
+    public long getThrottledByUsername() {
+        return throttledByUsername.sum();
+    }
+
+    /**
+     * 当前跟踪的 key 数（IP + 用户名）
+     */
+    public int size() {
+        return ipBuckets.size() + usernameBuckets.size();
+    }
+
+    private void checkIp(String ip, long now) {
+        if (ip == null) {
+            return;
+        }
+        long wait = ipBuckets.tryAcquire(ip, now);
+        if (wait >= 0) {
+            throttledByIp.increment();
+            log.warn("登录尝试过于频繁（IP）: ip={}", ip);
+            throw new ThrottledException("请求过于频繁，请稍后重试", toSeconds(wait));
+        }
+    }
+
+    private static long toSeconds(long nanos) {
+        return TimeUnit.NANOSECONDS.toSeconds(nanos) + 1;
+    }
+}
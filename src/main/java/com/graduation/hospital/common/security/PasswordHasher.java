@@ -0,0 +1,136 @@
+package com.graduation.hospital.common.security;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 密码哈希执行器
+ * BCrypt 每次计算占满一个核数十毫秒，在 Tomcat 工作线程上直接执行时，
+ * 撞库流量可以占满全部 CPU；这里把 encode / matches 放到固定大小的线程池中执行：
+ * - 线程数即登录 / 注册可占用的 CPU 上限，队列有界，队列满时立即拒绝（429），不排队等待
+ * - 调用方最多等待 wait-timeout，超时取消任务并拒绝
+ * - 记录执行次数、累计耗时与拒绝次数，用于观察登录的 CPU 开销
+ */
+@Slf4j
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long waitTimeout;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          @Value("${security.password-hashing.threads:0}") int threads,
+                          @Value("${security.password-hashing.queue-size:32}") int queueSize,
+                          @Value("${security.password-hashing.wait-timeout:3000}") long waitTimeout) {
+        this.passwordEncoder = passwordEncoder;
+        this.waitTimeout = waitTimeout;
+        // 默认使用一半的核，保证业务请求始终有 CPU 可用
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger index = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)),
+                runnable -> Thread.ofPlatform()
+                        .name("password-hash-" + index.incrementAndGet())
+                        .daemon(true)
+                        .unstarted(runnable),
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("密码哈希线程池: threads={}, queueSize={}", poolSize, queueSize);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 计算密码哈希
+     * @throws ThrottledException 线程池已满或等待超时
+     */
+    public String encode(String rawPassword) {
+        return execute(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * 校验密码
+     * @throws ThrottledException 线程池已满或等待超时
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return execute(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 已保存的哈希是否低于当前配置的强度，需要在登录成功后重新计算
+     */
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 累计哈希耗时（纳秒），不含排队时间
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public int getActive() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    totalNanos.add(System.nanoTime() - start);
+                    count.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ThrottledException("系统繁忙，请稍后重试", 1);
+        }
+        try {
+            return future.get(waitTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new ThrottledException("系统繁忙，请稍后重试", 1);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("密码校验被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
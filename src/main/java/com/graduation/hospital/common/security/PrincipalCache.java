@@ -0,0 +1,183 @@
+package com.graduation.hospital.common.security;
+
+import com.graduation.hospital.common.util.BoundedMaps;
+import com.graduation.hospital.entity.SysRole;
+import com.graduation.hospital.entity.SysUser;
+import com.graduation.hospital.repository.SysUserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已认证用户缓存（按用户名）
+ * JwtAuthenticationFilter 每个请求都需要用户的启用状态与权限，
+ * 而 findByUsername 会连带加载角色与权限（均为 EAGER），每次请求产生多条查询；
+ * 缓存保存精简后的用户对象、启用状态与预先构建的权限列表，带 TTL 与容量上限
+ * 用户启用 / 禁用 / 删除 / 修改密码以及角色变更时需调用 invalidate，
+ * 在事务中调用时提交后会再失效一次，避免并发请求在提交前重新加载到旧数据
+ */
+@Slf4j
+@Component
+public class PrincipalCache {
+
+    private final SysUserRepository userRepository;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /** 失效代数：加载期间发生过失效时，加载结果不放入缓存 */
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    @Value("${security.principal-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${security.principal-cache.ttl:300000}")
+    private long ttl;
+
+    /**
+     * 缓存的认证信息
+     * @param user 精简的用户对象（id、用户名、邮箱、启用状态，不含密码与角色），作为认证主体
+     * @param enabled 是否启用
+     * @param authorities 角色权限（ROLE_ 前缀）
+     */
+    public record CachedPrincipal(SysUser user, boolean enabled, Set<GrantedAuthority> authorities) {
+    }
+
+    private record Entry(CachedPrincipal principal, long expiresAt) {
+    }
+
+    public PrincipalCache(SysUserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * 获取用户认证信息，未命中或已过期时从数据库加载
+     * @return 用户不存在时返回 null
+     */
+    public CachedPrincipal get(String username) {
+        long now = System.currentTimeMillis();
+        if (enabled) {
+            Entry entry = entries.get(username);
+            if (entry != null && entry.expiresAt() > now) {
+                hits.increment();
+                return entry.principal();
+            }
+        }
+        misses.increment();
+
+        long gen = generation.get();
+        long start = System.nanoTime();
+        CachedPrincipal principal = userRepository.findByUsername(username).map(PrincipalCache::build).orElse(null);
+        loadNanos.add(System.nanoTime() - start);
+
+        if (enabled && principal != null && generation.get() == gen) {
+            if (entries.size() >= maxSize) {
+                evict(now);
+            }
+            entries.put(username, new Entry(principal, now + ttl));
+        }
+        return principal;
+    }
+
+    /**
+     * 使指定用户的缓存失效
+     */
+    public void invalidate(Long userId) {
+        invalidateNow(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateNow(userId);
+                }
+            });
+        }
+    }
+
+    /**
+     * 使全部缓存失效（角色或权限变更时）
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                    entries.clear();
+                }
+            });
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * 命中率（启动以来）
+     */
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * 从数据库加载的累计耗时（纳秒），加载次数即未命中次数
+     */
+    public long getLoadNanos() {
+        return loadNanos.sum();
+    }
+
+    private void invalidateNow(Long userId) {
+        generation.incrementAndGet();
+        entries.values().removeIf(entry -> Objects.equals(entry.principal().user().getId(), userId));
+    }
+
+    /**
+     * 容量已满：先清除过期项，仍不足时随机清除约 10%
+     */
+    private void evict(long now) {
+        BoundedMaps.evict(entries, entry -> entry.expiresAt() <= now, maxSize);
+        log.debug("认证用户缓存已满，清除部分缓存: maxSize={}", maxSize);
+    }
+
+    private static CachedPrincipal build(SysUser user) {
+        Set<GrantedAuthority> authorities = new HashSet<>();
+        if (user.getRoles() != null) {
+            for (SysRole role : user.getRoles()) {
+                authorities.add(new SimpleGrantedAuthority("ROLE_" + role.getCode()));
+            }
+        }
+        SysUser principal = new SysUser();
+        principal.setId(user.getId());
+        principal.setUsername(user.getUsername());
+        principal.setEmail(user.getEmail());
+        principal.setEnabled(user.getEnabled());
+        return new CachedPrincipal(principal, Boolean.TRUE.equals(user.getEnabled()),
+                Collections.unmodifiableSet(authorities));
+    }
+}
@@ -0,0 +1,51 @@
+package com.graduation.hospital.common.security;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.core.Authentication;
+
+import java.io.Serializable;
+
+/**
+ * 基于角色权限快照的 hasPermission 实现，用于 @PreAuthorize 表达式：
+ * <pre>
+ * &#64;PreAuthorize("hasPermission('patient', 'write')")      // 检查 patient:write
+ * &#64;PreAuthorize("hasPermission(null, 'patient:write')")   // 直接给出完整编码
+ * &#64;PreAuthorize("hasPermission(#id, 'patient', 'write')") // 目标 ID 不参与判断
+ * </pre>
+ * 用户的有效权限由认证信息中的角色经快照换算为位图，判断不访问数据库
+ * 由方法安全的表达式处理器（静态 Bean）持有，快照延迟获取
+ */
+public class RbacPermissionEvaluator implements PermissionEvaluator {
+
+    private final ObjectProvider<RbacRegistry> rbacRegistry;
+
+    public RbacPermissionEvaluator(ObjectProvider<RbacRegistry> rbacRegistry) {
+        this.rbacRegistry = rbacRegistry;
+    }
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
+        if (permission == null) {
+            return false;
+        }
+        String code = targetDomainObject instanceof String type ? type + ":" + permission : permission.toString();
+        return check(authentication, code);
+    }
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Serializable targetId, String targetType, Object permission) {
+        if (targetType == null || permission == null) {
+            return false;
+        }
+        return check(authentication, targetType + ":" + permission);
+    }
+
+    private boolean check(Authentication authentication, String code) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return false;
+        }
+        RbacSnapshot snapshot = rbacRegistry.getObject().snapshot();
+        return snapshot.has(snapshot.permissionsOf(authentication.getAuthorities()), code);
+    }
+}
@@ -0,0 +1,128 @@
+package com.graduation.hospital.common.security;
+
+import com.graduation.hospital.repository.SysPermissionRepository;
+import com.graduation.hospital.repository.SysRoleRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 角色 / 权限快照的持有者
+ * - 启动时从 sys_role、sys_permission、sys_role_permission 构建 {@link RbacSnapshot}，之后整体替换，读取方无锁
+ * - 角色或权限实体变更（RoleChangeListener）后在事务提交后重建，多次变更合并为一次重建
+ * - 另按 refresh-interval 定期重建，覆盖只修改关联表、其他实例写入等不触发实体回调的变更
+ */
+@Slf4j
+@Component
+public class RbacRegistry {
+
+    private final SysPermissionRepository permissionRepository;
+    private final SysRoleRepository roleRepository;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final LongAdder rebuilds = new LongAdder();
+    private final LongAdder rebuildNanos = new LongAdder();
+
+    @Value("${security.rbac.refresh-interval:60000}")
+    private long refreshInterval;
+
+    private volatile RbacSnapshot snapshot = RbacSnapshot.empty();
+
+    public RbacRegistry(SysPermissionRepository permissionRepository, SysRoleRepository roleRepository) {
+        this.permissionRepository = permissionRepository;
+        this.roleRepository = roleRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+        if (refreshInterval > 0) {
+            executor.scheduleWithFixedDelay(this::rebuild, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 当前快照
+     */
+    public RbacSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 请求重建快照：在事务中调用时于事务结束后重建，避免读到提交前的数据
+     */
+    public void requestRebuild() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    scheduleRebuild();
+                }
+            });
+        } else {
+            scheduleRebuild();
+        }
+    }
+
+    public long getRebuilds() {
+        return rebuilds.sum();
+    }
+
+    public long getRebuildNanos() {
+        return rebuildNanos.sum();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                rebuildPending.set(false);
+                rebuild();
+            });
+        }
+    }
+
+    /**
+     * 重新加载角色与权限并替换快照（在启动线程或 executor 线程中执行）
+     */
+    synchronized void rebuild() {
+        long start = System.nanoTime();
+        try {
+            List<String> permissions = permissionRepository.findAllCodes();
+            Map<String, List<String>> rolePermissions = new HashMap<>();
+            for (Object[] row : roleRepository.findRolePermissionCodes()) {
+                rolePermissions.computeIfAbsent((String) row[0], k -> new ArrayList<>()).add((String) row[1]);
+            }
+            // 没有任何权限的角色也需要出现在快照中
+            for (String role : roleRepository.findAllCodes()) {
+                rolePermissions.computeIfAbsent(role, k -> new ArrayList<>());
+            }
+            RbacSnapshot next = new RbacSnapshot(version.incrementAndGet(), permissions, rolePermissions);
+            snapshot = next;
+            log.debug("角色权限快照已重建: version={}, roles={}, permissions={}",
+                    next.getVersion(), next.roleCount(), next.permissionCount());
+        } catch (Exception e) {
+            log.warn("重建角色权限快照失败，继续使用上一次的快照: {}", e.getMessage());
+        } finally {
+            rebuilds.increment();
+            rebuildNanos.add(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.graduation.hospital.common.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 角色 / 权限关系的不可变快照
+ * 每个权限编码分配一个位下标，角色的权限集与用户的有效权限都表示为 long[] 位图，
+ * 权限判断是一次数组下标与位运算，不访问数据库，也不遍历实体图
+ * 快照整体替换（见 {@link RbacRegistry}），读取方无需加锁
+ */
+public final class RbacSnapshot {
+
+    /** 权限组合 → 有效权限位图的缓存上限（角色组合通常只有几种） */
+    private static final int MAX_MEMOIZED = 1024;
+    private static final long[] NONE = new long[0];
+
+    private final long version;
+    /** 位下标 → 权限编码 */
+    private final String[] codes;
+    /** 权限编码 → 位下标 */
+    private final Map<String, Integer> bits;
+    /** 角色编码 → 权限位图 */
+    private final Map<String, long[]> roles;
+    /** 排序后的角色编码 → 有效权限位图，只随本快照存在 */
+    private final Map<List<String>, long[]> memo = new ConcurrentHashMap<>();
+
+    /**
+     * @param version 快照版本
+     * @param permissionCodes 全部权限编码
+     * @param rolePermissions 角色编码 → 权限编码
+     */
+    public RbacSnapshot(long version, Collection<String> permissionCodes, Map<String, ? extends Collection<String>> rolePermissions) {
+        this.version = version;
+        this.codes = new TreeSet<>(permissionCodes).toArray(String[]::new);
+        Map<String, Integer> bits = new HashMap<>();
+        for (int i = 0; i < codes.length; i++) {
+            bits.put(codes[i], i);
+        }
+        this.bits = Map.copyOf(bits);
+
+        int words = (codes.length + 63) >>> 6;
+        Map<String, long[]> roles = new HashMap<>();
+        rolePermissions.forEach((role, permissions) -> {
+            long[] set = new long[words];
+            for (String permission : permissions) {
+                Integer bit = bits.get(permission);
+                if (bit != null) {
+                    set[bit >>> 6] |= 1L << bit;
+                }
+            }
+            roles.put(role, set);
+        });
+        this.roles = Map.copyOf(roles);
+    }
+
+    public static RbacSnapshot empty() {
+        return new RbacSnapshot(0, List.of(), Map.of());
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int permissionCount() {
+        return codes.length;
+    }
+
+    public int roleCount() {
+        return roles.size();
+    }
+
+    /**
+     * 权限编码对应的位下标
+     * @return 权限不存在时返回 -1
+     */
+    public int bitOf(String permissionCode) {
+        Integer bit = bits.get(permissionCode);
+        return bit != null ? bit : -1;
+    }
+
+    /**
+     * 由认证信息中的角色（ROLE_ 前缀）计算有效权限位图，结果按角色组合缓存
+     */
+    public long[] permissionsOf(Collection<? extends GrantedAuthority> authorities) {
+        List<String> key = roleCodes(authorities);
+        long[] cached = memo.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long[] set = NONE;
+        for (String code : key) {
+            long[] role = roles.get(code);
+            if (role == null) {
+                continue;
+            }
+            if (set == NONE) {
+                set = role.clone();
+            } else {
+                for (int i = 0; i < set.length; i++) {
+                    set[i] |= role[i];
+                }
+            }
+        }
+        if (memo.size() < MAX_MEMOIZED) {
+            memo.put(key, set);
+        }
+        return set;
+    }
+
+    /**
+     * 缓存键：去掉 ROLE_ 前缀后排序的角色编码，与权限列表的实现类型和顺序无关
+     */
+    private static List<String> roleCodes(Collection<? extends GrantedAuthority> authorities) {
+        List<String> codes = new ArrayList<>(authorities.size());
+        for (GrantedAuthority authority : authorities) {
+            String name = authority.getAuthority();
+            if (name != null && name.startsWith("ROLE_")) {
+                codes.add(name.substring(5));
+            }
+        }
+        if (codes.size() > 1) {
+            Collections.sort(codes);
+        }
+        return codes;
+    }
+
+    /**
+     * 判断位图中是否包含指定权限
+     */
+    public boolean has(long[] permissions, String permissionCode) {
+        int bit = bitOf(permissionCode);
+        return bit >= 0 && (bit >>> 6) < permissions.length && (permissions[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * 位图对应的权限编码
+     */
+    public List<String> codesOf(long[] permissions) {
+        List<String> result = new ArrayList<>();
+        for (int word = 0; word < permissions.length; word++) {
+            long bitsInWord = permissions[word];
+            while (bitsInWord != 0) {
+                result.add(codes[(word << 6) + Long.numberOfTrailingZeros(bitsInWord)]);
+                bitsInWord &= bitsInWord - 1;
+            }
+        }
+        return result;
+    }
+}
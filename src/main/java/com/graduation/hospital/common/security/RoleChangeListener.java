@@ -0,0 +1,35 @@
+package com.graduation.hospital.common.security;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * 角色 / 权限实体监听器：角色或权限变更后清空认证用户缓存，使 Token 内签名的角色失效，并重建角色权限快照
+ * 由 Hibernate 通过 Spring 容器创建；PrincipalCache 依赖 EntityManagerFactory，
+ * 而监听器在 EntityManagerFactory 构建期间创建，因此延迟获取
+ */
+public class RoleChangeListener {
+
+    private final ObjectProvider<PrincipalCache> principalCache;
+    private final ObjectProvider<StatelessAuthorities> statelessAuthorities;
+    private final ObjectProvider<RbacRegistry> rbacRegistry;
+
+    public RoleChangeListener(ObjectProvider<PrincipalCache> principalCache,
+                              ObjectProvider<StatelessAuthorities> statelessAuthorities,
+                              ObjectProvider<RbacRegistry> rbacRegistry) {
+        this.principalCache = principalCache;
+        this.statelessAuthorities = statelessAuthorities;
+        this.rbacRegistry = rbacRegistry;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        principalCache.ifAvailable(PrincipalCache::invalidateAll);
+        statelessAuthorities.ifAvailable(StatelessAuthorities::bumpVersion);
+        rbacRegistry.ifAvailable(RbacRegistry::requestRebuild);
+    }
+}
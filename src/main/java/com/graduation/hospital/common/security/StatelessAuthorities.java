@@ -0,0 +1,84 @@
+package com.graduation.hospital.common.security;
+
+import com.graduation.hospital.entity.SysUser;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token 内签名的角色（可选，jwt.stateless-authorities.enabled）
+ * 开启后登录签发的 Token 携带角色编码与权限集版本号，过滤器直接据此认证，不访问数据库；
+ * 角色或权限变更时版本号递增，旧版本的 Token 回退到认证用户缓存（PrincipalCache）路径
+ * 版本号只在本实例内有效：重启或由其他实例签发的 Token 同样回退，不会使用过期的角色
+ */
+@Component
+public class StatelessAuthorities {
+
+    public static final String CLAIM_USER_ID = "userId";
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_PERMISSION_VERSION = "pv";
+
+    @Value("${jwt.stateless-authorities.enabled:false}")
+    private boolean enabled;
+
+    /** 以启动时间为初始值，重启前签发的 Token 版本号必然不一致 */
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * 角色或权限变更后调用，使此前签发的 Token 不再直接使用其中的角色
+     */
+    public void bumpVersion() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * 登录时写入 Token 的声明
+     */
+    public Map<String, Object> claims(Long userId, Collection<String> roles) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_USER_ID, userId);
+        if (enabled) {
+            claims.put(CLAIM_ROLES, List.copyOf(roles));
+            claims.put(CLAIM_PERMISSION_VERSION, version.get());
+        }
+        return claims;
+    }
+
+    /**
+     * 从已验证的声明构建认证信息
+     * @return 未开启、Token 不含角色或版本号已过期时返回 null，调用方回退到数据库路径
+     */
+    public PrincipalCache.CachedPrincipal fromClaims(Claims claims) {
+        if (!enabled) {
+            return null;
+        }
+        Long tokenVersion = claims.get(CLAIM_PERMISSION_VERSION, Long.class);
+        Long userId = claims.get(CLAIM_USER_ID, Long.class);
+        Object roles = claims.get(CLAIM_ROLES);
+        if (tokenVersion == null || tokenVersion != version.get() || userId == null || !(roles instanceof List<?> codes)) {
+            return null;
+        }
+        Set<GrantedAuthority> authorities = new HashSet<>();
+        for (Object code : codes) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + code));
+        }
+        SysUser user = new SysUser();
+        user.setId(userId);
+        user.setUsername(claims.getSubject());
+        user.setEnabled(true);
+        return new PrincipalCache.CachedPrincipal(user, true, Collections.unmodifiableSet(authorities));
+    }
+}
@@ -0,0 +1,19 @@
+package com.graduation.hospital.common.security;
+
+/**
+ * 请求被限流（登录尝试过多、密码哈希线程池已满），由全局异常处理器转换为 429
+ */
+public class ThrottledException extends RuntimeException {
+
+    /** 建议的重试等待时间（秒） */
+    private final long retryAfterSeconds;
+
+    public ThrottledException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
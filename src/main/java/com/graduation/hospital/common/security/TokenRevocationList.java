@@ -0,0 +1,278 @@
+package com.graduation.hospital.common.security;
+
+import com.graduation.hospital.common.util.JwtUtil;
+import com.graduation.hospital.entity.RevokedToken;
+import com.graduation.hospital.repository.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内存中的 Token 吊销表
+ * - 吊销记录持久化在 revoked_token 表，每 refresh-interval 增量加载 revokedAt 晚于上次加载时间的记录并入快照，
+ *   其他实例写入的吊销在一个刷新周期内生效；增量查询向前重叠两个刷新周期，覆盖提交较晚的事务
+ * - 每 full-refresh-interval 从表中完整重建一次不可变快照，移除已过期的记录并纠正时钟偏差等遗漏，
+ *   已过期的记录每 purge-interval 删除一次
+ * - 快照由布隆过滤器 + 精确集合（按 jti）与用户吊销时间表组成：
+ *   绝大多数请求的 Token 未被吊销，只需一次布隆过滤器判断，不查数据库
+ * - 本实例的吊销立即写入快照，并在之后两个刷新周期内并入重建结果，避免重建时读到提交前的数据而丢失；
+ *   所在事务回滚时，内存中的吊销最多保留两个刷新周期
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+
+    private final RevokedTokenRepository repository;
+    private final JwtUtil jwtUtil;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final Queue<Local> recent = new ConcurrentLinkedQueue<>();
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    @Value("${jwt.revocation.refresh-interval:5000}")
+    private long refreshInterval;
+
+    @Value("${jwt.revocation.full-refresh-interval:600000}")
+    private long fullRefreshInterval;
+
+    @Value("${jwt.revocation.purge-interval:3600000}")
+    private long purgeInterval;
+
+    @Value("${jwt.revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    private volatile Snapshot snapshot;
+
+    /** 上次加载的开始时间，下次增量加载其后吊销的记录（仅在 executor 线程中访问） */
+    private LocalDateTime loadedUntil;
+    private long lastFullRefresh;
+
+    /**
+     * 吊销快照
+     * @param bloom jti 布隆过滤器
+     * @param tokens 已吊销的 jti
+     * @param users 用户 ID → 吊销时间（毫秒），此前签发的 Token 全部无效
+     */
+    private record Snapshot(BloomFilter bloom, Set<String> tokens, Map<Long, Long> users) {
+    }
+
+    /**
+     * 本实例最近写入的吊销（jti 与 userId 二选一）
+     */
+    private record Local(String jti, Long userId, long revokedAt, long createdAt) {
+    }
+
+    public TokenRevocationList(RevokedTokenRepository repository, JwtUtil jwtUtil) {
+        this.repository = repository;
+        this.jwtUtil = jwtUtil;
+        this.snapshot = new Snapshot(new BloomFilter(1, 0.001), Set.of(), Map.of());
+    }
+
+    @PostConstruct
+    public void init() {
+        refresh();
+        executor.scheduleWithFixedDelay(this::refresh, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::purge, purgeInterval, purgeInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 判断已验证的 Token 是否被吊销
+     * JWT 的 iat 只精确到秒，用户吊销时间按秒截断后比较：吊销所在这一秒内重新登录签发的 Token 仍然有效
+     */
+    public boolean isRevoked(Claims claims) {
+        Snapshot current = snapshot;
+        if (!current.users().isEmpty()) {
+            Long userId = claims.get("userId", Long.class);
+            Long revokedAt = userId != null ? current.users().get(userId) : null;
+            if (revokedAt != null && claims.getIssuedAt() != null
+                    && claims.getIssuedAt().getTime() < Math.floorDiv(revokedAt, 1000L) * 1000L) {
+                return true;
+            }
+        }
+        String jti = claims.getId();
+        return jti != null && current.bloom().mightContain(jti) && current.tokens().contains(jti);
+    }
+
+    /**
+     * 吊销单个 Token（登出）
+     * @param expiresAt Token 过期时间，吊销记录保留到此时
+     */
+    public void revokeToken(String jti, Date expiresAt) {
+        if (jti == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        RevokedToken revoked = new RevokedToken();
+        revoked.setJti(jti);
+        revoked.setRevokedAt(toDateTime(now));
+        revoked.setExpiresAt(toDateTime(expiresAt != null ? expiresAt.getTime() : now + jwtUtil.getExpiration()));
+        repository.save(revoked);
+        apply(new Local(jti, null, now, now));
+    }
+
+    /**
+     * 吊销用户此前签发的全部 Token（禁用、删除用户）
+     */
+    public void revokeUser(Long userId) {
+        long now = System.currentTimeMillis();
+        RevokedToken revoked = new RevokedToken();
+        revoked.setUserId(userId);
+        revoked.setRevokedAt(toDateTime(now));
+        revoked.setExpiresAt(toDateTime(now + jwtUtil.getExpiration()));
+        repository.save(revoked);
+        apply(new Local(null, userId, now, now));
+        log.info("已吊销用户的全部 Token: userId={}", userId);
+    }
+
+    /**
+     * 当前快照中的吊销数（Token 数 + 用户数）
+     */
+    public int size() {
+        Snapshot current = snapshot;
+        return current.tokens().size() + current.users().size();
+    }
+
+    /**
+     * 从 revoked_token 表刷新快照：到达 full-refresh-interval 时完整重建，否则增量加载
+     */
+    void refresh() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            long cutoff = System.currentTimeMillis() - 2 * refreshInterval;
+            recent.removeIf(local -> local.createdAt() < cutoff);
+            if (loadedUntil == null || System.currentTimeMillis() - lastFullRefresh >= fullRefreshInterval) {
+                rebuild(now);
+            } else {
+                loadIncrement(now);
+            }
+        } catch (Exception e) {
+            log.warn("刷新 Token 吊销表失败，继续使用上一次的快照: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 删除已过期的吊销记录（快照中的过期记录在下次完整重建时移除）
+     */
+    void purge() {
+        try {
+            int deleted = repository.deleteExpired(LocalDateTime.now());
+            if (deleted > 0) {
+                log.debug("已删除过期的 Token 吊销记录: {}", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("删除过期的 Token 吊销记录失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 完整重建：只保留尚未过期的记录
+     */
+    private void rebuild(LocalDateTime now) {
+        Set<String> tokens = new HashSet<>();
+        Map<Long, Long> users = new HashMap<>();
+        for (RevokedToken revoked : repository.findByExpiresAtAfter(now)) {
+            merge(tokens, users, revoked);
+        }
+        // 与 apply 互斥：并入最近的本地吊销与替换快照之间不会插入新的吊销
+        synchronized (this) {
+            for (Local local : recent) {
+                merge(tokens, users, local);
+            }
+            snapshot = build(tokens, users);
+        }
+        loadedUntil = now;
+        lastFullRefresh = System.currentTimeMillis();
+    }
+
+    /**
+     * 增量加载上次加载之后吊销的记录，没有新记录时不重建快照
+     */
+    private void loadIncrement(LocalDateTime now) {
+        List<RevokedToken> revokedTokens = repository.findByRevokedAtAfter(
+                loadedUntil.minus(2 * refreshInterval, ChronoUnit.MILLIS));
+        loadedUntil = now;
+        if (revokedTokens.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            Snapshot current = snapshot;
+            Set<String> tokens = new HashSet<>(current.tokens());
+            Map<Long, Long> users = new HashMap<>(current.users());
+            boolean changed = false;
+            for (RevokedToken revoked : revokedTokens) {
+                changed |= merge(tokens, users, revoked);
+            }
+            if (changed) {
+                snapshot = build(tokens, users);
+            }
+        }
+    }
+
+    private synchronized void apply(Local local) {
+        recent.add(local);
+        Snapshot current = snapshot;
+        Set<String> tokens = new HashSet<>(current.tokens());
+        Map<Long, Long> users = new HashMap<>(current.users());
+        merge(tokens, users, local);
+        snapshot = build(tokens, users);
+    }
+
+    /**
+     * 并入一条持久化的吊销记录
+     * @return 快照是否发生变化
+     */
+    private boolean merge(Set<String> tokens, Map<Long, Long> users, RevokedToken revoked) {
+        if (revoked.getJti() != null) {
+            return tokens.add(revoked.getJti());
+        } else if (revoked.getUserId() != null) {
+            long revokedAt = toMillis(revoked.getRevokedAt());
+            Long previous = users.get(revoked.getUserId());
+            if (previous == null || previous < revokedAt) {
+                users.put(revoked.getUserId(), revokedAt);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void merge(Set<String> tokens, Map<Long, Long> users, Local local) {
+        if (local.jti() != null) {
+            tokens.add(local.jti());
+        } else {
+            users.merge(local.userId(), local.revokedAt(), Math::max);
+        }
+    }
+
+    private Snapshot build(Set<String> tokens, Map<Long, Long> users) {
+        BloomFilter bloom = new BloomFilter(Math.max(1024, tokens.size()), falsePositiveRate);
+        for (String jti : tokens) {
+            bloom.add(jti);
+        }
+        return new Snapshot(bloom, Set.copyOf(tokens), Map.copyOf(users));
+    }
+
+    private LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone);
+    }
+
+    private long toMillis(LocalDateTime time) {
+        return time.atZone(zone).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,82 @@
+package com.graduation.hospital.common.security;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket 握手票据
+ * 浏览器无法为 WebSocket 握手设置 Authorization 请求头，而查询参数会进入访问日志、代理日志与浏览器历史：
+ * - 客户端先携带 JWT 调用已认证的接口换取票据，再以 {@code ?ticket=} 发起握手
+ * - 票据为 256 位随机值，只在内存中保存，有效期 ttl（默认 30 秒）且只能使用一次，泄露后无法重放
+ * - 票据绑定签发时的 JWT 声明，握手后连接据此继续检查 Token 过期与吊销
+ */
+@Component
+public class WebSocketTicketService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final long ttlMillis;
+    private final int maxTickets;
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    /**
+     * @param claims 签发票据时所用 JWT 的声明
+     * @param expiresAt 票据过期时间（毫秒）
+     */
+    private record Ticket(Claims claims, long expiresAt) {
+    }
+
+    public WebSocketTicketService(@Value("${security.ws-ticket.ttl:30000}") long ttlMillis,
+                                  @Value("${security.ws-ticket.max-tickets:1024}") int maxTickets) {
+        this.ttlMillis = ttlMillis;
+        this.maxTickets = maxTickets;
+    }
+
+    /**
+     * 为已认证请求的 JWT 声明签发票据
+     * @throws ThrottledException 未使用的票据过多
+     */
+    public String issue(Claims claims) {
+        long now = System.currentTimeMillis();
+        if (tickets.size() >= maxTickets) {
+            tickets.values().removeIf(ticket -> ticket.expiresAt() <= now);
+            if (tickets.size() >= maxTickets) {
+                throw new ThrottledException("握手票据申请过于频繁，请稍后重试", TimeUnit.MILLISECONDS.toSeconds(ttlMillis));
+            }
+        }
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tickets.put(ticket, new Ticket(claims, now + ttlMillis));
+        return ticket;
+    }
+
+    /**
+     * 兑换票据（只能兑换一次）
+     * @return 票据对应的 JWT 声明；票据不存在、已使用、已过期或 JWT 已过期时返回 null
+     */
+    public Claims redeem(String ticket) {
+        if (ticket == null) {
+            return null;
+        }
+        Ticket redeemed = tickets.remove(ticket);
+        long now = System.currentTimeMillis();
+        if (redeemed == null || redeemed.expiresAt() <= now) {
+            return null;
+        }
+        Date expiration = redeemed.claims().getExpiration();
+        return expiration == null || expiration.getTime() > now ? redeemed.claims() : null;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+}
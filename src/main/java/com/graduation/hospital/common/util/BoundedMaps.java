@@ -0,0 +1,54 @@
+package com.graduation.hospital.common.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * 有界内存表的容量回收（认证用户缓存、JWT 验证缓存、限流令牌桶表共用）
+ * 容量已满时先清除失效项，仍不足时随机清除约 10%：
+ * ConcurrentHashMap 的迭代顺序由哈希决定，从头部连续删除总是命中同一批哈希槽，
+ * 这里在一次遍历中按选择抽样（Knuth 算法 S）决定每个 key 是否删除，被删除的 key 在表中均匀分布
+ */
+public final class BoundedMaps {
+
+    private BoundedMaps() {
+    }
+
+    /**
+     * 回收容量
+     * @param map 有界表（并发表，允许遍历期间被其他线程修改）
+     * @param stale 失效判断，失效项总是先被清除
+     * @param maxSize 容量上限
+     */
+    public static <V> void evict(Map<?, V> map, Predicate<? super V> stale, int maxSize) {
+        map.values().removeIf(stale);
+        if (map.size() < maxSize) {
+            return;
+        }
+        removeRandom(map, Math.max(1, maxSize / 10));
+    }
+
+    /**
+     * 随机删除 count 个 key
+     * @return 实际删除数（遍历期间表被并发缩小时可能少于 count）
+     */
+    static int removeRandom(Map<?, ?> map, int count) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int size = map.size();
+        int seen = 0;
+        int removed = 0;
+        Iterator<?> it = map.keySet().iterator();
+        while (removed < count && it.hasNext()) {
+            it.next();
+            // 剩余 size - seen 个 key 中还需选出 count - removed 个
+            if (random.nextInt(Math.max(1, size - seen)) < count - removed) {
+                it.remove();
+                removed++;
+            }
+            seen++;
+        }
+        return removed;
+    }
+}
@@ -2,37 +2,77 @@ package com.graduation.hospital.common.util;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * JWT 工具类
+ * 签名密钥与解析器在启动时构建一次（均为不可变、线程安全），
+ * 已验证的 Token 按摘要缓存到过期为止，重复请求跳过 HMAC 校验与 JSON 解析
+ * 开启刷新令牌（jwt.refresh-token.enabled）时访问令牌使用 jwt.access-token.expiration 的短有效期
  */
+@Slf4j
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret:HospitalInfoManagementSecretKeyForJWTToken2026}")
-    private String secret;
+    private final Long expiration;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
 
-    @Value("${jwt.expiration:86400000}")
-    private Long expiration;
+    /** Token 的 SHA-256 摘要（前 128 位）→ 已验证的声明，不在内存中保留 Token 原文 */
+    private final Map<TokenKey, Verified> verified = new ConcurrentHashMap<>();
+    private final int verifiedCacheSize;
+
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private record TokenKey(long high, long low) {
+    }
+
+    private record Verified(Claims claims, long expiresAt) {
+    }
+
+    public JwtUtil(@Value("${jwt.secret:HospitalInfoManagementSecretKeyForJWTToken2026}") String secret,
+                   @Value("${jwt.expiration:86400000}") Long expiration,
+                   @Value("${jwt.refresh-token.enabled:false}") boolean refreshTokenEnabled,
+                   @Value("${jwt.access-token.expiration:900000}") Long accessTokenExpiration,
+                   @Value("${jwt.verified-cache.max-size:10000}") int verifiedCacheSize) {
+        this.expiration = refreshTokenEnabled ? accessTokenExpiration : expiration;
+        this.verifiedCacheSize = verifiedCacheSize;
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
 
     /**
-     * 生成 JWT Token
+     * 生成 JWT Token（带随机 jti，用于登出时吊销单个 Token）
      */
     public String generateToken(String username, Long userId, Map<String, Object> claims) {
         return Jwts.builder()
                 .claims(claims)
+                .id(UUID.randomUUID().toString())
                 .subject(username)
                 .issuer("hospital")
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
@@ -43,6 +83,45 @@ public class JwtUtil {
         return generateToken(username, userId, Map.of("userId", userId));
     }
 
+    /**
+     * 验证 Token 并返回声明（一次解析），命中缓存时不再校验签名
+     * @return Token 无效或已过期时返回 null
+     */
+    public Claims verifyToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        TokenKey key = verifiedCacheSize > 0 ? keyOf(token) : null;
+        if (key != null) {
+            Verified cached = verified.get(key);
+            if (cached != null) {
+                if (cached.expiresAt() > now) {
+                    return cached.claims();
+                }
+                verified.remove(key);
+                return null;
+            }
+        }
+
+        Claims claims;
+        try {
+            claims = parser.parseSignedClaims(token).getPayload();
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("JWT Token 验证失败: {}", e.getMessage());
+            return null;
+        }
+
+        // 只缓存带过期时间的 Token，缓存项不会比 Token 活得更久
+        if (key != null && claims.getExpiration() != null) {
+            if (verified.size() >= verifiedCacheSize) {
+                evict(now);
+            }
+            verified.put(key, new Verified(claims, claims.getExpiration().getTime()));
+        }
+        return claims;
+    }
+
     /**
      * 解析 Token 获取用户名
      */
@@ -58,26 +137,17 @@ public class JwtUtil {
     }
 
     /**
-     * 解析 Token 获取所有声明
+     * 解析 Token 获取所有声明（不使用缓存，无效时抛出异常）
      */
     public Claims getClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     /**
      * 验证 Token 是否有效
      */
     public boolean validateToken(String token) {
-        try {
-            getClaimsFromToken(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return verifyToken(token) != null;
     }
 
     /**
@@ -93,16 +163,29 @@ public class JwtUtil {
     }
 
     /**
-     * 获取签名密钥
+     * 获取访问令牌有效期（毫秒）
      */
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    public Long getExpiration() {
+        return expiration;
     }
 
     /**
-     * 获取 Token 过期时间（毫秒）
+     * 已验证 Token 缓存条目数
      */
-    public Long getExpiration() {
-        return expiration;
+    public int getVerifiedCacheSize() {
+        return verified.size();
+    }
+
+    private TokenKey keyOf(String token) {
+        byte[] hash = digests.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        ByteBuffer buffer = ByteBuffer.wrap(hash);
+        return new TokenKey(buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * 容量已满：先清除已过期的 Token，仍不足时随机清除约 10%
+     */
+    private void evict(long now) {
+        BoundedMaps.evict(verified, v -> v.expiresAt() <= now, verifiedCacheSize);
     }
-}
\ No newline at end of file
+}
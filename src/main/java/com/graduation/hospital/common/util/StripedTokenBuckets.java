@@ -0,0 +1,82 @@
+package com.graduation.hospital.common.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 key 维护的令牌桶表（如按客户端 IP、用户名限流）
+ * - key 按哈希分散到固定数量的分段，每个分段是独立的 ConcurrentHashMap 并独立限制容量，
+ *   获取令牌只有一次哈希查找与一次 CAS（{@link TokenBucket}），不加锁
+ * - 分段写满时先回收已补满的空闲桶（等价于新建的桶，删除不影响限流结果），
+ *   仍不足时随机清除约 10%，内存占用与 key 的数量无关
+ */
+public final class StripedTokenBuckets {
+
+    private static final int STRIPES = 16;
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final int maxPerStripe;
+    @SuppressWarnings("unchecked")
+    private final Map<String, TokenBucket>[] stripes = new Map[STRIPES];
+
+    /**
+     * @param permitsPerSecond 每个 key 每秒令牌数
+     * @param burst 每个 key 的桶容量
+     * @param maxKeys 跟踪的 key 数上限
+     */
+    public StripedTokenBuckets(double permitsPerSecond, int burst, int maxKeys) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.maxPerStripe = Math.max(16, maxKeys / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * 为 key 获取一个令牌
+     * @return -1 表示放行，否则为需要等待的纳秒数
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        Map<String, TokenBucket> stripe = stripe(key);
+        TokenBucket bucket = stripe.get(key);
+        if (bucket == null) {
+            if (stripe.size() >= maxPerStripe) {
+                evict(stripe, nowNanos);
+            }
+            bucket = stripe.computeIfAbsent(key, k -> new TokenBucket(permitsPerSecond, burst));
+        }
+        return bucket.tryAcquire(nowNanos) ? -1 : bucket.nanosUntilAvailable(nowNanos);
+    }
+
+    /**
+     * 归还 key 在 {@link #tryAcquire} 中获取的令牌
+     */
+    public void refund(String key) {
+        TokenBucket bucket = stripe(key).get(key);
+        if (bucket != null) {
+            bucket.refund();
+        }
+    }
+
+    /**
+     * 当前跟踪的 key 数
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, TokenBucket> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private Map<String, TokenBucket> stripe(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    private void evict(Map<String, TokenBucket> stripe, long nowNanos) {
+        BoundedMaps.evict(stripe, bucket -> bucket.isFull(nowNanos), maxPerStripe);
+    }
+}
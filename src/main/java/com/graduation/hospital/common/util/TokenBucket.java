@@ -0,0 +1,86 @@
+package com.graduation.hospital.common.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶
+ * 基于 GCRA（通用信元速率算法）实现：只维护一个"理论到达时间"，
+ * 每次获取令牌是一次 CAS，不需要后台补充线程，也不加锁
+ */
+public final class TokenBucket {
+
+    /** 每个令牌的生成间隔（纳秒） */
+    private final long intervalNanos;
+    /** 允许的突发容量对应的时间窗口（纳秒） */
+    private final long burstNanos;
+    /** 理论到达时间 */
+    private final AtomicLong tat = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * @param permitsPerSecond 每秒令牌数
+     * @param burst 桶容量（允许的最大突发数）
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+    }
+
+    /**
+     * 尝试获取一个令牌
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    /**
+     * 尝试获取一个令牌（调用方提供当前时间，便于批量判断时复用）
+     */
+    public boolean tryAcquire(long nowNanos) {
+        for (;;) {
+            long current = tat.get();
+            long base = current == Long.MIN_VALUE || current < nowNanos ? nowNanos : current;
+            long next = base + intervalNanos;
+            if (next - nowNanos > burstNanos) {
+                return false;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 归还一个已获取的令牌（获取后其他限制未通过、请求未被处理时调用）
+     */
+    public void refund() {
+        for (;;) {
+            long current = tat.get();
+            if (current == Long.MIN_VALUE || tat.compareAndSet(current, current - intervalNanos)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 距离下一个令牌可用的等待时间（纳秒），0 表示当前可用
+     */
+    public long nanosUntilAvailable(long nowNanos) {
+        long current = tat.get();
+        if (current == Long.MIN_VALUE) {
+            return 0;
+        }
+        long wait = current + intervalNanos - burstNanos - nowNanos;
+        return Math.max(0, wait);
+    }
+
+    /**
+     * 桶是否已补满（此后一直未使用），按 key 维护桶时可据此回收
+     */
+    public boolean isFull(long nowNanos) {
+        long current = tat.get();
+        return current == Long.MIN_VALUE || current <= nowNanos;
+    }
+}
@@ -1,7 +1,9 @@
 package com.graduation.hospital.config;
 
+import com.graduation.hospital.entity.SysPermission;
 import com.graduation.hospital.entity.SysRole;
 import com.graduation.hospital.entity.SysUser;
+import com.graduation.hospital.repository.SysPermissionRepository;
 import com.graduation.hospital.repository.SysRoleRepository;
 import com.graduation.hospital.repository.SysUserRepository;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +13,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -24,12 +28,14 @@ public class DataInitializer implements CommandLineRunner {
 
     private final SysRoleRepository sysRoleRepository;
     private final SysUserRepository sysUserRepository;
+    private final SysPermissionRepository sysPermissionRepository;
     private final PasswordEncoder passwordEncoder;
 
     @Override
     @Transactional
     public void run(String... args) {
         initRoles();
+        initPermissions();
         initAdminUser();
     }
 
@@ -53,6 +59,43 @@ public class DataInitializer implements CommandLineRunner {
         log.info("初始化角色: {} ({})", name, code);
     }
 
+    /**
+     * 初始化内置权限，并授予对应的内置角色
+     * 只在权限首次创建时授予，管理员之后对角色权限的调整不会被覆盖
+     */
+    private void initPermissions() {
+        createPermissionIfNotExists("patient:read", "查看病人", List.of("ADMIN", "DOCTOR", "NURSE"));
+        createPermissionIfNotExists("patient:write", "管理病人", List.of("ADMIN", "DOCTOR", "NURSE"));
+        createPermissionIfNotExists("medical-record:read", "查看病历", List.of("ADMIN", "DOCTOR", "PATIENT"));
+        createPermissionIfNotExists("medical-record:write", "管理病历", List.of("ADMIN", "DOCTOR"));
+        createPermissionIfNotExists("appointment:read", "查看预约", List.of("ADMIN", "DOCTOR", "NURSE", "PATIENT"));
+        // 患者的预约与取消是公开接口，不需要 appointment:write
+        createPermissionIfNotExists("appointment:write", "管理预约", List.of("ADMIN", "DOCTOR", "NURSE"));
+        createPermissionIfNotExists("medicine:read", "查看药品", List.of("ADMIN", "DOCTOR", "NURSE"));
+        createPermissionIfNotExists("medicine:write", "管理药品", List.of("ADMIN", "NURSE"));
+        createPermissionIfNotExists("user:manage", "用户管理", List.of("ADMIN"));
+    }
+
+    private void createPermissionIfNotExists(String code, String name, List<String> roleCodes) {
+        if (sysPermissionRepository.existsByCode(code)) {
+            return;
+        }
+        SysPermission permission = new SysPermission();
+        permission.setCode(code);
+        permission.setName(name);
+        SysPermission saved = sysPermissionRepository.save(permission);
+        for (String roleCode : roleCodes) {
+            sysRoleRepository.findByCode(roleCode).ifPresent(role -> {
+                Set<SysPermission> permissions = role.getPermissions() != null
+                        ? new HashSet<>(role.getPermissions()) : new HashSet<>();
+                permissions.add(saved);
+                role.setPermissions(permissions);
+                sysRoleRepository.save(role);
+            });
+        }
+        log.info("初始化权限: {} ({})", name, code);
+    }
+
     /** 初始化管理员账户 */
     private void initAdminUser() {
         if (sysUserRepository.existsByUsername("admin")) {
@@ -1,9 +1,13 @@
 package com.graduation.hospital.config;
 
+import com.graduation.hospital.common.context.RequestContext;
+import com.graduation.hospital.common.security.PrincipalCache;
+import com.graduation.hospital.common.security.StatelessAuthorities;
+import com.graduation.hospital.common.security.TokenRevocationList;
+import com.graduation.hospital.common.security.WebSocketTicketService;
 import com.graduation.hospital.common.util.JwtUtil;
-import com.graduation.hospital.entity.SysRole;
 import com.graduation.hospital.entity.SysUser;
-import com.graduation.hospital.repository.SysUserRepository;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,19 +16,16 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
 
 
 /**
  * JWT 认证过滤器
- * 拦截请求，验证 JWT Token，设置认证信息
+ * 拦截请求，验证 JWT Token，设置认证信息（请求日志由 RequestLoggingFilter 统一记录）
  */
 @Slf4j
 @Component
@@ -32,55 +33,58 @@ import java.util.Set;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final SysUserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationList tokenRevocationList;
+    private final StatelessAuthorities statelessAuthorities;
+    private final WebSocketTicketService webSocketTicketService;
+
+    /** 认证成功后已验证的 JWT 声明所在的请求属性（票据签发与 WebSocket 连接的后续校验使用） */
+    public static final String CLAIMS_ATTRIBUTE = "com.graduation.hospital.config.JwtAuthenticationFilter.claims";
 
     private static final String AUTH_HEADER = "Authorization";
     private static final String TOKEN_PREFIX = "Bearer ";
+    /** 浏览器 WebSocket 握手无法设置请求头，/ws/ 下通过一次性票据认证（不在查询参数中传递 JWT） */
+    private static final String TICKET_PARAM = "ticket";
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
 
-        // 记录请求日志
-        log.info("→ {} {} | IP: {} | UA: {}",
-                request.getMethod(),
-                request.getRequestURI(),
-                getClientIp(request),
-                getUserAgent(request));
-
-        long startTime = System.currentTimeMillis();
+        String token = resolveToken(request);
+        String ticket = token == null && request.getRequestURI().startsWith("/ws/")
+                ? request.getParameter(TICKET_PARAM) : null;
 
-        String authHeader = request.getHeader(AUTH_HEADER);
-
-        // 检查是否包含有效的 Token
-        if (authHeader != null && authHeader.startsWith(TOKEN_PREFIX)) {
-            String token = authHeader.substring(TOKEN_PREFIX.length());
+        // 检查是否包含有效的 Token 或握手票据
+        if (token != null || ticket != null) {
 
             try {
-                // 验证 Token
-                if (jwtUtil.validateToken(token)) {
-                    String username = jwtUtil.getUsernameFromToken(token);
-
-                    // 从数据库获取用户信息
-                    SysUser user = userRepository.findByUsername(username).orElse(null);
-
-                    if (user != null && user.getEnabled()) {
-                        // 构建权限列表
-                        Set<SimpleGrantedAuthority> authorities = new HashSet<>();
-
-                        // 添加角色权限
-                        if (user.getRoles() != null) {
-                            for (SysRole role : user.getRoles()) {
-                                authorities.add(new SimpleGrantedAuthority("ROLE_" + role.getCode()));
-                            }
-                        }
+                // 验证 Token（一次解析得到已验证的声明）；票据兑换得到签发票据时已验证的声明
+                Claims claims = token != null ? jwtUtil.verifyToken(token) : webSocketTicketService.redeem(ticket);
+                if (claims != null && !tokenRevocationList.isRevoked(claims)) {
+                    String username = claims.getSubject();
+
+                    // 优先使用 Token 内签名的角色；未开启或版本已过期时取认证用户缓存（命中时不查询数据库）
+                    PrincipalCache.CachedPrincipal principal = statelessAuthorities.fromClaims(claims);
+                    if (principal == null) {
+                        principal = principalCache.get(username);
+                    }
+
+                    if (principal != null && principal.enabled()) {
+                        SysUser user = principal.user();
 
                         // 创建认证对象
                         UsernamePasswordAuthenticationToken authentication =
-                                new UsernamePasswordAuthenticationToken(user, null, authorities);
+                                new UsernamePasswordAuthenticationToken(user, null, principal.authorities());
 
                         // 设置到安全上下文
                         SecurityContextHolder.getContext().setAuthentication(authentication);
+                        request.setAttribute(CLAIMS_ATTRIBUTE, claims);
+
+                        // 记录到请求上下文，供访问日志、审计日志与 SQL 日志使用
+                        RequestContext context = RequestContext.current();
+                        if (context != null) {
+                            context.setUser(user.getUsername(), user.getId());
+                        }
 
                         log.debug("JWT 认证成功: username={}", username);
                     }
@@ -91,49 +95,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             }
         }
 
-        try {
-            filterChain.doFilter(request, response);
-        } finally {
-            // 记录响应日志
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("← {} {} | Status: {} | Duration: {}ms",
-                    request.getMethod(),
-                    request.getRequestURI(),
-                    response.getStatus(),
-                    duration);
-        }
+        filterChain.doFilter(request, response);
     }
 
-    /**
-     * 获取客户端真实 IP
-     */
-    private String getClientIp(HttpServletRequest request) {
-        String[] headers = {
-            "X-Forwarded-For",
-            "X-Real-IP",
-            "Proxy-Client-IP",
-            "WL-Proxy-Client-IP"
-        };
-
-        for (String header : headers) {
-            String ip = request.getHeader(header);
-            if (ip != null && !ip.isEmpty() && !"unknown".equalsIgnoreCase(ip)) {
-                return ip.contains(",") ? ip.split(",")[0].trim() : ip;
-            }
-        }
-
-        return request.getRemoteAddr();
-    }
-
-    /**
-     * 获取用户代理
-     */
-    private String getUserAgent(HttpServletRequest request) {
-        String ua = request.getHeader("User-Agent");
-        if (ua == null || ua.isEmpty()) {
-            return "-";
+    private String resolveToken(HttpServletRequest request) {
+        String authHeader = request.getHeader(AUTH_HEADER);
+        if (authHeader != null && authHeader.startsWith(TOKEN_PREFIX)) {
+            return authHeader.substring(TOKEN_PREFIX.length());
         }
-        return ua.length() > 100 ? ua.substring(0, 100) + "..." : ua;
+        return null;
     }
 
     @Override
@@ -144,6 +114,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 || path.startsWith("/api/v2/hello")
                 || path.startsWith("/api/hello")
                 || path.startsWith("/api/v1/users/login")
+                || path.startsWith("/api/v1/users/refresh")
                 || path.startsWith("/api/v1/users/register")
                 || path.startsWith("/swagger-ui")
                 || path.startsWith("/scalar")
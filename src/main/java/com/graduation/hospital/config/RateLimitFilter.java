@@ -0,0 +1,173 @@
+package com.graduation.hospital.config;
+
+import com.graduation.hospital.common.util.StripedTokenBuckets;
+import com.graduation.hospital.common.util.TokenBucket;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 接口限流过滤器（位于 JwtAuthenticationFilter 之前）
+ * 按 security.rate-limit.rules 中的路由规则，对每个客户端 IP 与整个路由各维护一个令牌桶：
+ * <pre>
+ * security.rate-limit.rules=POST /api/v1/appointments:30,10,50;GET /api/v1/users/check/**:60,20,200
+ * </pre>
+ * 每条规则为 {@code [方法 ]路径模式:每客户端每分钟次数,每客户端突发数,路由每秒次数}，路由每秒次数为 0 时不限制整个路由；
+ * 请求按顺序匹配第一条规则，超出频率时直接返回 429 与 Retry-After，不解析 Token、不访问数据库
+ */
+@Slf4j
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String REJECT_BODY = "{\"code\":429,\"message\":\"请求过于频繁，请稍后重试\",\"data\":null,\"timestamp\":";
+
+    private final boolean enabled;
+    private final List<Rule> rules;
+
+    /**
+     * 限流规则
+     * @param method HTTP 方法，为空匹配全部
+     * @param pattern 路径模式
+     * @param clients 每客户端令牌桶
+     * @param route 整个路由的令牌桶，为空不限制
+     * @param rejected 拒绝次数
+     */
+    public record Rule(String method, PathPattern pattern, StripedTokenBuckets clients, TokenBucket route,
+                       LongAdder rejected) {
+
+        boolean matches(String requestMethod, PathContainer path) {
+            return (method == null || method.equals(requestMethod)) && pattern.matches(path);
+        }
+
+        /**
+         * 规则名称（指标标签）
+         */
+        public String name() {
+            return method != null ? method + " " + pattern.getPatternString() : pattern.getPatternString();
+        }
+
+        public long getRejected() {
+            return rejected.sum();
+        }
+    }
+
+    public RateLimitFilter(@Value("${security.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${security.rate-limit.rules:}") String rules,
+                           @Value("${security.rate-limit.max-clients:100000}") int maxClients) {
+        this.enabled = enabled;
+        this.rules = parseRules(rules, maxClients);
+        log.info("接口限流: enabled={}, rules={}", enabled, this.rules.stream().map(Rule::name).toList());
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Rule rule = match(request);
+        if (rule != null) {
+            long now = System.nanoTime();
+            // 按连接地址限流：转发头可由客户端伪造，只有可信代理的转发头会被容器写入 remoteAddr
+            String ip = request.getRemoteAddr();
+            String client = ip != null ? ip : "";
+            long wait = rule.clients().tryAcquire(client, now);
+            if (wait < 0 && rule.route() != null && !rule.route().tryAcquire(now)) {
+                // 被整个路由的限制拒绝时归还客户端令牌，避免路由繁忙期间客户端额度被白白消耗
+                rule.clients().refund(client);
+                wait = rule.route().nanosUntilAvailable(now);
+            }
+            if (wait >= 0) {
+                rule.rejected().increment();
+                reject(response, TimeUnit.NANOSECONDS.toSeconds(wait) + 1);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || rules.isEmpty();
+    }
+
+    private Rule match(HttpServletRequest request) {
+        String method = request.getMethod();
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        for (Rule rule : rules) {
+            if (rule.matches(method, path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private static void reject(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        response.setStatus(429);
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        response.setContentType("application/json;charset=UTF-8");
+        byte[] body = (REJECT_BODY + Instant.now().getEpochSecond() + "}").getBytes(StandardCharsets.UTF_8);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * 解析规则：{@code [方法 ]路径模式:每客户端每分钟次数,每客户端突发数,路由每秒次数}，多条规则以 ; 分隔
+     * @throws IllegalArgumentException 规则格式不正确
+     */
+    static List<Rule> parseRules(String config, int maxClients) {
+        List<Rule> rules = new ArrayList<>();
+        if (config == null || config.isBlank()) {
+            return rules;
+        }
+        for (String item : config.split(";")) {
+            String text = item.trim();
+            if (text.isEmpty()) {
+                continue;
+            }
+            int colon = text.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("限流规则格式不正确: " + text);
+            }
+            String target = text.substring(0, colon).trim();
+            String[] limits = text.substring(colon + 1).split(",");
+            if (limits.length != 3) {
+                throw new IllegalArgumentException("限流规则格式不正确: " + text);
+            }
+
+            String method = null;
+            int space = target.indexOf(' ');
+            if (space > 0) {
+                method = target.substring(0, space).trim().toUpperCase();
+                target = target.substring(space + 1).trim();
+            }
+            double perMinute = Double.parseDouble(limits[0].trim());
+            int burst = Integer.parseInt(limits[1].trim());
+            double routePerSecond = Double.parseDouble(limits[2].trim());
+
+            rules.add(new Rule(method, PathPatternParser.defaultInstance.parse(target),
+                    new StripedTokenBuckets(perMinute / 60, burst, maxClients),
+                    routePerSecond > 0 ? new TokenBucket(routePerSecond, (int) Math.max(1, routePerSecond)) : null,
+                    new LongAdder()));
+        }
+        return Collections.unmodifiableList(rules);
+    }
+}
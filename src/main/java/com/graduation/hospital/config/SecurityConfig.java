@@ -1,10 +1,23 @@
 package com.graduation.hospital.config;
 
 import com.graduation.hospital.common.log.db.DbLoggingFilter;
+import com.graduation.hospital.common.security.LoginThrottle;
+import com.graduation.hospital.common.security.PasswordHasher;
+import com.graduation.hospital.common.security.PrincipalCache;
+import com.graduation.hospital.common.security.RbacPermissionEvaluator;
+import com.graduation.hospital.common.security.RbacRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -21,6 +34,7 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Spring Security 配置
@@ -34,10 +48,25 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final DbLoggingFilter dbLoggingFilter;
+    private final RateLimitFilter rateLimitFilter;
 
+    /**
+     * BCrypt 强度可调，已有用户在下次登录时按新强度重新计算哈希
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    /**
+     * 方法安全表达式中的 hasPermission 由角色权限快照判断（见 RbacPermissionEvaluator）
+     * 静态方法：方法安全的基础设施 Bean 早于普通 Bean 创建，快照延迟获取
+     */
+    @Bean
+    static MethodSecurityExpressionHandler methodSecurityExpressionHandler(ObjectProvider<RbacRegistry> rbacRegistry) {
+        DefaultMethodSecurityExpressionHandler handler = new DefaultMethodSecurityExpressionHandler();
+        handler.setPermissionEvaluator(new RbacPermissionEvaluator(rbacRegistry));
+        return handler;
     }
 
     @Bean
@@ -57,11 +86,14 @@ public class SecurityConfig {
                     "/api/v2/hello",
                     "/api/hello",
                     "/api/v1/users/login",
+                    "/api/v1/users/refresh",
                     "/api/v1/users/register",
                     "/swagger-ui/**",
                     "/swagger-ui.html",
                     "/v3/api-docs/**"
                 ).permitAll()
+                // 实时日志推送仅管理员可订阅
+                .requestMatchers("/ws/**").hasRole("ADMIN")
                 // 其他请求需要认证
                 .anyRequest().authenticated()
             )
@@ -69,6 +101,8 @@ public class SecurityConfig {
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
             // 添加数据库日志过滤器（在 Security 之前）
             .addFilterBefore(dbLoggingFilter, JwtAuthenticationFilter.class)
+            // 添加限流过滤器（在数据库日志过滤器之后、JWT 过滤器之前，被拒绝的请求仍记录访问日志）
+            .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class)
             // CORS 配置
             .cors(cors -> cors.configurationSource(corsConfigurationSource()));
 
@@ -86,6 +120,112 @@ public class SecurityConfig {
         return registration;
     }
 
+    /**
+     * 禁用 RateLimitFilter 的 Servlet 容器自动注册，只在 Security 过滤器链中执行
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration() {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    /**
+     * 注册接口限流指标（按规则统计拒绝次数）
+     */
+    @Bean
+    public MeterBinder rateLimitMetrics() {
+        return registry -> {
+            for (RateLimitFilter.Rule rule : rateLimitFilter.getRules()) {
+                FunctionCounter.builder("hospital.security.rate.limit.rejected", rule, RateLimitFilter.Rule::getRejected)
+                        .tag("rule", rule.name())
+                        .description("被接口限流拒绝的请求数")
+                        .register(registry);
+                Gauge.builder("hospital.security.rate.limit.clients", rule, r -> r.clients().size())
+                        .tag("rule", rule.name())
+                        .description("接口限流跟踪的客户端数")
+                        .register(registry);
+            }
+        };
+    }
+
+    /**
+     * 注册认证用户缓存指标（命中 / 未命中、命中率、加载耗时）
+     */
+    @Bean
+    public MeterBinder principalCacheMetrics(PrincipalCache principalCache) {
+        return registry -> {
+            FunctionCounter.builder("hospital.security.principal.cache.hits", principalCache, PrincipalCache::getHits)
+                    .description("认证用户缓存命中次数")
+                    .register(registry);
+            FunctionCounter.builder("hospital.security.principal.cache.misses", principalCache, PrincipalCache::getMisses)
+                    .description("认证用户缓存未命中次数")
+                    .register(registry);
+            Gauge.builder("hospital.security.principal.cache.hit.ratio", principalCache, PrincipalCache::getHitRatio)
+                    .description("认证用户缓存命中率")
+                    .register(registry);
+            Gauge.builder("hospital.security.principal.cache.size", principalCache, PrincipalCache::size)
+                    .description("认证用户缓存条目数")
+                    .register(registry);
+            FunctionTimer.builder("hospital.security.principal.load", principalCache,
+                            PrincipalCache::getMisses, PrincipalCache::getLoadNanos, TimeUnit.NANOSECONDS)
+                    .description("未命中时从数据库加载用户与权限的耗时")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * 注册角色权限快照指标（版本、权限数、重建耗时）
+     */
+    @Bean
+    public MeterBinder rbacMetrics(RbacRegistry rbacRegistry) {
+        return registry -> {
+            Gauge.builder("hospital.security.rbac.version", rbacRegistry, r -> r.snapshot().getVersion())
+                    .description("当前角色权限快照版本")
+                    .register(registry);
+            Gauge.builder("hospital.security.rbac.permissions", rbacRegistry, r -> r.snapshot().permissionCount())
+                    .description("快照中的权限数（位图位数）")
+                    .register(registry);
+            FunctionTimer.builder("hospital.security.rbac.rebuild", rbacRegistry,
+                            RbacRegistry::getRebuilds, RbacRegistry::getRebuildNanos, TimeUnit.NANOSECONDS)
+                    .description("角色权限快照重建耗时")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * 注册登录 CPU 开销指标（密码哈希耗时、线程池占用、拒绝次数）与登录限流次数
+     */
+    @Bean
+    public MeterBinder loginMetrics(PasswordHasher passwordHasher, LoginThrottle loginThrottle) {
+        return registry -> {
+            FunctionTimer.builder("hospital.security.password.hash", passwordHasher,
+                            PasswordHasher::getCount, PasswordHasher::getTotalNanos, TimeUnit.NANOSECONDS)
+                    .description("密码哈希（BCrypt）执行耗时，不含排队")
+                    .register(registry);
+            Gauge.builder("hospital.security.password.hash.active", passwordHasher, PasswordHasher::getActive)
+                    .description("正在执行的密码哈希数")
+                    .register(registry);
+            Gauge.builder("hospital.security.password.hash.queued", passwordHasher, PasswordHasher::getQueued)
+                    .description("排队中的密码哈希数")
+                    .register(registry);
+            FunctionCounter.builder("hospital.security.password.hash.rejected", passwordHasher, PasswordHasher::getRejected)
+                    .description("线程池已满或等待超时而拒绝的密码哈希数")
+                    .register(registry);
+            FunctionCounter.builder("hospital.security.login.throttled", loginThrottle, LoginThrottle::getThrottledByIp)
+                    .tag("key", "ip")
+                    .description("被限流拒绝的登录 / 注册尝试")
+                    .register(registry);
+            FunctionCounter.builder("hospital.security.login.throttled", loginThrottle, LoginThrottle::getThrottledByUsername)
+                    .tag("key", "username")
+                    .description("被限流拒绝的登录 / 注册尝试")
+                    .register(registry);
+            Gauge.builder("hospital.security.login.throttle.keys", loginThrottle, LoginThrottle::size)
+                    .description("登录限流跟踪的 IP 与用户名数")
+                    .register(registry);
+        };
+    }
+
     /**
      * CORS 配置
      */
@@ -0,0 +1,88 @@
+package com.graduation.hospital.config;
+
+import com.graduation.hospital.common.log.db.tail.LogTailHub;
+import com.graduation.hospital.common.log.db.tail.LogTailWebSocketHandler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
+
+/**
+ * WebSocket 配置
+ * /ws/logs 实时推送访问日志与审计日志，仅管理员可订阅（见 SecurityConfig）
+ */
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "logging.db.enabled", havingValue = "true")
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final LogTailWebSocketHandler logTailWebSocketHandler;
+
+    /** 允许发起握手的前端源（与 CORS 配置一致） */
+    @Value("${logging.db.tail.allowed-origins:http://localhost:3000,http://127.0.0.1:3000,http://localhost:5173,http://127.0.0.1:5173}")
+    private String[] allowedOrigins;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(logTailWebSocketHandler, "/ws/logs")
+                .addInterceptors(new ClaimsHandshakeInterceptor())
+                .setAllowedOrigins(allowedOrigins);
+    }
+
+    /**
+     * 将 JwtAuthenticationFilter 验证得到的 JWT 声明放入会话属性，连接建立后据此检查 Token 过期与吊销
+     */
+    private static final class ClaimsHandshakeInterceptor implements HandshakeInterceptor {
+
+        @Override
+        public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Map<String, Object> attributes) {
+            if (request instanceof ServletServerHttpRequest servletRequest) {
+                Object claims = servletRequest.getServletRequest().getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE);
+                if (claims != null) {
+                    attributes.put(LogTailHub.CLAIMS_ATTRIBUTE, claims);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Exception exception) {
+        }
+    }
+
+    /**
+     * 注册实时日志订阅指标
+     */
+    @Bean
+    public MeterBinder logTailMetrics(LogTailHub logTailHub) {
+        return registry -> {
+            Gauge.builder("hospital.log.tail.subscribers", logTailHub, LogTailHub::getSubscriberCount)
+                    .description("实时日志订阅者数")
+                    .register(registry);
+            FunctionCounter.builder("hospital.log.tail.events.dropped", logTailHub, LogTailHub::getDropped)
+                    .description("因订阅者队列写满丢弃的实时日志事件数")
+                    .register(registry);
+            FunctionCounter.builder("hospital.log.tail.disconnected", logTailHub, LogTailHub::getDisconnected)
+                    .description("因持续跟不上被断开的订阅者数")
+                    .register(registry);
+        };
+    }
+}
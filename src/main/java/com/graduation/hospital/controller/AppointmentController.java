@@ -90,12 +90,12 @@ public class AppointmentController {
 
     /**
      * 更新预约状态
-     * 权限：管理员、医生、护士
+     * 权限：appointment:write（默认授予管理员、医生、护士）
      * @param id 预约 ID
      * @param status 新状态
      */
     @PutMapping("/{id}/status")
-    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR', 'NURSE')")
+    @PreAuthorize("hasPermission(null, 'appointment:write')")
     public Result<Appointment> updateAppointmentStatus(@PathVariable Long id, @RequestParam String status) {
         return Result.success(appointmentService.updateAppointmentStatus(id, status));
     }
@@ -0,0 +1,101 @@
+package com.graduation.hospital.controller;
+
+import com.graduation.hospital.common.Result;
+import com.graduation.hospital.common.log.db.AuditChainVerifier;
+import com.graduation.hospital.common.log.db.DbLoggingService;
+import com.graduation.hospital.common.log.db.LogQueryService;
+import com.graduation.hospital.common.log.db.SqlStatsAggregator;
+import com.graduation.hospital.common.security.WebSocketTicketService;
+import com.graduation.hospital.config.JwtAuthenticationFilter;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 日志管理控制器
+ * 提供数据库日志的查询与统计接口（仅管理员）
+ */
+@RestController
+@RequestMapping("/api/v1/logs")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "logging.db.enabled", havingValue = "true")
+public class LogController {
+
+    private final DbLoggingService dbLoggingService;
+    private final LogQueryService logQueryService;
+    private final AuditChainVerifier auditChainVerifier;
+    private final WebSocketTicketService webSocketTicketService;
+
+    /**
+     * 实时日志握手票据
+     * @param ticket 一次性票据，以 ws://.../ws/logs?ticket= 发起握手
+     * @param expiresIn 票据有效期（毫秒）
+     */
+    public record TailTicket(String ticket, long expiresIn) {
+    }
+
+    /**
+     * 校验审计日志哈希链
+     * @param from 写入时间起点（含），为空时取 to 往前 retention-days
+     * @param to 写入时间终点（不含），为空时取当前时间
+     */
+    @GetMapping("/audit/verify")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<AuditChainVerifier.Verification> verifyAuditChain(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return Result.success(auditChainVerifier.verify(from, to));
+    }
+
+    /**
+     * 签发实时日志 WebSocket 握手票据（一次性、短有效期，避免 JWT 出现在握手 URL 与访问日志中）
+     */
+    @PostMapping("/tail/ticket")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<TailTicket> issueTailTicket(@RequestAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE) Claims claims) {
+        return Result.success(new TailTicket(webSocketTicketService.issue(claims), webSocketTicketService.getTtlMillis()));
+    }
+
+    /**
+     * 跨分表查询日志（按时间倒序，游标分页）
+     * @param type 日志类型：access / audit / sql
+     * @param from 起始时间（含）
+     * @param to 结束时间（不含）
+     * @param cursor 上一页返回的 nextCursor
+     */
+    @GetMapping("/{type}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<LogQueryService.LogPage<Object>> queryLogs(
+            @PathVariable String type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String requestId,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) String urlPrefix,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        LogQueryService.LogQuery query = new LogQueryService.LogQuery(
+                from, to, username, requestId, status, urlPrefix, cursor, limit);
+        return Result.success(logQueryService.query(LogQueryService.LogType.of(type), query));
+    }
+
+    /**
+     * SQL 指纹 Top-N 统计
+     * @param orderBy 排序方式：count（执行次数）/ totalTime（总耗时）
+     * @param limit 返回条数
+     */
+    @GetMapping("/sql-stats/top")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<List<SqlStatsAggregator.Summary>> getTopSqlStats(
+            @RequestParam(defaultValue = "count") String orderBy,
+            @RequestParam(defaultValue = "20") int limit) {
+        return Result.success(dbLoggingService.getTopSqlStats(orderBy, Math.min(limit, 200)));
+    }
+}
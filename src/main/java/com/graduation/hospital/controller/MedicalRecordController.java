@@ -24,10 +24,10 @@ public class MedicalRecordController {
 
     /**
      * 创建病历记录
-     * 权限：管理员、医生
+     * 权限：medical-record:write（默认授予管理员、医生）
      */
     @PostMapping
-    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    @PreAuthorize("hasPermission(null, 'medical-record:write')")
     public Result<MedicalRecord> createMedicalRecord(@RequestBody MedicalRecord medicalRecord) {
         MedicalRecord saved = medicalRecordService.createMedicalRecord(medicalRecord);
         return Result.success(saved);
@@ -96,10 +96,10 @@ public class MedicalRecordController {
 
     /**
      * 更新病历记录
-     * 权限：管理员、医生
+     * 权限：medical-record:write（默认授予管理员、医生）
      */
     @PutMapping("/{id}")
-    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    @PreAuthorize("hasPermission(null, 'medical-record:write')")
     public Result<MedicalRecord> updateMedicalRecord(@PathVariable Long id, @RequestBody MedicalRecord medicalRecord) {
         return Result.success(medicalRecordService.updateMedicalRecord(id, medicalRecord));
     }
@@ -22,10 +22,10 @@ public class MedicineController {
 
     /**
      * 添加药品
-     * 权限：管理员、护士
+     * 权限：medicine:write（默认授予管理员、护士）
      */
     @PostMapping
-    @PreAuthorize("hasAnyRole('ADMIN', 'NURSE')")
+    @PreAuthorize("hasPermission(null, 'medicine:write')")
     public Result<Medicine> createMedicine(@RequestBody Medicine medicine) {
         Medicine saved = medicineService.createMedicine(medicine);
         return Result.success(saved);
@@ -84,10 +84,10 @@ public class MedicineController {
 
     /**
      * 更新药品信息
-     * 权限：管理员、护士
+     * 权限：medicine:write（默认授予管理员、护士）
      */
     @PutMapping("/{id}")
-    @PreAuthorize("hasAnyRole('ADMIN', 'NURSE')")
+    @PreAuthorize("hasPermission(null, 'medicine:write')")
     public Result<Medicine> updateMedicine(@PathVariable Long id, @RequestBody Medicine medicine) {
         return Result.success(medicineService.updateMedicine(id, medicine));
     }
@@ -105,12 +105,12 @@ public class MedicineController {
 
     /**
      * 更新药品库存
-     * 权限：管理员、护士
+     * 权限：medicine:write（默认授予管理员、护士）
      * @param id 药品 ID
      * @param quantity 库存变更数量（正数增加，负数减少）
      */
     @PutMapping("/{id}/stock")
-    @PreAuthorize("hasAnyRole('ADMIN', 'NURSE')")
+    @PreAuthorize("hasPermission(null, 'medicine:write')")
     public Result<Medicine> updateStock(@PathVariable Long id, @RequestParam int quantity) {
         return Result.success(medicineService.updateStock(id, quantity));
     }
@@ -25,10 +25,10 @@ public class PatientController {
 
     /**
      * 创建病人档案
-     * 权限：管理员、医生、护士
+     * 权限：patient:write（默认授予管理员、医生、护士）
      */
     @PostMapping
-    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR', 'NURSE')")
+    @PreAuthorize("hasPermission(null, 'patient:write')")
     public Result<Patient> createPatient(@RequestBody Patient patient) {
         Patient saved = patientService.createPatient(patient);
         return Result.success(saved);
@@ -79,10 +79,10 @@ public class PatientController {
 
     /**
      * 更新病人信息
-     * 权限：管理员、医生、护士
+     * 权限：patient:write（默认授予管理员、医生、护士）
      */
     @PutMapping("/{id}")
-    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR', 'NURSE')")
+    @PreAuthorize("hasPermission(null, 'patient:write')")
     public Result<Patient> updatePatient(@PathVariable Long id, @RequestBody Patient patient) {
         return Result.success(patientService.updatePatient(id, patient));
     }
@@ -2,12 +2,19 @@ package com.graduation.hospital.controller;
 
 import com.graduation.hospital.common.Result;
 import com.graduation.hospital.common.audit.AuditLogger;
+import com.graduation.hospital.common.context.RequestContext;
+import com.graduation.hospital.common.security.LoginThrottle;
+import com.graduation.hospital.common.security.StatelessAuthorities;
+import com.graduation.hospital.common.security.TokenRevocationList;
 import com.graduation.hospital.common.util.JwtUtil;
 import com.graduation.hospital.dto.AuthResponse;
 import com.graduation.hospital.dto.LoginRequest;
+import com.graduation.hospital.dto.RefreshTokenRequest;
 import com.graduation.hospital.entity.SysRole;
 import com.graduation.hospital.entity.SysUser;
+import com.graduation.hospital.service.RefreshTokenService;
 import com.graduation.hospital.service.SysUserService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -27,6 +34,10 @@ public class SysUserController {
 
     private final SysUserService userService;
     private final JwtUtil jwtUtil;
+    private final StatelessAuthorities statelessAuthorities;
+    private final TokenRevocationList tokenRevocationList;
+    private final RefreshTokenService refreshTokenService;
+    private final LoginThrottle loginThrottle;
     private final AuditLogger auditLogger;
     private final HttpServletRequest httpServletRequest;
 
@@ -35,7 +46,10 @@ public class SysUserController {
      */
     @PostMapping("/login")
     public Result<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
-        String ip = httpServletRequest.getRemoteAddr();
+        RequestContext context = RequestContext.current();
+        String ip = context != null ? context.getIp() : RequestContext.resolveClientIp(httpServletRequest);
+        // 超出频率的尝试在 BCrypt 之前拒绝；按连接地址限流，不信任客户端可伪造的转发头
+        loginThrottle.checkLogin(httpServletRequest.getRemoteAddr(), request.getUsername());
         SysUser user;
         try {
             // 验证用户名密码
@@ -49,7 +63,31 @@ public class SysUserController {
         // 登录成功审计
         auditLogger.logLoginSuccess(user.getUsername(), user.getId(), ip);
 
-        // 生成 JWT Token
+        // 生成 JWT Token（开启刷新令牌时同时签发刷新令牌）
+        String refreshToken = refreshTokenService.isEnabled() ? refreshTokenService.issue(user.getId()) : null;
+        return Result.success(authResponse(user, refreshToken));
+    }
+
+    /**
+     * 使用刷新令牌换取新的访问令牌（刷新令牌同时轮换）
+     */
+    @PostMapping("/refresh")
+    public Result<AuthResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        if (!refreshTokenService.isEnabled()) {
+            throw new IllegalArgumentException("未启用刷新令牌");
+        }
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+        SysUser user = userService.getUserById(rotation.userId());
+        if (!Boolean.TRUE.equals(user.getEnabled())) {
+            throw new IllegalArgumentException("用户已被禁用");
+        }
+        return Result.success(authResponse(user, rotation.refreshToken()));
+    }
+
+    /**
+     * 签发访问令牌并构建认证响应
+     */
+    private AuthResponse authResponse(SysUser user, String refreshToken) {
         Set<String> roles = new HashSet<>();
         if (user.getRoles() != null) {
             for (SysRole role : user.getRoles()) {
@@ -57,17 +95,19 @@ public class SysUserController {
             }
         }
 
-        String token = jwtUtil.generateToken(user.getUsername(), user.getId());
+        // 开启 jwt.stateless-authorities 时角色随 Token 签名，后续请求无需查询数据库
+        String token = jwtUtil.generateToken(user.getUsername(), user.getId(),
+                statelessAuthorities.claims(user.getId(), roles));
 
-        AuthResponse response = AuthResponse.builder()
+        return AuthResponse.builder()
                 .token(token)
                 .username(user.getUsername())
                 .userId(user.getId())
                 .roles(roles)
                 .expiration(jwtUtil.getExpiration())
+                .refreshToken(refreshToken)
+                .refreshExpiration(refreshToken != null ? refreshTokenService.getExpiration() : null)
                 .build();
-
-        return Result.success(response);
     }
 
     /**
@@ -75,11 +115,35 @@ public class SysUserController {
      */
     @PostMapping("/register")
     public Result<SysUser> register(@RequestBody SysUser user) {
+        loginThrottle.checkIp(httpServletRequest.getRemoteAddr());
         SysUser saved = userService.register(user);
         saved.setPassword(null);
         return Result.success(saved);
     }
 
+    /**
+     * 用户登出：吊销当前 Token（所有实例在一个刷新周期内拒绝该 Token），并吊销请求中的刷新令牌所在的会话
+     */
+    @PostMapping("/logout")
+    public Result<Void> logout(@RequestBody(required = false) RefreshTokenRequest request) {
+        String header = httpServletRequest.getHeader("Authorization");
+        Claims claims = header != null && header.startsWith("Bearer ")
+                ? jwtUtil.verifyToken(header.substring("Bearer ".length()))
+                : null;
+        if (claims == null) {
+            throw new IllegalArgumentException("Token 无效");
+        }
+        tokenRevocationList.revokeToken(claims.getId(), claims.getExpiration());
+        if (request != null && request.getRefreshToken() != null) {
+            refreshTokenService.revoke(request.getRefreshToken());
+        }
+
+        RequestContext context = RequestContext.current();
+        String ip = context != null ? context.getIp() : RequestContext.resolveClientIp(httpServletRequest);
+        auditLogger.logLogout(claims.getSubject(), claims.get("userId", Long.class), ip);
+        return Result.success();
+    }
+
     /**
      * 获取当前登录用户信息
      */
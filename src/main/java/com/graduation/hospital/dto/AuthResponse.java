@@ -25,4 +25,9 @@ public class AuthResponse {
     private Set<String> roles;
 
     private Long expiration;
+
+    /** 刷新令牌（未启用时为空） */
+    private String refreshToken;
+
+    private Long refreshExpiration;
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.graduation.hospital.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已吊销的 Token
+ * - jti 非空：吊销单个 Token（登出）
+ * - jti 为空：吊销该用户在 revokedAt 之前签发的全部 Token（禁用、删除用户）
+ * 过期后（expiresAt 之后 Token 本身已失效）由 TokenRevocationList 定期删除；revokedAt 用于增量加载
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "revoked_token", indexes = {
+        @Index(name = "idx_revoked_token_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_revoked_token_revoked_at", columnList = "revoked_at")
+})
+public class RevokedToken extends BaseEntity {
+
+    @Column(name = "jti", length = 64)
+    private String jti;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -1,8 +1,10 @@
 package com.graduation.hospital.entity;
 
+import com.graduation.hospital.common.security.RoleChangeListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.util.Set;
 
@@ -13,6 +15,7 @@ import java.util.Set;
 @EqualsAndHashCode(callSuper = true)
 @Entity
 @Table(name = "sys_permission")
+@EntityListeners(RoleChangeListener.class)
 public class SysPermission extends BaseEntity {
 
     @Column(name = "name", unique = true, nullable = false)
@@ -24,6 +27,8 @@ public class SysPermission extends BaseEntity {
     @Column(name = "description")
     private String description;
 
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     @ManyToMany(mappedBy = "permissions")
     private Set<SysRole> roles;
 }
\ No newline at end of file
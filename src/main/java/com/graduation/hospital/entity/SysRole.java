@@ -1,18 +1,23 @@
 package com.graduation.hospital.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.graduation.hospital.common.security.RoleChangeListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.util.Set;
 
 /**
  * 系统角色实体
+ * 权限关系按需加载：鉴权使用 RbacRegistry 中的权限快照，加载用户时不再连带加载权限
  */
 @Data
 @EqualsAndHashCode(callSuper = true)
 @Entity
 @Table(name = "sys_role")
+@EntityListeners(RoleChangeListener.class)
 public class SysRole extends BaseEntity {
 
     @Column(name = "name", unique = true, nullable = false)
@@ -24,7 +29,10 @@ public class SysRole extends BaseEntity {
     @Column(name = "description")
     private String description;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "sys_role_permission",
             joinColumns = @JoinColumn(name = "role_id"),
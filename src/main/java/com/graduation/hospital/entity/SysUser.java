@@ -3,6 +3,7 @@ package com.graduation.hospital.entity;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.Set;
 
@@ -30,6 +31,8 @@ public class SysUser extends BaseEntity {
     @OneToOne(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private SysUserProfile profile;
 
+    /** 批量加载：findAll 时按批查询用户角色，而不是每个用户一条查询 */
+    @BatchSize(size = 50)
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(
             name = "sys_user_role",
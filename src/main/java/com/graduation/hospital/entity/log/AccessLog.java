@@ -39,4 +39,7 @@ public class AccessLog {
 
     /** 操作用户（如已登录） */
     private String username;
+
+    /** 采样权重（1 / 保留概率），对权重求和可还原原始事件数 */
+    private Double sampleWeight;
 }
@@ -0,0 +1,51 @@
+package com.graduation.hospital.entity.log;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 接口耗时分钟汇总数据对象
+ * 按 (请求方法, 路由模板, 状态码类别) 聚合的每分钟统计行，由 DbLoggingService 写入独立日志库 endpoint_stats 分表
+ */
+@Data
+public class EndpointStatsLog {
+
+    private Long id;
+
+    /** 统计窗口起始时间（整分钟） */
+    private LocalDateTime windowStart;
+
+    /** 统计窗口结束时间 */
+    private LocalDateTime logTime;
+
+    /** 请求方法 */
+    private String method;
+
+    /** 路由模板（如 /api/v1/patients/{id}） */
+    private String route;
+
+    /** 状态码类别（2xx / 4xx / 5xx ...） */
+    private String statusClass;
+
+    /** 请求次数 */
+    private Long requestCount;
+
+    /** 总耗时（微秒） */
+    private Long totalUs;
+
+    /** 窗口内最大耗时（微秒） */
+    private Long maxUs;
+
+    /** P50 耗时（微秒） */
+    private Long p50Us;
+
+    /** P95 耗时（微秒） */
+    private Long p95Us;
+
+    /** P99 耗时（微秒） */
+    private Long p99Us;
+
+    /** 耗时直方图（逗号分隔的 {桶上界微秒}:{计数}，仅含非零桶） */
+    private String histogram;
+}
@@ -28,6 +28,18 @@ public class SqlLog {
     /** 耗时（毫秒） */
     private Long duration;
 
+    /** 耗时（微秒） */
+    private Long durationUs;
+
+    /** 查询返回行数或更新影响行数 */
+    private Long rowCount;
+
+    /** 绑定参数个数 */
+    private Integer paramCount;
+
+    /** SQL 指纹 ID（关联 sql_stats） */
+    private String fingerprintId;
+
     /** 是否成功 */
     private Boolean success;
 
@@ -39,4 +51,7 @@ public class SqlLog {
 
     /** 请求 ID（链路追踪） */
     private String requestId;
+
+    /** 采样权重（1 / 保留概率），对权重求和可还原原始事件数 */
+    private Double sampleWeight;
 }
@@ -0,0 +1,48 @@
+package com.graduation.hospital.entity.log;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * SQL 指纹统计数据对象
+ * 按指纹聚合的周期性统计行，由 DbLoggingService 写入独立日志库 sql_stats 分表
+ */
+@Data
+public class SqlStatsLog {
+
+    private Long id;
+
+    /** 统计窗口起始时间 */
+    private LocalDateTime windowStart;
+
+    /** 统计窗口结束时间（写入时间） */
+    private LocalDateTime logTime;
+
+    /** 指纹 ID */
+    private String fingerprintId;
+
+    /** 归一化 SQL */
+    private String fingerprint;
+
+    /** SQL 语句类型 */
+    private String sqlType;
+
+    /** 执行次数 */
+    private Long execCount;
+
+    /** 失败次数 */
+    private Long errorCount;
+
+    /** 总耗时（微秒） */
+    private Long totalUs;
+
+    /** 窗口内最大耗时（微秒） */
+    private Long maxUs;
+
+    /** 返回/影响总行数 */
+    private Long totalRows;
+
+    /** 耗时直方图（按 2 的幂微秒分桶，逗号分隔的计数） */
+    private String histogram;
+}
@@ -0,0 +1,51 @@
+package com.graduation.hospital.repository;
+
+import com.graduation.hospital.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * 刷新令牌数据访问仓储
+ */
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * 根据令牌摘要查询
+     */
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * 标记为已使用（条件更新，并发轮换同一令牌时只有一个成功）
+     * @return 更新行数，0 表示已被使用或已吊销
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.usedAt = :time WHERE r.id = :id AND r.usedAt IS NULL AND r.revoked = false")
+    int markUsed(Long id, LocalDateTime time);
+
+    /**
+     * 吊销整个 family
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.familyId = :familyId AND r.revoked = false")
+    int revokeFamily(String familyId);
+
+    /**
+     * 吊销用户的全部刷新令牌
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.userId = :userId AND r.revoked = false")
+    int revokeByUserId(Long userId);
+
+    /**
+     * 删除已过期的刷新令牌
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt <= :time")
+    int deleteExpired(LocalDateTime time);
+}
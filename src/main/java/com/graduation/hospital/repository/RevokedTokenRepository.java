@@ -0,0 +1,36 @@
+package com.graduation.hospital.repository;
+
+import com.graduation.hospital.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 已吊销 Token 数据访问仓储
+ */
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    /**
+     * 查询尚未过期的吊销记录（用于完整重建内存吊销表）
+     */
+    List<RevokedToken> findByExpiresAtAfter(LocalDateTime time);
+
+    /**
+     * 查询在指定时间之后吊销的记录（用于增量刷新内存吊销表）
+     */
+    List<RevokedToken> findByRevokedAtAfter(LocalDateTime time);
+
+    /**
+     * 删除已过期的吊销记录
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :time")
+    int deleteExpired(LocalDateTime time);
+}
@@ -2,8 +2,10 @@ package com.graduation.hospital.repository;
 
 import com.graduation.hospital.entity.SysPermission;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +14,10 @@ public interface SysPermissionRepository extends JpaRepository<SysPermission, Lo
     Optional<SysPermission> findByCode(String code);
 
     boolean existsByCode(String code);
+
+    /**
+     * 全部权限编码（构建角色权限快照）
+     */
+    @Query("SELECT p.code FROM SysPermission p")
+    List<String> findAllCodes();
 }
\ No newline at end of file
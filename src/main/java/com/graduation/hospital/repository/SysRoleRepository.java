@@ -2,8 +2,10 @@ package com.graduation.hospital.repository;
 
 import com.graduation.hospital.entity.SysRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +14,16 @@ public interface SysRoleRepository extends JpaRepository<SysRole, Long> {
     Optional<SysRole> findByCode(String code);
 
     boolean existsByCode(String code);
+
+    /**
+     * 全部角色编码（构建角色权限快照）
+     */
+    @Query("SELECT r.code FROM SysRole r")
+    List<String> findAllCodes();
+
+    /**
+     * 角色编码与权限编码的对应关系，每行为 [角色编码, 权限编码]
+     */
+    @Query("SELECT r.code, p.code FROM SysRole r JOIN r.permissions p")
+    List<Object[]> findRolePermissionCodes();
 }
\ No newline at end of file
@@ -2,7 +2,10 @@ package com.graduation.hospital.repository;
 
 import com.graduation.hospital.entity.SysUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -28,4 +31,12 @@ public interface SysUserRepository extends JpaRepository<SysUser, Long> {
      * 检查邮箱是否存在
      */
     boolean existsByEmail(String email);
+
+    /**
+     * 只更新密码哈希（登录时按新强度重新计算）
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SysUser u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(Long id, String password);
 }
\ No newline at end of file
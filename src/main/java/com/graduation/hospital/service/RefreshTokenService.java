@@ -0,0 +1,45 @@
+package com.graduation.hospital.service;
+
+/**
+ * 刷新令牌服务
+ * 开启 jwt.refresh-token.enabled 后访问令牌只有几分钟有效期，客户端用刷新令牌换取新的访问令牌；
+ * 刷新令牌每次使用后轮换，重复使用已轮换的令牌会吊销整个登录会话
+ */
+public interface RefreshTokenService {
+
+    /**
+     * 轮换结果
+     * @param userId 令牌所属用户
+     * @param refreshToken 新的刷新令牌
+     */
+    record Rotation(Long userId, String refreshToken) {
+    }
+
+    boolean isEnabled();
+
+    /**
+     * 刷新令牌有效期（毫秒）
+     */
+    long getExpiration();
+
+    /**
+     * 登录时签发刷新令牌（新的会话）
+     */
+    String issue(Long userId);
+
+    /**
+     * 使用刷新令牌并轮换为新令牌
+     * @throws IllegalArgumentException 令牌无效、已过期或已被使用
+     */
+    Rotation rotate(String refreshToken);
+
+    /**
+     * 吊销刷新令牌所在的会话（登出）
+     */
+    void revoke(String refreshToken);
+
+    /**
+     * 吊销用户的全部刷新令牌（禁用、删除用户）
+     */
+    void revokeUser(Long userId);
+}
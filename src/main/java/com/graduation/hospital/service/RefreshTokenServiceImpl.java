@@ -0,0 +1,135 @@
+package com.graduation.hospital.service;
+
+import com.graduation.hospital.common.audit.AuditLogger;
+import com.graduation.hospital.entity.RefreshToken;
+import com.graduation.hospital.repository.RefreshTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    /** 清理过期刷新令牌的最小间隔 */
+    private static final long PURGE_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final AuditLogger auditLogger;
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicLong lastPurge = new AtomicLong();
+
+    @Value("${jwt.refresh-token.enabled:false}")
+    private boolean enabled;
+
+    @Value("${jwt.refresh-token.expiration:1209600000}")
+    private long expiration;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public long getExpiration() {
+        return expiration;
+    }
+
+    @Override
+    @Transactional
+    public String issue(Long userId) {
+        purgeExpired();
+        return create(userId, UUID.randomUUID().toString());
+    }
+
+    @Override
+    @Transactional(noRollbackFor = IllegalArgumentException.class)
+    public Rotation rotate(String refreshToken) {
+        RefreshToken stored = refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                .orElseThrow(() -> new IllegalArgumentException("刷新令牌无效"));
+        LocalDateTime now = LocalDateTime.now();
+        if (stored.getRevoked()) {
+            throw new IllegalArgumentException("刷新令牌已失效");
+        }
+        if (!stored.getExpiresAt().isAfter(now)) {
+            throw new IllegalArgumentException("刷新令牌已过期");
+        }
+        if (refreshTokenRepository.markUsed(stored.getId(), now) == 0) {
+            // 已轮换过的令牌再次出现，说明令牌可能已泄露：吊销整个会话，合法用户与攻击者都需要重新登录
+            refreshTokenRepository.revokeFamily(stored.getFamilyId());
+            log.warn("刷新令牌被重复使用，已吊销该会话: userId={}, family={}", stored.getUserId(), stored.getFamilyId());
+            auditLogger.logAction(AuditLogger.ActionType.LOGIN_FAILED, "用户管理", "刷新令牌被重复使用，已吊销该会话",
+                    "userId=" + stored.getUserId(), false, "refresh token reuse");
+            throw new IllegalArgumentException("刷新令牌已失效");
+        }
+        return new Rotation(stored.getUserId(), create(stored.getUserId(), stored.getFamilyId()));
+    }
+
+    @Override
+    @Transactional
+    public void revoke(String refreshToken) {
+        refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                .ifPresent(stored -> refreshTokenRepository.revokeFamily(stored.getFamilyId()));
+    }
+
+    @Override
+    @Transactional
+    public void revokeUser(Long userId) {
+        int revoked = refreshTokenRepository.revokeByUserId(userId);
+        if (revoked > 0) {
+            log.info("已吊销用户的刷新令牌: userId={}, count={}", userId, revoked);
+        }
+    }
+
+    private String create(Long userId, String familyId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(hash(token));
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setUserId(userId);
+        refreshToken.setExpiresAt(LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(expiration)));
+        refreshToken.setRevoked(false);
+        refreshTokenRepository.save(refreshToken);
+        return token;
+    }
+
+    /**
+     * 每小时最多清理一次过期的刷新令牌
+     */
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        long last = lastPurge.get();
+        if (now - last >= PURGE_INTERVAL && lastPurge.compareAndSet(last, now)) {
+            int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+            if (deleted > 0) {
+                log.info("清理过期刷新令牌: count={}", deleted);
+            }
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
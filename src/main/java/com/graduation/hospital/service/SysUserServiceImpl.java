@@ -1,11 +1,13 @@
 package com.graduation.hospital.service;
 
 import com.graduation.hospital.common.audit.AuditLogger;
+import com.graduation.hospital.common.security.PasswordHasher;
+import com.graduation.hospital.common.security.PrincipalCache;
+import com.graduation.hospital.common.security.TokenRevocationList;
 import com.graduation.hospital.entity.SysUser;
 import com.graduation.hospital.repository.SysUserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,8 +19,11 @@ import java.util.List;
 public class SysUserServiceImpl implements SysUserService {
 
     private final SysUserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final AuditLogger auditLogger;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationList tokenRevocationList;
+    private final RefreshTokenService refreshTokenService;
 
     @Override
     @Transactional
@@ -26,7 +31,7 @@ public class SysUserServiceImpl implements SysUserService {
         if (userRepository.existsByUsername(user.getUsername())) {
             throw new IllegalArgumentException("用户名已存在");
         }
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHasher.encode(user.getPassword()));
         user.setEnabled(true);
         SysUser saved = userRepository.save(user);
         log.info("用户注册成功: username={}", user.getUsername());
@@ -38,16 +43,33 @@ public class SysUserServiceImpl implements SysUserService {
     public SysUser login(String username, String password) {
         SysUser user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new IllegalArgumentException("用户不存在"));
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+        if (!passwordHasher.matches(password, user.getPassword())) {
             throw new IllegalArgumentException("密码错误");
         }
         if (!user.getEnabled()) {
             throw new IllegalArgumentException("用户已被禁用");
         }
+        rehashIfNeeded(user, password);
         log.info("用户登录成功: username={}", username);
         return user;
     }
 
+    /**
+     * 已保存的哈希强度低于当前配置（security.password.bcrypt-strength 调整后）时，
+     * 用登录时提交的明文重新计算并保存，失败不影响本次登录
+     */
+    private void rehashIfNeeded(SysUser user, String password) {
+        if (!passwordHasher.upgradeEncoding(user.getPassword())) {
+            return;
+        }
+        try {
+            userRepository.updatePassword(user.getId(), passwordHasher.encode(password));
+            log.info("已按当前强度重新计算密码哈希: userId={}", user.getId());
+        } catch (RuntimeException e) {
+            log.warn("重新计算密码哈希失败: userId={}, error={}", user.getId(), e.getMessage());
+        }
+    }
+
     @Override
     public SysUser getUserById(Long id) {
         return userRepository.findById(id)
@@ -73,6 +95,7 @@ public class SysUserServiceImpl implements SysUserService {
             existing.setEmail(user.getEmail());
         }
         SysUser updated = userRepository.save(existing);
+        principalCache.invalidate(id);
         log.info("更新用户信息成功: id={}", id);
         auditLogger.logUpdate("用户管理", "更新用户信息", id);
         return updated;
@@ -85,6 +108,9 @@ public class SysUserServiceImpl implements SysUserService {
             throw new IllegalArgumentException("用户不存在");
         }
         userRepository.deleteById(id);
+        principalCache.invalidate(id);
+        tokenRevocationList.revokeUser(id);
+        refreshTokenService.revokeUser(id);
         log.info("删除用户成功: id={}", id);
         auditLogger.logDelete("用户管理", "删除用户", id);
     }
@@ -103,11 +129,15 @@ public class SysUserServiceImpl implements SysUserService {
     @Transactional
     public void changePassword(Long id, String oldPassword, String newPassword) {
         SysUser user = getUserById(id);
-        if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
+        if (!passwordHasher.matches(oldPassword, user.getPassword())) {
             throw new IllegalArgumentException("原密码错误");
         }
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHasher.encode(newPassword));
         userRepository.save(user);
+        principalCache.invalidate(id);
+        // 修改密码后此前签发的访问令牌与刷新令牌全部失效，需要重新登录
+        tokenRevocationList.revokeUser(id);
+        refreshTokenService.revokeUser(id);
         log.info("修改密码成功: userId={}", id);
         auditLogger.logAction(AuditLogger.ActionType.PASSWORD_CHANGE, "用户管理", "修改密码", "userId=" + id, true, null);
     }
@@ -118,6 +148,7 @@ public class SysUserServiceImpl implements SysUserService {
         SysUser user = getUserById(id);
         user.setEnabled(true);
         userRepository.save(user);
+        principalCache.invalidate(id);
         log.info("启用用户: id={}", id);
         auditLogger.logAction(AuditLogger.ActionType.PERMISSION_CHANGE, "用户管理", "启用用户", "userId=" + id, true, null);
     }
@@ -128,6 +159,9 @@ public class SysUserServiceImpl implements SysUserService {
         SysUser user = getUserById(id);
         user.setEnabled(false);
         userRepository.save(user);
+        principalCache.invalidate(id);
+        tokenRevocationList.revokeUser(id);
+        refreshTokenService.revokeUser(id);
         log.info("禁用用户: id={}", id);
         auditLogger.logAction(AuditLogger.ActionType.PERMISSION_CHANGE, "用户管理", "禁用用户", "userId=" + id, true, null);
     }
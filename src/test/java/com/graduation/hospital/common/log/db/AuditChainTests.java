@@ -0,0 +1,257 @@
+package com.graduation.hospital.common.log.db;
+
+import com.graduation.hospital.entity.log.AuditLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditChainTests {
+
+    private static final String TABLE = "audit_log_20260301";
+    private static final LocalDateTime TIME = LocalDateTime.of(2026, 3, 1, 9, 0);
+
+    @TempDir
+    Path dir;
+
+    private Path database;
+    private Connection conn;
+    private final AuditChain chain = new AuditChain();
+    private long nextRow = 1;
+
+    @BeforeEach
+    void createChain() throws SQLException {
+        database = dir.resolve("hospital.log.db");
+        conn = DriverManager.getConnection("jdbc:sqlite:" + database);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE " + TABLE + " (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "log_time TEXT NOT NULL, " +
+                    "username TEXT, " +
+                    "user_id INTEGER, " +
+                    "action_type TEXT NOT NULL, " +
+                    "module TEXT, " +
+                    "description TEXT, " +
+                    "target TEXT, " +
+                    "ip TEXT, " +
+                    "method TEXT, " +
+                    "url TEXT, " +
+                    "success INTEGER, " +
+                    "error_message TEXT)");
+        }
+        conn.setAutoCommit(false);
+        // 三批：3 条、1 条、5 条，id 依次为 1~3、4、5~9
+        writeBatch(3);
+        writeBatch(1);
+        writeBatch(5);
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    void intactChainIsValid() {
+        AuditChainVerifier.Verification result = verify();
+
+        assertTrue(result.valid(), () -> String.join("\n", result.problems()));
+        assertEquals(3, result.batches());
+        assertEquals(9, result.rows());
+        assertEquals(1L, result.firstSeq());
+        assertEquals(3L, result.lastSeq());
+    }
+
+    @Test
+    void reportsModifiedRow() throws SQLException {
+        execute("UPDATE " + TABLE + " SET description = '已篡改' WHERE id = 2");
+
+        AuditChainVerifier.Verification result = verify();
+
+        assertFalse(result.valid());
+        assertEquals(List.of("记录被篡改: " + TABLE + " id 1 ~ 3 (seq 1)"), result.problems());
+    }
+
+    @Test
+    void reportsDeletedRow() throws SQLException {
+        execute("DELETE FROM " + TABLE + " WHERE id = 6");
+
+        AuditChainVerifier.Verification result = verify();
+
+        assertFalse(result.valid());
+        assertEquals(List.of("记录缺失: " + TABLE + " id 5 ~ 9 应有 5 条，实际 4 条 (seq 3)"), result.problems());
+    }
+
+    @Test
+    void reportsInsertedUnchainedRow() throws SQLException {
+        // 绕过写入线程直接插入，没有对应的链记录
+        insertRows(1);
+        conn.commit();
+
+        AuditChainVerifier.Verification result = verify();
+
+        assertFalse(result.valid());
+        assertEquals(List.of("存在未上链的记录: " + TABLE + " id > 9 共 1 条"), result.problems());
+    }
+
+    @Test
+    void reportsBrokenPrevRoot() throws SQLException {
+        execute("UPDATE " + AuditChain.TABLE + " SET prev_root = '" + AuditChain.GENESIS + "' WHERE seq = 2");
+
+        AuditChainVerifier.Verification result = verify();
+
+        assertFalse(result.valid());
+        assertTrue(result.problems().contains("链断裂: seq 2 的 prev_root 与上一条链根不一致"), result.problems()::toString);
+        // prev_root 参与链根计算，单独修改也会使本条链根对不上
+        assertTrue(result.problems().contains("链记录被篡改: seq 2"), result.problems()::toString);
+    }
+
+    @Test
+    void reportsMissingLink() throws SQLException {
+        execute("DELETE FROM " + AuditChain.TABLE + " WHERE seq = 2");
+
+        AuditChainVerifier.Verification result = verify();
+
+        assertFalse(result.valid());
+        assertTrue(result.problems().contains("链记录缺失: seq 2 ~ 2"), result.problems()::toString);
+    }
+
+    @Test
+    void resumesFromLoadedTail() throws SQLException {
+        // 重启后从库中恢复链尾，新批次接在原链之后
+        AuditChain restarted = new AuditChain();
+        restarted.load(conn);
+        assertEquals(3, restarted.last().seq());
+
+        List<Object> batch = insertRows(2);
+        AuditChain.Link link = restarted.append(conn, TABLE, batch);
+        conn.commit();
+        restarted.committed(link);
+        assertEquals(4, link.seq());
+        assertEquals(10, link.firstId());
+        assertEquals(11, link.lastId());
+
+        AuditChainVerifier.Verification result = verify();
+        assertTrue(result.valid(), () -> String.join("\n", result.problems()));
+        assertEquals(11, result.rows());
+    }
+
+    @Test
+    void pinsMerkleRoots() {
+        // 树形与哈希格式的变化会使已写入的链全部校验失败，这里固定 1 / 2 / 3 / 5 个叶子的根
+        assertEquals("1638db39d0d4bc08d116afc39a6614d84b77d4f69fb26d6712cac0fef72ed86e", merkleRoot(1));
+        assertEquals("8d2ac38b2c2134f020441829857105e7b7fed0de1fed59b410895ab623c199d1", merkleRoot(2));
+        assertEquals("e7d5f4dcfa1c54f9080a953d00cabe1cc17a2966442ca84e302edcaa3e9d913c", merkleRoot(3));
+        assertEquals("8c955af98366cdbf4ba3547eca0214b44705ad6b999f4dbe726560d35f048188", merkleRoot(5));
+        assertEquals(AuditChain.GENESIS, merkleRoot(0));
+    }
+
+    @Test
+    void merkleTreeShape() {
+        AuditChain.Hasher hasher = new AuditChain.Hasher();
+        byte[][] leaves = new byte[6][];
+        for (int i = 1; i <= 5; i++) {
+            leaves[i] = leaf(hasher, i);
+        }
+        byte[] left = hasher.node(hasher.node(leaves[1], leaves[2]), hasher.node(leaves[3], leaves[4]));
+
+        // 5 个叶子：左侧为满的 4 叶子树，第 5 个叶子单独与其合并
+        assertEquals(HexFormat.of().formatHex(hasher.node(left, leaves[5])), merkleRoot(5));
+        assertEquals(HexFormat.of().formatHex(hasher.node(hasher.node(leaves[1], leaves[2]), leaves[3])),
+                merkleRoot(3));
+    }
+
+    private static String merkleRoot(int leafCount) {
+        AuditChain.Hasher hasher = new AuditChain.Hasher();
+        AuditChain.MerkleBuilder tree = new AuditChain.MerkleBuilder(hasher);
+        for (int i = 1; i <= leafCount; i++) {
+            tree.add(leaf(hasher, i));
+        }
+        assertEquals(leafCount, tree.count());
+        return HexFormat.of().formatHex(tree.root());
+    }
+
+    private static byte[] leaf(AuditChain.Hasher hasher, int i) {
+        return hasher.leaf((long) i, "row-" + i);
+    }
+
+    private AuditChainVerifier.Verification verify() {
+        AuditChainVerifier verifier = new AuditChainVerifier();
+        ReflectionTestUtils.setField(verifier, "databasePath", database.toString());
+        ReflectionTestUtils.setField(verifier, "retentionDays", 90);
+        ReflectionTestUtils.setField(verifier, "busyTimeout", 3000);
+        LocalDateTime now = LocalDateTime.now();
+        return verifier.verify(now.minusDays(1), now.plusDays(1));
+    }
+
+    /**
+     * 与写入线程相同：插入一批记录，在同一事务中追加链记录
+     */
+    private void writeBatch(int size) throws SQLException {
+        List<Object> batch = insertRows(size);
+        AuditChain.Link link = chain.append(conn, TABLE, batch);
+        conn.commit();
+        chain.committed(link);
+    }
+
+    private List<Object> insertRows(int size) throws SQLException {
+        List<Object> batch = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO " + TABLE +
+                " (log_time, username, user_id, action_type, module, description, target, ip, method, url," +
+                " success, error_message) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < size; i++) {
+                long n = nextRow++;
+                AuditLog log = new AuditLog();
+                log.setLogTime(TIME.plusSeconds(n));
+                log.setUsername("user-" + n);
+                log.setUserId(n);
+                log.setActionType("UPDATE");
+                log.setModule("患者管理");
+                log.setDescription("修改患者信息");
+                log.setTarget("patient:" + n);
+                log.setIp("10.0.0." + n);
+                log.setMethod("PUT");
+                log.setUrl("/api/v1/patients/" + n);
+                log.setSuccess(n % 2 == 1);
+                log.setErrorMessage(n % 2 == 1 ? null : "患者不存在");
+
+                ps.setString(1, log.getLogTime().toString());
+                ps.setString(2, log.getUsername());
+                ps.setLong(3, log.getUserId());
+                ps.setString(4, log.getActionType());
+                ps.setString(5, log.getModule());
+                ps.setString(6, log.getDescription());
+                ps.setString(7, log.getTarget());
+                ps.setString(8, log.getIp());
+                ps.setString(9, log.getMethod());
+                ps.setString(10, log.getUrl());
+                ps.setInt(11, log.getSuccess() ? 1 : 0);
+                ps.setString(12, log.getErrorMessage());
+                ps.executeUpdate();
+                batch.add(log);
+            }
+        }
+        return batch;
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+        conn.commit();
+    }
+}
@@ -0,0 +1,151 @@
+package com.graduation.hospital.common.log.db;
+
+import com.graduation.hospital.entity.log.AccessLog;
+import com.graduation.hospital.entity.log.AuditLog;
+import com.graduation.hospital.entity.log.EndpointStatsLog;
+import com.graduation.hospital.entity.log.SqlLog;
+import com.graduation.hospital.entity.log.SqlStatsLog;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogRecordCodecTests {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2026, 3, 1, 10, 15, 30, 123_456_789);
+
+    @Test
+    void roundTripsSqlLog() throws IOException {
+        SqlLog log = new SqlLog();
+        log.setLogTime(TIME);
+        log.setThread("http-nio-8080-exec-1");
+        log.setSqlType("SELECT");
+        log.setSqlText("select p1_0.id from patient p1_0 where p1_0.name=?");
+        log.setDuration(3L);
+        log.setSuccess(true);
+        log.setUsername("张三");
+        log.setRequestId("req-1");
+        log.setDurationUs(3_210L);
+        log.setRowCount(12L);
+        log.setParamCount(1);
+        log.setFingerprintId("a1b2c3");
+        log.setSampleWeight(4.0);
+
+        assertEquals(log, roundTrip(log));
+    }
+
+    @Test
+    void roundTripsAuditLog() throws IOException {
+        AuditLog log = new AuditLog();
+        log.setLogTime(TIME);
+        log.setUsername("admin");
+        log.setUserId(1L);
+        log.setActionType("UPDATE");
+        log.setModule("患者管理");
+        log.setDescription("修改患者信息");
+        log.setTarget("patient:42");
+        log.setIp("10.0.0.8");
+        log.setMethod("PUT");
+        log.setUrl("/api/v1/patients/42");
+        log.setSuccess(false);
+        log.setErrorMessage("患者不存在");
+
+        assertEquals(log, roundTrip(log));
+    }
+
+    @Test
+    void roundTripsAccessLog() throws IOException {
+        AccessLog log = new AccessLog();
+        log.setRequestTime(TIME);
+        log.setRequestId("req-2");
+        log.setMethod("GET");
+        log.setUrl("/api/v1/appointments");
+        log.setIp("10.0.0.9");
+        log.setUserAgent("Mozilla/5.0");
+        log.setStatus(200);
+        log.setDuration(15L);
+        log.setUsername("doctor");
+        log.setSampleWeight(1.0);
+
+        assertEquals(log, roundTrip(log));
+    }
+
+    @Test
+    void roundTripsSqlStatsLog() throws IOException {
+        SqlStatsLog log = new SqlStatsLog();
+        log.setLogTime(TIME);
+        log.setWindowStart(TIME.minusMinutes(1));
+        log.setFingerprintId("a1b2c3");
+        log.setFingerprint("select ? from patient where name=?");
+        log.setSqlType("SELECT");
+        log.setExecCount(100L);
+        log.setErrorCount(2L);
+        log.setTotalUs(123_456L);
+        log.setMaxUs(9_999L);
+        log.setTotalRows(1_000L);
+        log.setHistogram("[1,2,3]");
+
+        assertEquals(log, roundTrip(log));
+    }
+
+    @Test
+    void roundTripsEndpointStatsLog() throws IOException {
+        EndpointStatsLog log = new EndpointStatsLog();
+        log.setLogTime(TIME);
+        log.setWindowStart(TIME.minusMinutes(1));
+        log.setMethod("POST");
+        log.setRoute("/api/v1/appointments");
+        log.setStatusClass("2xx");
+        log.setRequestCount(50L);
+        log.setTotalUs(500_000L);
+        log.setMaxUs(40_000L);
+        log.setP50Us(8_000L);
+        log.setP95Us(30_000L);
+        log.setP99Us(39_000L);
+        log.setHistogram("[0,5,45]");
+
+        assertEquals(log, roundTrip(log));
+    }
+
+    @Test
+    void keepsNullFields() throws IOException {
+        assertEquals(new SqlLog(), roundTrip(new SqlLog()));
+        assertEquals(new AuditLog(), roundTrip(new AuditLog()));
+        assertEquals(new AccessLog(), roundTrip(new AccessLog()));
+        assertEquals(new SqlStatsLog(), roundTrip(new SqlStatsLog()));
+        assertEquals(new EndpointStatsLog(), roundTrip(new EndpointStatsLog()));
+    }
+
+    @Test
+    void encodesStringsLongerThanWriteUtfLimit() throws IOException {
+        SqlLog log = new SqlLog();
+        log.setSqlText("insert into t values " + "(?),".repeat(40_000));
+
+        assertEquals(log, roundTrip(log));
+    }
+
+    @Test
+    void rejectsUnsupportedTypes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        assertFalse(LogRecordCodec.encode("not a log", new DataOutputStream(bytes)));
+        assertEquals(0, bytes.size());
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(new byte[]{99}));
+        assertThrows(IOException.class, () -> LogRecordCodec.decode(in));
+    }
+
+    private static Object roundTrip(Object event) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        assertTrue(LogRecordCodec.encode(event, new DataOutputStream(bytes)));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Object decoded = LogRecordCodec.decode(in);
+        assertEquals(-1, in.read(), "解码后不应有剩余字节");
+        return decoded;
+    }
+}
@@ -0,0 +1,145 @@
+package com.graduation.hospital.common.log.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogRingBufferTests {
+
+    private record Event(int producer, int seq) {
+    }
+
+    @Test
+    void capacityRoundsUpToPowerOfTwo() {
+        assertEquals(8, new LogRingBuffer(5).capacity());
+        assertEquals(8, new LogRingBuffer(8).capacity());
+        assertEquals(2, new LogRingBuffer(0).capacity());
+    }
+
+    @Test
+    void drainsInPublishOrderUpToMaxEvents() {
+        LogRingBuffer buffer = new LogRingBuffer(8);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(buffer.offer(i));
+        }
+
+        List<Object> drained = new ArrayList<>();
+        assertEquals(3, buffer.drain(drained::add, 3));
+        assertEquals(List.of(0, 1, 2), drained);
+        assertEquals(2, buffer.size());
+
+        assertEquals(2, buffer.drain(drained::add, 10));
+        assertEquals(List.of(0, 1, 2, 3, 4), drained);
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, buffer.drain(drained::add, 10));
+    }
+
+    @Test
+    void dropsAndCountsWhenFull() {
+        LogRingBuffer buffer = new LogRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertFalse(buffer.offer(5));
+
+        assertEquals(2, buffer.droppedCount());
+        assertEquals(4, buffer.publishedCount());
+        assertEquals(4, buffer.size());
+
+        // 消费后腾出的槽位可以再次写入，丢弃的事件不会出现
+        List<Object> drained = new ArrayList<>();
+        buffer.drain(drained::add, 1);
+        assertTrue(buffer.offer(6));
+        buffer.drain(drained::add, 10);
+        assertEquals(List.of(0, 1, 2, 3, 6), drained);
+        assertEquals(2, buffer.droppedCount());
+    }
+
+    @Test
+    void wrapsAroundManyTimes() {
+        LogRingBuffer buffer = new LogRingBuffer(4);
+        List<Object> drained = new ArrayList<>();
+        int next = 0;
+        for (int round = 0; round < 1000; round++) {
+            // 每轮写入数与容量互质，使每轮的起始槽位不断变化
+            for (int i = 0; i < 3; i++) {
+                assertTrue(buffer.offer(next++));
+            }
+            assertEquals(3, buffer.drain(drained::add, 3));
+        }
+
+        assertEquals(next, drained.size());
+        for (int i = 0; i < next; i++) {
+            assertEquals(i, drained.get(i));
+        }
+        assertEquals(0, buffer.droppedCount());
+        assertEquals(next, buffer.publishedCount());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void multipleProducersKeepPerProducerOrder() throws Exception {
+        int producers = 4;
+        int perProducer = 100_000;
+        LogRingBuffer buffer = new LogRingBuffer(256);
+        LongAdder rejected = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(producers);
+
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int seq = 0; seq < perProducer; seq++) {
+                        Event event = new Event(producer, seq);
+                        while (!buffer.offer(event)) {
+                            rejected.increment();
+                            Thread.onSpinWait();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "producer-" + p);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int[] nextSeq = new int[producers];
+        AtomicBoolean outOfOrder = new AtomicBoolean();
+        long[] received = new long[1];
+        start.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received[0] < (long) producers * perProducer && System.nanoTime() < deadline) {
+            int count = buffer.drain(o -> {
+                Event event = (Event) o;
+                if (event.seq() != nextSeq[event.producer()]) {
+                    outOfOrder.set(true);
+                }
+                nextSeq[event.producer()] = event.seq() + 1;
+                received[0]++;
+            }, 64);
+            if (count == 0) {
+                Thread.onSpinWait();
+            }
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(outOfOrder.get());
+        assertEquals((long) producers * perProducer, received[0]);
+        assertEquals((long) producers * perProducer, buffer.publishedCount());
+        assertEquals(rejected.sum(), buffer.droppedCount());
+        assertTrue(buffer.isEmpty());
+    }
+}
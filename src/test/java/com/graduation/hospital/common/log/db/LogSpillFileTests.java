@@ -0,0 +1,235 @@
+package com.graduation.hospital.common.log.db;
+
+import com.graduation.hospital.entity.log.AuditLog;
+import com.graduation.hospital.entity.log.SqlLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogSpillFileTests {
+
+    /** 与 LogSpillFile 的文件格式一致：32 字节文件头，readOffset / writeOffset 位于 16 / 24，记录头 8 字节 */
+    private static final int HEADER_SIZE = 32;
+    private static final int READ_OFFSET_POS = 16;
+    private static final int WRITE_OFFSET_POS = 24;
+    private static final int RECORD_HEADER = 8;
+    private static final long MB = 1 << 20;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysAppendedRecordsInOrder() throws IOException {
+        try (LogSpillFile spill = new LogSpillFile(dir.resolve("spill.dat"), MB)) {
+            AuditLog audit = new AuditLog();
+            audit.setUsername("admin");
+            audit.setActionType("DELETE");
+            assertTrue(spill.append(sql(0)));
+            assertTrue(spill.append(audit));
+            assertTrue(spill.append(sql(2)));
+
+            assertEquals(List.of(sql(0), audit, sql(2)), spill.peek(10));
+            spill.commit();
+            assertFalse(spill.hasPending());
+            assertEquals(0, spill.pendingBytes());
+            assertEquals(3, spill.spilledCount());
+            assertEquals(0, spill.droppedCount());
+        }
+    }
+
+    @Test
+    void peekWithoutCommitIsReplayedAgain() throws IOException {
+        try (LogSpillFile spill = new LogSpillFile(dir.resolve("spill.dat"), MB)) {
+            for (int i = 0; i < 3; i++) {
+                spill.append(sql(i));
+            }
+            assertEquals(List.of(sql(0), sql(1)), spill.peek(2));
+            // 未确认的记录再次取出（至少一次）
+            assertEquals(List.of(sql(0), sql(1), sql(2)), spill.peek(10));
+        }
+    }
+
+    @Test
+    void resumesFromPersistedReadOffsetAfterRestart() throws IOException {
+        Path path = dir.resolve("spill.dat");
+        try (LogSpillFile spill = new LogSpillFile(path, MB)) {
+            for (int i = 0; i < 5; i++) {
+                spill.append(sql(i));
+            }
+            assertEquals(2, spill.peek(2).size());
+            spill.commit();
+            // 已取出但未确认的记录在重启后仍需回放
+            assertEquals(1, spill.peek(1).size());
+        }
+
+        try (LogSpillFile spill = new LogSpillFile(path, MB)) {
+            assertTrue(spill.hasPending());
+            assertEquals(List.of(sql(2), sql(3), sql(4)), spill.peek(10));
+            spill.commit();
+            assertTrue(spill.append(sql(5)));
+        }
+
+        try (LogSpillFile spill = new LogSpillFile(path, MB)) {
+            assertEquals(List.of(sql(5)), spill.peek(10));
+        }
+    }
+
+    @Test
+    void dropsRecordWithChecksumMismatch() throws IOException {
+        Path path = dir.resolve("spill.dat");
+        try (LogSpillFile spill = new LogSpillFile(path, MB)) {
+            for (int i = 0; i < 3; i++) {
+                spill.append(sql(i));
+            }
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long second = HEADER_SIZE + RECORD_HEADER + readInt(channel, HEADER_SIZE);
+            long payload = second + RECORD_HEADER;
+            writeByte(channel, payload + 10, (byte) (readByte(channel, payload + 10) ^ 0xFF));
+        }
+
+        try (LogSpillFile spill = new LogSpillFile(path, MB)) {
+            assertEquals(List.of(sql(0), sql(2)), spill.peek(10));
+            assertEquals(1, spill.droppedCount());
+            spill.commit();
+            assertFalse(spill.hasPending());
+        }
+    }
+
+    @Test
+    void discardsTornTailRecord() throws IOException {
+        Path path = dir.resolve("spill.dat");
+        long writeOffset;
+        try (LogSpillFile spill = new LogSpillFile(path, MB)) {
+            for (int i = 0; i < 3; i++) {
+                spill.append(sql(i));
+            }
+            writeOffset = HEADER_SIZE + spill.pendingBytes();
+        }
+        // 最后一条记录只写入了一部分：文件头中的 writeOffset 落在记录中间
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            writeLong(channel, WRITE_OFFSET_POS, writeOffset - 5);
+        }
+
+        try (LogSpillFile spill = new LogSpillFile(path, MB)) {
+            assertEquals(List.of(sql(0), sql(1)), spill.peek(10));
+            spill.commit();
+            assertFalse(spill.hasPending());
+            assertTrue(spill.append(sql(3)));
+            assertEquals(List.of(sql(3)), spill.peek(10));
+        }
+    }
+
+    @Test
+    void resetsFileWithInvalidOffsets() throws IOException {
+        Path path = dir.resolve("spill.dat");
+        try (LogSpillFile spill = new LogSpillFile(path, MB)) {
+            spill.append(sql(0));
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            writeLong(channel, READ_OFFSET_POS, 4);
+        }
+
+        try (LogSpillFile spill = new LogSpillFile(path, MB)) {
+            assertFalse(spill.hasPending());
+            assertTrue(spill.append(sql(1)));
+            assertEquals(List.of(sql(1)), spill.peek(10));
+        }
+    }
+
+    @Test
+    void compactsReplayedSpaceWhenFull() throws IOException {
+        Path path = dir.resolve("spill.dat");
+        try (LogSpillFile spill = new LogSpillFile(path, MB)) {
+            int appended = 0;
+            while (spill.append(large(appended))) {
+                appended++;
+            }
+            assertTrue(appended > 2);
+            assertEquals(1, spill.droppedCount());
+            assertEquals(MB, Files.size(path));
+
+            // 回放前两条后，已回放的空间可以复用，文件不再增长
+            assertEquals(List.of(large(0), large(1)), spill.peek(2));
+            spill.commit();
+            assertTrue(spill.append(large(appended)));
+            assertEquals(MB, Files.size(path));
+
+            List<Object> remaining = spill.peek(Integer.MAX_VALUE);
+            assertEquals(appended - 1, remaining.size());
+            for (int i = 0; i < remaining.size(); i++) {
+                assertEquals(large(i + 2), remaining.get(i));
+            }
+        }
+    }
+
+    @Test
+    void growsMappingUpToMaxBytes() throws IOException {
+        Path path = dir.resolve("spill.dat");
+        try (LogSpillFile spill = new LogSpillFile(path, 4 * MB)) {
+            int appended = 0;
+            while (spill.append(large(appended))) {
+                appended++;
+            }
+            assertEquals(4 * MB, Files.size(path));
+            assertEquals(1, spill.droppedCount());
+
+            List<Object> replayed = spill.peek(Integer.MAX_VALUE);
+            assertEquals(appended, replayed.size());
+            assertEquals(large(appended - 1), replayed.get(appended - 1));
+        }
+    }
+
+    @Test
+    void countsUnencodableRecordsAsDropped() throws IOException {
+        try (LogSpillFile spill = new LogSpillFile(dir.resolve("spill.dat"), MB)) {
+            assertFalse(spill.append("not a log"));
+            assertEquals(1, spill.droppedCount());
+            assertFalse(spill.hasPending());
+        }
+    }
+
+    private static SqlLog sql(int i) {
+        SqlLog log = new SqlLog();
+        log.setSqlType("SELECT");
+        log.setSqlText("select * from patient where id = " + i);
+        log.setRowCount((long) i);
+        return log;
+    }
+
+    /** 约 100KB 的记录 */
+    private static SqlLog large(int i) {
+        SqlLog log = sql(i);
+        log.setSqlText(log.getSqlText() + " -- " + "x".repeat(100_000));
+        return log;
+    }
+
+    private static int readInt(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        channel.read(buffer, position);
+        return buffer.flip().getInt();
+    }
+
+    private static byte readByte(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        channel.read(buffer, position);
+        return buffer.get(0);
+    }
+
+    private static void writeByte(FileChannel channel, long position, byte value) throws IOException {
+        channel.write(ByteBuffer.wrap(new byte[]{value}), position);
+    }
+
+    private static void writeLong(FileChannel channel, long position, long value) throws IOException {
+        channel.write(ByteBuffer.allocate(8).putLong(0, value), position);
+    }
+}
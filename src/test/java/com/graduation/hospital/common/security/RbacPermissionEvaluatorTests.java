@@ -0,0 +1,82 @@
+package com.graduation.hospital.common.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RbacPermissionEvaluatorTests {
+
+    private final RbacRegistry registry = new RbacRegistry(null, null);
+    private final RbacPermissionEvaluator evaluator = new RbacPermissionEvaluator(
+            new StaticListableBeanFactory(Map.of("rbacRegistry", registry)).getBeanProvider(RbacRegistry.class));
+
+    RbacPermissionEvaluatorTests() {
+        use(new RbacSnapshot(1, List.of("patient:read", "patient:write"), Map.of(
+                "DOCTOR", List.of("patient:read", "patient:write"),
+                "NURSE", List.of("patient:read"))));
+    }
+
+    @Test
+    void typeAndActionForm() {
+        // hasPermission('patient', 'write')
+        assertTrue(evaluator.hasPermission(user("DOCTOR"), "patient", "write"));
+        assertFalse(evaluator.hasPermission(user("NURSE"), "patient", "write"));
+        assertTrue(evaluator.hasPermission(user("NURSE"), "patient", "read"));
+        assertFalse(evaluator.hasPermission(user("DOCTOR"), "patient", "delete"));
+    }
+
+    @Test
+    void fullCodeForm() {
+        // hasPermission(null, 'patient:write')
+        assertTrue(evaluator.hasPermission(user("DOCTOR"), null, "patient:write"));
+        assertFalse(evaluator.hasPermission(user("NURSE"), null, "patient:write"));
+        // 非字符串的目标对象不参与编码，权限即完整编码
+        assertTrue(evaluator.hasPermission(user("NURSE"), 42L, "patient:read"));
+    }
+
+    @Test
+    void targetIdForm() {
+        // hasPermission(#id, 'patient', 'write')
+        assertTrue(evaluator.hasPermission(user("DOCTOR"), 1L, "patient", "write"));
+        assertFalse(evaluator.hasPermission(user("NURSE"), 1L, "patient", "write"));
+        assertFalse(evaluator.hasPermission(user("DOCTOR"), 1L, null, "write"));
+    }
+
+    @Test
+    void rejectsMissingPermissionAndUnauthenticatedUsers() {
+        assertFalse(evaluator.hasPermission(user("DOCTOR"), "patient", null));
+        assertFalse(evaluator.hasPermission(user("DOCTOR"), 1L, "patient", null));
+        assertFalse(evaluator.hasPermission(null, "patient", "read"));
+        Authentication anonymous = UsernamePasswordAuthenticationToken.unauthenticated("doctor", null);
+        assertFalse(evaluator.hasPermission(anonymous, "patient", "read"));
+        assertFalse(evaluator.hasPermission(user("UNKNOWN"), "patient", "read"));
+    }
+
+    @Test
+    void readsCurrentSnapshot() {
+        assertFalse(evaluator.hasPermission(user("NURSE"), "patient", "write"));
+
+        // 快照整体替换后，下一次判断即使用新快照
+        use(new RbacSnapshot(2, List.of("patient:read", "patient:write"), Map.of(
+                "NURSE", List.of("patient:read", "patient:write"))));
+
+        assertTrue(evaluator.hasPermission(user("NURSE"), "patient", "write"));
+        assertFalse(evaluator.hasPermission(user("DOCTOR"), "patient", "write"));
+    }
+
+    private void use(RbacSnapshot snapshot) {
+        ReflectionTestUtils.setField(registry, "snapshot", snapshot);
+    }
+
+    private static Authentication user(String role) {
+        return new UsernamePasswordAuthenticationToken("user", null, List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+    }
+}
@@ -0,0 +1,103 @@
+package com.graduation.hospital.common.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RbacSnapshotTests {
+
+    @Test
+    void bitmapsSpanMoreThan64Permissions() {
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            codes.add(String.format("perm:%03d", i));
+        }
+        RbacSnapshot snapshot = new RbacSnapshot(1, codes, Map.of(
+                "A", List.of("perm:000", "perm:063", "perm:064", "perm:127", "perm:128", "perm:149"),
+                "B", List.of("perm:070")));
+
+        assertEquals(150, snapshot.permissionCount());
+        assertEquals(64, snapshot.bitOf("perm:064"));
+        assertEquals(149, snapshot.bitOf("perm:149"));
+
+        long[] a = snapshot.permissionsOf(roles("A"));
+        assertEquals(3, a.length);
+        // 跨越字边界的位（63/64、127/128）互不干扰
+        for (String code : List.of("perm:000", "perm:063", "perm:064", "perm:127", "perm:128", "perm:149")) {
+            assertTrue(snapshot.has(a, code), code);
+        }
+        for (String code : List.of("perm:001", "perm:062", "perm:065", "perm:070", "perm:126", "perm:148")) {
+            assertFalse(snapshot.has(a, code), code);
+        }
+        assertEquals(List.of("perm:000", "perm:063", "perm:064", "perm:127", "perm:128", "perm:149"),
+                snapshot.codesOf(a));
+
+        long[] union = snapshot.permissionsOf(roles("A", "B"));
+        assertTrue(snapshot.has(union, "perm:070"));
+        assertTrue(snapshot.has(union, "perm:149"));
+        assertEquals(7, snapshot.codesOf(union).size());
+        // 合并角色不修改角色自身的位图
+        assertFalse(snapshot.has(snapshot.permissionsOf(roles("A")), "perm:070"));
+    }
+
+    @Test
+    void ignoresUnknownRolesAndPermissionCodes() {
+        RbacSnapshot snapshot = new RbacSnapshot(1, List.of("patient:read", "patient:write"), Map.of(
+                "DOCTOR", List.of("patient:read", "patient:write", "drug:delete")));
+
+        assertEquals(-1, snapshot.bitOf("drug:delete"));
+        long[] doctor = snapshot.permissionsOf(roles("DOCTOR"));
+        assertEquals(List.of("patient:read", "patient:write"), snapshot.codesOf(doctor));
+        assertFalse(snapshot.has(doctor, "drug:delete"));
+        assertFalse(snapshot.has(doctor, "unknown"));
+
+        long[] unknown = snapshot.permissionsOf(roles("NURSE"));
+        assertFalse(snapshot.has(unknown, "patient:read"));
+        assertEquals(List.of(), snapshot.codesOf(unknown));
+
+        // 未知角色与已知角色组合时只取已知角色的权限
+        assertEquals(List.of("patient:read", "patient:write"), snapshot.codesOf(snapshot.permissionsOf(roles("NURSE", "DOCTOR"))));
+
+        // 不带 ROLE_ 前缀的权限项不是角色
+        long[] plain = snapshot.permissionsOf(List.of(new SimpleGrantedAuthority("DOCTOR")));
+        assertFalse(snapshot.has(plain, "patient:read"));
+    }
+
+    @Test
+    void memoKeyIgnoresRoleOrderAndCollectionType() {
+        RbacSnapshot snapshot = new RbacSnapshot(1, List.of("patient:read", "drug:read"), Map.of(
+                "DOCTOR", List.of("patient:read"),
+                "PHARMACIST", List.of("drug:read")));
+
+        long[] first = snapshot.permissionsOf(roles("DOCTOR", "PHARMACIST"));
+        assertSame(first, snapshot.permissionsOf(roles("PHARMACIST", "DOCTOR")));
+        assertSame(first, snapshot.permissionsOf(new LinkedHashSet<>(roles("PHARMACIST", "DOCTOR"))));
+        assertNotSame(first, snapshot.permissionsOf(roles("DOCTOR")));
+        assertEquals(List.of("drug:read", "patient:read"), snapshot.codesOf(first));
+    }
+
+    @Test
+    void emptySnapshotGrantsNothing() {
+        RbacSnapshot snapshot = RbacSnapshot.empty();
+
+        long[] permissions = snapshot.permissionsOf(roles("ADMIN"));
+        assertEquals(0, snapshot.permissionCount());
+        assertEquals(0, snapshot.roleCount());
+        assertFalse(snapshot.has(permissions, "patient:read"));
+    }
+
+    private static List<GrantedAuthority> roles(String... codes) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (String code : codes) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + code));
+        }
+        return authorities;
+    }
+}
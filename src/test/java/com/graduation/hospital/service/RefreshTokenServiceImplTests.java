@@ -0,0 +1,132 @@
+package com.graduation.hospital.service;
+
+import com.graduation.hospital.common.audit.AuditLogger;
+import com.graduation.hospital.entity.RefreshToken;
+import com.graduation.hospital.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 刷新令牌轮换与重放检测
+ * 不使用测试事务：每次调用与线上一样在自己的事务中提交，
+ * 重放时吊销 family 的更新必须在抛出异常后依然提交
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(RefreshTokenServiceImpl.class)
+class RefreshTokenServiceImplTests {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws IOException {
+        Path file = Files.createTempFile("refresh-token-test", ".db");
+        file.toFile().deleteOnExit();
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + file);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+    }
+
+    @Autowired
+    private RefreshTokenServiceImpl refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @MockitoBean
+    private AuditLogger auditLogger;
+
+    @AfterEach
+    void clean() {
+        refreshTokenRepository.deleteAll();
+    }
+
+    @Test
+    void rotateIssuesNewTokenInSameFamily() {
+        String issued = refreshTokenService.issue(1L);
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(issued);
+
+        assertEquals(1L, rotation.userId());
+        assertNotEquals(issued, rotation.refreshToken());
+        List<RefreshToken> family = refreshTokenRepository.findAll();
+        assertEquals(2, family.size());
+        assertEquals(1, family.stream().map(RefreshToken::getFamilyId).distinct().count());
+        assertEquals(1, family.stream().filter(token -> token.getUsedAt() != null).count());
+        assertTrue(family.stream().noneMatch(RefreshToken::getRevoked));
+    }
+
+    @Test
+    void replayRevokesFamilyAndRejectsNewToken() {
+        String issued = refreshTokenService.issue(1L);
+        String rotated = refreshTokenService.rotate(issued).refreshToken();
+        String familyId = refreshTokenRepository.findAll().get(0).getFamilyId();
+        // 其他会话的令牌不受影响
+        String otherSession = refreshTokenService.issue(1L);
+
+        // 已轮换的令牌再次出现
+        IllegalArgumentException replay = assertThrows(IllegalArgumentException.class,
+                () -> refreshTokenService.rotate(issued));
+        assertEquals("刷新令牌已失效", replay.getMessage());
+
+        // 吊销在异常之后依然提交：整个 family 失效
+        List<RefreshToken> tokens = refreshTokenRepository.findAll();
+        assertTrue(tokens.stream()
+                .filter(token -> token.getFamilyId().equals(familyId))
+                .allMatch(RefreshToken::getRevoked));
+        verify(auditLogger).logAction(eq(AuditLogger.ActionType.LOGIN_FAILED), anyString(), anyString(),
+                eq("userId=1"), eq(false), anyString());
+
+        // 轮换出的新令牌同样被拒绝
+        IllegalArgumentException reuse = assertThrows(IllegalArgumentException.class,
+                () -> refreshTokenService.rotate(rotated));
+        assertEquals("刷新令牌已失效", reuse.getMessage());
+
+        assertEquals(1L, refreshTokenService.rotate(otherSession).userId());
+    }
+
+    @Test
+    void rejectsUnknownAndExpiredTokens() {
+        IllegalArgumentException unknown = assertThrows(IllegalArgumentException.class,
+                () -> refreshTokenService.rotate("not-a-token"));
+        assertEquals("刷新令牌无效", unknown.getMessage());
+
+        String issued = refreshTokenService.issue(2L);
+        RefreshToken stored = refreshTokenRepository.findAll().get(0);
+        stored.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+        refreshTokenRepository.save(stored);
+
+        IllegalArgumentException expired = assertThrows(IllegalArgumentException.class,
+                () -> refreshTokenService.rotate(issued));
+        assertEquals("刷新令牌已过期", expired.getMessage());
+        verifyNoInteractions(auditLogger);
+    }
+
+    @Test
+    void revokeInvalidatesWholeFamily() {
+        String issued = refreshTokenService.issue(3L);
+        String rotated = refreshTokenService.rotate(issued).refreshToken();
+
+        refreshTokenService.revoke(rotated);
+
+        assertTrue(refreshTokenRepository.findAll().stream().allMatch(RefreshToken::getRevoked));
+        assertThrows(IllegalArgumentException.class, () -> refreshTokenService.rotate(rotated));
+    }
+}